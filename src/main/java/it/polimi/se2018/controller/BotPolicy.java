@@ -0,0 +1,37 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.PrivateObjectiveCard;
+import it.polimi.se2018.model.WindowPattern;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Policy followed by a bot playing a seat of a simulated game.
+ * The same policy instance may play many games at the same time on different threads,
+ * so implementations must not keep state between calls.
+ *
+ * @author Federico Haag
+ * @see Simulation
+ * @see BotTurn
+ */
+public interface BotPolicy {
+
+    /**
+     * Chooses the window pattern of the bot among the given ones
+     *
+     * @param windowPatterns the window patterns the bot can choose from
+     * @param privateObjectiveCard the private objective card of the bot
+     * @param random the source of randomness of the bot
+     * @return the chosen window pattern
+     */
+    WindowPattern chooseWindowPattern(List<WindowPattern> windowPatterns, PrivateObjectiveCard privateObjectiveCard, Random random);
+
+    /**
+     * Plays a turn of the bot performing moves on the given turn.
+     * If the turn is not over when the method returns, it is ended by the simulation.
+     *
+     * @param turn the turn to play
+     */
+    void playTurn(BotTurn turn);
+}
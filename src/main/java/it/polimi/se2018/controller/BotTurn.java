@@ -0,0 +1,169 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.Game;
+import it.polimi.se2018.model.GameStatus;
+import it.polimi.se2018.model.Player;
+import it.polimi.se2018.model.ToolCard;
+import it.polimi.se2018.model.Turn;
+import it.polimi.se2018.utils.ControllerBoundMessageType;
+import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.Move;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Turn of a bot in a simulated game. It lets the {@link BotPolicy} look at the game
+ * and perform moves, that are handled by the controller exactly as the ones coming from a player.
+ *
+ * @author Federico Haag
+ * @see BotPolicy
+ */
+public final class BotTurn {
+
+    /**
+     * String used as message of IllegalArgumentException when params are not given as couples
+     */
+    private static final String PARAMS_NOT_IN_COUPLES = "Params must be given as couples of name and value.";
+
+    /**
+     * Permissions of a player at the beginning of its turn, as sent by the controller with IT_IS_YOUR_TURN
+     */
+    private static final Set<Move> TURN_START_PERMISSIONS = EnumSet.of(Move.DRAFT_DICE_FROM_DRAFTPOOL, Move.USE_TOOLCARD, Move.END_TURN);
+
+    /**
+     * The controller of the simulated game
+     */
+    private final Controller controller;
+
+    /**
+     * The turn played by the bot
+     */
+    private final Turn turn;
+
+    /**
+     * The source of randomness of the bot
+     */
+    private final Random random;
+
+    /**
+     * Called with the player and the toolCard each time a toolCard is used
+     */
+    private final BiConsumer<String, ToolCard> toolCardListener;
+
+    /**
+     * Moves that can be performed now, updated with the permissions of each accepted move as the views do
+     */
+    private Set<Move> permissions = TURN_START_PERMISSIONS;
+
+    /**
+     * Constructor of the current turn of the given controller
+     *
+     * @param controller the controller of the simulated game
+     * @param random the source of randomness of the bot
+     * @param toolCardListener called with the player and the toolCard each time a toolCard is used
+     */
+    BotTurn(Controller controller, Random random, BiConsumer<String, ToolCard> toolCardListener) {
+        this.controller = controller;
+        this.turn = controller.game.getCurrentRound().getCurrentTurn();
+        this.random = random;
+        this.toolCardListener = toolCardListener;
+    }
+
+    /**
+     * Returns the simulated game. It must not be modified: moves have to be performed through {@link BotTurn#perform(Move, Object...)}.
+     *
+     * @return the simulated game
+     */
+    public Game getGame() {
+        return controller.game;
+    }
+
+    /**
+     * Returns the player playing the turn
+     *
+     * @return the player playing the turn
+     */
+    public Player getPlayer() {
+        return turn.getPlayer();
+    }
+
+    /**
+     * Returns the turn played by the bot
+     *
+     * @return the turn played by the bot
+     */
+    public Turn getTurn() {
+        return turn;
+    }
+
+    /**
+     * Returns the source of randomness of the bot
+     *
+     * @return the source of randomness of the bot
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Returns the moves that can be performed now
+     *
+     * @return the moves that can be performed now
+     */
+    public Set<Move> getPermissions() {
+        return Collections.unmodifiableSet(permissions);
+    }
+
+    /**
+     * Returns the toolCard whose effect is being applied
+     *
+     * @return the toolCard whose effect is being applied, or null if no toolCard is being used
+     */
+    public ToolCard getActiveToolCard() {
+        return controller.getActiveToolCard();
+    }
+
+    /**
+     * Returns true if the turn is over, because it was ended or because the game ended
+     *
+     * @return true if the turn is over
+     */
+    public boolean isOver() {
+        return controller.game.getStatus() != GameStatus.PLAYING
+                || controller.game.getCurrentRound().getCurrentTurn() != turn;
+    }
+
+    /**
+     * Performs a move
+     *
+     * @param move the move to perform
+     * @param params the params of the move, as couples of name and value (e.g. "row", 2, "col", 3)
+     * @return true if the move was accepted
+     */
+    public boolean perform(Move move, Object... params) {
+        if(params.length % 2 != 0){ throw new IllegalArgumentException(PARAMS_NOT_IN_COUPLES); }
+        if(isOver()){ return false; }
+
+        HashMap<String, Object> map = new HashMap<>();
+        map.put("move", move);
+        for(int i = 0; i < params.length; i += 2){
+            map.put((String) params[i], params[i + 1]);
+        }
+
+        Message answer = controller.handleMoveMessage(new Message(ControllerBoundMessageType.MOVE, map, turn.getPlayer().getID()));
+        boolean accepted = Controller.isAccepted(answer);
+        if(accepted && answer.getPermissions() != null){
+            permissions = answer.getPermissions();
+        }
+
+        if(accepted && move == Move.USE_TOOLCARD){
+            toolCardListener.accept(turn.getPlayer().getID(), (ToolCard) map.get("toolCard"));
+        }
+        return accepted;
+    }
+}
@@ -3,9 +3,12 @@ package it.polimi.se2018.controller;
 import it.polimi.se2018.model.*;
 import it.polimi.se2018.utils.*;
 import it.polimi.se2018.utils.Observable;
+import it.polimi.se2018.utils.Observer;
 import it.polimi.se2018.view.View;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
@@ -16,6 +19,10 @@ import java.util.logging.Logger;
  * {@code Controller} receives messages from connected {@link View}(s) validating and, in case,
  * redirecting them to the connected {@link Game}.
  *
+ * Everything that changes the game holds the lock of the controller: the moves of the players, the expired timers,
+ * the changes of connection of the players and the moves of the bot. So they are applied one at a time, whatever
+ * thread they come from.
+ *
  * @author Lorenzo Minto
  * @author Jacopo Pio Gargano
  * @author Federico Haag
@@ -42,11 +49,31 @@ public class Controller extends Observable {
      */
     private static final String PARAM_MOVE = "move";
 
+    /**
+     * Param name of the placement rule sent to the player that can place a dice
+     */
+    private static final String PARAM_PLACEMENT_RULE = "placementRule";
+
     /**
      * Logger
      */
     private static final String STRING_PLAYER = "player";
 
+    /**
+     * String logged when the game log can't be written
+     */
+    private static final String GAME_LOG_WRITING_FAILED = "Failed writing the game log: ";
+
+    /**
+     * String used as message of the logger when the replay of the game can't be written
+     */
+    private static final String REPLAY_WRITING_FAILED = "Failed writing the replay of the game: ";
+
+    /**
+     * String logged when the bot can't play the turn of an inactive player
+     */
+    private static final String BOT_CANT_PLAY_TURN = "The bot can't play now the turn of the inactive player: ";
+
     /**
      * Logger
      */
@@ -122,11 +149,21 @@ public class Controller extends Observable {
      */
     private final Properties properties;
 
+    /**
+     * Configuration parsed from the properties. Its timeouts can be replaced while the game is played.
+     */
+    private volatile Config config;
+
     /**
      * Timer used to start game after a while after it's asked to players to choose window pattern
      */
     private static final Timer TIMER = new Timer();
 
+    /**
+     * Maximum number of placement hints kept by the controller
+     */
+    private static final int PLACEMENT_HINTS_CACHE_CAPACITY = 256;
+
     /**
      * Timer waiting for all players choosing theirs patterns
      */
@@ -162,6 +199,71 @@ public class Controller extends Observable {
      */
     private Persistency persistency;
 
+    /**
+     * Write-ahead log of the game used to recover it after a crash of the server. Null if the game is not logged.
+     */
+    private GameLog gameLog = null;
+
+    /**
+     * Source of randomness of the game. Being seeded, the same seed and the same events always give the same game.
+     */
+    protected final Random random;
+
+    /**
+     * Seed of {@link Controller#random}
+     */
+    private final long seed;
+
+    /**
+     * Path of the replay file written when the game ends. Null if the replay of the game is not recorded.
+     */
+    private String replayPath = null;
+
+    /**
+     * Recorder of the events of the game. It is created when the game is launched, if a replay path was set.
+     */
+    private ReplayRecorder replayRecorder = null;
+
+    /**
+     * True if the game is driven without timers and without persisting rankings (e.g. while replaying it)
+     */
+    private boolean headless = false;
+
+    /**
+     * Final scores of the players, from the winner to the last one. Null until the game ends.
+     */
+    private LinkedHashMap<String,Integer> finalScores = null;
+
+    /**
+     * Bot playing the turns of inactive players. Null if turns of inactive players are skipped.
+     */
+    private MctsBot bot = null;
+
+    /**
+     * Engine advising the players where to place their drafted dice, created when hints are asked the first time.
+     * It has its own source of randomness, so asking for hints never changes the dices that will be drawn.
+     */
+    private PlacementHintEngine placementHintEngine = null;
+
+    /**
+     * True if the notifications of a move are sent together once the move is handled
+     */
+    private boolean batchesNotifications = false;
+
+    /**
+     * Notifications collected while the move received by the current thread is handled.
+     * Notifications of other threads (e.g. timers) are not collected.
+     */
+    private final ThreadLocal<NotificationBatch> moveNotifications = new ThreadLocal<>();
+
+    /**
+     * Observer of the game relaying its notifications as notifications of this controller
+     */
+    private final Observer gameNotificationsRelay = message -> {
+        notify(message);
+        return true;
+    };
+
     /**
      * Just for testing
      * @param game the game instance to be controlled
@@ -181,33 +283,70 @@ public class Controller extends Observable {
      * @param logger the logger instance sent from server
      */
     public Controller(Game game, Properties properties, Logger logger) {
+        this(game, properties, logger, new Random().nextLong());
+    }
+
+    /**
+     * Construct a controller with reference to a game instance
+     * and all manager and factory classes needed to the correct
+     * working of the game, whose random choices are all taken from the given seed
+     *
+     * @param game the game instance to be controlled
+     * @param properties dictionary of parameters loaded from config file
+     * @param logger the logger instance sent from server
+     * @param seed the seed of the source of randomness of the game
+     */
+    public Controller(Game game, Properties properties, Logger logger, long seed) {
+        this(game, properties, logger, seed,
+                new WindowPatternManager(), new ToolCardManager(PlacementRule.getDefault()));
+    }
+
+    /**
+     * Construct a controller with reference to a game instance
+     * and all manager and factory classes needed to the correct
+     * working of the game, whose random choices are all taken from the given seed.
+     * Window patterns and toolCards are chosen among the ones of the given managers, sharing the ones
+     * they already loaded, so that many games (e.g. of a simulation) load each file only once.
+     *
+     * @param game the game instance to be controlled
+     * @param properties dictionary of parameters loaded from config file
+     * @param logger the logger instance sent from server
+     * @param seed the seed of the source of randomness of the game
+     * @param windowPatternLibrary the manager whose window patterns are shared
+     * @param toolCardLibrary the manager whose toolCards are shared
+     */
+    Controller(Game game, Properties properties, Logger logger, long seed,
+               WindowPatternManager windowPatternLibrary, ToolCardManager toolCardLibrary) {
         this.logger = logger;
         this.properties = properties;
+        this.config = new Config(properties);
+        this.seed = seed;
+        this.random = new Random(seed);
 
-        int numberOfDicesPerColor = Integer.parseInt( properties.getProperty("numberOfDicesPerColor") );
-        int numberOfToolCards = Integer.parseInt( properties.getProperty("numberOfToolCards") );
-        int numberOfPublicObjectiveCards =  Integer.parseInt( properties.getProperty("numberOfPublicObjectiveCards") );
+        int numberOfDicesPerColor = config.getNumberOfDicesPerColor();
+        int numberOfToolCards = config.getNumberOfToolCards();
+        int numberOfPublicObjectiveCards = config.getNumberOfPublicObjectiveCards();
 
         String persistencyPath = properties.getProperty("persistencyPath");
 
         //Create Managers
         this.stateManager = new ControllerStateManager(this);
 
-        this.windowPatternManager = new WindowPatternManager();
+        this.windowPatternManager = new WindowPatternManager(windowPatternLibrary, random);
 
         /*
           Contains an instance of a ToolCardManager that is the one
           that creates the ToolCard(s) to be assigned to the Game
         */
-        ToolCardManager toolCardManager = new ToolCardManager(this.getDefaultPlacementRule());
+        ToolCardManager toolCardManager = new ToolCardManager(toolCardLibrary, random);
 
-        this.objectiveCardManager = new ObjectiveCardManager();
+        this.objectiveCardManager = new ObjectiveCardManager(random);
 
         //Set main attributes
         this.game = game;
         this.controllerState =  this.stateManager.getStartState();
         this.activeToolcard = null;
-        this.diceBag = new DiceBag(numberOfDicesPerColor);
+        this.diceBag = new DiceBag(numberOfDicesPerColor, random);
 
         //Produces and sets cards to the game
         List<PublicObjectiveCard> publicObjectiveCards = objectiveCardManager.getPublicObjectiveCards(numberOfPublicObjectiveCards);
@@ -217,7 +356,85 @@ public class Controller extends Observable {
         this.game.setCards(toolCards,publicObjectiveCards);
 
         this.persistency = new Persistency(persistencyPath);
-        this.persistency.loadRankings();
+    }
+
+    /**
+     * Construct a controller of a game restored from the snapshot of the given recovery.
+     * The game is actually resumed calling {@link Controller#resumeGame(GameLog.Recovery, GameLog)}.
+     *
+     * @param recovery the recovery containing the snapshot of the game
+     * @param properties dictionary of parameters loaded from config file
+     * @param logger the logger instance sent from server
+     */
+    public Controller(GameLog.Recovery recovery, Properties properties, Logger logger) {
+        this(recovery.getSnapshot(), properties, logger);
+    }
+
+    /**
+     * Construct a controller of a game restored from the given snapshot, taken at the beginning of a turn
+     *
+     * @param snapshot the snapshot of the game
+     * @param properties dictionary of parameters loaded from config file
+     * @param logger the logger instance sent from server
+     */
+    Controller(GameSnapshot snapshot, Properties properties, Logger logger) {
+        this.logger = logger;
+        this.properties = properties;
+        this.config = new Config(properties);
+
+        //The seed is not known anymore, so the replay of a recovered game can't be recorded
+        this.seed = 0;
+        this.random = snapshot.getRandom();
+
+        this.stateManager = new ControllerStateManager(this);
+        this.windowPatternManager = new WindowPatternManager(random);
+        this.objectiveCardManager = new ObjectiveCardManager(random);
+
+        this.game = snapshot.getGame();
+        this.diceBag = snapshot.getDiceBag();
+        this.inactivePlayers = snapshot.getInactivePlayers();
+        this.inactiveDisconnectedPlayers = snapshot.getInactiveDisconnectedPlayers();
+        this.startTime = System.currentTimeMillis() - snapshot.getElapsedTime();
+
+        //Snapshots are taken at the beginning of a turn
+        this.controllerState = this.stateManager.getStartState();
+        resetActiveToolCard();
+        if(getCurrentPlayer().getWindowPattern().isEmpty()){
+            this.placementRule = getFirstPlacementRule();
+        }
+
+        this.persistency = new Persistency(properties.getProperty("persistencyPath"));
+    }
+
+    /**
+     * Construct a headless copy of the game of the given controller, taken at the beginning of a turn,
+     * whose dices are drawn from the given source of randomness. Inactive players are not kept:
+     * in the copy every player plays its turns. Unlike a restored controller, the copy creates no managers
+     * and no persistency, as it is only played by the bot and then thrown away.
+     *
+     * @param controller the copied controller
+     * @param random the source of randomness of the copy
+     */
+    Controller(Controller controller, Random random) {
+        this.logger = controller.logger;
+        this.properties = controller.properties;
+        this.config = controller.config;
+        this.seed = 0;
+        this.random = random;
+        this.headless = true;
+
+        this.stateManager = new ControllerStateManager(this);
+
+        this.game = controller.game.copy();
+        this.diceBag = controller.diceBag.copy(random);
+        this.startTime = controller.startTime;
+
+        //Copies are taken at the beginning of a turn
+        this.controllerState = this.stateManager.getStartState();
+        resetActiveToolCard();
+        if(getCurrentPlayer().getWindowPattern().isEmpty()){
+            this.placementRule = getFirstPlacementRule();
+        }
     }
 
     /**
@@ -251,17 +468,79 @@ public class Controller extends Observable {
      * @param message the Message with the parameters to be analyzed and processed
      * @return an ACKNOWLEDGMENT_MESSAGE or an error message
      */
-    public Message handleMoveMessage(Message message) {
+    public synchronized Message handleMoveMessage(Message message) {
+        if(!batchesNotifications || moveNotifications.get()!=null){
+            return handleMove(message);
+        }
+
+        NotificationBatch batch = new NotificationBatch();
+        moveNotifications.set(batch);
+        try {
+            return handleMove(message);
+        } finally {
+            moveNotifications.remove();
+            if(!batch.isEmpty()){
+                super.notify(batch.toMessage());
+            }
+        }
+    }
+
+    /**
+     * Handles the given move, checking the status of the game
+     *
+     * @param message the Message with the parameters to be analyzed and processed
+     * @return an ACKNOWLEDGMENT_MESSAGE or an error message
+     */
+    private Message handleMove(Message message) {
+        Message returnMessage;
         switch(game.getStatus()){
             case WAITING_FOR_PATTERNS_CHOICE:
-                return handleMoveInWaitingForPatternsChoiceStatus(message);
+                returnMessage = handleMoveInWaitingForPatternsChoiceStatus(message);
+                break;
 
             case PLAYING:
-                return handleMoveInPlayingStatus(message);
+                long sequence = reserveGameLogSequence();
+                returnMessage = handleMoveInPlayingStatus(message);
+                logAcceptedMove(sequence, message, returnMessage);
+                break;
 
             default:
                 return new Message(ViewBoundMessageType.ERROR_MESSAGE);
         }
+
+        if(isAccepted(returnMessage)){
+            recordReplay(recorder -> recorder.recordMove(message));
+        }
+        writeReplayIfGameEnded();
+        return returnMessage;
+    }
+
+    /**
+     * Sends the given message to the observers of this controller or, if the current thread
+     * is handling a move, collects it to be sent together with the other notifications of the move
+     *
+     * @param message message to be sent
+     */
+    @Override
+    public void notify(Message message){
+        NotificationBatch batch = moveNotifications.get();
+        if(batch!=null){
+            batch.add(message);
+        } else {
+            super.notify(message);
+        }
+    }
+
+    /**
+     * Returns true if the answer to a move means that the move was accepted
+     *
+     * @param returnMessage the answer to the move
+     * @return true if the move was accepted
+     */
+    static boolean isAccepted(Message returnMessage){
+        return returnMessage==null
+                || (returnMessage.getType()!=ViewBoundMessageType.ERROR_MESSAGE
+                && returnMessage.getType()!=ViewBoundMessageType.BAD_FORMATTED);
     }
 
     /**
@@ -279,7 +558,11 @@ public class Controller extends Observable {
 
             //Update permissions
             if (returnMessage.getType() == ViewBoundMessageType.ACKNOWLEDGMENT_MESSAGE) {
-                returnMessage.setPermissions(controllerState.getStatePermissions());
+                Set<Move> permissions = controllerState.getStatePermissions();
+                if (permissions.contains(Move.PLACE_DICE_ON_WINDOWPATTERN)) {
+                    returnMessage = withPlacementRule(returnMessage);
+                }
+                returnMessage.setPermissions(permissions);
                 HashMap<String,Object> params = new HashMap<>();
                 params.put("oldParams", message.getParams());
                 params.put(STRING_PLAYER, sendingPlayerID);
@@ -310,6 +593,19 @@ public class Controller extends Observable {
         }
     }
 
+    /**
+     * Returns a copy of the given answer containing the current placement rule, so that the view
+     * of the player can check its placements with the same rule before sending them
+     *
+     * @param returnMessage the answer to a move
+     * @return the answer containing the current placement rule
+     */
+    private Message withPlacementRule(Message returnMessage){
+        Map<String,Object> params = new HashMap<>(returnMessage.getParams());
+        params.put(PARAM_PLACEMENT_RULE, placementRule);
+        return new Message(returnMessage.getType(), params, returnMessage.getPlayerID());
+    }
+
     private void notifyPlayerQuitted(String playerID){
         notify(new Message(ViewBoundMessageType.A_PLAYER_QUITTED,Message.fastMap("nickname",playerID)));
     }
@@ -452,7 +748,7 @@ public class Controller extends Observable {
             if( game.assignWindowPatternToPlayer(wp,playerID) ){
 
                 if( checkIfAllPlayersChoseWP() ){
-                    waitingForPatternsChoice.cancel();
+                    cancelPatternsChoiceTimer();
                     startGame();
                     return null;
 
@@ -492,15 +788,10 @@ public class Controller extends Observable {
      */
     protected boolean setActiveToolCard(ToolCard toolCard) {
 
-        //If a player has already drafted a dice, then they can't use a ToolCard that needs drafting
-        if(!toolCard.getTitle().equals("Running Pliers") && toolCard.needsDrafting() && game.getCurrentRound().getCurrentTurn().hasDraftedAndPlaced()){
+        if(!canActivateToolCard(toolCard)){
             return false;
         }
 
-        //check for card's timing constraints
-        Boolean x = conformsToCardTiminingContraints(toolCard);
-        if (!x) return x;
-
         Player currentPlayer = game.getCurrentRound().getCurrentTurn().getPlayer();
         if( currentPlayer.decreaseTokens(toolCard.getNeededTokens()) ){
             game.useToolCard(toolCard);
@@ -516,7 +807,27 @@ public class Controller extends Observable {
         }
     }
 
-    private Boolean conformsToCardTiminingContraints(ToolCard toolCard) {
+    /**
+     * Checks if the specified {@link ToolCard} could be activated now by the current player,
+     * without changing anything. Tokens are checked but not spent.
+     *
+     * @param toolCard the {@link ToolCard} to check
+     * @return true if the {@link ToolCard} could be activated now
+     */
+    boolean canActivateToolCard(ToolCard toolCard) {
+        Turn currentTurn = game.getCurrentRound().getCurrentTurn();
+
+        //If a player has already drafted a dice, then they can't use a ToolCard that needs drafting
+        if(!toolCard.getTitle().equals("Running Pliers") && toolCard.needsDrafting() && currentTurn.hasDraftedAndPlaced()){
+            return false;
+        }
+
+        //check for card's timing constraints
+        return conformsToCardTiminingContraints(toolCard)
+                && currentTurn.getPlayer().getFavorTokens() >= toolCard.getNeededTokens();
+    }
+
+    private boolean conformsToCardTiminingContraints(ToolCard toolCard) {
         switch (toolCard.getTitle()) {
             case "Glazing Hammer": //second turn before drafting only
                 if (game.getCurrentRound().getCurrentTurn().hasDraftedAndPlaced() ||  //or is player's first turn in the round
@@ -563,7 +874,15 @@ public class Controller extends Observable {
      *
      * @param nicknames the set of nicknames of the {@link Game}
      */
-    public void launchGame(Set<String> nicknames){
+    public synchronized void launchGame(Set<String> nicknames){
+
+        if(replayPath!=null){
+            try {
+                replayRecorder = new ReplayRecorder(replayPath, seed, properties, new ArrayList<>(nicknames));
+            } catch (IOException e) {
+                logger.severe(REPLAY_WRITING_FAILED + e.getMessage());
+            }
+        }
 
         Player player;
         for(String nickname : nicknames){
@@ -571,7 +890,7 @@ public class Controller extends Observable {
 
             game.addPlayer(player);
 
-            Set<WindowPattern> patterns = windowPatternManager.getPairsOfPatterns(getConfigProperty("amountOfCouplesOfPatternsPerPlayer"));
+            Set<WindowPattern> patterns = windowPatternManager.getPairsOfPatterns(config.getAmountOfCouplesOfPatternsPerPlayer());
 
             assignedWindowPatterns.put(nickname,new ArrayList<>(patterns));
 
@@ -583,14 +902,42 @@ public class Controller extends Observable {
 
         game.setStatusAsWaitingForPatternsChoice();
 
+        if(headless){ return; }
+
         //Start the timer for patterns choice
         this.waitingForPatternsChoice = new TimerTask() {
             @Override
             public void run() {
-                forcePatternChoice();
+                synchronized (Controller.this) {
+                    //the choice was completed while this task was waiting for the lock
+                    if(waitingForPatternsChoice != this || game.getStatus() != GameStatus.WAITING_FOR_PATTERNS_CHOICE){ return; }
+                    patternsChoiceTimerExpired();
+                }
             }
         };
-        TIMER.schedule(this.waitingForPatternsChoice,(long)(getConfigProperty("timeoutChoosingPatterns")*1000));
+        TIMER.schedule(this.waitingForPatternsChoice,(long)(config.getTimeoutChoosingPatterns()*1000));
+    }
+
+    /**
+     * Cancels the timer for patterns choice
+     *
+     * @return true if the timer was cancelled before expiring, false if it was not pending
+     */
+    private boolean cancelPatternsChoiceTimer(){
+        if(waitingForPatternsChoice==null){
+            //Without timer (headless game) the choice is pending as long as the game waits for it
+            return headless && game.getStatus()==GameStatus.WAITING_FOR_PATTERNS_CHOICE;
+        }
+        return waitingForPatternsChoice.cancel();
+    }
+
+    /**
+     * Called when the timer for patterns choice expires
+     */
+    synchronized void patternsChoiceTimerExpired(){
+        recordReplay(recorder -> recorder.recordEvent(ReplayEvent.Kind.PATTERNS_CHOICE_TIMEOUT, null));
+        forcePatternChoice();
+        writeReplayIfGameEnded();
     }
 
     /**
@@ -618,11 +965,9 @@ public class Controller extends Observable {
 
         game.startGame(getDicesForNewRound(),permissions);
 
-        this.placementRule = new BorderPlacementRuleDecorator(
-                new ColorPlacementRuleDecorator(
-                        new ValuePlacementRuleDecorator(
-                                new EmptyPlacementRule())));
+        this.placementRule = getFirstPlacementRule();
 
+        takeSnapshot();
         startPlayerMoveTimer();
     }
 
@@ -631,7 +976,9 @@ public class Controller extends Observable {
      * @see Controller#startPlayerMoveTimer()
      */
     private void resetPlayerMoveTimer(){
-        this.waitingForPlayerMove.cancel();
+        if(this.waitingForPlayerMove!=null){
+            this.waitingForPlayerMove.cancel();
+        }
         startPlayerMoveTimer();
     }
 
@@ -639,14 +986,53 @@ public class Controller extends Observable {
      * Starts the player move timer
      */
     private void startPlayerMoveTimer(){
+        startPlayerMoveTimer(config.getTimeoutPlayerMove()*1000L);
+    }
+
+    /**
+     * Expires the player move timer as soon as the lock of the controller is released, ending the turn.
+     * The turn ends as any turn timed out, so it is written in the replay and in the game log, and
+     * replays and recoveries of the game advance the same way.
+     */
+    private void expirePlayerMoveTimer(){
+        if(this.waitingForPlayerMove!=null){
+            this.waitingForPlayerMove.cancel();
+        }
+        startPlayerMoveTimer(0);
+    }
+
+    /**
+     * Starts the player move timer
+     *
+     * @param delay milliseconds after which the timer expires
+     */
+    private void startPlayerMoveTimer(long delay){
+        if(headless){ return; }
+
         this.waitingForPlayerMove = new TimerTask() {
             @Override
             public void run() {
-                logger.info("waitingForPlayerMove timer has expired. Calling advanceGameDueToPlayerInactivity()...");
-                handlePlayerInactivity();
+                synchronized (Controller.this) {
+                    //a move handled while this task was waiting for the lock already replaced it
+                    if(waitingForPlayerMove != this){ return; }
+                    logger.info("waitingForPlayerMove timer has expired. Calling advanceGameDueToPlayerInactivity()...");
+                    playerMoveTimerExpired();
+                }
             }
         };
-        TIMER.schedule(waitingForPlayerMove,(long)(getConfigProperty("timeoutPlayerMove")*1000));
+        TIMER.schedule(waitingForPlayerMove,delay);
+    }
+
+    /**
+     * Called when the player move timer expires
+     */
+    synchronized void playerMoveTimerExpired(){
+        long sequence = reserveGameLogSequence();
+        String playerID = getCurrentPlayer().getID();
+        recordReplay(recorder -> recorder.recordEvent(ReplayEvent.Kind.PLAYER_MOVE_TIMEOUT, playerID));
+        handlePlayerInactivity();
+        logPlayerMoveTimeout(sequence, playerID);
+        writeReplayIfGameEnded();
     }
 
     /**
@@ -677,7 +1063,7 @@ public class Controller extends Observable {
     }
 
     private boolean checkIfGameCanContinue(){
-        if( game.getPlayers().size() - inactivePlayers.size() < getConfigProperty("minNumberOfPlayers") ){
+        if( game.getPlayers().size() - inactivePlayers.size() < config.getMinNumberOfPlayers() ){
             try{
                 game.forceEndGameDueToInactivity();
             } catch (IllegalStateException e){
@@ -730,15 +1116,12 @@ public class Controller extends Observable {
 
         //if player's window pattern is empty
         if(getCurrentPlayer().getWindowPattern().isEmpty()){
-            this.placementRule = new BorderPlacementRuleDecorator(
-                    new ColorPlacementRuleDecorator(
-                            new ValuePlacementRuleDecorator(
-                                    new EmptyPlacementRule())));
+            this.placementRule = getFirstPlacementRule();
         }
 
         resetPlayerMoveTimer();
 
-        if( inactivePlayers.contains(getCurrentPlayer().getID()) ){
+        if( inactivePlayers.contains(getCurrentPlayer().getID()) && !substitutesInactivePlayers() ){
             /*
 
             advanceGame() è chiamato subito se il giocatore è inattivo.
@@ -772,8 +1155,25 @@ public class Controller extends Observable {
             o inviare un messaggio di BACK_GAMING per rientrare in gioco dopo eventuale inattività.
 
             */
+        } else {
+            takeSnapshot();
+
+            //The turn of an inactive player is played by the bot. If the bot can't play it, it is ended right away.
+            if(bot!=null && inactivePlayers.contains(getCurrentPlayer().getID()) && !bot.playTurn(this)){
+                logger.warning(BOT_CANT_PLAY_TURN + getCurrentPlayer().getID());
+                expirePlayerMoveTimer();
+            }
         }
+    }
 
+    /**
+     * Returns true if the turns of inactive players are not skipped, because they are played by a bot.
+     * It depends only on the config, so that replays and recoveries of the game advance the same way.
+     *
+     * @return true if the turns of inactive players are not skipped
+     */
+    private boolean substitutesInactivePlayers(){
+        return config.getBotThinkingTime() > 0;
     }
 
     /**
@@ -789,9 +1189,38 @@ public class Controller extends Observable {
      * Ends the current game. Calculates rankings and scores and then notify them to players.
      */
     private void manageRankings(){
+        //The ended game must not be recovered anymore, so rankings are never persisted twice
+        discardGameLog();
+
         LinkedHashMap<Player, Integer> rankings = (LinkedHashMap<Player,Integer>) getRankingsAndScores();
         game.setRankings(rankings);
 
+        finalScores = new LinkedHashMap<>();
+        for (Map.Entry<Player, Integer> entry : rankings.entrySet()) {
+            finalScores.put(entry.getKey().getID(), entry.getValue());
+        }
+
+        //Headless games (replays and simulations) do not take part in global rankings
+        if(!headless){
+            notifyAndPersistRankings(rankings);
+        }
+
+        notify(new Message(ViewBoundMessageType.GAME_ENDED, null, null,EnumSet.noneOf(Move.class)));
+
+        if(this.waitingForPlayerMove!=null){
+            this.waitingForPlayerMove.cancel();
+        }
+    }
+
+    /**
+     * Updates the global rankings with the results of the ended game and notifies them to players
+     *
+     * @param rankings the final rankings and scores of the game
+     */
+    private void notifyAndPersistRankings(Map<Player, Integer> rankings){
+        //Rankings are loaded now so that they include the results of games ended after the beginning of this one
+        persistency.loadRankings();
+
         List<RankingRecord> localRanking = new ArrayList<>();
 
         int index = 0;
@@ -824,10 +1253,6 @@ public class Controller extends Observable {
 
         //this is called to save the new updated rankings to memory
         persistency.persist();
-
-        notify(new Message(ViewBoundMessageType.GAME_ENDED, null, null,EnumSet.noneOf(Move.class)));
-
-        this.waitingForPlayerMove.cancel();
     }
 
     /**
@@ -846,14 +1271,20 @@ public class Controller extends Observable {
      * @return the default {@link PlacementRule}
      */
     private PlacementRule getDefaultPlacementRule(){
+        return PlacementRule.getDefault();
+    }
 
-        return new AdjacentValuePlacementRuleDecorator(
-                new AdjacentDicePlacementRuleDecorator(
-                        new AdjacentColorPlacementRuleDecorator(
-                                new ColorPlacementRuleDecorator(
-                                        new ValuePlacementRuleDecorator(
-                                                new EmptyPlacementRule())))));
+    /**
+     * Gets the {@link PlacementRule} used when the player has not placed any dice yet
+     *
+     * @return the {@link PlacementRule} used when the player has not placed any dice yet
+     */
+    private PlacementRule getFirstPlacementRule(){
 
+        return new BorderPlacementRuleDecorator(
+                new ColorPlacementRuleDecorator(
+                        new ValuePlacementRuleDecorator(
+                                new EmptyPlacementRule())));
     }
 
     /**
@@ -863,7 +1294,18 @@ public class Controller extends Observable {
      * @return Dictionary of configuration's parameters
      */
     public int getConfigProperty(String p){
-        return Integer.parseInt( this.properties.getProperty(p) );
+        return config.getInt(p);
+    }
+
+    /**
+     * Replaces the timeouts of the game with the ones of the given config, e.g. after the config file was tuned.
+     * The new timeouts are used from the next started timer. The other parameters don't change,
+     * because they were used building the game.
+     *
+     * @param newConfig the config containing the new timeouts
+     */
+    public void reloadTimeouts(Config newConfig){
+        this.config = config.withTimeoutsOf(newConfig);
     }
 
 
@@ -871,12 +1313,14 @@ public class Controller extends Observable {
      * Called by server when a player loose connection
      * @param playerID the player id of the player who lost connection
      */
-    public void playerLostConnection(String playerID){
+    public synchronized void playerLostConnection(String playerID){
+        recordReplay(recorder -> recorder.recordEvent(ReplayEvent.Kind.PLAYER_LOST_CONNECTION, playerID));
+
         if(this.inactivePlayers.add(playerID)){
             this.inactiveDisconnectedPlayers.add(playerID);
         }
         notify(new Message(ViewBoundMessageType.A_PLAYER_DISCONNECTED,Message.fastMap(STRING_PLAYER,playerID)));
-        if(waitingForPatternsChoice.cancel()){
+        if(cancelPatternsChoiceTimer()){
             forcePatternChoice();
         }
 
@@ -885,13 +1329,17 @@ public class Controller extends Observable {
                 && this.getCurrentPlayer().getID().equals(playerID)){
             advanceGameDueToPlayerInactivity();
         }
+
+        writeReplayIfGameEnded();
     }
 
     /**
      * Called by server when a player restore its connection
      * @param playerID the player id of the player who restored its connection
      */
-    public void playerRestoredConnection(String playerID){
+    public synchronized void playerRestoredConnection(String playerID){
+        recordReplay(recorder -> recorder.recordEvent(ReplayEvent.Kind.PLAYER_RESTORED_CONNECTION, playerID));
+
         if(this.inactivePlayers.contains(playerID)){
             if(this.inactiveDisconnectedPlayers.contains(playerID)){
                 this.inactiveDisconnectedPlayers.remove(playerID);
@@ -902,4 +1350,382 @@ public class Controller extends Observable {
             }
         }
     }
+
+    /**
+     * Returns true if the given player takes part in the controlled game
+     *
+     * @param playerID the player id to look for
+     * @return true if the given player takes part in the controlled game
+     */
+    public boolean hasPlayer(String playerID){
+        for(Player player : game.getPlayers()){
+            if(player.getID().equals(playerID)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Called by server when a player joins again a game that was restored after a crash.
+     * The player receives all the information needed to rebuild its view of the game.
+     *
+     * @param playerID the player id of the player who joined again the game
+     */
+    public synchronized void playerRejoined(String playerID){
+        playerRestoredConnection(playerID);
+        game.sendGameStateTo(playerID, controllerState.getStatePermissions());
+    }
+
+    /**
+     * Returns the public state of the controlled game, that spectators receive when they
+     * start watching it or when they can't keep up with the events of the game
+     *
+     * @return the public state of the game, or null if no turn is being played
+     * @see Game#getPublicState()
+     */
+    public synchronized Message getPublicGameState(){
+        return game.getPublicState();
+    }
+
+    /**
+     * Sets the log where the game is written in order to recover it after a crash
+     *
+     * @param gameLog the log where the game is written
+     */
+    public void setGameLog(GameLog gameLog){
+        this.gameLog = gameLog;
+    }
+
+    /**
+     * Sets the path of the replay file written when the game ends. It must be called before launching the game.
+     *
+     * @param replayPath the path of the replay file
+     */
+    public void setReplayPath(String replayPath){
+        this.replayPath = replayPath;
+    }
+
+    /**
+     * Lets the game be driven without timers and without persisting rankings.
+     * Expired timers have to be signaled calling {@link Controller#playerMoveTimerExpired()}
+     * and {@link Controller#patternsChoiceTimerExpired()}. It must be called before launching the game.
+     */
+    void setHeadless(){
+        this.headless = true;
+    }
+
+    /**
+     * Makes the notifications of each move to be sent together once the move is handled,
+     * dropping the outdated states of draftpool, track and window patterns.
+     * Notifications of the game are relayed to the observers of this controller, that must not observe the game too.
+     */
+    public void batchNotificationsOfMoves(){
+        this.batchesNotifications = true;
+        game.register(gameNotificationsRelay);
+    }
+
+    /**
+     * Returns the config of the game
+     *
+     * @return dictionary of parameters loaded from config file
+     */
+    Properties getProperties(){
+        return properties;
+    }
+
+    /**
+     * Sets the bot that plays the turns of inactive players, if enabled by the config
+     *
+     * @param bot the bot that plays the turns of inactive players
+     */
+    public void setBot(MctsBot bot){
+        this.bot = bot;
+    }
+
+    /**
+     * Performs an action chosen by the bot in its turn, holding the lock of the controller as the moves of the players do.
+     * Nothing is performed if the turn is already over (e.g. it was ended by the timer while the bot was thinking).
+     *
+     * @param turn the turn played by the bot
+     * @param action the action, as generated by {@link MoveGenerator}
+     * @return true if the action was performed
+     */
+    synchronized boolean performBotAction(BotTurn turn, int action){
+        return !turn.isOver() && MoveGenerator.perform(turn, action);
+    }
+
+    /**
+     * Ends the turn played by the bot, if it is not over yet, holding the lock of the controller
+     *
+     * @param turn the turn played by the bot
+     */
+    synchronized void endBotTurn(BotTurn turn){
+        if(!turn.isOver()){
+            turn.perform(Move.END_TURN);
+        }
+    }
+
+    /**
+     * Returns the scores of the players as if the game ended now
+     *
+     * @return the scores of the players, from the first to the last one
+     */
+    Map<String,Integer> getCurrentScores(){
+        if(finalScores!=null){ return getFinalScores(); }
+
+        Map<String,Integer> scores = new LinkedHashMap<>();
+        for (Map.Entry<Player, Integer> entry : getRankingsAndScores().entrySet()) {
+            scores.put(entry.getKey().getID(), entry.getValue());
+        }
+        return scores;
+    }
+
+    /**
+     * Returns where the given player should place the dice drafted in the current turn, from the best cell.
+     * Cells are ranked by the score the player is expected to reach at the end of the game, estimated
+     * playing out random future draft pools within the given time budget. The estimation runs on copies,
+     * without holding the lock of the controller, so it never delays the moves of the players.
+     *
+     * @param playerID the ID of the player
+     * @param timeBudget milliseconds the estimation can last
+     * @return the hints for the cells where the drafted dice can be placed, empty if it's not the turn of
+     * the player or there is no drafted dice to place
+     */
+    public List<PlacementHint> getPlacementHints(String playerID, long timeBudget){
+        return preparePlacementHints(playerID, timeBudget).get();
+    }
+
+    /**
+     * Copies, holding the lock of the controller, what is needed to estimate where the given player should place
+     * the dice drafted in the current turn
+     *
+     * @param playerID the ID of the player
+     * @param timeBudget milliseconds the estimation can last
+     * @return the estimation of the hints, to be run without holding the lock of the controller
+     */
+    private synchronized Supplier<List<PlacementHint>> preparePlacementHints(String playerID, long timeBudget){
+        if(game.getStatus() != GameStatus.PLAYING || !game.isCurrentPlayer(playerID)){ return Collections::emptyList; }
+
+        Round round = game.getCurrentRound();
+        Dice draftedDice = round.getCurrentTurn().getDraftedDice();
+        if(draftedDice == null){ return Collections::emptyList; }
+
+        Player player = round.getCurrentTurn().getPlayer();
+        WindowPattern windowPattern = player.getWindowPattern().copy();
+        Dice dice = draftedDice.copy();
+        PlacementRule currentPlacementRule = placementRule;
+        PlacementRule futurePlacementRule = getDefaultPlacementRule();
+        List<PublicObjectiveCard> publicObjectiveCards = game.getDrawnPublicObjectiveCards();
+        PrivateObjectiveCard privateObjectiveCard = player.getPrivateObjectiveCard();
+        int placementsLeft = round.getNumberOfNextTurnsOf(player)
+                + 2 * Math.max(0, game.getNumberOfRounds() - 1 - round.getNumber());
+        int draftPoolSize = 2 * game.getPlayers().size() + 1;
+
+        if(placementHintEngine == null){
+            placementHintEngine = new PlacementHintEngine(PLACEMENT_HINTS_CACHE_CAPACITY, new Random());
+        }
+        PlacementHintEngine engine = placementHintEngine;
+        return () -> engine.getHints(windowPattern, dice, currentPlacementRule, futurePlacementRule,
+                publicObjectiveCards, privateObjectiveCard, placementsLeft, draftPoolSize, timeBudget);
+    }
+
+    /**
+     * Returns the hash of the position of the game, including the state of the controller and the toolCard being used,
+     * so that positions in the middle of the effect of a toolCard are not confused with the others
+     *
+     * @return the hash of the position of the game
+     * @see Game#getZobristHash()
+     */
+    long getZobristHash(){
+        long hash = game.getZobristHash();
+        hash ^= Zobrist.mix(controllerState.getClass().getName().hashCode() & 0xFFFF_FFFFL);
+        if(activeToolcard != null){
+            hash ^= Zobrist.mix((1L << 32) | (activeToolcard.getTitle().hashCode() & 0xFFFF_FFFFL));
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the final scores of the players
+     *
+     * @return the final scores of the players from the winner to the last one, or null if the game is not ended
+     */
+    Map<String,Integer> getFinalScores(){
+        return (finalScores==null) ? null : new LinkedHashMap<>(finalScores);
+    }
+
+    /**
+     * Returns the window patterns that were given to choose to the given player
+     *
+     * @param playerID the player that was given the window patterns
+     * @return the window patterns that were given to choose to the given player
+     */
+    List<WindowPattern> getAssignedWindowPatterns(String playerID){
+        List<WindowPattern> patterns = assignedWindowPatterns.get(playerID);
+        return (patterns==null) ? new ArrayList<>() : new ArrayList<>(patterns);
+    }
+
+    /**
+     * Returns the window pattern with the given ID among the ones that were given to choose to the given player
+     *
+     * @param playerID the player that was given the window pattern
+     * @param patternID the ID of the window pattern
+     * @return the window pattern or null if it was not given to the player
+     */
+    WindowPattern getAssignedWindowPattern(String playerID, String patternID){
+        List<WindowPattern> patterns = assignedWindowPatterns.get(playerID);
+        if(patterns==null){ return null; }
+
+        for(WindowPattern pattern : patterns){
+            if(pattern.getID().equals(patternID)){
+                return pattern;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resumes a game restored from a snapshot replaying the records written in the log after it.
+     * Replayed records are not logged again: a new snapshot including all of them is taken at the end.
+     *
+     * @param recovery the recovery the controller was created from
+     * @param gameLog the log where the resumed game is written
+     */
+    public synchronized void resumeGame(GameLog.Recovery recovery, GameLog gameLog){
+        startPlayerMoveTimer();
+
+        for(GameLog.LogRecord record : recovery.getRecords()){
+            if(game.getStatus()!=GameStatus.PLAYING){ break; }
+
+            if(record.isPlayerMoveTimeout()){
+                handlePlayerInactivity();
+            } else {
+                handleMoveMessage(record.getMove());
+            }
+        }
+
+        this.gameLog = gameLog;
+
+        if(game.getStatus()==GameStatus.PLAYING){
+            takeSnapshot();
+        } else {
+            discardGameLog();
+        }
+    }
+
+    /**
+     * Reserves the sequence number of a record of the game log
+     *
+     * @return the reserved sequence number, or -1 if the game is not logged
+     */
+    private long reserveGameLogSequence(){
+        return (gameLog==null) ? -1 : gameLog.nextSequence();
+    }
+
+    /**
+     * Writes the given move in the game log if it was accepted
+     *
+     * @param sequence the sequence number reserved for the move
+     * @param message the message containing the move
+     * @param returnMessage the answer to the move
+     */
+    private void logAcceptedMove(long sequence, Message message, Message returnMessage){
+        if(gameLog==null || !isAccepted(returnMessage)){ return; }
+
+        try {
+            gameLog.appendMove(sequence, message);
+        } catch (IOException e) {
+            logger.severe(GAME_LOG_WRITING_FAILED + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes in the game log that the player move timer expired
+     *
+     * @param sequence the sequence number reserved for the event
+     * @param playerID the player whose timer expired
+     */
+    private void logPlayerMoveTimeout(long sequence, String playerID){
+        if(gameLog==null){ return; }
+
+        try {
+            gameLog.appendPlayerMoveTimeout(sequence, playerID);
+        } catch (IOException e) {
+            logger.severe(GAME_LOG_WRITING_FAILED + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a snapshot of the game in the game log. It must be called at the beginning of a turn.
+     */
+    private void takeSnapshot(){
+        if(gameLog==null || game.getStatus()!=GameStatus.PLAYING){ return; }
+
+        try {
+            gameLog.writeSnapshot(new GameSnapshot(game, diceBag, random, inactivePlayers, inactiveDisconnectedPlayers,
+                    System.currentTimeMillis() - startTime));
+        } catch (IOException e) {
+            logger.severe(GAME_LOG_WRITING_FAILED + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the game log as the game can't be recovered anymore
+     */
+    private void discardGameLog(){
+        if(gameLog==null){ return; }
+
+        try {
+            gameLog.discard();
+        } catch (IOException e) {
+            logger.severe(GAME_LOG_WRITING_FAILED + e.getMessage());
+        }
+        gameLog = null;
+    }
+
+    /**
+     * An event recorded in the replay of the game
+     */
+    @FunctionalInterface
+    private interface ReplayRecording {
+
+        /**
+         * Records the event with the given recorder
+         *
+         * @param recorder the recorder of the replay
+         * @throws IOException if the event can't be recorded
+         */
+        void record(ReplayRecorder recorder) throws IOException;
+    }
+
+    /**
+     * Records an event in the replay of the game, if it is recorded
+     *
+     * @param recording the recording of the event
+     */
+    private void recordReplay(ReplayRecording recording){
+        if(replayRecorder==null){ return; }
+
+        try {
+            recording.record(replayRecorder);
+        } catch (IOException e) {
+            logger.severe(REPLAY_WRITING_FAILED + e.getMessage());
+            replayRecorder = null;
+        }
+    }
+
+    /**
+     * Writes the replay file if the game has ended. It is called after each event, once all its effects are done.
+     */
+    private void writeReplayIfGameEnded(){
+        if(replayRecorder==null || game.getStatus()!=GameStatus.ENDED || finalScores==null){ return; }
+
+        try {
+            replayRecorder.write(finalScores);
+        } catch (IOException e) {
+            logger.severe(REPLAY_WRITING_FAILED + e.getMessage());
+        }
+        replayRecorder = null;
+    }
 }
@@ -4,6 +4,7 @@ import it.polimi.se2018.model.Dice;
 import it.polimi.se2018.model.DiceColor;
 import it.polimi.se2018.utils.BadBehaviourRuntimeException;
 
+import java.io.Serializable;
 import java.util.*;
 
 /**
@@ -11,11 +12,19 @@ import java.util.*;
  * Conceptual representation of a real Bag of Dices.
  * The important difference respecting a "real" Dice Bag is that
  * dices do not actually exist until they are requested.
+ * Each dice is drawn with the same probability, so a color is drawn with probability proportional
+ * to its available dices, in constant time whatever the number of dices left.
+ * It is serializable because it is part of the snapshots of a running game.
  *
  * @author Federico Haag
  * @see Dice
  */
-public class DiceBag {
+public class DiceBag implements Serializable {
+
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = -2952460714216908315L;
 
     /**
      * String used as message of IllegalArgumentException in creation of DiceBag
@@ -28,9 +37,31 @@ public class DiceBag {
     private static final String ASKED_TOO_MUCH_DICES = "Asked DiceBag to get more dices than available: ";
 
     /**
-     * Maps the quantity of available dices of each color
+     * String used as message of IllegalArgumentException in addDice()
+     */
+    private static final String NOT_VALID_COLOR = "Can't add to the DiceBag a dice without color.";
+
+    /**
+     * Colors of the dices in the bag
+     */
+    private static final DiceColor[] COLORS = Arrays.stream(DiceColor.values())
+            .filter(color -> color != DiceColor.NOCOLOR)
+            .toArray(DiceColor[]::new);
+
+    /**
+     * Quantity of available dices of each color, indexed as {@link DiceBag#COLORS}
+     */
+    private final int[] availableDices;
+
+    /**
+     * Quantity of available dices of all colors
+     */
+    private int numberOfAvailableDices;
+
+    /**
+     * Source of randomness used to create the dices
      */
-    private Map<DiceColor,Integer> availableDices;
+    private final Random random;
 
     /**
      * Creates a {@link DiceBag} containing specified number of dices of all colors ({@link DiceColor})
@@ -40,12 +71,46 @@ public class DiceBag {
      * @see DiceColor
      */
     public DiceBag(int numberOfDicesPerColor) {
+        this(numberOfDicesPerColor, new Random());
+    }
+
+    /**
+     * Creates a {@link DiceBag} containing specified number of dices of all colors ({@link DiceColor})
+     * that creates the dices with the given source of randomness
+     * @param numberOfDicesPerColor how many dices for each color have to be created
+     * @param random the source of randomness used to create the dices
+     *
+     * @see Dice
+     * @see DiceColor
+     */
+    public DiceBag(int numberOfDicesPerColor, Random random) {
+        this.random = random;
         if(numberOfDicesPerColor <0){ throw new IllegalArgumentException(NEGATIVE_NUMBER_OF_DICES);}
 
-        this.availableDices = new EnumMap<>(DiceColor.class);
-        for(int i = 0; i < DiceColor.values().length-1; i++){
-            this.availableDices.put(DiceColor.values()[i],numberOfDicesPerColor);
-        }
+        this.availableDices = new int[COLORS.length];
+        Arrays.fill(this.availableDices, numberOfDicesPerColor);
+        this.numberOfAvailableDices = numberOfDicesPerColor * COLORS.length;
+    }
+
+    /**
+     * Creates a copy of the given {@link DiceBag}, with the same available dices,
+     * that creates the dices with the given source of randomness
+     * @param diceBag the copied dice bag
+     * @param random the source of randomness used to create the dices
+     */
+    private DiceBag(DiceBag diceBag, Random random) {
+        this.random = random;
+        this.availableDices = diceBag.availableDices.clone();
+        this.numberOfAvailableDices = diceBag.numberOfAvailableDices;
+    }
+
+    /**
+     * Returns a copy of the dice bag that creates the dices with the given source of randomness
+     * @param random the source of randomness of the copy
+     * @return a copy of the dice bag
+     */
+    DiceBag copy(Random random) {
+        return new DiceBag(this, random);
     }
 
     /**
@@ -56,31 +121,44 @@ public class DiceBag {
      * @see Dice
      */
     public List<Dice> getDices(int quantity) {
-        List<Dice> drawnDices = new ArrayList<>();
-
         if(quantity <0){ throw new IllegalArgumentException(NEGATIVE_NUMBER_OF_DICES);}
 
-        if( quantity > this.getNumberOfAvailableDices() ){
-            throw new BadBehaviourRuntimeException(ASKED_TOO_MUCH_DICES +quantity + "/" + getNumberOfAvailableDices());
-        } else {
-            for(int i=0; i<quantity; i++){
-
-                //Looks for a color dice that can be created, and creates it
-                int availableDicesForRandomColor;
-                DiceColor randomColor;
-                do {
-                    randomColor = DiceColor.getRandomColor();
-                    availableDicesForRandomColor = availableDices.get(randomColor);
-                } while (availableDicesForRandomColor<=0);
-
-                drawnDices.add(new Dice(randomColor));
-                availableDices.put(randomColor,availableDicesForRandomColor-1);
-            }
+        if( quantity > numberOfAvailableDices ){
+            throw new BadBehaviourRuntimeException(ASKED_TOO_MUCH_DICES +quantity + "/" + numberOfAvailableDices);
+        }
+
+        List<Dice> drawnDices = new ArrayList<>(quantity);
+        for(int i=0; i<quantity; i++){
+            int colorIndex = drawColorIndex();
+
+            Dice dice = new Dice(COLORS[colorIndex]);
+            dice.roll(random);
+            drawnDices.add(dice);
+            availableDices[colorIndex]--;
+            numberOfAvailableDices--;
         }
 
         return drawnDices;
     }
 
+    /**
+     * Chooses the color of the next drawn dice, as if a dice were drawn from all the available ones.
+     * There must be at least one available dice.
+     *
+     * @return the index in {@link DiceBag#COLORS} of the color of the drawn dice
+     */
+    private int drawColorIndex(){
+        int drawnDice = random.nextInt(numberOfAvailableDices);
+
+        //Finds the color whose range of cumulative quantities contains the drawn dice
+        int colorIndex = 0;
+        while(drawnDice >= availableDices[colorIndex]){
+            drawnDice -= availableDices[colorIndex];
+            colorIndex++;
+        }
+        return colorIndex;
+    }
+
     /**
      * Adds the specified {@link Dice} to this {@link DiceBag}
      * @param dice the dice to be added to
@@ -88,20 +166,19 @@ public class DiceBag {
     public void addDice(Dice dice) {
         DiceColor diceColor = dice.getColor();
 
-        int availableDicesForColor = availableDices.get(diceColor);
-        availableDices.put(diceColor, availableDicesForColor+1);
+        availableDices[indexOf(diceColor)]++;
+        numberOfAvailableDices++;
     }
 
     /**
-     * Gets the number of available dices summing the available dices for each Dice Color in availableDices (map)
+     * Returns the index in {@link DiceBag#COLORS} of the given color
      *
-     * @return the number of available dices
+     * @param diceColor the color of a dice
+     * @return the index of the given color
      */
-    private int getNumberOfAvailableDices(){
-        int sum = 0;
-        for(Integer value : availableDices.values()){
-            sum += value;
-        }
-        return sum;
+    private static int indexOf(DiceColor diceColor){
+        //Colors are declared in the same order in DiceColor, NOCOLOR being the last one
+        if(diceColor == DiceColor.NOCOLOR){ throw new IllegalArgumentException(NOT_VALID_COLOR); }
+        return diceColor.ordinal();
     }
 }
@@ -0,0 +1,517 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.Game;
+import it.polimi.se2018.model.ToolCard;
+import it.polimi.se2018.model.WindowPattern;
+import it.polimi.se2018.utils.ControllerBoundMessageType;
+import it.polimi.se2018.utils.Message;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of a running game.
+ *
+ * Every move accepted by the {@link Controller} and every expired player move timer is appended
+ * to a log file in a compact binary format. Each record is flushed to the operating system as soon as it
+ * is written, while the (expensive) synchronization to disk is batched every {@link GameLog#syncInterval} records.
+ * At the beginning of each turn the controller writes a {@link GameSnapshot} of the whole game: records included
+ * in the snapshot are then dropped from the log.
+ *
+ * After a crash, {@link GameLog#recover(String)} returns the last snapshot and the records written after it,
+ * that the controller replays to rebuild the game. The snapshot includes the source of randomness of the game,
+ * so effects based on random values (e.g. re-rolls of tool cards) are the same ones seen before the crash.
+ *
+ * Record format: {@code [int length][payload][int crc32]} where payload is
+ * {@code [long sequence][byte kind][UTF playerID][params]} and params are encoded by {@link MoveCodec}. A truncated or corrupted tail
+ * (e.g. a record half written when the server died) ends the recovery.
+ *
+ * @author Federico Haag
+ * @see GameSnapshot
+ */
+public class GameLog implements Closeable {
+
+    /**
+     * Extension of the file containing the log records
+     */
+    private static final String LOG_EXTENSION = ".log";
+
+    /**
+     * Extension of the file containing the last snapshot
+     */
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+
+    /**
+     * Extension of the temporary file used while writing a snapshot
+     */
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    /**
+     * String used as message of IllegalArgumentException when the sync interval is not positive
+     */
+    private static final String NOT_POSITIVE_SYNC_INTERVAL = "Can't create a game log with a not positive sync interval.";
+
+    /**
+     * String used as message of IOException when the snapshot file contains something else
+     */
+    private static final String BAD_FORMATTED_SNAPSHOT = "The snapshot file does not contain a game snapshot.";
+
+    /*  CONSTANTS FOR RECORD KINDS
+        Following constants are not commented one by one because they are as self explaining as needed.
+        Being private, they are used only in this file. So if a change is needed, just look for usages in this file.
+     */
+    private static final byte KIND_MOVE = 1;
+    private static final byte KIND_PLAYER_MOVE_TIMEOUT = 2;
+
+    /**
+     * Path of the log without extensions
+     */
+    private final String path;
+
+    /**
+     * How many records are written before forcing them to disk
+     */
+    private final int syncInterval;
+
+    /**
+     * Stream of the log file
+     */
+    private final FileOutputStream fileStream;
+
+    /**
+     * Buffered stream on top of {@link GameLog#fileStream}
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Buffer reused to encode the payload of each record
+     */
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+
+    /**
+     * Checksum reused for each record
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Last assigned sequence number
+     */
+    private long sequence;
+
+    /**
+     * Number of records written after the last synchronization to disk
+     */
+    private int unsyncedRecords = 0;
+
+    /**
+     * Creates the log of a new game, deleting any log and snapshot left at the same path.
+     *
+     * @param path path of the log without extensions
+     * @param syncInterval how many records are written before forcing them to disk
+     * @throws IOException if the log file can't be created
+     */
+    public GameLog(String path, int syncInterval) throws IOException {
+        this(path, syncInterval, 0, false);
+        Files.deleteIfExists(new File(path + SNAPSHOT_EXTENSION).toPath());
+    }
+
+    /**
+     * Reopens the log of a recovered game. New records are appended after the recovered ones
+     * and continue their numbering, so they are never mistaken for records already included in a snapshot.
+     *
+     * @param recovery the recovery the game was rebuilt from
+     * @param syncInterval how many records are written before forcing them to disk
+     * @throws IOException if the log file can't be opened
+     */
+    public GameLog(Recovery recovery, int syncInterval) throws IOException {
+        this(recovery.path, syncInterval, recovery.lastSequence, true);
+    }
+
+    /**
+     * Opens the log file
+     *
+     * @param path path of the log without extensions
+     * @param syncInterval how many records are written before forcing them to disk
+     * @param sequence the last sequence number already used
+     * @param append true if the existing records must be kept
+     * @throws IOException if the log file can't be opened
+     */
+    private GameLog(String path, int syncInterval, long sequence, boolean append) throws IOException {
+        if(syncInterval <= 0){ throw new IllegalArgumentException(NOT_POSITIVE_SYNC_INTERVAL); }
+
+        this.path = path;
+        this.syncInterval = syncInterval;
+        this.sequence = sequence;
+        this.fileStream = new FileOutputStream(path + LOG_EXTENSION, append);
+        this.out = new DataOutputStream(new BufferedOutputStream(fileStream));
+    }
+
+    /**
+     * Reserves the sequence number of a record that is going to be written.
+     * Numbers are reserved before the corresponding move is executed, so that a snapshot taken
+     * while executing it also includes it.
+     *
+     * @return the reserved sequence number
+     */
+    synchronized long nextSequence() {
+        return ++sequence;
+    }
+
+    /**
+     * Appends an accepted move to the log
+     *
+     * @param sequence the sequence number reserved for the move
+     * @param message the message containing the move
+     * @throws IOException if the record can't be written
+     */
+    synchronized void appendMove(long sequence, Message message) throws IOException {
+        DataOutputStream data = beginRecord(sequence, KIND_MOVE, message.getPlayerID());
+        MoveCodec.writeParams(data, message.getParams());
+        endRecord();
+    }
+
+    /**
+     * Appends the expiration of the player move timer to the log
+     *
+     * @param sequence the sequence number reserved for the event
+     * @param playerID the player whose timer expired
+     * @throws IOException if the record can't be written
+     */
+    synchronized void appendPlayerMoveTimeout(long sequence, String playerID) throws IOException {
+        beginRecord(sequence, KIND_PLAYER_MOVE_TIMEOUT, playerID);
+        endRecord();
+    }
+
+    /**
+     * Writes the given snapshot, replacing the previous one. The snapshot includes all the records
+     * whose sequence number was already reserved, so the log is emptied once the snapshot is safely on disk.
+     *
+     * @param snapshot the snapshot to write
+     * @throws IOException if the snapshot can't be written
+     */
+    synchronized void writeSnapshot(GameSnapshot snapshot) throws IOException {
+        snapshot.setSequence(sequence);
+
+        File temporary = new File(path + SNAPSHOT_EXTENSION + TEMPORARY_EXTENSION);
+        try(FileOutputStream snapshotStream = new FileOutputStream(temporary);
+            ObjectOutputStream objectStream = new ObjectOutputStream(new BufferedOutputStream(snapshotStream))){
+            objectStream.writeObject(snapshot);
+            objectStream.flush();
+            snapshotStream.getFD().sync();
+        }
+        Files.move(temporary.toPath(), new File(path + SNAPSHOT_EXTENSION).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        out.flush();
+        fileStream.getChannel().truncate(0);
+        unsyncedRecords = 0;
+    }
+
+    /**
+     * Forces to disk all the written records
+     *
+     * @throws IOException if records can't be forced to disk
+     */
+    synchronized void sync() throws IOException {
+        out.flush();
+        fileStream.getChannel().force(false);
+        unsyncedRecords = 0;
+    }
+
+    /**
+     * Closes the log and deletes its files. It is called when the game ends and can't be recovered anymore.
+     *
+     * @throws IOException if files can't be deleted
+     */
+    synchronized void discard() throws IOException {
+        close();
+        Files.deleteIfExists(new File(path + LOG_EXTENSION).toPath());
+        Files.deleteIfExists(new File(path + SNAPSHOT_EXTENSION).toPath());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if(fileStream.getChannel().isOpen()){
+            sync();
+            out.close();
+        }
+    }
+
+    /**
+     * Starts encoding a record, writing its header
+     *
+     * @param sequence the sequence number of the record
+     * @param kind the kind of the record
+     * @param playerID the player the record refers to
+     * @return the stream the rest of the payload has to be written to
+     * @throws IOException if the header can't be encoded
+     */
+    private DataOutputStream beginRecord(long sequence, byte kind, String playerID) throws IOException {
+        payload.reset();
+        DataOutputStream data = new DataOutputStream(payload);
+        data.writeLong(sequence);
+        data.writeByte(kind);
+        data.writeUTF(playerID == null ? "" : playerID);
+        return data;
+    }
+
+    /**
+     * Frames the encoded payload and writes it to the log, synchronizing the log to disk if needed
+     *
+     * @throws IOException if the record can't be written
+     */
+    private void endRecord() throws IOException {
+        crc.reset();
+        crc.update(payload.toByteArray(), 0, payload.size());
+
+        out.writeInt(payload.size());
+        payload.writeTo(out);
+        out.writeInt((int) crc.getValue());
+        out.flush();
+
+        unsyncedRecords++;
+        if(unsyncedRecords >= syncInterval){
+            fileStream.getChannel().force(false);
+            unsyncedRecords = 0;
+        }
+    }
+
+    /**
+     * Reads the last snapshot and the records written after it.
+     *
+     * @param path path of the log without extensions
+     * @return the recovered snapshot and records, or null if there is no game to recover
+     * @throws IOException if the snapshot exists but can't be read
+     */
+    public static Recovery recover(String path) throws IOException {
+        File snapshotFile = new File(path + SNAPSHOT_EXTENSION);
+        if(!snapshotFile.exists()){
+            return null;
+        }
+
+        GameSnapshot snapshot;
+        try(ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))){
+            snapshot = (GameSnapshot) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException(BAD_FORMATTED_SNAPSHOT, e);
+        }
+
+        MoveCodec.Resolver resolver = new SnapshotResolver(snapshot.getGame());
+        List<LogRecord> records = new ArrayList<>();
+        long lastSequence = snapshot.getSequence();
+        File logFile = new File(path + LOG_EXTENSION);
+
+        if(logFile.exists()){
+            try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)))){
+                LogRecord record;
+                while((record = readRecord(in, resolver)) != null){
+                    if(record.sequence > snapshot.getSequence()){
+                        records.add(record);
+                    }
+                    lastSequence = Math.max(lastSequence, record.sequence);
+                }
+            }
+        }
+
+        return new Recovery(path, snapshot, records, lastSequence);
+    }
+
+    /**
+     * Reads the next record of the log
+     *
+     * @param in the stream to read from
+     * @param resolver the resolver of the toolCards used in the moves
+     * @return the read record or null if the log ended (or its tail is truncated or corrupted)
+     * @throws IOException if the log can't be read
+     */
+    private static LogRecord readRecord(DataInputStream in, MoveCodec.Resolver resolver) throws IOException {
+        byte[] bytes;
+        int checksum;
+        try {
+            int length = in.readInt();
+            if(length < 0){ return null; }
+            bytes = new byte[length];
+            in.readFully(bytes);
+            checksum = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+
+        CRC32 recordCrc = new CRC32();
+        recordCrc.update(bytes, 0, bytes.length);
+        if((int) recordCrc.getValue() != checksum){
+            return null;
+        }
+
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes));
+        long recordSequence = data.readLong();
+        byte kind = data.readByte();
+        String playerID = data.readUTF();
+
+        if(kind == KIND_PLAYER_MOVE_TIMEOUT){
+            return new LogRecord(recordSequence, playerID, null);
+        }
+
+        HashMap<String, Object> params = MoveCodec.readParams(data, playerID, resolver);
+        return new LogRecord(recordSequence, playerID, new Message(ControllerBoundMessageType.MOVE, params, playerID));
+    }
+
+    /**
+     * Resolves the toolCards used in the logged moves among the ones of the snapshotted game.
+     * Window patterns are chosen before the game starts, so they are never part of logged moves.
+     */
+    private static final class SnapshotResolver implements MoveCodec.Resolver {
+
+        /**
+         * The snapshotted game
+         */
+        private final Game game;
+
+        /**
+         * Constructor of a resolver of the toolCards of the given game
+         *
+         * @param game the snapshotted game
+         */
+        private SnapshotResolver(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public WindowPattern getWindowPattern(String playerID, String patternID) {
+            return null;
+        }
+
+        @Override
+        public ToolCard getToolCard(String title) {
+            for(ToolCard toolCard : game.getDrawnToolCards()){
+                if(toolCard.getTitle().equals(title)){
+                    return toolCard;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A record read from the log during recovery
+     */
+    public static final class LogRecord {
+
+        /**
+         * Sequence number of the record
+         */
+        private final long sequence;
+
+        /**
+         * The player the record refers to
+         */
+        private final String playerID;
+
+        /**
+         * The logged move or null if the record is an expired player move timer
+         */
+        private final Message move;
+
+        /**
+         * Constructor of a record
+         *
+         * @param sequence sequence number of the record
+         * @param playerID the player the record refers to
+         * @param move the logged move or null if the record is an expired player move timer
+         */
+        private LogRecord(long sequence, String playerID, Message move) {
+            this.sequence = sequence;
+            this.playerID = playerID;
+            this.move = move;
+        }
+
+        /**
+         * Returns the player the record refers to
+         *
+         * @return the player the record refers to
+         */
+        public String getPlayerID() {
+            return playerID;
+        }
+
+        /**
+         * Returns true if the record is an expired player move timer
+         *
+         * @return true if the record is an expired player move timer
+         */
+        public boolean isPlayerMoveTimeout() {
+            return move == null;
+        }
+
+        /**
+         * Returns the logged move
+         *
+         * @return the logged move, null if the record is an expired player move timer
+         */
+        public Message getMove() {
+            return move;
+        }
+    }
+
+    /**
+     * Result of the recovery of a game: the last snapshot and the records written after it
+     */
+    public static final class Recovery {
+
+        /**
+         * Path of the log without extensions
+         */
+        private final String path;
+
+        /**
+         * The last written snapshot
+         */
+        private final GameSnapshot snapshot;
+
+        /**
+         * Records written after the snapshot, in order
+         */
+        private final List<LogRecord> records;
+
+        /**
+         * Highest sequence number found in the log
+         */
+        private final long lastSequence;
+
+        /**
+         * Constructor of a recovery
+         *
+         * @param path path of the log without extensions
+         * @param snapshot the last written snapshot
+         * @param records records written after the snapshot
+         * @param lastSequence highest sequence number found in the log
+         */
+        private Recovery(String path, GameSnapshot snapshot, List<LogRecord> records, long lastSequence) {
+            this.path = path;
+            this.snapshot = snapshot;
+            this.records = records;
+            this.lastSequence = lastSequence;
+        }
+
+        /**
+         * Returns the last written snapshot
+         *
+         * @return the last written snapshot
+         */
+        public GameSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        /**
+         * Returns the records written after the snapshot
+         *
+         * @return the records written after the snapshot
+         */
+        public List<LogRecord> getRecords() {
+            return Collections.unmodifiableList(records);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.Game;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Serializable image of a running game taken by the {@link Controller} at the beginning of a turn.
+ * Together with the moves written in the {@link GameLog} after it, it allows to rebuild
+ * the game after a crash of the server.
+ *
+ * @author Federico Haag
+ * @see GameLog
+ */
+public class GameSnapshot implements Serializable {
+
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = -6108405519286245187L;
+
+    /**
+     * The snapshotted game
+     */
+    private final Game game;
+
+    /**
+     * The dice bag of the snapshotted game
+     */
+    private final DiceBag diceBag;
+
+    /**
+     * The source of randomness of the snapshotted game, so that random effects are the same after a recovery
+     */
+    private final Random random;
+
+    /**
+     * Players that were inactive when the snapshot was taken
+     */
+    private final HashSet<String> inactivePlayers;
+
+    /**
+     * Players that were inactive and disconnected when the snapshot was taken
+     */
+    private final HashSet<String> inactiveDisconnectedPlayers;
+
+    /**
+     * Milliseconds elapsed from the beginning of the game when the snapshot was taken
+     */
+    private final long elapsedTime;
+
+    /**
+     * Sequence number of the last log record whose effects are included in the snapshot
+     */
+    private long sequence;
+
+    /**
+     * Constructor of a snapshot of the given game state
+     *
+     * @param game the game to snapshot
+     * @param diceBag the dice bag of the game
+     * @param random the source of randomness of the game
+     * @param inactivePlayers the players that are currently inactive
+     * @param inactiveDisconnectedPlayers the players that are currently inactive and disconnected
+     * @param elapsedTime milliseconds elapsed from the beginning of the game
+     */
+    GameSnapshot(Game game, DiceBag diceBag, Random random, Set<String> inactivePlayers, Set<String> inactiveDisconnectedPlayers, long elapsedTime) {
+        this.game = game;
+        this.diceBag = diceBag;
+        this.random = random;
+        this.inactivePlayers = new HashSet<>(inactivePlayers);
+        this.inactiveDisconnectedPlayers = new HashSet<>(inactiveDisconnectedPlayers);
+        this.elapsedTime = elapsedTime;
+    }
+
+    /**
+     * Returns the snapshotted game
+     *
+     * @return the snapshotted game
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Returns the dice bag of the snapshotted game
+     *
+     * @return the dice bag of the snapshotted game
+     */
+    DiceBag getDiceBag() {
+        return diceBag;
+    }
+
+    /**
+     * Returns the source of randomness of the snapshotted game
+     *
+     * @return the source of randomness of the snapshotted game
+     */
+    Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Returns the players that were inactive when the snapshot was taken
+     *
+     * @return the players that were inactive when the snapshot was taken
+     */
+    HashSet<String> getInactivePlayers() {
+        return new HashSet<>(inactivePlayers);
+    }
+
+    /**
+     * Returns the players that were inactive and disconnected when the snapshot was taken
+     *
+     * @return the players that were inactive and disconnected when the snapshot was taken
+     */
+    HashSet<String> getInactiveDisconnectedPlayers() {
+        return new HashSet<>(inactiveDisconnectedPlayers);
+    }
+
+    /**
+     * Returns the milliseconds elapsed from the beginning of the game when the snapshot was taken
+     *
+     * @return the milliseconds elapsed from the beginning of the game when the snapshot was taken
+     */
+    long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Returns the sequence number of the last log record included in the snapshot
+     *
+     * @return the sequence number of the last log record included in the snapshot
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sets the sequence number of the last log record included in the snapshot
+     *
+     * @param sequence the sequence number of the last log record included in the snapshot
+     */
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+}
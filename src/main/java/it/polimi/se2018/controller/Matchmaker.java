@@ -0,0 +1,306 @@
+package it.polimi.se2018.controller;
+
+import java.util.*;
+
+/**
+ * Queue of players waiting for a game, forming tables of players with similar skill.
+ *
+ * The skill of a player is derived from its global {@link RankingRecord}: it is the percentage of games won
+ * (smoothed, so that new players start from 50) plus the average points made in a game.
+ * Players are indexed in buckets of skills of the same width, so forming a table looks only at the
+ * buckets near the one of the player waiting for longest, and never scans the whole queue.
+ * The number of buckets around the waiting player that are considered grows with its waiting time.
+ *
+ * @author Federico Haag
+ */
+public final class Matchmaker {
+
+    /**
+     * String used as message of IllegalArgumentException when the matchmaker is created with not valid parameters
+     */
+    private static final String NOT_VALID_PARAMETERS = "Table size, bucket width and widening time must be positive";
+
+    /**
+     * Skill of a player without any played game
+     */
+    private static final double DEFAULT_SKILL = 50;
+
+    /**
+     * Number of players of a full table
+     */
+    private final int tableSize;
+
+    /**
+     * Width of the skill range of a bucket
+     */
+    private final double bucketWidth;
+
+    /**
+     * Milliseconds of waiting after which one more bucket on each side is considered for the table of a player
+     */
+    private final long wideningTime;
+
+    /**
+     * Skills of the players that have a global ranking
+     */
+    private final Map<String,Double> skills;
+
+    /**
+     * Queued players, from the one waiting for longest
+     */
+    private final LinkedHashMap<String,QueuedPlayer> queue = new LinkedHashMap<>();
+
+    /**
+     * Queued players by bucket, each bucket from the player waiting for longest
+     */
+    private final TreeMap<Integer,LinkedHashSet<QueuedPlayer>> buckets = new TreeMap<>();
+
+    /**
+     * A player waiting in the queue
+     */
+    private static final class QueuedPlayer {
+
+        /**
+         * ID of the player
+         */
+        private final String playerID;
+
+        /**
+         * Bucket of the skill of the player
+         */
+        private final int bucket;
+
+        /**
+         * Time in milliseconds when the player was queued
+         */
+        private final long queuedAt;
+
+        /**
+         * Constructor of the queued player
+         *
+         * @param playerID ID of the player
+         * @param bucket bucket of the skill of the player
+         * @param queuedAt time in milliseconds when the player was queued
+         */
+        QueuedPlayer(String playerID, int bucket, long queuedAt) {
+            this.playerID = playerID;
+            this.bucket = bucket;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    /**
+     * Constructor of the matchmaker
+     *
+     * @param tableSize number of players of a full table
+     * @param bucketWidth width of the skill range of a bucket
+     * @param wideningTime milliseconds of waiting after which one more bucket on each side is considered
+     * @param rankings global rankings of the players, used to compute their skill
+     */
+    public Matchmaker(int tableSize, double bucketWidth, long wideningTime, Collection<RankingRecord> rankings) {
+        if(tableSize <= 0 || bucketWidth <= 0 || wideningTime <= 0){
+            throw new IllegalArgumentException(NOT_VALID_PARAMETERS);
+        }
+        this.tableSize = tableSize;
+        this.bucketWidth = bucketWidth;
+        this.wideningTime = wideningTime;
+
+        this.skills = new HashMap<>();
+        for(RankingRecord record : rankings){
+            skills.put(record.getPlayerID(), getSkill(record));
+        }
+    }
+
+    /**
+     * Constructor of the matchmaker reading the global rankings from the given file
+     *
+     * @param tableSize number of players of a full table
+     * @param bucketWidth width of the skill range of a bucket
+     * @param wideningTime milliseconds of waiting after which one more bucket on each side is considered
+     * @param persistencyPath path of the file of the global rankings
+     */
+    public Matchmaker(int tableSize, double bucketWidth, long wideningTime, String persistencyPath) {
+        this(tableSize, bucketWidth, wideningTime, loadRankings(persistencyPath));
+    }
+
+    /**
+     * Reads the global rankings from the given file
+     *
+     * @param persistencyPath path of the file of the global rankings
+     * @return the global rankings, empty if the file can't be read
+     */
+    private static List<RankingRecord> loadRankings(String persistencyPath){
+        Persistency persistency = new Persistency(persistencyPath);
+        persistency.loadRankings();
+        return persistency.getGlobalRankings();
+    }
+
+    /**
+     * Returns the skill of the player of the given global ranking
+     *
+     * @param record the global ranking of the player
+     * @return the skill of the player
+     */
+    static double getSkill(RankingRecord record){
+        int playedGames = record.getGamesWon() + record.getGamesLost();
+        double winRatio = (record.getGamesWon() + 1) / (double) (playedGames + 2);
+        double averagePoints = playedGames == 0 ? 0 : record.getCumulativePoints() / (double) playedGames;
+        return 100 * winRatio + averagePoints;
+    }
+
+    /**
+     * Adds a player to the queue. Nothing happens if the player is already queued.
+     *
+     * @param playerID ID of the player
+     * @param now current time in milliseconds
+     */
+    public synchronized void add(String playerID, long now){
+        if(queue.containsKey(playerID)){ return; }
+
+        int bucket = (int) Math.floor(skills.getOrDefault(playerID, DEFAULT_SKILL) / bucketWidth);
+        QueuedPlayer player = new QueuedPlayer(playerID, bucket, now);
+        queue.put(playerID, player);
+        buckets.computeIfAbsent(bucket, b -> new LinkedHashSet<>()).add(player);
+    }
+
+    /**
+     * Removes a player from the queue
+     *
+     * @param playerID ID of the player
+     * @return true if the player was queued
+     */
+    public synchronized boolean remove(String playerID){
+        QueuedPlayer player = queue.remove(playerID);
+        if(player == null){ return false; }
+
+        LinkedHashSet<QueuedPlayer> bucket = buckets.get(player.bucket);
+        bucket.remove(player);
+        if(bucket.isEmpty()){
+            buckets.remove(player.bucket);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of queued players
+     *
+     * @return the number of queued players
+     */
+    public synchronized int size(){
+        return queue.size();
+    }
+
+    /**
+     * Removes from the queue and returns a full table of players with similar skill, if one can be formed.
+     * Among the possible tables, the one of the player waiting for longest is chosen.
+     *
+     * @param now current time in milliseconds
+     * @return the IDs of the players of the table, or an empty list if no table can be formed
+     */
+    public synchronized List<String> pollTable(long now){
+        QueuedPlayer chosenAnchor = null;
+        List<QueuedPlayer> chosenTable = Collections.emptyList();
+
+        //The oldest player of each bucket is the one with the widest tolerance in that bucket
+        for(LinkedHashSet<QueuedPlayer> bucket : buckets.values()){
+            QueuedPlayer anchor = bucket.iterator().next();
+            if(chosenAnchor != null && chosenAnchor.queuedAt <= anchor.queuedAt){ continue; }
+
+            int tolerance = (int) Math.min(Integer.MAX_VALUE, (now - anchor.queuedAt) / wideningTime);
+            List<QueuedPlayer> table = gatherNear(anchor, tolerance);
+            if(table.size() == tableSize){
+                chosenAnchor = anchor;
+                chosenTable = table;
+            }
+        }
+        return removeAll(chosenTable);
+    }
+
+    /**
+     * Removes from the queue and returns the table of the player waiting for longest, made of the players
+     * with the closest skills, whatever their difference. It is used when players waited enough.
+     *
+     * @param minPlayers minimum number of players of the table
+     * @return the IDs of the players of the table, or an empty list if less than the minimum number of players are queued
+     */
+    public synchronized List<String> pollAnyTable(int minPlayers){
+        if(queue.isEmpty() || queue.size() < minPlayers){
+            return Collections.emptyList();
+        }
+        QueuedPlayer anchor = queue.values().iterator().next();
+        return removeAll(gatherNear(anchor, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Gathers up to a full table of players, starting from the given one and moving to the buckets
+     * further and further from its one, as long as they are within the given tolerance
+     *
+     * @param anchor the player the table is formed for
+     * @param tolerance the maximum distance, in buckets, of the players from the one of the anchor
+     * @return the gathered players, the anchor being the first one
+     */
+    private List<QueuedPlayer> gatherNear(QueuedPlayer anchor, int tolerance){
+        List<QueuedPlayer> table = new ArrayList<>(tableSize);
+        table.add(anchor);
+        addFromBucket(table, buckets.get(anchor.bucket), anchor);
+
+        Integer lower = buckets.lowerKey(anchor.bucket);
+        Integer higher = buckets.higherKey(anchor.bucket);
+        while(table.size() < tableSize && (isWithin(lower, anchor, tolerance) || isWithin(higher, anchor, tolerance))){
+            boolean lowerIsCloser = isWithin(lower, anchor, tolerance)
+                    && (!isWithin(higher, anchor, tolerance) || anchor.bucket - lower <= higher - anchor.bucket);
+            if(lowerIsCloser){
+                addFromBucket(table, buckets.get(lower), anchor);
+                lower = buckets.lowerKey(lower);
+            } else {
+                addFromBucket(table, buckets.get(higher), anchor);
+                higher = buckets.higherKey(higher);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns true if the given bucket exists and is within the tolerance of the anchor
+     *
+     * @param bucket the bucket, null if it doesn't exist
+     * @param anchor the player the table is formed for
+     * @param tolerance the maximum distance, in buckets, from the one of the anchor
+     * @return true if the given bucket exists and is within the tolerance of the anchor
+     */
+    private static boolean isWithin(Integer bucket, QueuedPlayer anchor, int tolerance){
+        return bucket != null && Math.abs((long) bucket - anchor.bucket) <= tolerance;
+    }
+
+    /**
+     * Adds to the table the players of the bucket, from the one waiting for longest, until the table is full
+     *
+     * @param table the table being formed
+     * @param bucket the players of a bucket
+     * @param anchor the player the table is formed for, already in the table
+     */
+    private void addFromBucket(List<QueuedPlayer> table, Collection<QueuedPlayer> bucket, QueuedPlayer anchor){
+        Iterator<QueuedPlayer> iterator = bucket.iterator();
+        while(table.size() < tableSize && iterator.hasNext()){
+            QueuedPlayer player = iterator.next();
+            if(player != anchor){
+                table.add(player);
+            }
+        }
+    }
+
+    /**
+     * Removes the given players from the queue
+     *
+     * @param players the players to remove
+     * @return the IDs of the removed players
+     */
+    private List<String> removeAll(List<QueuedPlayer> players){
+        List<String> playerIDs = new ArrayList<>(players.size());
+        for(QueuedPlayer player : players){
+            remove(player.playerID);
+            playerIDs.add(player.playerID);
+        }
+        return playerIDs;
+    }
+}
@@ -0,0 +1,487 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.GameStatus;
+import it.polimi.se2018.model.ToolCard;
+import it.polimi.se2018.utils.BadBehaviourRuntimeException;
+import it.polimi.se2018.utils.Move;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Bot that plays the turns of inactive (or disconnected) players using Monte Carlo tree search.
+ *
+ * At the beginning of the turn the game is copied; every iteration of the search makes a headless copy of that copy
+ * (see {@link Controller#Controller(Controller, Random)}), replays the moves already played in the turn and reseeds it,
+ * so that the bot does not know the dices that will be drawn. The tree spans the moves of the turn (they are generated by {@link MoveGenerator}),
+ * then a random playout of about a round is evaluated by the score difference between the bot and the best opponent.
+ * The evaluations are cached by position in a {@link TranspositionTable}: positions reached again, through the same
+ * or different moves, reuse the mean reward of their playouts once it is estimated well enough.
+ * Each move is searched for the configured thinking time and then performed on the real game through
+ * {@link Controller#handleMoveMessage(it.polimi.se2018.utils.Message)}, exactly as the move of a player,
+ * holding the lock of the controller: the search runs on a copy, but the real game is only changed under the lock
+ * shared with the players and the timers.
+ *
+ * Searches run on a bounded pool of daemon threads, so the bot never delays the threads of the server.
+ * If all the threads are busy and the queue is full, the turn is not played and it is ended by the move timer.
+ *
+ * @author Federico Haag
+ * @see MoveGenerator
+ */
+public final class MctsBot {
+
+    /**
+     * String logged when the bot fails playing a turn
+     */
+    private static final String BOT_FAILED = "The bot failed playing a turn: ";
+
+    /**
+     * String used as message of BadBehaviourRuntimeException when the source of randomness of the game can't be copied
+     */
+    private static final String CANT_COPY_RANDOM = "Can't copy the source of randomness of the game: ";
+
+    /**
+     * Prefix of the names of the threads of the bot
+     */
+    private static final String THREAD_NAME_PREFIX = "sagrada-bot-";
+
+    /**
+     * Exploration constant of the UCT formula
+     */
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    /**
+     * Score difference that gives a reward of about 0.73 (and -SCORE_SCALE about 0.27)
+     */
+    private static final double SCORE_SCALE = 5;
+
+    /**
+     * Maximum number of moves performed in a turn, after which the turn is ended
+     */
+    private static final int MAX_MOVES_PER_TURN = 30;
+
+    /**
+     * Number of turns played by the random playout, per player
+     */
+    private static final int PLAYOUT_TURNS_PER_PLAYER = 2;
+
+    /**
+     * Number of entries of the transposition table of a turn
+     */
+    private static final int TRANSPOSITION_TABLE_CAPACITY = 1 << 16;
+
+    /**
+     * Number of playouts of a position after which its mean reward is used instead of a new playout
+     */
+    private static final int MIN_CACHED_PLAYOUTS = 8;
+
+    /**
+     * Listener of the used toolCards, that are not tracked by the bot
+     */
+    private static final BiConsumer<String, ToolCard> NO_LISTENER = (playerID, toolCard) -> {};
+
+    /**
+     * Logger of the bot
+     */
+    private static final Logger LOGGER = Logger.getLogger(MctsBot.class.getName());
+
+    /**
+     * Milliseconds of search for each move
+     */
+    private final long thinkingTime;
+
+    /**
+     * Executor of the turns played by the bot
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructor of a bot that thinks for the given time for each move
+     *
+     * @param thinkingTime milliseconds of search for each move
+     * @param threads number of turns that can be played at the same time
+     * @param queueCapacity number of turns that can wait for a thread
+     */
+    public MctsBot(long thinkingTime, int threads, int queueCapacity) {
+        this.thinkingTime = thinkingTime;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Starts playing the current turn of the game handled by the given controller.
+     * It must be called at the beginning of the turn, the turn is played asynchronously.
+     *
+     * @param controller the controller of the game
+     * @return true if the bot is going to play the turn, false if it can't play it
+     */
+    boolean playTurn(Controller controller) {
+        TurnStart turnStart;
+        try {
+            turnStart = new TurnStart(controller);
+        } catch (BadBehaviourRuntimeException e) {
+            LOGGER.warning(BOT_FAILED + e.getMessage());
+            return false;
+        }
+
+        BotTurn turn = new BotTurn(controller, new Random(), NO_LISTENER);
+        try {
+            executor.execute(() -> play(controller, turn, turnStart));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stops the threads of the bot. Turns being played are interrupted only between two moves.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Plays a turn choosing each move with a search
+     *
+     * @param controller the controller of the real game
+     * @param turn the turn of the real game
+     * @param turnStart the game at the beginning of the turn
+     */
+    private void play(Controller controller, BotTurn turn, TurnStart turnStart) {
+        try {
+            Random random = new Random();
+            List<Integer> playedActions = new ArrayList<>();
+            TranspositionTable table = new TranspositionTable(TRANSPOSITION_TABLE_CAPACITY);
+
+            for(int i = 0; i < MAX_MOVES_PER_TURN && !turn.isOver() && !Thread.currentThread().isInterrupted(); i++){
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(thinkingTime);
+                int action = chooseAction(turnStart, playedActions, random, Integer.MAX_VALUE, deadline, table);
+                if(!controller.performBotAction(turn, action)){ break; }
+                playedActions.add(action);
+            }
+
+            controller.endBotTurn(turn);
+        } catch (RuntimeException e) {
+            LOGGER.warning(BOT_FAILED + e);
+            //the other players don't wait for the timer of a turn the bot can't go on playing
+            controller.endBotTurn(turn);
+        }
+    }
+
+    /**
+     * Chooses the next move of the turn. The search stops after the given number of iterations or at the given
+     * deadline, but at least one iteration is made.
+     *
+     * @param turnStart the game at the beginning of the turn
+     * @param playedActions the actions already played in the turn
+     * @param random the source of randomness of the search
+     * @param maxIterations maximum number of iterations of the search
+     * @param deadline value of {@link System#nanoTime()} at which the search stops
+     * @return the chosen action, as generated by {@link MoveGenerator}
+     */
+    int chooseAction(TurnStart turnStart, List<Integer> playedActions, Random random, int maxIterations, long deadline) {
+        return chooseAction(turnStart, playedActions, random, maxIterations, deadline,
+                new TranspositionTable(TRANSPOSITION_TABLE_CAPACITY));
+    }
+
+    /**
+     * Chooses the next move of the turn, caching the evaluations of the positions in the given table.
+     * The search stops after the given number of iterations or at the given deadline, but at least one iteration is made.
+     *
+     * @param turnStart the game at the beginning of the turn
+     * @param playedActions the actions already played in the turn
+     * @param random the source of randomness of the search
+     * @param maxIterations maximum number of iterations of the search
+     * @param deadline value of {@link System#nanoTime()} at which the search stops
+     * @param table the evaluations of the positions of the turn
+     * @return the chosen action, as generated by {@link MoveGenerator}
+     */
+    int chooseAction(TurnStart turnStart, List<Integer> playedActions, Random random,
+                     int maxIterations, long deadline, TranspositionTable table) {
+        MoveGenerator generator = new MoveGenerator();
+        MoveGenerator.Actions actions = new MoveGenerator.Actions();
+
+        Controller copy = turnStart.copy();
+        replay(copy, playedActions, random);
+        if(generator.generate(copy, actions) == 1){ return actions.get(0); }
+
+        Node root = new Node(-1);
+        int iterations = 0;
+        do {
+            iterate(root, turnStart, playedActions, random, generator, actions, table);
+            iterations++;
+        } while(iterations < maxIterations && System.nanoTime() < deadline);
+
+        return root.getMostVisitedChild().action;
+    }
+
+    /**
+     * Makes an iteration of the search: selection and expansion of the tree on a new copy of the game,
+     * then a random playout, whose reward is backpropagated. If the reached position was already evaluated
+     * enough times, its mean reward is backpropagated instead of playing it out again.
+     *
+     * @param root the root of the tree
+     * @param turnStart the game at the beginning of the turn
+     * @param playedActions the actions already played in the turn
+     * @param random the source of randomness of the search
+     * @param generator the move generator
+     * @param actions the buffer of the generated actions
+     * @param table the evaluations of the positions of the turn
+     */
+    private static void iterate(Node root, TurnStart turnStart, List<Integer> playedActions,
+                                Random random, MoveGenerator generator, MoveGenerator.Actions actions,
+                                TranspositionTable table) {
+        Controller copy = turnStart.copy();
+        BotTurn turn = replay(copy, playedActions, random);
+        String botID = turn.getPlayer().getID();
+
+        //the future is not known: from now on the copy draws different dices
+        copy.random.setSeed(random.nextLong());
+
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        while(!turn.isOver()){
+            generator.generate(copy, actions);
+            Node child = node.select(actions, random);
+            MoveGenerator.perform(turn, child.action);
+            path.add(child);
+            node = child;
+            if(child.visits == 0){ break; }
+        }
+
+        long position = copy.getZobristHash();
+        long cached = table.probe(position);
+        double reward;
+        if(TranspositionTable.getVisits(cached) >= MIN_CACHED_PLAYOUTS){
+            reward = TranspositionTable.getMeanReward(cached);
+        } else {
+            playout(copy, random, generator, actions);
+            reward = evaluate(copy.getCurrentScores(), botID);
+            table.add(position, reward);
+        }
+
+        for(Node visited : path){
+            visited.visits++;
+            visited.rewards += reward;
+        }
+    }
+
+    /**
+     * Plays random moves for all the players, for about a round
+     *
+     * @param copy the copy of the game
+     * @param random the source of randomness of the playout
+     * @param generator the move generator
+     * @param actions the buffer of the generated actions
+     */
+    private static void playout(Controller copy, Random random, MoveGenerator generator, MoveGenerator.Actions actions) {
+        int turns = PLAYOUT_TURNS_PER_PLAYER * copy.game.getPlayers().size();
+
+        while(copy.game.getStatus() == GameStatus.PLAYING && turns-- > 0){
+            BotTurn turn = new BotTurn(copy, random, NO_LISTENER);
+            for(int i = 0; i < MAX_MOVES_PER_TURN && !turn.isOver(); i++){
+                generator.generate(copy, actions);
+                MoveGenerator.perform(turn, actions.get(random.nextInt(actions.size())));
+            }
+            if(!turn.isOver()){
+                turn.perform(Move.END_TURN);
+            }
+        }
+    }
+
+    /**
+     * Evaluates the scores of a game from the point of view of the bot
+     *
+     * @param scores the scores of the players
+     * @param botID the player played by the bot
+     * @return a reward between 0 and 1, greater than 0.5 if the bot is leading
+     */
+    private static double evaluate(Map<String, Integer> scores, String botID) {
+        int botScore = scores.get(botID);
+        int bestOpponentScore = Integer.MIN_VALUE;
+        for(Map.Entry<String, Integer> score : scores.entrySet()){
+            if(!score.getKey().equals(botID)){
+                bestOpponentScore = Math.max(bestOpponentScore, score.getValue());
+            }
+        }
+        return 1 / (1 + Math.exp((bestOpponentScore - botScore) / SCORE_SCALE));
+    }
+
+    /**
+     * Replays the actions already played in the turn on a copy of the game
+     *
+     * @param copy the copy of the game, at the beginning of the turn
+     * @param playedActions the actions already played in the turn
+     * @param random the source of randomness of the bot
+     * @return the turn of the copy
+     */
+    private static BotTurn replay(Controller copy, List<Integer> playedActions, Random random) {
+        BotTurn turn = new BotTurn(copy, random, NO_LISTENER);
+        for(int action : playedActions){
+            MoveGenerator.perform(turn, action);
+        }
+        return turn;
+    }
+
+    /**
+     * The game at the beginning of a turn, from which the copies of the search are made.
+     * The source of randomness can't be copied but serializing it, so it is kept serialized:
+     * each copy gets its own source, in the same state of the one of the real game at the beginning of the turn.
+     */
+    static final class TurnStart {
+
+        /**
+         * Copy of the game at the beginning of the turn, that is never played
+         */
+        private final Controller game;
+
+        /**
+         * Serialized source of randomness of the game at the beginning of the turn
+         */
+        private final byte[] random;
+
+        /**
+         * Constructor of the start of the current turn of the game handled by the given controller.
+         * It must be called at the beginning of the turn.
+         *
+         * @param controller the controller of the game
+         */
+        TurnStart(Controller controller) {
+            this.random = serialize(controller.random);
+            this.game = new Controller(controller, restoreRandom());
+        }
+
+        /**
+         * Makes a new headless copy of the game at the beginning of the turn
+         *
+         * @return the controller of the copy of the game
+         */
+        Controller copy() {
+            return new Controller(game, restoreRandom());
+        }
+
+        /**
+         * Restores the source of randomness of the game at the beginning of the turn
+         *
+         * @return a new source of randomness, in the state of the one of the game at the beginning of the turn
+         */
+        private Random restoreRandom() {
+            try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(random))){
+                return (Random) in.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new BadBehaviourRuntimeException(CANT_COPY_RANDOM + e.getMessage());
+            }
+        }
+
+        /**
+         * Serializes the given source of randomness
+         *
+         * @param random the source of randomness
+         * @return the serialized source of randomness
+         */
+        private static byte[] serialize(Random random) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try(ObjectOutputStream out = new ObjectOutputStream(bytes)){
+                out.writeObject(random);
+            } catch (IOException e) {
+                throw new BadBehaviourRuntimeException(CANT_COPY_RANDOM + e.getMessage());
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Node of the search tree, reached performing an action from its parent.
+     * The tree is open loop: children are kept by action and only the ones legal in the current copy are considered.
+     */
+    private static final class Node {
+
+        /**
+         * The action that leads to this node from its parent
+         */
+        private final int action;
+
+        /**
+         * Children of this node by action
+         */
+        private final Map<Integer, Node> children = new HashMap<>();
+
+        /**
+         * Number of iterations that went through this node
+         */
+        private int visits = 0;
+
+        /**
+         * Sum of the rewards of the iterations that went through this node
+         */
+        private double rewards = 0;
+
+        /**
+         * Constructor of a node reached with the given action
+         *
+         * @param action the action that leads to this node from its parent
+         */
+        private Node(int action) {
+            this.action = action;
+        }
+
+        /**
+         * Selects the child to visit among the legal actions: a random one never tried
+         * or, if all were tried, the one with the best UCT value
+         *
+         * @param actions the legal actions
+         * @param random the source of randomness of the search
+         * @return the child to visit
+         */
+        private Node select(MoveGenerator.Actions actions, Random random) {
+            int untried = 0;
+            for(int i = 0; i < actions.size(); i++){
+                if(!children.containsKey(actions.get(i))){ untried++; }
+            }
+
+            if(untried > 0){
+                int chosen = random.nextInt(untried);
+                for(int i = 0; i < actions.size(); i++){
+                    if(!children.containsKey(actions.get(i)) && chosen-- == 0){
+                        Node child = new Node(actions.get(i));
+                        children.put(child.action, child);
+                        return child;
+                    }
+                }
+            }
+
+            double logVisits = Math.log(Math.max(1, visits));
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for(int i = 0; i < actions.size(); i++){
+                Node child = children.get(actions.get(i));
+                double value = child.rewards / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if(value > bestValue){
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Returns the most visited child
+         *
+         * @return the most visited child
+         */
+        private Node getMostVisitedChild() {
+            return Collections.max(children.values(), Comparator.comparingInt(child -> child.visits));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.Dice;
+import it.polimi.se2018.model.DiceColor;
+import it.polimi.se2018.model.ToolCard;
+import it.polimi.se2018.model.WindowPattern;
+import it.polimi.se2018.utils.Move;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of the params of a move, shared by the {@link GameLog} and the replay files.
+ *
+ * Most frequent types are written in a few bytes. Window patterns and toolCards are written just by
+ * their identifier (pattern ID and toolCard title): when decoding, a {@link Resolver} gives back
+ * the corresponding objects of the game the move belongs to. Any other value is written through serialization.
+ *
+ * @author Federico Haag
+ * @see GameLog
+ * @see ReplayReader
+ */
+final class MoveCodec {
+
+    /**
+     * String used as message of IOException when a value of a move has an unknown tag
+     */
+    private static final String UNKNOWN_VALUE_TAG = "Unknown tag of an encoded value: ";
+
+    /*  CONSTANTS FOR VALUE TAGS
+        Following constants are not commented one by one because they are as self explaining as needed.
+        Being private, they are used only in this file. So if a change is needed, just look for usages in this file.
+     */
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_INT = 1;
+    private static final byte TAG_STRING = 2;
+    private static final byte TAG_MOVE = 3;
+    private static final byte TAG_DICE = 4;
+    private static final byte TAG_OBJECT = 5;
+    private static final byte TAG_WINDOW_PATTERN = 6;
+    private static final byte TAG_TOOL_CARD = 7;
+
+    /**
+     * Private constructor as the class has only static methods
+     */
+    private MoveCodec() {
+    }
+
+    /**
+     * Gives back the objects of a game written just by their identifier
+     */
+    interface Resolver {
+
+        /**
+         * Returns the window pattern with the given ID among the ones the given player could choose
+         *
+         * @param playerID the player that chose the window pattern
+         * @param patternID the ID of the window pattern
+         * @return the window pattern with the given ID or null if it does not exist
+         */
+        WindowPattern getWindowPattern(String playerID, String patternID);
+
+        /**
+         * Returns the toolCard of the game with the given title
+         *
+         * @param title the title of the toolCard
+         * @return the toolCard with the given title or null if it does not exist
+         */
+        ToolCard getToolCard(String title);
+    }
+
+    /**
+     * Encodes the params of a move
+     *
+     * @param data the stream to write to
+     * @param params the params to encode
+     * @throws IOException if the params can't be encoded
+     */
+    static void writeParams(DataOutputStream data, Map<String, Object> params) throws IOException {
+        data.writeShort(params.size());
+        for(Map.Entry<String, Object> entry : params.entrySet()){
+            data.writeUTF(entry.getKey());
+            writeValue(data, entry.getValue());
+        }
+    }
+
+    /**
+     * Decodes the params of a move.
+     * If no resolver is given, window patterns and toolCards are decoded as their identifier.
+     *
+     * @param data the stream to read from
+     * @param playerID the player that performed the move
+     * @param resolver the resolver of window patterns and toolCards, or null
+     * @return the decoded params
+     * @throws IOException if the params can't be decoded
+     */
+    static HashMap<String, Object> readParams(DataInputStream data, String playerID, Resolver resolver) throws IOException {
+        int numberOfParams = data.readShort();
+        HashMap<String, Object> params = new HashMap<>();
+        for(int i = 0; i < numberOfParams; i++){
+            String key = data.readUTF();
+            params.put(key, readValue(data, playerID, resolver));
+        }
+        return params;
+    }
+
+    /**
+     * Encodes a param of a move
+     *
+     * @param data the stream to write to
+     * @param value the value to encode
+     * @throws IOException if the value can't be encoded
+     */
+    private static void writeValue(DataOutputStream data, Object value) throws IOException {
+        if(value == null){
+            data.writeByte(TAG_NULL);
+        } else if(value instanceof Integer){
+            data.writeByte(TAG_INT);
+            data.writeInt((Integer) value);
+        } else if(value instanceof String){
+            data.writeByte(TAG_STRING);
+            data.writeUTF((String) value);
+        } else if(value instanceof Move){
+            data.writeByte(TAG_MOVE);
+            data.writeByte(((Move) value).ordinal());
+        } else if(value instanceof Dice){
+            data.writeByte(TAG_DICE);
+            data.writeByte(((Dice) value).getColor().ordinal());
+            data.writeByte(((Dice) value).getValue());
+        } else if(value instanceof WindowPattern){
+            data.writeByte(TAG_WINDOW_PATTERN);
+            data.writeUTF(((WindowPattern) value).getID());
+        } else if(value instanceof ToolCard){
+            data.writeByte(TAG_TOOL_CARD);
+            data.writeUTF(((ToolCard) value).getTitle());
+        } else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try(ObjectOutputStream objectStream = new ObjectOutputStream(bytes)){
+                objectStream.writeObject(value);
+            }
+            data.writeByte(TAG_OBJECT);
+            data.writeInt(bytes.size());
+            bytes.writeTo(data);
+        }
+    }
+
+    /**
+     * Decodes a param of a move
+     *
+     * @param data the stream to read from
+     * @param playerID the player that performed the move
+     * @param resolver the resolver of window patterns and toolCards, or null
+     * @return the decoded value
+     * @throws IOException if the value can't be decoded
+     */
+    private static Object readValue(DataInputStream data, String playerID, Resolver resolver) throws IOException {
+        byte tag = data.readByte();
+        switch (tag){
+            case TAG_NULL:
+                return null;
+            case TAG_INT:
+                return data.readInt();
+            case TAG_STRING:
+                return data.readUTF();
+            case TAG_MOVE:
+                return Move.values()[data.readByte()];
+            case TAG_DICE:
+                DiceColor color = DiceColor.values()[data.readByte()];
+                return new Dice(color, data.readByte());
+            case TAG_WINDOW_PATTERN:
+                String patternID = data.readUTF();
+                return (resolver == null) ? patternID : resolver.getWindowPattern(playerID, patternID);
+            case TAG_TOOL_CARD:
+                String title = data.readUTF();
+                return (resolver == null) ? title : resolver.getToolCard(title);
+            case TAG_OBJECT:
+                byte[] bytes = new byte[data.readInt()];
+                data.readFully(bytes);
+                try(ObjectInputStream objectStream = new ObjectInputStream(new ByteArrayInputStream(bytes))){
+                    return objectStream.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            default:
+                throw new IOException(UNKNOWN_VALUE_TAG + tag);
+        }
+    }
+}
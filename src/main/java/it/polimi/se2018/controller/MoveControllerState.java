@@ -62,15 +62,12 @@ public class MoveControllerState extends ControllerState {
         Turn currentTurn = game.getCurrentRound().getCurrentTurn();
         WindowPattern pattern = currentTurn.getPlayer().getWindowPattern();
 
-        Dice diceOnHold = pattern.removeDiceFromCell(rowFrom, colFrom);
-        boolean isAllowed = controller.placementRule.isMoveAllowed(pattern, diceOnHold, rowTo, colTo);
-        try{
-            pattern.putDiceOnCell(diceOnHold, rowFrom, colFrom);
-        }catch (IllegalArgumentException e){
+        if(!pattern.isThereADice(rowFrom, colFrom)){
             return new Message(ERROR_MESSAGE, NO_DICE_ON_CELL);
         }
 
-        if (isAllowed && pattern.moveDiceFromCellToCell(rowFrom, colFrom, rowTo, colTo)) {
+        if (pattern.isMoveAllowed(controller.placementRule, rowFrom, colFrom, rowTo, colTo)
+                && pattern.moveDiceFromCellToCell(rowFrom, colFrom, rowTo, colTo)) {
 
             controller.movesCounter += 1;
 
@@ -0,0 +1,443 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.*;
+import it.polimi.se2018.utils.Move;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generator of all the legal actions the current player can perform in the current state of a game.
+ *
+ * The {@link ControllerState} classes only validate a proposed move: this class enumerates the moves that
+ * would be accepted, mirroring their checks. Ending the turn is always generated, as it is accepted in any state.
+ * Drafting a dice at the beginning of a turn is generated together
+ * with its placement, as a single action for each legal cell. Equal dices of the draft pool (or of the same
+ * track slot) give the same actions, so only the first one is generated.
+ *
+ * Actions are encoded as ints (see {@link MoveGenerator#getMove(int)} and {@link MoveGenerator#getArg(int, int)})
+ * and written into a reusable {@link Actions} buffer, so that bots can generate moves at millions
+ * of positions without creating garbage: placement rules are checked directly on the cells of the pattern.
+ * A generator is not thread safe, but it is cheap: each thread uses its own.
+ *
+ * Arguments of the actions:
+ * <ul>
+ *     <li>DRAFT_DICE_FROM_DRAFTPOOL: index of the dice in the draft pool, then row and col if it is a
+ *     draft and place action (see {@link MoveGenerator#isDraftAndPlace(int)})</li>
+ *     <li>PLACE_DICE_ON_WINDOWPATTERN: row, col</li>
+ *     <li>USE_TOOLCARD: index of the toolCard among the drawn ones</li>
+ *     <li>CHANGE_DRAFTED_DICE_VALUE: value</li>
+ *     <li>CHOOSE_DICE_FROM_TRACK: slot number, index of the dice in the slot</li>
+ *     <li>MOVE_DICE: row from, col from, row to, col to</li>
+ *     <li>other moves: none</li>
+ * </ul>
+ *
+ * @author Federico Haag
+ * @see MoveGenerator#perform(BotTurn, int)
+ */
+public final class MoveGenerator {
+
+    /**
+     * String used as message of IllegalArgumentException when asked for an argument that does not exist
+     */
+    private static final String ARG_OUT_OF_RANGE = "Actions have at most 4 arguments.";
+
+    /**
+     * Permissions of a player at the beginning of its turn, as sent by the controller with IT_IS_YOUR_TURN
+     */
+    private static final Set<Move> TURN_START_PERMISSIONS = EnumSet.of(Move.DRAFT_DICE_FROM_DRAFTPOOL, Move.USE_TOOLCARD, Move.END_TURN);
+
+    /*  CONSTANTS FOR ACTIONS ENCODING
+        Following constants are not commented one by one because they are as self explaining as needed.
+        Being private, they are used only in this file. So if a change is needed, just look for usages in this file.
+     */
+    private static final int MOVE_BITS = 5;
+    private static final int MOVE_MASK = (1 << MOVE_BITS) - 1;
+    private static final int ARG_BITS = 6;
+    private static final int ARG_MASK = (1 << ARG_BITS) - 1;
+    private static final int NUMBER_OF_ARGS = 4;
+    private static final int DRAFT_AND_PLACE_FLAG = 1 << (MOVE_BITS + NUMBER_OF_ARGS * ARG_BITS);
+
+    /**
+     * Moves in the order of their ordinal, decoded without allocating
+     */
+    private static final Move[] MOVES = Move.values();
+
+    /**
+     * Maximum value of a dice
+     */
+    private static final int MAX_DICE_VALUE = 6;
+
+    /**
+     * Generates all the legal actions of the current player of the game handled by the given controller.
+     * Nothing is generated if the game is not being played.
+     *
+     * @param controller the controller of the game
+     * @param actions the buffer where actions are written, after having cleared it
+     * @return the number of generated actions
+     */
+    public int generate(Controller controller, Actions actions) {
+        actions.clear();
+        if(controller.game.getStatus() != GameStatus.PLAYING){ return 0; }
+
+        ControllerState state = controller.controllerState;
+        Set<Move> permissions = (state instanceof StartControllerState) ? TURN_START_PERMISSIONS : state.getStatePermissions();
+
+        Round round = controller.game.getCurrentRound();
+        Turn turn = round.getCurrentTurn();
+        WindowPattern pattern = turn.getPlayer().getWindowPattern();
+
+        for(Move move : permissions){
+            switch (move){
+                case DRAFT_DICE_FROM_DRAFTPOOL:
+                    generateDrafts(controller, round.getDraftPool().getDices(), pattern, actions);
+                    break;
+                case PLACE_DICE_ON_WINDOWPATTERN:
+                    generatePlacements(controller.placementRule, turn.getDraftedDice(), pattern, 0, actions);
+                    break;
+                case RETURN_DICE_TO_DRAFTPOOL:
+                    if(turn.getDraftedDice() != null){ actions.add(encode(move)); }
+                    break;
+                case USE_TOOLCARD:
+                    generateToolCards(controller, actions);
+                    break;
+                case CHANGE_DRAFTED_DICE_VALUE:
+                    for(int value = 1; value <= MAX_DICE_VALUE; value++){
+                        actions.add(encode(move, value));
+                    }
+                    break;
+                case INCREMENT_DRAFTED_DICE:
+                    if(turn.getDraftedDice() != null && turn.getDraftedDice().getValue() < MAX_DICE_VALUE){ actions.add(encode(move)); }
+                    break;
+                case DECREMENT_DRAFTED_DICE:
+                    if(turn.getDraftedDice() != null && turn.getDraftedDice().getValue() > 1){ actions.add(encode(move)); }
+                    break;
+                case CHOOSE_DICE_FROM_TRACK:
+                    generateTrackChoices(controller.game.getTrack(), actions);
+                    break;
+                case MOVE_DICE:
+                    generateDiceMoves(controller.placementRule, pattern, actions);
+                    break;
+                case END_EFFECT:
+                    if(state instanceof MoveControllerState
+                            && controller.getActiveToolCard().getPossibleMovesCountSet().contains(controller.movesCounter)){
+                        actions.add(encode(move));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        //the turn can be ended in any state, also when the state does not advertise it
+        actions.add(encode(Move.END_TURN));
+        return actions.size();
+    }
+
+    /**
+     * Generates the drafts of each different dice of the draft pool. If no toolCard is active,
+     * the draft is followed by the placement, so an action is generated for each legal cell.
+     *
+     * @param controller the controller of the game
+     * @param dices the dices of the draft pool
+     * @param pattern the window pattern of the current player
+     * @param actions the buffer where actions are written
+     */
+    private static void generateDrafts(Controller controller, List<Dice> dices, WindowPattern pattern, Actions actions) {
+        boolean thenPlace = controller.getActiveToolCard() == null;
+
+        for(int i = 0; i < dices.size(); i++){
+            if(isRepeated(dices, i)){ continue; }
+
+            if(thenPlace){
+                generatePlacements(controller.placementRule, dices.get(i), pattern, DRAFT_AND_PLACE_FLAG | encode(Move.DRAFT_DICE_FROM_DRAFTPOOL, i), actions);
+            } else {
+                actions.add(encode(Move.DRAFT_DICE_FROM_DRAFTPOOL, i));
+            }
+        }
+    }
+
+    /**
+     * Generates the placements of the given dice on each legal cell
+     *
+     * @param placementRule the placement rule the placements must respect
+     * @param dice the dice to place
+     * @param pattern the window pattern where the dice is placed
+     * @param base the action row and col are added to: a draft action or 0 for a placement action
+     * @param actions the buffer where actions are written
+     */
+    private static void generatePlacements(PlacementRule placementRule, Dice dice, WindowPattern pattern, int base, Actions actions) {
+        if(dice == null){ return; }
+
+        int shift = (base == 0) ? 0 : 1;
+        int head = (base == 0) ? encode(Move.PLACE_DICE_ON_WINDOWPATTERN) : base;
+
+        for(int row = 0; row < pattern.getNumberOfRows(); row++){
+            for(int col = 0; col < pattern.getNumberOfColumns(); col++){
+                if(!pattern.isThereADice(row, col) && placementRule.isMoveAllowed(pattern, dice, row, col)){
+                    actions.add(head | withArg(shift, row) | withArg(shift + 1, col));
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates the use of each drawn toolCard that could be activated now
+     *
+     * @param controller the controller of the game
+     * @param actions the buffer where actions are written
+     */
+    private static void generateToolCards(Controller controller, Actions actions) {
+        List<ToolCard> toolCards = controller.game.getDrawnToolCards();
+        for(int i = 0; i < toolCards.size(); i++){
+            if(controller.canActivateToolCard(toolCards.get(i))){
+                actions.add(encode(Move.USE_TOOLCARD, i));
+            }
+        }
+    }
+
+    /**
+     * Generates the choice of each different dice of each slot of the track
+     *
+     * @param track the track of the game
+     * @param actions the buffer where actions are written
+     */
+    private static void generateTrackChoices(Track track, Actions actions) {
+        for(int slot = 0; slot < track.size(); slot++){
+            List<Dice> dices = track.getDicesFromSlotNumber(slot);
+            for(int i = 0; i < dices.size(); i++){
+                if(!isRepeated(dices, i)){
+                    actions.add(encode(Move.CHOOSE_DICE_FROM_TRACK, slot, i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates the moves of each dice of the pattern to each cell where it can be moved
+     *
+     * @param placementRule the placement rule the moves must respect
+     * @param pattern the window pattern of the current player
+     * @param actions the buffer where actions are written
+     */
+    private static void generateDiceMoves(PlacementRule placementRule, WindowPattern pattern, Actions actions) {
+        int rows = pattern.getNumberOfRows();
+        int cols = pattern.getNumberOfColumns();
+
+        for(int rowFrom = 0; rowFrom < rows; rowFrom++){
+            for(int colFrom = 0; colFrom < cols; colFrom++){
+                if(!pattern.isThereADice(rowFrom, colFrom)){ continue; }
+
+                for(int rowTo = 0; rowTo < rows; rowTo++){
+                    for(int colTo = 0; colTo < cols; colTo++){
+                        if(pattern.isMoveAllowed(placementRule, rowFrom, colFrom, rowTo, colTo)){
+                            actions.add(encode(Move.MOVE_DICE, rowFrom, colFrom, rowTo, colTo));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the dice at the given index is equal to one that comes before it
+     *
+     * @param dices the list of dices
+     * @param index the index of the dice to check
+     * @return true if an equal dice comes before the given one
+     */
+    private static boolean isRepeated(List<Dice> dices, int index) {
+        Dice dice = dices.get(index);
+        for(int i = 0; i < index; i++){
+            if(dices.get(i).equals(dice)){ return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Performs the given action, generated in the current state of the turn
+     *
+     * @param turn the turn being played
+     * @param action the action to perform
+     * @return true if all the moves of the action were accepted
+     */
+    public static boolean perform(BotTurn turn, int action) {
+        Game game = turn.getGame();
+        Move move = getMove(action);
+
+        switch (move){
+            case DRAFT_DICE_FROM_DRAFTPOOL:
+                Dice dice = game.getCurrentRound().getDraftPool().getDices().get(getArg(action, 0));
+                boolean drafted = turn.perform(move, "dice", dice);
+                return (drafted && isDraftAndPlace(action))
+                        ? turn.perform(Move.PLACE_DICE_ON_WINDOWPATTERN, "row", getArg(action, 1), "col", getArg(action, 2))
+                        : drafted;
+            case PLACE_DICE_ON_WINDOWPATTERN:
+                return turn.perform(move, "row", getArg(action, 0), "col", getArg(action, 1));
+            case USE_TOOLCARD:
+                return turn.perform(move, "toolCard", game.getDrawnToolCards().get(getArg(action, 0)));
+            case CHANGE_DRAFTED_DICE_VALUE:
+                return turn.perform(move, "value", getArg(action, 0));
+            case CHOOSE_DICE_FROM_TRACK:
+                int slot = getArg(action, 0);
+                return turn.perform(move, "dice", game.getTrack().getDicesFromSlotNumber(slot).get(getArg(action, 1)), "slotNumber", slot);
+            case MOVE_DICE:
+                return turn.perform(move, "rowFrom", getArg(action, 0), "colFrom", getArg(action, 1),
+                        "rowTo", getArg(action, 2), "colTo", getArg(action, 3));
+            default:
+                return turn.perform(move);
+        }
+    }
+
+    /**
+     * Returns the move of the given action. For draft and place actions, it is the draft.
+     *
+     * @param action the action
+     * @return the move of the given action
+     */
+    public static Move getMove(int action) {
+        return MOVES[action & MOVE_MASK];
+    }
+
+    /**
+     * Returns an argument of the given action
+     *
+     * @param action the action
+     * @param index the index of the argument, from 0 to 3
+     * @return the argument of the given action
+     */
+    public static int getArg(int action, int index) {
+        if(index < 0 || index >= NUMBER_OF_ARGS){ throw new IllegalArgumentException(ARG_OUT_OF_RANGE); }
+        return (action >>> (MOVE_BITS + index * ARG_BITS)) & ARG_MASK;
+    }
+
+    /**
+     * Returns true if the given action is a draft followed by the placement of the drafted dice
+     *
+     * @param action the action
+     * @return true if the given action is a draft followed by a placement
+     */
+    public static boolean isDraftAndPlace(int action) {
+        return (action & DRAFT_AND_PLACE_FLAG) != 0;
+    }
+
+    /**
+     * Encodes an action without arguments
+     *
+     * @param move the move of the action
+     * @return the encoded action
+     */
+    private static int encode(Move move) {
+        return move.ordinal();
+    }
+
+    /**
+     * Encodes an action with one argument
+     *
+     * @param move the move of the action
+     * @param arg0 the first argument
+     * @return the encoded action
+     */
+    private static int encode(Move move, int arg0) {
+        return encode(move) | withArg(0, arg0);
+    }
+
+    /**
+     * Encodes an action with two arguments
+     *
+     * @param move the move of the action
+     * @param arg0 the first argument
+     * @param arg1 the second argument
+     * @return the encoded action
+     */
+    private static int encode(Move move, int arg0, int arg1) {
+        return encode(move, arg0) | withArg(1, arg1);
+    }
+
+    /**
+     * Encodes an action with four arguments
+     *
+     * @param move the move of the action
+     * @param arg0 the first argument
+     * @param arg1 the second argument
+     * @param arg2 the third argument
+     * @param arg3 the fourth argument
+     * @return the encoded action
+     */
+    private static int encode(Move move, int arg0, int arg1, int arg2, int arg3) {
+        return encode(move, arg0, arg1) | withArg(2, arg2) | withArg(3, arg3);
+    }
+
+    /**
+     * Encodes an argument in its position
+     *
+     * @param index the index of the argument
+     * @param value the value of the argument
+     * @return the bits of the encoded argument
+     */
+    private static int withArg(int index, int value) {
+        return (value & ARG_MASK) << (MOVE_BITS + index * ARG_BITS);
+    }
+
+    /**
+     * Growable buffer of encoded actions, reused across generations
+     */
+    public static final class Actions {
+
+        /**
+         * Initial capacity of the buffer
+         */
+        private static final int INITIAL_CAPACITY = 64;
+
+        /**
+         * The encoded actions
+         */
+        private int[] actions = new int[INITIAL_CAPACITY];
+
+        /**
+         * Number of actions in the buffer
+         */
+        private int size = 0;
+
+        /**
+         * Removes all the actions, keeping the capacity
+         */
+        public void clear() {
+            size = 0;
+        }
+
+        /**
+         * Adds an action
+         *
+         * @param action the action to add
+         */
+        void add(int action) {
+            if(size == actions.length){
+                actions = Arrays.copyOf(actions, size * 2);
+            }
+            actions[size++] = action;
+        }
+
+        /**
+         * Returns the number of actions
+         *
+         * @return the number of actions
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the action at the given index
+         *
+         * @param index the index of the action
+         * @return the action at the given index
+         */
+        public int get(int index) {
+            if(index < 0 || index >= size){ throw new IndexOutOfBoundsException(String.valueOf(index)); }
+            return actions[index];
+        }
+    }
+}
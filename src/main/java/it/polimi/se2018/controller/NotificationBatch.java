@@ -0,0 +1,99 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.ViewBoundMessageType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Notifications collected while a move is handled, to be sent as a single message.
+ * Messages carrying the whole state of an entity (draftpool, track, window pattern of a player)
+ * supersede the previous ones about the same entity, that are dropped.
+ *
+ * @author Federico Haag
+ */
+final class NotificationBatch {
+
+    /**
+     * Name of the param of a window pattern update containing the ID of its owner
+     */
+    private static final String PARAM_WINDOW_PATTERN_OWNER = "currentPlayer";
+
+    /**
+     * Collected messages, in notification order
+     */
+    private final List<Message> messages = new ArrayList<>();
+
+    /**
+     * Adds a message to the batch, dropping the previous message about the same entity
+     *
+     * @param message the message to add
+     */
+    void add(Message message){
+        if(isSnapshot(message)){
+            Iterator<Message> iterator = messages.iterator();
+            while(iterator.hasNext()){
+                if(isAboutSameEntity(iterator.next(), message)){
+                    iterator.remove();
+                }
+            }
+        }
+        messages.add(message);
+    }
+
+    /**
+     * Returns true if nothing was collected
+     *
+     * @return true if nothing was collected
+     */
+    boolean isEmpty(){
+        return messages.isEmpty();
+    }
+
+    /**
+     * Returns the message to be sent: the only collected message or a broadcast batch containing
+     * all of them in notification order. Recipients of each batched message are given by its playerID.
+     *
+     * @return the message to be sent, or null if nothing was collected
+     * @see Message#batch(List, String)
+     */
+    Message toMessage(){
+        if(messages.isEmpty()){ return null; }
+        if(messages.size()==1){ return messages.get(0); }
+
+        return Message.batch(messages, null);
+    }
+
+    /**
+     * Returns true if the message contains the whole state of an entity
+     *
+     * @param message the message to check
+     * @return true if the message contains the whole state of an entity
+     */
+    private static boolean isSnapshot(Message message){
+        Enum<?> type = message.getType();
+        return type==ViewBoundMessageType.SOMETHING_CHANGED_IN_DRAFTPOOL
+                || type==ViewBoundMessageType.SOMETHING_CHANGED_IN_TRACK
+                || type==ViewBoundMessageType.SOMETHING_CHANGED_IN_WINDOWPATTERN;
+    }
+
+    /**
+     * Returns true if the two messages are snapshots of the same entity sent to the same recipients
+     *
+     * @param previous the message already collected
+     * @param next the message being added
+     * @return true if the next message supersedes the previous one
+     */
+    private static boolean isAboutSameEntity(Message previous, Message next){
+        if(previous.getType()!=next.getType() || !Objects.equals(previous.getPlayerID(), next.getPlayerID())){
+            return false;
+        }
+        if(next.getType()!=ViewBoundMessageType.SOMETHING_CHANGED_IN_WINDOWPATTERN){
+            return true;
+        }
+        return Objects.equals(previous.getParams().get(PARAM_WINDOW_PATTERN_OWNER), next.getParams().get(PARAM_WINDOW_PATTERN_OWNER));
+    }
+}
@@ -4,7 +4,9 @@ import it.polimi.se2018.model.*;
 import it.polimi.se2018.utils.BadBehaviourRuntimeException;
 import it.polimi.se2018.utils.ValueOutOfBoundsException;
 
+import java.io.Serializable;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Creates all the types of Objective Cards: {@link PublicObjectiveCard} and {@link PrivateObjectiveCard}.
@@ -34,6 +36,16 @@ public class ObjectiveCardFactory {
      */
     private static final String PUBLIC_OBJECTIVE_CARDS_PATH = "images/PublicObjectiveCards/";
 
+    /**
+     * Property function reading the color of a dice. It is serializable so that cards survive game snapshots.
+     */
+    private static final Function<Dice,Object> COLOR_PROPERTY = (Function<Dice,Object> & Serializable) Dice::getColor;
+
+    /**
+     * Property function reading the value of a dice. It is serializable so that cards survive game snapshots.
+     */
+    private static final Function<Dice,Object> VALUE_PROPERTY = (Function<Dice,Object> & Serializable) Dice::getValue;
+
     /**
      * Private Constructor in order to prevent from multiple instantiation of the class
      */
@@ -43,7 +55,7 @@ public class ObjectiveCardFactory {
      * Gets the instance of the class (according to Singleton Pattern)
      * @return the instance of the class
      */
-    public static ObjectiveCardFactory getInstance(){
+    public static synchronized ObjectiveCardFactory getInstance(){
         if(instance == null) {
             instance = new ObjectiveCardFactory();
         }
@@ -130,7 +142,7 @@ public class ObjectiveCardFactory {
                 "Sets of one of each color anywhere",
                 PUBLIC_OBJECTIVE_CARDS_PATH + "ColorVariety.jpg",
                 new HashSet<>(Arrays.asList(DiceColor.values())),
-                Dice::getColor,
+                COLOR_PROPERTY,
                 4
         );
     }
@@ -181,7 +193,7 @@ public class ObjectiveCardFactory {
                         values + " .");
         }
 
-        return new SetPublicObjectiveCard(title, description, imageURL, values, Dice::getValue, multiplier);
+        return new SetPublicObjectiveCard(title, description, imageURL, values, VALUE_PROPERTY, multiplier);
     }
 
     /**
@@ -193,7 +205,7 @@ public class ObjectiveCardFactory {
         String description = "Count of diagonally adjacent same color dice";
         String imageURL = PUBLIC_OBJECTIVE_CARDS_PATH + "ColorDiagonals.jpg";
 
-        return new DiagonalsPublicObjectiveCard(title, description, imageURL, Dice::getColor);
+        return new DiagonalsPublicObjectiveCard(title, description, imageURL, COLOR_PROPERTY);
     }
 
     /**
@@ -205,7 +217,7 @@ public class ObjectiveCardFactory {
         String description = "Rows with no repeated colors";
         String imageURL = PUBLIC_OBJECTIVE_CARDS_PATH + "RowColorVariety.jpg";
         return new RowsColumnsPublicObjectiveCard(title, description, imageURL,
-                Dice::getColor, 6, true);
+                COLOR_PROPERTY, 6, true);
     }
 
     /**
@@ -217,7 +229,7 @@ public class ObjectiveCardFactory {
         String description = "Columns with no repeated colors";
         String imageURL = PUBLIC_OBJECTIVE_CARDS_PATH + "ColumnColorVariety.jpg";
         return new RowsColumnsPublicObjectiveCard(title, description, imageURL,
-                Dice::getColor, 5, false);
+                COLOR_PROPERTY, 5, false);
     }
 
     /**
@@ -229,7 +241,7 @@ public class ObjectiveCardFactory {
         String description = "Rows with no repeated values";
         String imageURL = PUBLIC_OBJECTIVE_CARDS_PATH + "RowShadeVariety.jpg";
         return new RowsColumnsPublicObjectiveCard(title, description, imageURL,
-                Dice::getValue, 5, true);
+                VALUE_PROPERTY, 5, true);
     }
 
     /**
@@ -241,6 +253,6 @@ public class ObjectiveCardFactory {
         String description = "Columns with no repeated values";
         String imageURL = PUBLIC_OBJECTIVE_CARDS_PATH + "ColumnShadeVariety.jpg";
         return new RowsColumnsPublicObjectiveCard(title, description, imageURL,
-                Dice::getValue, 4, false);
+                VALUE_PROPERTY, 4, false);
     }
 }
@@ -35,6 +35,27 @@ public class ObjectiveCardManager {
      */
     private static final int NUMBER_OF_PUBLIC_OBJECTIVE_CARDS = 10;
 
+    /**
+     * Source of randomness used to choose the cards
+     */
+    private final Random random;
+
+    /**
+     * Constructor of a manager choosing the cards randomly
+     */
+    public ObjectiveCardManager(){
+        this(new Random());
+    }
+
+    /**
+     * Constructor of a manager choosing the cards with the given source of randomness
+     *
+     * @param random the source of randomness used to choose the cards
+     */
+    public ObjectiveCardManager(Random random){
+        this.random = random;
+    }
+
     /**
      * Creates and returns a new {@link PrivateObjectiveCard}
      * @return new instance of a {@link PrivateObjectiveCard}
@@ -45,7 +66,7 @@ public class ObjectiveCardManager {
         DiceColor color;
 
         do{
-            color = DiceColor.getRandomColor();
+            color = DiceColor.getRandomColor(random);
         }while (assignedColors.contains(color));
 
         assignedColors.add(color);
@@ -65,7 +86,6 @@ public class ObjectiveCardManager {
             throw new ValueOutOfBoundsException(ASKED_QUANTITY_GREATER_THAN_MAX);
         }
 
-        Random r = new Random();
         int randomIndex;
         PublicObjectiveCard currentCard;
         List<PublicObjectiveCard> publicObjectiveCards = new ArrayList<>();
@@ -74,7 +94,7 @@ public class ObjectiveCardManager {
         for(int i=0; i<quantity; i++){
             //Choose randomly one of the cards
             do {
-                randomIndex = r.nextInt(NUMBER_OF_PUBLIC_OBJECTIVE_CARDS);
+                randomIndex = random.nextInt(NUMBER_OF_PUBLIC_OBJECTIVE_CARDS);
                 currentCard = ObjectiveCardFactory.getInstance().createPublicObjectiveCardCardByIndex(randomIndex);
             }while(usedIndexes.contains(randomIndex));
             usedIndexes.add(randomIndex);
@@ -0,0 +1,100 @@
+package it.polimi.se2018.controller;
+
+import java.io.Serializable;
+
+/**
+ * Advice about placing the drafted dice on a cell of the window pattern, with the score
+ * the player is expected to reach at the end of the game placing it there.
+ *
+ * @author Federico Haag
+ * @see PlacementHintEngine
+ */
+public final class PlacementHint implements Serializable {
+
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = 3270981452604118753L;
+
+    /**
+     * Row of the cell
+     */
+    private final int row;
+
+    /**
+     * Column of the cell
+     */
+    private final int col;
+
+    /**
+     * Score of the window pattern right after the placement
+     */
+    private final int immediateScore;
+
+    /**
+     * Expected score at the end of the game, the immediate score if no rollout was made
+     */
+    private final double expectedScore;
+
+    /**
+     * Number of rollouts of future draft pools the expected score is the mean of
+     */
+    private final int rollouts;
+
+    /**
+     * Constructor of the hint
+     *
+     * @param row row of the cell
+     * @param col column of the cell
+     * @param immediateScore score of the window pattern right after the placement
+     * @param expectedScore expected score at the end of the game
+     * @param rollouts number of rollouts the expected score is the mean of
+     */
+    PlacementHint(int row, int col, int immediateScore, double expectedScore, int rollouts) {
+        this.row = row;
+        this.col = col;
+        this.immediateScore = immediateScore;
+        this.expectedScore = expectedScore;
+        this.rollouts = rollouts;
+    }
+
+    /**
+     * @return the row of the cell
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * @return the column of the cell
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * @return the score of the window pattern right after the placement
+     */
+    public int getImmediateScore() {
+        return immediateScore;
+    }
+
+    /**
+     * @return the expected score at the end of the game, the immediate score if no rollout was made
+     */
+    public double getExpectedScore() {
+        return expectedScore;
+    }
+
+    /**
+     * @return the number of rollouts of future draft pools the expected score is the mean of
+     */
+    public int getRollouts() {
+        return rollouts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("(%d,%d) expected %.2f, immediate %d, %d rollouts", row, col, expectedScore, immediateScore, rollouts);
+    }
+}
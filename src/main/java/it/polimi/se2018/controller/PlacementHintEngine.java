@@ -0,0 +1,310 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.*;
+
+import java.util.*;
+
+/**
+ * Engine advising where to place a drafted dice on a window pattern.
+ *
+ * Each cell where the dice can be placed is first scored by a fast heuristic: the score the window pattern would have
+ * if the game ended right after the placement, counting the public objective cards, the private one and the
+ * penalty of the empty cells. Then, for as long as the time budget allows, random future draft pools are sampled
+ * and played out from each candidate placement, and the expected final score is the mean of the rollouts.
+ * Rollouts are spread evenly among the candidates, so that they are compared on the same number of samples.
+ *
+ * Complete results are cached by the position of the window pattern, the dice, the cells where it can be placed
+ * and the number of placements left, so asking again for the same advice costs nothing.
+ *
+ * @author Federico Haag
+ * @see PlacementHint
+ */
+final class PlacementHintEngine {
+
+    /**
+     * String used as message of IllegalArgumentException when asked hints for a null dice
+     */
+    private static final String NULL_DICE = "Can't give hints for a null dice.";
+
+    /**
+     * Maximum number of rollouts of each candidate placement
+     */
+    static final int MAX_ROLLOUTS = 32;
+
+    /**
+     * Maximum value of a dice
+     */
+    private static final int MAX_DICE_VALUE = 6;
+
+    /**
+     * Colors of the dices that can be drawn
+     */
+    private static final DiceColor[] COLORS = Arrays.stream(DiceColor.values())
+            .filter(color -> color != DiceColor.NOCOLOR).toArray(DiceColor[]::new);
+
+    /**
+     * Orders the hints from the best one
+     */
+    private static final Comparator<PlacementHint> BEST_FIRST = Comparator
+            .comparingDouble(PlacementHint::getExpectedScore).reversed()
+            .thenComparing(Comparator.comparingInt(PlacementHint::getImmediateScore).reversed())
+            .thenComparingInt(PlacementHint::getRow)
+            .thenComparingInt(PlacementHint::getCol);
+
+    /**
+     * Maximum number of cached results
+     */
+    private final int cacheCapacity;
+
+    /**
+     * Complete results, from the least recently used
+     */
+    private final LinkedHashMap<Key, List<PlacementHint>> cache;
+
+    /**
+     * Source of randomness of the rollouts
+     */
+    private final Random random;
+
+    /**
+     * Key of a cached result
+     */
+    private static final class Key {
+
+        /**
+         * Zobrist hash of the window pattern
+         */
+        private final long patternHash;
+
+        /**
+         * ID of the window pattern
+         */
+        private final String patternID;
+
+        /**
+         * Color of the dice
+         */
+        private final DiceColor color;
+
+        /**
+         * Value of the dice
+         */
+        private final int value;
+
+        /**
+         * Color of the private objective card
+         */
+        private final DiceColor privateColor;
+
+        /**
+         * Cells where the dice can be placed, as a bit for each cell
+         */
+        private final long legalCells;
+
+        /**
+         * Number of placements the player can make after this one
+         */
+        private final int placementsLeft;
+
+        /**
+         * Constructor of the key
+         *
+         * @param windowPattern the window pattern
+         * @param dice the dice
+         * @param privateColor color of the private objective card
+         * @param legalCells cells where the dice can be placed, as a bit for each cell
+         * @param placementsLeft number of placements the player can make after this one
+         */
+        Key(WindowPattern windowPattern, Dice dice, DiceColor privateColor, long legalCells, int placementsLeft) {
+            this.patternHash = windowPattern.getZobristHash();
+            this.patternID = windowPattern.getID();
+            this.color = dice.getColor();
+            this.value = dice.getValue();
+            this.privateColor = privateColor;
+            this.legalCells = legalCells;
+            this.placementsLeft = placementsLeft;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return patternHash == key.patternHash
+                    && value == key.value
+                    && legalCells == key.legalCells
+                    && placementsLeft == key.placementsLeft
+                    && color == key.color
+                    && privateColor == key.privateColor
+                    && Objects.equals(patternID, key.patternID);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(patternHash, patternID, color, value, privateColor, legalCells, placementsLeft);
+        }
+    }
+
+    /**
+     * Constructor of the engine
+     *
+     * @param cacheCapacity maximum number of cached results
+     * @param random source of randomness of the rollouts
+     */
+    PlacementHintEngine(int cacheCapacity, Random random) {
+        this.cacheCapacity = cacheCapacity;
+        this.random = random;
+        this.cache = new LinkedHashMap<Key, List<PlacementHint>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<PlacementHint>> eldest) {
+                return size() > PlacementHintEngine.this.cacheCapacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cells where the given dice can be placed, ranked from the best one.
+     * The window pattern is not changed.
+     *
+     * @param windowPattern the window pattern of the player
+     * @param dice the drafted dice
+     * @param placementRule the rule the dice is placed with
+     * @param futurePlacementRule the rule the next dices will be placed with
+     * @param publicObjectiveCards the public objective cards of the game
+     * @param privateObjectiveCard the private objective card of the player
+     * @param placementsLeft number of placements the player can make after this one
+     * @param draftPoolSize number of dices the player chooses from at each future placement
+     * @param timeBudget milliseconds the rollouts can last
+     * @return the hints for the cells where the dice can be placed, from the best one
+     */
+    synchronized List<PlacementHint> getHints(WindowPattern windowPattern, Dice dice, PlacementRule placementRule,
+                                              PlacementRule futurePlacementRule, List<PublicObjectiveCard> publicObjectiveCards,
+                                              PrivateObjectiveCard privateObjectiveCard, int placementsLeft,
+                                              int draftPoolSize, long timeBudget) {
+        if(dice == null){ throw new IllegalArgumentException(NULL_DICE); }
+        long deadline = System.nanoTime() + timeBudget * 1_000_000;
+
+        WindowPattern pattern = windowPattern.copy();
+        int cols = pattern.getNumberOfColumns();
+        List<int[]> candidates = new ArrayList<>();
+        long legalCells = 0;
+        for(int row = 0; row < pattern.getNumberOfRows(); row++){
+            for(int col = 0; col < cols; col++){
+                if(!pattern.isThereADice(row, col) && placementRule.isMoveAllowed(pattern, dice, row, col)){
+                    candidates.add(new int[]{row, col});
+                    legalCells |= 1L << (row * cols + col);
+                }
+            }
+        }
+        if(candidates.isEmpty()){ return Collections.emptyList(); }
+
+        Key key = new Key(pattern, dice, privateObjectiveCard.getColor(), legalCells, placementsLeft);
+        List<PlacementHint> cached = cache.get(key);
+        if(cached != null){ return cached; }
+
+        //fast heuristic: the score if the game ended right after the placement
+        int[] immediateScores = new int[candidates.size()];
+        for(int i = 0; i < candidates.size(); i++){
+            int[] cell = candidates.get(i);
+            pattern.putDiceOnCell(dice, cell[0], cell[1]);
+            immediateScores[i] = score(pattern, publicObjectiveCards, privateObjectiveCard);
+            pattern.removeDiceFromCell(cell[0], cell[1]);
+        }
+
+        //rollouts, one per candidate at a time, until the budget is over; a sweep left incomplete is discarded
+        double[] rewards = new double[candidates.size()];
+        int[] sweep = new int[candidates.size()];
+        int rollouts = 0;
+        while(placementsLeft > 0 && rollouts < MAX_ROLLOUTS){
+            int done = 0;
+            for(; done < sweep.length && System.nanoTime() < deadline; done++){
+                int[] cell = candidates.get(done);
+                WindowPattern future = pattern.copy();
+                future.putDiceOnCell(dice.copy(), cell[0], cell[1]);
+                sweep[done] = rollout(future, futurePlacementRule, placementsLeft, draftPoolSize,
+                        publicObjectiveCards, privateObjectiveCard);
+            }
+            if(done < sweep.length){ break; }
+
+            for(int i = 0; i < sweep.length; i++){
+                rewards[i] += sweep[i];
+            }
+            rollouts++;
+        }
+
+        //if no placement is left, the immediate score is already the final one
+        List<PlacementHint> hints = new ArrayList<>(candidates.size());
+        for(int i = 0; i < candidates.size(); i++){
+            int[] cell = candidates.get(i);
+            double expectedScore = (rollouts == 0) ? immediateScores[i] : rewards[i] / rollouts;
+            hints.add(new PlacementHint(cell[0], cell[1], immediateScores[i], expectedScore, rollouts));
+        }
+        hints.sort(BEST_FIRST);
+        hints = Collections.unmodifiableList(hints);
+
+        if(placementsLeft == 0 || rollouts == MAX_ROLLOUTS){
+            cache.put(key, hints);
+        }
+        return hints;
+    }
+
+    /**
+     * Plays out the future placements of the player: at each one a draft pool is sampled
+     * and a random dice of it is placed on a random cell where it can be placed
+     *
+     * @param pattern a copy of the window pattern, that is changed
+     * @param placementRule the rule the dices are placed with
+     * @param placements number of placements the player can make
+     * @param draftPoolSize number of dices the player chooses from at each placement
+     * @param publicObjectiveCards the public objective cards of the game
+     * @param privateObjectiveCard the private objective card of the player
+     * @return the final score of the window pattern
+     */
+    private int rollout(WindowPattern pattern, PlacementRule placementRule, int placements, int draftPoolSize,
+                        List<PublicObjectiveCard> publicObjectiveCards, PrivateObjectiveCard privateObjectiveCard) {
+        int rows = pattern.getNumberOfRows();
+        int cols = pattern.getNumberOfColumns();
+        int[] legalCells = new int[rows * cols];
+
+        for(int placement = 0; placement < placements; placement++){
+            for(int i = 0; i < draftPoolSize; i++){
+                Dice dice = new Dice(COLORS[random.nextInt(COLORS.length)], 1 + random.nextInt(MAX_DICE_VALUE));
+                int count = 0;
+                for(int row = 0; row < rows; row++){
+                    for(int col = 0; col < cols; col++){
+                        if(!pattern.isThereADice(row, col) && placementRule.isMoveAllowed(pattern, dice, row, col)){
+                            legalCells[count++] = row * cols + col;
+                        }
+                    }
+                }
+                if(count > 0){
+                    int cell = legalCells[random.nextInt(count)];
+                    pattern.putDiceOnCell(dice, cell / cols, cell % cols);
+                    break;
+                }
+            }
+        }
+        return score(pattern, publicObjectiveCards, privateObjectiveCard);
+    }
+
+    /**
+     * Returns the score of the given window pattern as if the game ended now, without the favour tokens
+     *
+     * @param pattern the window pattern
+     * @param publicObjectiveCards the public objective cards of the game
+     * @param privateObjectiveCard the private objective card of the player
+     * @return the score of the window pattern
+     */
+    static int score(WindowPattern pattern, List<PublicObjectiveCard> publicObjectiveCards, PrivateObjectiveCard privateObjectiveCard) {
+        int score = privateObjectiveCard.calculateScore(pattern);
+        for(PublicObjectiveCard card : publicObjectiveCards){
+            score += card.calculateScore(pattern);
+        }
+        for(int row = 0; row < pattern.getNumberOfRows(); row++){
+            for(int col = 0; col < pattern.getNumberOfColumns(); col++){
+                if(!pattern.isThereADice(row, col)){ score--; }
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,184 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.*;
+import it.polimi.se2018.utils.Move;
+
+import java.util.*;
+
+/**
+ * Policy of a bot that plays random moves.
+ * In each turn it uses, with a given probability, a random toolCard applying its effect with random moves,
+ * then it drafts a random dice and places it on the first cell (in random order) that accepts it.
+ *
+ * @author Federico Haag
+ * @see BotPolicy
+ */
+public class RandomBotPolicy implements BotPolicy {
+
+    /**
+     * String used as message of IllegalArgumentException when the probability is not between 0 and 1
+     */
+    private static final String PROBABILITY_OUT_OF_RANGE = "The probability of using a toolCard must be between 0 and 1.";
+
+    /**
+     * Maximum number of moves tried while applying the effect of a toolCard
+     */
+    private static final int MAX_TOOL_CARD_MOVES = 20;
+
+    /**
+     * Maximum value of a dice
+     */
+    private static final int MAX_DICE_VALUE = 6;
+
+    /**
+     * Moves that are never performed while applying the effect of a toolCard
+     */
+    private static final Set<Move> NOT_EFFECT_MOVES = EnumSet.of(Move.END_TURN, Move.USE_TOOLCARD, Move.QUIT,
+            Move.BACK_GAME, Move.JOIN, Move.LEAVE, Move.CHOOSE_WINDOW_PATTERN);
+
+    /**
+     * Probability of trying to use a toolCard in each turn
+     */
+    private final double toolCardProbability;
+
+    /**
+     * Constructor of a policy that tries to use a toolCard in each turn with the given probability
+     *
+     * @param toolCardProbability probability of trying to use a toolCard in each turn
+     */
+    public RandomBotPolicy(double toolCardProbability) {
+        if(toolCardProbability < 0 || toolCardProbability > 1){ throw new IllegalArgumentException(PROBABILITY_OUT_OF_RANGE); }
+        this.toolCardProbability = toolCardProbability;
+    }
+
+    @Override
+    public WindowPattern chooseWindowPattern(List<WindowPattern> windowPatterns, PrivateObjectiveCard privateObjectiveCard, Random random) {
+        return windowPatterns.get(random.nextInt(windowPatterns.size()));
+    }
+
+    @Override
+    public void playTurn(BotTurn turn) {
+        Random random = turn.getRandom();
+
+        if(random.nextDouble() < toolCardProbability && turn.getPermissions().contains(Move.USE_TOOLCARD)){
+            List<ToolCard> toolCards = turn.getGame().getDrawnToolCards();
+            if(turn.perform(Move.USE_TOOLCARD, "toolCard", toolCards.get(random.nextInt(toolCards.size())))){
+                applyToolCardEffect(turn);
+            }
+        }
+
+        if(!turn.isOver() && turn.getPermissions().contains(Move.DRAFT_DICE_FROM_DRAFTPOOL)){
+            draftRandomDice(turn);
+            placeDraftedDice(turn);
+        }
+    }
+
+    /**
+     * Applies the effect of the active toolCard performing random moves among the permitted ones
+     *
+     * @param turn the turn being played
+     */
+    private void applyToolCardEffect(BotTurn turn) {
+        for(int i = 0; i < MAX_TOOL_CARD_MOVES && !turn.isOver() && turn.getActiveToolCard() != null; i++){
+            List<Move> moves = new ArrayList<>(turn.getPermissions());
+            moves.removeAll(NOT_EFFECT_MOVES);
+            if(moves.isEmpty()){ return; }
+
+            performRandomly(turn, moves.get(turn.getRandom().nextInt(moves.size())));
+        }
+    }
+
+    /**
+     * Performs the given move with random params
+     *
+     * @param turn the turn being played
+     * @param move the move to perform
+     */
+    private void performRandomly(BotTurn turn, Move move) {
+        Random random = turn.getRandom();
+        WindowPattern windowPattern = turn.getPlayer().getWindowPattern();
+
+        switch (move){
+            case DRAFT_DICE_FROM_DRAFTPOOL:
+                draftRandomDice(turn);
+                break;
+            case PLACE_DICE_ON_WINDOWPATTERN:
+                placeDraftedDice(turn);
+                break;
+            case CHANGE_DRAFTED_DICE_VALUE:
+                turn.perform(move, "value", random.nextInt(MAX_DICE_VALUE) + 1);
+                break;
+            case CHOOSE_DICE_FROM_TRACK:
+                chooseRandomDiceFromTrack(turn);
+                break;
+            case MOVE_DICE:
+                turn.perform(move,
+                        "rowFrom", random.nextInt(windowPattern.getNumberOfRows()),
+                        "colFrom", random.nextInt(windowPattern.getNumberOfColumns()),
+                        "rowTo", random.nextInt(windowPattern.getNumberOfRows()),
+                        "colTo", random.nextInt(windowPattern.getNumberOfColumns()));
+                break;
+            default:
+                turn.perform(move);
+                break;
+        }
+    }
+
+    /**
+     * Drafts a random dice from the draft pool
+     *
+     * @param turn the turn being played
+     */
+    private void draftRandomDice(BotTurn turn) {
+        List<Dice> dices = turn.getGame().getCurrentRound().getDraftPool().getDices();
+        if(!dices.isEmpty()){
+            turn.perform(Move.DRAFT_DICE_FROM_DRAFTPOOL, "dice", dices.get(turn.getRandom().nextInt(dices.size())));
+        }
+    }
+
+    /**
+     * Places the drafted dice on the first cell, in random order, that accepts it
+     *
+     * @param turn the turn being played
+     */
+    private void placeDraftedDice(BotTurn turn) {
+        WindowPattern windowPattern = turn.getPlayer().getWindowPattern();
+
+        List<int[]> cells = new ArrayList<>();
+        for(int row = 0; row < windowPattern.getNumberOfRows(); row++){
+            for(int col = 0; col < windowPattern.getNumberOfColumns(); col++){
+                if(!windowPattern.isThereADice(row, col)){
+                    cells.add(new int[]{row, col});
+                }
+            }
+        }
+        Collections.shuffle(cells, turn.getRandom());
+
+        for(int[] cell : cells){
+            if(!turn.getPermissions().contains(Move.PLACE_DICE_ON_WINDOWPATTERN)
+                    || turn.perform(Move.PLACE_DICE_ON_WINDOWPATTERN, "row", cell[0], "col", cell[1])){
+                return;
+            }
+        }
+    }
+
+    /**
+     * Chooses a random dice from a random not empty slot of the track
+     *
+     * @param turn the turn being played
+     */
+    private void chooseRandomDiceFromTrack(BotTurn turn) {
+        Track track = turn.getGame().getTrack();
+        List<Integer> slots = new ArrayList<>();
+        for(int slot = 0; slot < track.size(); slot++){
+            if(!track.getDicesFromSlotNumber(slot).isEmpty()){
+                slots.add(slot);
+            }
+        }
+        if(slots.isEmpty()){ return; }
+
+        int slot = slots.get(turn.getRandom().nextInt(slots.size()));
+        List<Dice> dices = track.getDicesFromSlotNumber(slot);
+        turn.perform(Move.CHOOSE_DICE_FROM_TRACK, "dice", dices.get(turn.getRandom().nextInt(dices.size())), "slotNumber", slot);
+    }
+}
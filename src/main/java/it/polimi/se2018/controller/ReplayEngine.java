@@ -0,0 +1,243 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.Game;
+import it.polimi.se2018.model.GameStatus;
+import it.polimi.se2018.model.ToolCard;
+import it.polimi.se2018.model.WindowPattern;
+import it.polimi.se2018.utils.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Replays a finished game from its replay file.
+ *
+ * The game is rebuilt with the recorded seed, configuration and players, then every recorded event is
+ * executed again through the {@link Controller} (moves are given to {@link Controller#handleMoveMessage(it.polimi.se2018.utils.Message)}).
+ * The controller is headless: no timer is started, expired timers are the recorded ones and rankings are not persisted,
+ * so the replay runs at maximum speed and has no side effects.
+ *
+ * @author Federico Haag
+ * @see ReplayReader
+ */
+public final class ReplayEngine {
+
+    /**
+     * String used as message of IOException when the configuration of the replayed game is not complete
+     */
+    private static final String MISSING_CONFIG_PROPERTY = "The replay file does not contain the config property ";
+
+    /*  CONSTANTS FOR CONFIG PROPERTIES NAMES
+        Following constants are not commented one by one because they are as self explaining as needed.
+        Being private, they are used only in this file. So if a change is needed, just look for usages in this file.
+     */
+    private static final String CONFIG_PROPERTY_NUMBER_OF_ROUNDS = Config.NUMBER_OF_ROUNDS;
+    private static final String CONFIG_PROPERTY_MAX_NUMBER_OF_PLAYERS = Config.MAX_NUMBER_OF_PLAYERS;
+
+    /**
+     * Private constructor as the class has only static methods
+     */
+    private ReplayEngine() {
+    }
+
+    /**
+     * Replays the game contained in the given replay file
+     *
+     * @param path path of the replay file
+     * @param logger the logger used by the controller of the replayed game
+     * @return the result of the replay
+     * @throws IOException if the replay file can't be read
+     */
+    public static Result replay(String path, Logger logger) throws IOException {
+        try(ReplayReader reader = new ReplayReader(path)){
+            Properties properties = reader.getProperties();
+            Game game = new Game(getIntProperty(properties, CONFIG_PROPERTY_NUMBER_OF_ROUNDS),
+                    getIntProperty(properties, CONFIG_PROPERTY_MAX_NUMBER_OF_PLAYERS));
+
+            Controller controller = new Controller(game, properties, logger, reader.getSeed());
+            controller.setHeadless();
+            controller.launchGame(new LinkedHashSet<>(reader.getPlayers()));
+
+            MoveCodec.Resolver resolver = new ControllerResolver(controller);
+            int numberOfEvents = 0;
+            ReplayEvent event;
+            while((event = reader.next(resolver)) != null){
+                execute(controller, event);
+                numberOfEvents++;
+            }
+
+            return new Result(game, numberOfEvents, reader.getScores(), controller.getFinalScores());
+        }
+    }
+
+    /**
+     * Executes a recorded event on the controller of the replayed game
+     *
+     * @param controller the controller of the replayed game
+     * @param event the event to execute
+     */
+    private static void execute(Controller controller, ReplayEvent event){
+        switch (event.getKind()){
+            case MOVE:
+                controller.handleMoveMessage(event.getMove());
+                break;
+            case PLAYER_MOVE_TIMEOUT:
+                controller.playerMoveTimerExpired();
+                break;
+            case PATTERNS_CHOICE_TIMEOUT:
+                controller.patternsChoiceTimerExpired();
+                break;
+            case PLAYER_LOST_CONNECTION:
+                controller.playerLostConnection(event.getPlayerID());
+                break;
+            case PLAYER_RESTORED_CONNECTION:
+                controller.playerRestoredConnection(event.getPlayerID());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Reads an integer config property of the replayed game
+     *
+     * @param properties the configuration of the replayed game
+     * @param name the name of the property
+     * @return the value of the property
+     * @throws IOException if the property is missing
+     */
+    private static int getIntProperty(Properties properties, String name) throws IOException {
+        String value = properties.getProperty(name);
+        if(value == null){ throw new IOException(MISSING_CONFIG_PROPERTY + name); }
+        return Integer.parseInt(value);
+    }
+
+    /**
+     * Resolves window patterns and toolCards of the replayed moves among the ones of the replayed game
+     */
+    private static final class ControllerResolver implements MoveCodec.Resolver {
+
+        /**
+         * The controller of the replayed game
+         */
+        private final Controller controller;
+
+        /**
+         * Constructor of a resolver on the given controller
+         *
+         * @param controller the controller of the replayed game
+         */
+        private ControllerResolver(Controller controller) {
+            this.controller = controller;
+        }
+
+        @Override
+        public WindowPattern getWindowPattern(String playerID, String patternID) {
+            return controller.getAssignedWindowPattern(playerID, patternID);
+        }
+
+        @Override
+        public ToolCard getToolCard(String title) {
+            for(ToolCard toolCard : controller.game.getDrawnToolCards()){
+                if(toolCard.getTitle().equals(title)){
+                    return toolCard;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Result of the replay of a game
+     */
+    public static final class Result {
+
+        /**
+         * The replayed game
+         */
+        private final Game game;
+
+        /**
+         * Number of replayed events
+         */
+        private final int numberOfEvents;
+
+        /**
+         * Final scores written in the replay file
+         */
+        private final Map<String, Integer> recordedScores;
+
+        /**
+         * Final scores of the replayed game
+         */
+        private final Map<String, Integer> replayedScores;
+
+        /**
+         * Constructor of the result of a replay
+         *
+         * @param game the replayed game
+         * @param numberOfEvents number of replayed events
+         * @param recordedScores final scores written in the replay file
+         * @param replayedScores final scores of the replayed game, null if it did not end
+         */
+        private Result(Game game, int numberOfEvents, Map<String, Integer> recordedScores, Map<String, Integer> replayedScores) {
+            this.game = game;
+            this.numberOfEvents = numberOfEvents;
+            this.recordedScores = recordedScores;
+            this.replayedScores = replayedScores;
+        }
+
+        /**
+         * Returns the replayed game
+         *
+         * @return the replayed game
+         */
+        public Game getGame() {
+            return game;
+        }
+
+        /**
+         * Returns the number of replayed events
+         *
+         * @return the number of replayed events
+         */
+        public int getNumberOfEvents() {
+            return numberOfEvents;
+        }
+
+        /**
+         * Returns the final scores written in the replay file
+         *
+         * @return the final scores written in the replay file from the winner to the last one, or null if they are missing
+         */
+        public Map<String, Integer> getRecordedScores() {
+            return (recordedScores == null) ? null : new LinkedHashMap<>(recordedScores);
+        }
+
+        /**
+         * Returns the final scores of the replayed game
+         *
+         * @return the final scores of the replayed game from the winner to the last one, or null if it did not end
+         */
+        public Map<String, Integer> getReplayedScores() {
+            return (replayedScores == null) ? null : new LinkedHashMap<>(replayedScores);
+        }
+
+        /**
+         * Returns true if the replayed game ended exactly as the recorded one, same ranking and same scores
+         *
+         * @return true if the replayed game ended exactly as the recorded one
+         */
+        public boolean isConsistent() {
+            return game.getStatus() == GameStatus.ENDED
+                    && replayedScores != null
+                    && recordedScores != null
+                    && new ArrayList<>(replayedScores.entrySet()).equals(new ArrayList<>(recordedScores.entrySet()));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.utils.Message;
+
+/**
+ * An event of a finished game read from its replay file.
+ * Events are everything that made the game advance: moves and expired timers of the players,
+ * the expiration of the timer for the choice of the window patterns and the connection changes of the players.
+ *
+ * @author Federico Haag
+ * @see ReplayReader
+ */
+public final class ReplayEvent {
+
+    /**
+     * Kinds of the events written in a replay file
+     */
+    public enum Kind {
+        MOVE,
+        PLAYER_MOVE_TIMEOUT,
+        PATTERNS_CHOICE_TIMEOUT,
+        PLAYER_LOST_CONNECTION,
+        PLAYER_RESTORED_CONNECTION
+    }
+
+    /**
+     * The kind of the event
+     */
+    private final Kind kind;
+
+    /**
+     * Milliseconds elapsed from the launch of the game when the event happened
+     */
+    private final long time;
+
+    /**
+     * The player the event refers to, null if it does not refer to a player
+     */
+    private final String playerID;
+
+    /**
+     * The message containing the move, null if the event is not a move
+     */
+    private final Message move;
+
+    /**
+     * Constructor of an event
+     *
+     * @param kind the kind of the event
+     * @param time milliseconds elapsed from the launch of the game when the event happened
+     * @param playerID the player the event refers to, null if it does not refer to a player
+     * @param move the message containing the move, null if the event is not a move
+     */
+    ReplayEvent(Kind kind, long time, String playerID, Message move) {
+        this.kind = kind;
+        this.time = time;
+        this.playerID = playerID;
+        this.move = move;
+    }
+
+    /**
+     * Returns the kind of the event
+     *
+     * @return the kind of the event
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the milliseconds elapsed from the launch of the game when the event happened
+     *
+     * @return the milliseconds elapsed from the launch of the game when the event happened
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the player the event refers to
+     *
+     * @return the player the event refers to, null if it does not refer to a player
+     */
+    public String getPlayerID() {
+        return playerID;
+    }
+
+    /**
+     * Returns the message containing the move
+     *
+     * @return the message containing the move, null if the event is not a move
+     */
+    public Message getMove() {
+        return move;
+    }
+}
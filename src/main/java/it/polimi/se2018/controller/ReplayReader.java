@@ -0,0 +1,213 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.utils.ControllerBoundMessageType;
+import it.polimi.se2018.utils.Message;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Streaming reader of a replay file written by the {@link ReplayRecorder}.
+ *
+ * The header (seed, configuration and players of the game) is read when the reader is created,
+ * then events are read one by one calling {@link ReplayReader#next()}, so that even long replays
+ * are never entirely loaded in memory. Final scores are available once all the events were read.
+ *
+ * @author Federico Haag
+ * @see ReplayEvent
+ * @see ReplayEngine
+ */
+public class ReplayReader implements Closeable {
+
+    /**
+     * String used as message of IOException when the file is not a replay file
+     */
+    private static final String NOT_A_REPLAY_FILE = "The file is not a replay file.";
+
+    /**
+     * String used as message of IOException when the replay file has an unknown version
+     */
+    private static final String UNSUPPORTED_VERSION = "Unsupported version of the replay file: ";
+
+    /**
+     * String used as message of IOException when an event has an unknown kind
+     */
+    private static final String UNKNOWN_EVENT_KIND = "Unknown kind of a replay event: ";
+
+    /**
+     * Stream of the replay file
+     */
+    private final DataInputStream in;
+
+    /**
+     * Seed of the source of randomness of the game
+     */
+    private final long seed;
+
+    /**
+     * Time the game was launched at, in milliseconds from the epoch
+     */
+    private final long launchTime;
+
+    /**
+     * Configuration of the game
+     */
+    private final Properties properties = new Properties();
+
+    /**
+     * Players of the game, in the order they were given to the controller
+     */
+    private final List<String> players = new ArrayList<>();
+
+    /**
+     * Final scores of the players, from the winner to the last one. Null until the end of the events is read.
+     */
+    private LinkedHashMap<String, Integer> scores = null;
+
+    /**
+     * Milliseconds elapsed from the launch of the game when the last read event happened
+     */
+    private long time = 0;
+
+    /**
+     * Opens a replay file reading its header
+     *
+     * @param path path of the replay file
+     * @throws IOException if the file can't be read or it is not a replay file
+     */
+    public ReplayReader(String path) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)));
+
+        try {
+            if(in.readInt() != ReplayRecorder.MAGIC){ throw new IOException(NOT_A_REPLAY_FILE); }
+            byte version = in.readByte();
+            if(version != ReplayRecorder.VERSION){ throw new IOException(UNSUPPORTED_VERSION + version); }
+
+            this.seed = in.readLong();
+            this.launchTime = in.readLong();
+
+            int numberOfProperties = in.readShort();
+            for(int i = 0; i < numberOfProperties; i++){
+                String propertyName = in.readUTF();
+                properties.setProperty(propertyName, in.readUTF());
+            }
+
+            int numberOfPlayers = in.readByte();
+            for(int i = 0; i < numberOfPlayers; i++){
+                players.add(in.readUTF());
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the seed of the source of randomness of the game
+     *
+     * @return the seed of the source of randomness of the game
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the time the game was launched at
+     *
+     * @return the time the game was launched at, in milliseconds from the epoch
+     */
+    public long getLaunchTime() {
+        return launchTime;
+    }
+
+    /**
+     * Returns a copy of the configuration of the game
+     *
+     * @return a copy of the configuration of the game
+     */
+    public Properties getProperties() {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
+    }
+
+    /**
+     * Returns the players of the game, in the order they were given to the controller
+     *
+     * @return the players of the game
+     */
+    public List<String> getPlayers() {
+        return new ArrayList<>(players);
+    }
+
+    /**
+     * Returns the final scores of the players, from the winner to the last one
+     *
+     * @return the final scores of the players, or null if the end of the events was not read yet
+     */
+    public Map<String, Integer> getScores() {
+        return (scores == null) ? null : new LinkedHashMap<>(scores);
+    }
+
+    /**
+     * Reads the next event. Window patterns and toolCards in the moves are given as their identifier
+     * (pattern ID and toolCard title).
+     *
+     * @return the next event or null if there are no more events
+     * @throws IOException if the event can't be read
+     */
+    public ReplayEvent next() throws IOException {
+        return next(null);
+    }
+
+    /**
+     * Reads the next event, resolving window patterns and toolCards in the moves with the given resolver
+     *
+     * @param resolver the resolver of window patterns and toolCards, or null
+     * @return the next event or null if there are no more events
+     * @throws IOException if the event can't be read
+     */
+    ReplayEvent next(MoveCodec.Resolver resolver) throws IOException {
+        if(scores != null){ return null; }
+
+        byte kindCode = in.readByte();
+        if(kindCode == ReplayRecorder.END){
+            readScores();
+            return null;
+        }
+        if(kindCode < 1 || kindCode > ReplayEvent.Kind.values().length){
+            throw new IOException(UNKNOWN_EVENT_KIND + kindCode);
+        }
+        ReplayEvent.Kind kind = ReplayEvent.Kind.values()[kindCode - 1];
+
+        time += ReplayRecorder.readVarLong(in);
+        byte playerIndex = in.readByte();
+        String playerID = (playerIndex == ReplayRecorder.NO_PLAYER) ? null : players.get(playerIndex);
+
+        Message move = null;
+        if(kind == ReplayEvent.Kind.MOVE){
+            move = new Message(ControllerBoundMessageType.MOVE, MoveCodec.readParams(in, playerID, resolver), playerID);
+        }
+        return new ReplayEvent(kind, time, playerID, move);
+    }
+
+    /**
+     * Reads the final scores written at the end of the events
+     *
+     * @throws IOException if the scores can't be read
+     */
+    private void readScores() throws IOException {
+        LinkedHashMap<String, Integer> readScores = new LinkedHashMap<>();
+        int numberOfScores = in.readByte();
+        for(int i = 0; i < numberOfScores; i++){
+            String playerID = players.get(in.readByte());
+            readScores.put(playerID, (int) in.readShort());
+        }
+        this.scores = readScores;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,200 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.utils.Message;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Records the events of a game and writes them in a compact replay file when the game ends.
+ *
+ * A game is entirely determined by the seed of its source of randomness, its configuration, its players
+ * and the stream of its events, so the replay file contains just them. The (few kilobytes of) events are kept
+ * in memory while the game is running and the file is written only if the game reaches its end.
+ *
+ * File format: {@code [int magic][byte version][long seed][long launch time][properties][players][events][end]}.
+ * Each event is {@code [byte kind][var-length milliseconds from the previous event][byte player index][params]},
+ * where params are present only in moves and are encoded by {@link MoveCodec}.
+ * The end contains the final scores, so that a replay can be checked against the original game.
+ *
+ * @author Federico Haag
+ * @see ReplayReader
+ * @see ReplayEngine
+ */
+final class ReplayRecorder {
+
+    /**
+     * Magic number at the beginning of each replay file ("SGRP")
+     */
+    static final int MAGIC = 0x53475250;
+
+    /**
+     * Version of the format of the replay files
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * Kind written in place of an event kind to mark the end of the events
+     */
+    static final byte END = 0;
+
+    /**
+     * Player index written in events that do not refer to a player
+     */
+    static final byte NO_PLAYER = -1;
+
+    /**
+     * Extension of the temporary file used while writing the replay file
+     */
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    /**
+     * Path of the replay file
+     */
+    private final String path;
+
+    /**
+     * Buffer containing the encoded replay
+     */
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    /**
+     * Stream on top of {@link ReplayRecorder#buffer}
+     */
+    private final DataOutputStream out = new DataOutputStream(buffer);
+
+    /**
+     * Players of the game, in the order they were given to the controller
+     */
+    private final List<String> players;
+
+    /**
+     * Time of the last recorded event
+     */
+    private long lastEventTime;
+
+    /**
+     * Creates a recorder of a game that is being launched, writing the header of its replay
+     *
+     * @param path path of the replay file
+     * @param seed the seed of the source of randomness of the game
+     * @param properties the configuration of the game
+     * @param players players of the game, in the order they were given to the controller
+     * @throws IOException if the header can't be encoded
+     */
+    ReplayRecorder(String path, long seed, Properties properties, List<String> players) throws IOException {
+        this.path = path;
+        this.players = new ArrayList<>(players);
+        this.lastEventTime = System.currentTimeMillis();
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(seed);
+        out.writeLong(lastEventTime);
+
+        Set<String> propertyNames = new TreeSet<>(properties.stringPropertyNames());
+        out.writeShort(propertyNames.size());
+        for(String propertyName : propertyNames){
+            out.writeUTF(propertyName);
+            out.writeUTF(properties.getProperty(propertyName));
+        }
+
+        out.writeByte(players.size());
+        for(String player : players){
+            out.writeUTF(player);
+        }
+    }
+
+    /**
+     * Records a move accepted by the controller
+     *
+     * @param message the message containing the move
+     * @throws IOException if the move can't be encoded
+     */
+    synchronized void recordMove(Message message) throws IOException {
+        recordEvent(ReplayEvent.Kind.MOVE, message.getPlayerID());
+        MoveCodec.writeParams(out, message.getParams());
+    }
+
+    /**
+     * Records an event that has no params
+     *
+     * @param kind the kind of the event
+     * @param playerID the player the event refers to, null if it does not refer to a player
+     * @throws IOException if the event can't be encoded
+     */
+    synchronized void recordEvent(ReplayEvent.Kind kind, String playerID) throws IOException {
+        long now = System.currentTimeMillis();
+
+        out.writeByte(kind.ordinal() + 1);
+        writeVarLong(out, Math.max(0, now - lastEventTime));
+        out.writeByte(playerID == null ? NO_PLAYER : players.indexOf(playerID));
+
+        lastEventTime = now;
+    }
+
+    /**
+     * Ends the replay with the final scores of the game and writes it to its file
+     *
+     * @param scores the final scores of the players, from the winner to the last one
+     * @throws IOException if the replay file can't be written
+     */
+    synchronized void write(Map<String, Integer> scores) throws IOException {
+        out.writeByte(END);
+        out.writeByte(scores.size());
+        for(Map.Entry<String, Integer> score : scores.entrySet()){
+            out.writeByte(players.indexOf(score.getKey()));
+            out.writeShort(score.getValue());
+        }
+        out.flush();
+
+        File file = new File(path).getAbsoluteFile();
+        File parent = file.getParentFile();
+        if(parent != null && !parent.exists()){
+            Files.createDirectories(parent.toPath());
+        }
+
+        File temporary = new File(file.getPath() + TEMPORARY_EXTENSION);
+        try(FileOutputStream fileStream = new FileOutputStream(temporary)){
+            buffer.writeTo(fileStream);
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes a not negative long in as few bytes as possible, seven bits per byte
+     *
+     * @param data the stream to write to
+     * @param value the not negative value to write
+     * @throws IOException if the value can't be written
+     */
+    private static void writeVarLong(DataOutputStream data, long value) throws IOException {
+        long remaining = value;
+        while((remaining & ~0x7FL) != 0){
+            data.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        data.writeByte((int) remaining);
+    }
+
+    /**
+     * Reads a long written by {@link ReplayRecorder#writeVarLong(DataOutputStream, long)}
+     *
+     * @param data the stream to read from
+     * @return the read value
+     * @throws IOException if the value can't be read
+     */
+    static long readVarLong(DataInputStream data) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int read;
+        do {
+            read = data.readUnsignedByte();
+            value |= (long) (read & 0x7F) << shift;
+            shift += 7;
+        } while((read & 0x80) != 0);
+        return value;
+    }
+}
@@ -22,7 +22,7 @@ public class RerollDraftPoolControllerState extends ImplicitControllerState {
      */
     @Override
     public void executeImplicitBehaviour() {
-        controller.game.getCurrentRound().getDraftPool().reRoll();
+        controller.game.getCurrentRound().getDraftPool().reRoll(controller.random);
         controller.setControllerState(controller.stateManager.getNextState(this));
     }
 }
@@ -26,7 +26,7 @@ public class RerollDraftedControllerState extends ImplicitControllerState {
     public void executeImplicitBehaviour() {
         Turn currentTurn = controller.game.getCurrentRound().getCurrentTurn();
         Dice draftedDice = currentTurn.getDraftedDice();
-        draftedDice.roll();
+        draftedDice.roll(controller.random);
         currentTurn.setDraftedDice(draftedDice);
         controller.setControllerState(controller.stateManager.getNextState(this));
     }
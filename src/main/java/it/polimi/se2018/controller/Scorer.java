@@ -42,7 +42,7 @@ public class Scorer {
      *
      * @return the instance of the class
      */
-    public static Scorer getInstance(){
+    public static synchronized Scorer getInstance(){
         if (instance == null){
             instance = new Scorer();
         }
@@ -0,0 +1,301 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.*;
+import it.polimi.se2018.utils.Config;
+import it.polimi.se2018.utils.ConfigImporter;
+import it.polimi.se2018.utils.ControllerBoundMessageType;
+import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.Move;
+import it.polimi.se2018.utils.NoConfigParamFoundException;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless simulation of complete games played by bots, used for balance experiments on toolCards and patterns.
+ *
+ * Games are played in-process by a headless {@link Controller}: no networking, no timers and no observers,
+ * moves are handled exactly as the ones of real players. Each seat is played by a {@link BotPolicy}.
+ * Batches of games are split among the cores by a fork-join pool, each batch aggregates its own
+ * {@link SimulationStatistics} and they are merged when batches are joined.
+ * Each game is seeded from the seed of the simulation and its index, so simulations are reproducible.
+ * Window patterns and toolCards are loaded from file once and shared by all the games.
+ *
+ * @author Federico Haag
+ * @see BotPolicy
+ * @see SimulationStatistics
+ */
+public class Simulation {
+
+    /**
+     * String used as message of IllegalArgumentException when the number of seats is not valid
+     */
+    private static final String BAD_NUMBER_OF_SEATS = "The number of seats must be between the min and the max number of players: ";
+
+    /**
+     * String used as message of IllegalArgumentException when the number of games is negative
+     */
+    private static final String NEGATIVE_NUMBER_OF_GAMES = "Can't simulate a negative number of games.";
+
+    /**
+     * Number of games played by a single task without splitting it
+     */
+    private static final int GAMES_PER_TASK = 16;
+
+    /**
+     * Multiplier used to spread the seeds of consecutive games
+     */
+    private static final long SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Prefix of the IDs of the bots
+     */
+    private static final String BOT_ID_PREFIX = "Bot";
+
+    /**
+     * Number of games simulated by {@link #main(String[])} if not given
+     */
+    private static final int DEFAULT_NUMBER_OF_GAMES = 1000;
+
+    /**
+     * Number of players of the games simulated by {@link #main(String[])} if not given
+     */
+    private static final int DEFAULT_NUMBER_OF_PLAYERS = 2;
+
+    /**
+     * Probability of using a toolCard of the bots of {@link #main(String[])} if not given
+     */
+    private static final double DEFAULT_TOOL_CARD_PROBABILITY = 0.3;
+
+    /**
+     * String logged with the seed of a simulation
+     */
+    private static final String SEED = "Seed: ";
+
+    /**
+     * String logged with the duration of a simulation
+     */
+    private static final String ELAPSED = " - elapsed ms: ";
+
+    /*  CONSTANTS FOR CONFIG PROPERTIES NAMES
+        Following constants are not commented one by one because they are as self explaining as needed.
+        Being private, they are used only in this file. So if a change is needed, just look for usages in this file.
+     */
+    private static final String CONFIG_PROPERTY_NUMBER_OF_ROUNDS = Config.NUMBER_OF_ROUNDS;
+    private static final String CONFIG_PROPERTY_MAX_NUMBER_OF_PLAYERS = Config.MAX_NUMBER_OF_PLAYERS;
+    private static final String CONFIG_PROPERTY_MIN_NUMBER_OF_PLAYERS = Config.MIN_NUMBER_OF_PLAYERS;
+
+    /**
+     * Logger of the simulations
+     */
+    private static final Logger LOGGER = Logger.getLogger(Simulation.class.getName());
+
+    /**
+     * Logger of the simulated controllers, silent as errors are counted in the statistics
+     */
+    private static final Logger GAMES_LOGGER = Logger.getLogger(Simulation.class.getName() + ".games");
+
+    static {
+        GAMES_LOGGER.setLevel(Level.OFF);
+    }
+
+    /**
+     * Configuration of the simulated games
+     */
+    private final Properties properties;
+
+    /**
+     * Policies playing the seats of each game
+     */
+    private final List<BotPolicy> seats;
+
+    /**
+     * Window patterns loaded once and shared by all the games
+     */
+    private final WindowPatternManager windowPatternLibrary;
+
+    /**
+     * ToolCards loaded once and shared by all the games
+     */
+    private final ToolCardManager toolCardLibrary;
+
+    /**
+     * Constructor of a simulation of games with the given configuration, played by the given policies
+     *
+     * @param properties configuration of the simulated games
+     * @param seats policies playing the seats of each game, one for each player
+     */
+    public Simulation(Properties properties, List<BotPolicy> seats) {
+        int minNumberOfPlayers = Integer.parseInt(properties.getProperty(CONFIG_PROPERTY_MIN_NUMBER_OF_PLAYERS));
+        int maxNumberOfPlayers = Integer.parseInt(properties.getProperty(CONFIG_PROPERTY_MAX_NUMBER_OF_PLAYERS));
+        if(seats.size() < minNumberOfPlayers || seats.size() > maxNumberOfPlayers){
+            throw new IllegalArgumentException(BAD_NUMBER_OF_SEATS + seats.size());
+        }
+
+        this.properties = properties;
+        this.seats = new ArrayList<>(seats);
+        this.windowPatternLibrary = new WindowPatternManager();
+        this.toolCardLibrary = new ToolCardManager(PlacementRule.getDefault());
+    }
+
+    /**
+     * Simulates the given number of games in parallel
+     *
+     * @param numberOfGames the number of games to simulate
+     * @param seed the seed of the simulation
+     * @param parallelism the number of threads playing games
+     * @return the statistics aggregated over all the games
+     */
+    public SimulationStatistics run(int numberOfGames, long seed, int parallelism) {
+        if(numberOfGames < 0){ throw new IllegalArgumentException(NEGATIVE_NUMBER_OF_GAMES); }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new SimulationTask(seed, 0, numberOfGames));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays a whole game adding its results to the given statistics
+     *
+     * @param gameSeed the seed of the game
+     * @param statistics the statistics the results are added to
+     */
+    void playGame(long gameSeed, SimulationStatistics statistics) {
+        Random botsRandom = new Random(~gameSeed);
+        Map<String, BotPolicy> policies = new LinkedHashMap<>();
+        for(int i = 0; i < seats.size(); i++){
+            policies.put(BOT_ID_PREFIX + i, seats.get(i));
+        }
+        Map<String, Set<String>> toolCardsOfPlayers = new HashMap<>();
+
+        try {
+            Game game = new Game(Integer.parseInt(properties.getProperty(CONFIG_PROPERTY_NUMBER_OF_ROUNDS)),
+                    Integer.parseInt(properties.getProperty(CONFIG_PROPERTY_MAX_NUMBER_OF_PLAYERS)));
+            Controller controller = new Controller(game, properties, GAMES_LOGGER, gameSeed,
+                    windowPatternLibrary, toolCardLibrary);
+            controller.setHeadless();
+            controller.launchGame(policies.keySet());
+
+            for(Player player : game.getPlayers()){
+                WindowPattern windowPattern = policies.get(player.getID()).chooseWindowPattern(
+                        controller.getAssignedWindowPatterns(player.getID()), player.getPrivateObjectiveCard(), botsRandom);
+                HashMap<String, Object> params = new HashMap<>();
+                params.put("move", Move.CHOOSE_WINDOW_PATTERN);
+                params.put("windowPattern", windowPattern);
+                controller.handleMoveMessage(new Message(ControllerBoundMessageType.MOVE, params, player.getID()));
+            }
+            if(game.getStatus() == GameStatus.WAITING_FOR_PATTERNS_CHOICE){
+                controller.patternsChoiceTimerExpired();
+            }
+
+            while(game.getStatus() == GameStatus.PLAYING){
+                BotTurn turn = new BotTurn(controller, botsRandom, (playerID, toolCard) ->
+                        toolCardsOfPlayers.computeIfAbsent(playerID, id -> new HashSet<>()).add(toolCard.getTitle()));
+                policies.get(turn.getPlayer().getID()).playTurn(turn);
+                if(!turn.isOver()){
+                    turn.perform(Move.END_TURN);
+                }
+            }
+
+            Map<String, String> windowPatternsOfPlayers = new HashMap<>();
+            for(Player player : game.getPlayers()){
+                windowPatternsOfPlayers.put(player.getID(), player.getWindowPattern().getTitle());
+            }
+            statistics.addGame(controller.getFinalScores(), windowPatternsOfPlayers, toolCardsOfPlayers);
+
+        } catch (RuntimeException e) {
+            statistics.addFailedGame();
+        }
+    }
+
+    /**
+     * Task playing a range of games, splitting it in halves if it is too big
+     */
+    private final class SimulationTask extends RecursiveTask<SimulationStatistics> {
+
+        /**
+         * Serial Version UID
+         */
+        private static final long serialVersionUID = 5326040711947713402L;
+
+        /**
+         * The seed of the simulation
+         */
+        private final long seed;
+
+        /**
+         * Index of the first game of the range
+         */
+        private final int from;
+
+        /**
+         * Index after the last game of the range
+         */
+        private final int to;
+
+        /**
+         * Constructor of a task playing the given range of games
+         *
+         * @param seed the seed of the simulation
+         * @param from index of the first game of the range
+         * @param to index after the last game of the range
+         */
+        private SimulationTask(long seed, int from, int to) {
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SimulationStatistics compute() {
+            if(to - from <= GAMES_PER_TASK){
+                SimulationStatistics statistics = new SimulationStatistics();
+                for(int i = from; i < to; i++){
+                    playGame(seed + i * SEED_MULTIPLIER, statistics);
+                }
+                return statistics;
+            }
+
+            int middle = (from + to) >>> 1;
+            SimulationTask left = new SimulationTask(seed, from, middle);
+            left.fork();
+            SimulationStatistics right = new SimulationTask(seed, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Runs a simulation of random bots with the default configuration and logs its statistics.
+     *
+     * @param args number of games, number of players (default 2), probability of using a toolCard (default 0.3)
+     *             and seed (default random)
+     */
+    public static void main(String[] args) {
+        Properties properties;
+        try {
+            properties = new ConfigImporter().getProperties();
+        } catch (NoConfigParamFoundException e) {
+            LOGGER.severe(e.getMessage());
+            return;
+        }
+
+        int numberOfGames = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_NUMBER_OF_GAMES;
+        int numberOfPlayers = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_NUMBER_OF_PLAYERS;
+        double toolCardProbability = (args.length > 2) ? Double.parseDouble(args[2]) : DEFAULT_TOOL_CARD_PROBABILITY;
+        long seed = (args.length > 3) ? Long.parseLong(args[3]) : new Random().nextLong();
+
+        BotPolicy policy = new RandomBotPolicy(toolCardProbability);
+        Simulation simulation = new Simulation(properties, Collections.nCopies(numberOfPlayers, policy));
+
+        long start = System.currentTimeMillis();
+        SimulationStatistics statistics = simulation.run(numberOfGames, seed, Runtime.getRuntime().availableProcessors());
+        LOGGER.info(statistics.toString());
+        LOGGER.info(SEED + seed + ELAPSED + (System.currentTimeMillis() - start));
+    }
+}
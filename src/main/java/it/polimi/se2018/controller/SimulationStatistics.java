@@ -0,0 +1,242 @@
+package it.polimi.se2018.controller;
+
+import java.util.*;
+
+/**
+ * Statistics aggregated over many simulated games: score distributions and win rates of window patterns,
+ * win rates of the players that used each toolCard.
+ * Statistics of separate batches of games are combined with {@link SimulationStatistics#merge(SimulationStatistics)}.
+ * Instances are not thread safe: each batch of games collects its own statistics.
+ *
+ * @author Federico Haag
+ * @see Simulation
+ */
+public class SimulationStatistics {
+
+    /**
+     * Number of games that ended normally
+     */
+    private long numberOfGames = 0;
+
+    /**
+     * Number of games aborted by an unexpected error
+     */
+    private long numberOfFailedGames = 0;
+
+    /**
+     * Statistics of each window pattern, by title
+     */
+    private final Map<String, Record> windowPatterns = new TreeMap<>();
+
+    /**
+     * Statistics of each toolCard, by title
+     */
+    private final Map<String, Record> toolCards = new TreeMap<>();
+
+    /**
+     * Adds the results of an ended game
+     *
+     * @param scores the final scores of the players, from the winner to the last one
+     * @param windowPatternsOfPlayers the title of the window pattern of each player
+     * @param toolCardsOfPlayers the titles of the toolCards used by each player
+     */
+    void addGame(Map<String, Integer> scores, Map<String, String> windowPatternsOfPlayers, Map<String, Set<String>> toolCardsOfPlayers) {
+        numberOfGames++;
+
+        String winner = scores.keySet().iterator().next();
+        for(Map.Entry<String, Integer> score : scores.entrySet()){
+            boolean hasWon = score.getKey().equals(winner);
+
+            String windowPattern = windowPatternsOfPlayers.get(score.getKey());
+            windowPatterns.computeIfAbsent(windowPattern, title -> new Record()).add(score.getValue(), hasWon);
+
+            for(String toolCard : toolCardsOfPlayers.getOrDefault(score.getKey(), Collections.emptySet())){
+                toolCards.computeIfAbsent(toolCard, title -> new Record()).add(score.getValue(), hasWon);
+            }
+        }
+    }
+
+    /**
+     * Counts a game aborted by an unexpected error
+     */
+    void addFailedGame() {
+        numberOfFailedGames++;
+    }
+
+    /**
+     * Adds to these statistics the ones of another batch of games
+     *
+     * @param other the statistics of another batch of games
+     * @return these statistics
+     */
+    public SimulationStatistics merge(SimulationStatistics other) {
+        numberOfGames += other.numberOfGames;
+        numberOfFailedGames += other.numberOfFailedGames;
+        for(Map.Entry<String, Record> entry : other.windowPatterns.entrySet()){
+            windowPatterns.computeIfAbsent(entry.getKey(), title -> new Record()).merge(entry.getValue());
+        }
+        for(Map.Entry<String, Record> entry : other.toolCards.entrySet()){
+            toolCards.computeIfAbsent(entry.getKey(), title -> new Record()).merge(entry.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of games that ended normally
+     *
+     * @return the number of games that ended normally
+     */
+    public long getNumberOfGames() {
+        return numberOfGames;
+    }
+
+    /**
+     * Returns the number of games aborted by an unexpected error
+     *
+     * @return the number of games aborted by an unexpected error
+     */
+    public long getNumberOfFailedGames() {
+        return numberOfFailedGames;
+    }
+
+    /**
+     * Returns the statistics of the players that played each window pattern
+     *
+     * @return the statistics of each window pattern, by title
+     */
+    public Map<String, Record> getWindowPatterns() {
+        return Collections.unmodifiableMap(windowPatterns);
+    }
+
+    /**
+     * Returns the statistics of the players that used each toolCard at least once in a game
+     *
+     * @return the statistics of each toolCard, by title
+     */
+    public Map<String, Record> getToolCards() {
+        return Collections.unmodifiableMap(toolCards);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Games: ").append(numberOfGames).append(" (failed: ").append(numberOfFailedGames).append(")\n");
+        builder.append("Window patterns:\n");
+        appendRecords(builder, windowPatterns);
+        builder.append("ToolCards:\n");
+        appendRecords(builder, toolCards);
+        return builder.toString();
+    }
+
+    /**
+     * Appends a line for each of the given records
+     *
+     * @param builder the builder to append to
+     * @param records the records to append, by title
+     */
+    private static void appendRecords(StringBuilder builder, Map<String, Record> records) {
+        for(Map.Entry<String, Record> entry : records.entrySet()){
+            Record record = entry.getValue();
+            builder.append(String.format("  %-30s players: %8d  win rate: %5.1f%%  average score: %5.1f%n",
+                    entry.getKey(), record.getNumberOfPlayers(), record.getWinRate() * 100, record.getAverageScore()));
+        }
+    }
+
+    /**
+     * Statistics of the players that share something (a window pattern or the use of a toolCard)
+     */
+    public static final class Record {
+
+        /**
+         * Number of players
+         */
+        private long numberOfPlayers = 0;
+
+        /**
+         * Number of players that won their game
+         */
+        private long wins = 0;
+
+        /**
+         * Sum of the scores of the players
+         */
+        private long scoreSum = 0;
+
+        /**
+         * Number of players for each score
+         */
+        private final Map<Integer, Long> scoreDistribution = new TreeMap<>();
+
+        /**
+         * Adds a player
+         *
+         * @param score the final score of the player
+         * @param hasWon true if the player won the game
+         */
+        private void add(int score, boolean hasWon) {
+            numberOfPlayers++;
+            scoreSum += score;
+            if(hasWon){ wins++; }
+            scoreDistribution.merge(score, 1L, Long::sum);
+        }
+
+        /**
+         * Adds the players of another record
+         *
+         * @param other the record to add
+         */
+        private void merge(Record other) {
+            numberOfPlayers += other.numberOfPlayers;
+            wins += other.wins;
+            scoreSum += other.scoreSum;
+            for(Map.Entry<Integer, Long> entry : other.scoreDistribution.entrySet()){
+                scoreDistribution.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+        }
+
+        /**
+         * Returns the number of players
+         *
+         * @return the number of players
+         */
+        public long getNumberOfPlayers() {
+            return numberOfPlayers;
+        }
+
+        /**
+         * Returns the number of players that won their game
+         *
+         * @return the number of players that won their game
+         */
+        public long getWins() {
+            return wins;
+        }
+
+        /**
+         * Returns the fraction of players that won their game
+         *
+         * @return the fraction of players that won their game, 0 if there are no players
+         */
+        public double getWinRate() {
+            return (numberOfPlayers == 0) ? 0 : (double) wins / numberOfPlayers;
+        }
+
+        /**
+         * Returns the average final score of the players
+         *
+         * @return the average final score of the players, 0 if there are no players
+         */
+        public double getAverageScore() {
+            return (numberOfPlayers == 0) ? 0 : (double) scoreSum / numberOfPlayers;
+        }
+
+        /**
+         * Returns how many players got each final score
+         *
+         * @return the number of players for each score, ordered by score
+         */
+        public Map<Integer, Long> getScoreDistribution() {
+            return Collections.unmodifiableMap(scoreDistribution);
+        }
+    }
+}
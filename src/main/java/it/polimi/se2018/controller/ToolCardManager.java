@@ -10,6 +10,7 @@ import org.w3c.dom.NodeList;
 
 import java.lang.reflect.Constructor;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -49,6 +50,17 @@ public class ToolCardManager {
      */
     private FileFinder fileFinder = new FileFinder();
 
+    /**
+     * Source of randomness used to choose the toolCards
+     */
+    private final Random random;
+
+    /**
+     * ToolCards already loaded from file system by their ID, shared with the managers built from this one.
+     * ToolCards are handed out as copies, as their tokens change during the game.
+     */
+    private final Map<String, ToolCard> loadedToolCards;
+
     /**
      * Constructor of the class. Checks if there are toolCards than can be loaded
      * from file system and if yes loads them.
@@ -58,7 +70,22 @@ public class ToolCardManager {
      * @throws NoToolCardsFoundInFileSystemException if no toolCards .xml files can be loaded
      */
     public ToolCardManager(PlacementRule defaultPlacementRule){
+        this(defaultPlacementRule, new Random());
+    }
+
+    /**
+     * Constructor of the class choosing the toolCards with the given source of randomness.
+     * Checks if there are toolCards than can be loaded from file system and if yes loads them.
+     *
+     * @param defaultPlacementRule the default placement rule to apply to toolCards that in the xml file
+     *                             does not include specifications about what should be placement rule
+     * @param random the source of randomness used to choose the toolCards
+     * @throws NoToolCardsFoundInFileSystemException if no toolCards .xml files can be loaded
+     */
+    public ToolCardManager(PlacementRule defaultPlacementRule, Random random){
         this.defaultPlacementRule = defaultPlacementRule;
+        this.random = random;
+        this.loadedToolCards = new ConcurrentHashMap<>();
 
         try{
             List<String> fileNames = fileFinder.getFilesNamesInDirectory(PATH);
@@ -68,6 +95,21 @@ public class ToolCardManager {
         }
     }
 
+    /**
+     * Constructor of a manager choosing among the toolCards of the given one with the given source of randomness.
+     * The toolCards loaded by any of the two managers are shared, so each file is loaded only once
+     * even by many managers (e.g. by the games of a simulation). Managers can be used by different threads.
+     *
+     * @param library the manager whose toolCards and default placement rule are shared
+     * @param random the source of randomness used to choose the toolCards
+     */
+    ToolCardManager(ToolCardManager library, Random random){
+        this.defaultPlacementRule = library.defaultPlacementRule;
+        this.random = random;
+        this.loadedToolCards = library.loadedToolCards;
+        this.availableToolCardsIDs = new ArrayList<>(library.availableToolCardsIDs);
+    }
+
     /**
      * Returns the requested quantity of toolCards, if there are enough available.
      * It should not happen that the method is called if no toolCards are available;
@@ -85,19 +127,17 @@ public class ToolCardManager {
 
         if( availableToolCardsIDs.size() >= quantity ){
 
-            Random r = new Random();
-
             for(int i=0; i<quantity; i++){
 
                 //Choose randomly one of the available toolCards
-                int randomIndex = r.nextInt(availableToolCardsIDs.size());
+                int randomIndex = random.nextInt(availableToolCardsIDs.size());
                 String randomToolCardID = availableToolCardsIDs.get(randomIndex);
 
                 //Remove the selected toolCard from the available ones to avoid double choice
                 availableToolCardsIDs.remove(randomToolCardID);
 
                 //Load the randomly selected pattern
-                ToolCard randomToolCard = loadToolCardFromFileSystem(randomToolCardID);
+                ToolCard randomToolCard = loadToolCard(randomToolCardID);
 
                 //The successfully loaded pattern is added in a list that will be returned at the end of bulk loading
                 toolCards.add(randomToolCard);
@@ -109,6 +149,18 @@ public class ToolCardManager {
         return toolCards;
     }
 
+    /**
+     * Returns a copy of the specified toolCard, loading it from file the first time it is requested.
+     *
+     * @param toolCardID the ID String representing the toolCard to be loaded
+     * @return the requested {@link ToolCard}
+     * @throws BadFormattedToolCardFileException if during the loading of a toolCard it comes out that
+     * the file is not correctly formatted. This error is not handlable in this context so it is thrown to the caller.
+     */
+    private ToolCard loadToolCard(String toolCardID){
+        return loadedToolCards.computeIfAbsent(toolCardID, this::loadToolCardFromFileSystem).copy();
+    }
+
     /**
      * Loads from file the specified toolCard loading all its properties in a new {@link ToolCard} class.
      *
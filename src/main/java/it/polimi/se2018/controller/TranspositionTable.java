@@ -0,0 +1,159 @@
+package it.polimi.se2018.controller;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size table caching the evaluations of positions of the game, keyed by their Zobrist hash.
+ *
+ * Each entry keeps the number of evaluations of a position and their mean reward. Entries are stored
+ * without locks as two longs: the packed evaluation and the key xored with it. An entry written by a thread
+ * while another one is reading it fails the check of the key and is considered missing, so a torn entry is never
+ * returned. When two positions fall in the same slot, the last one stored replaces the other.
+ *
+ * @author Federico Haag
+ * @see it.polimi.se2018.model.Game#getZobristHash()
+ */
+final class TranspositionTable {
+
+    /**
+     * String used as message of IllegalArgumentException when the capacity is not positive
+     */
+    private static final String NOT_POSITIVE_CAPACITY = "Can't create a transposition table without entries.";
+
+    /**
+     * Maximum number of entries of the table
+     */
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    /**
+     * Packed evaluation of a missing entry
+     */
+    static final long MISSING = 0;
+
+    /**
+     * Keys xored with the packed evaluations, followed by the packed evaluations, for each entry
+     */
+    private final AtomicLongArray entries;
+
+    /**
+     * Mask selecting the entry of a key
+     */
+    private final int mask;
+
+    /**
+     * Constructor of a table with at least the given number of entries
+     *
+     * @param capacity minimum number of entries, rounded up to a power of two
+     */
+    TranspositionTable(int capacity) {
+        if(capacity <= 0){ throw new IllegalArgumentException(NOT_POSITIVE_CAPACITY); }
+
+        int size = Integer.highestOneBit(Math.min(capacity, MAX_CAPACITY));
+        if(size < capacity && size < MAX_CAPACITY){ size <<= 1; }
+        this.mask = size - 1;
+        this.entries = new AtomicLongArray(size * 2);
+    }
+
+    /**
+     * Returns the number of entries of the table
+     *
+     * @return the number of entries of the table
+     */
+    int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the packed evaluation of the position with the given key
+     *
+     * @param key the Zobrist hash of the position
+     * @return the packed evaluation of the position, or {@link TranspositionTable#MISSING} if it is not in the table
+     * @see TranspositionTable#getVisits(long)
+     * @see TranspositionTable#getMeanReward(long)
+     */
+    long probe(long key) {
+        int index = indexOf(key);
+        long data = entries.get(index + 1);
+        long check = entries.get(index);
+        return (check ^ data) == key ? data : MISSING;
+    }
+
+    /**
+     * Adds the given evaluation of the position with the given key to its mean reward
+     *
+     * @param key the Zobrist hash of the position
+     * @param reward the reward of the evaluation
+     */
+    void add(long key, double reward) {
+        long data = probe(key);
+        int visits = getVisits(data);
+        double meanReward = (data == MISSING) ? 0 : getMeanReward(data);
+        if(visits == Integer.MAX_VALUE){ return; }
+
+        visits++;
+        meanReward += (reward - meanReward) / visits;
+        store(key, pack(visits, meanReward));
+    }
+
+    /**
+     * Removes all the entries of the table
+     */
+    void clear() {
+        for(int i = 0; i < entries.length(); i++){
+            entries.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns the number of evaluations of a packed evaluation
+     *
+     * @param data the packed evaluation
+     * @return the number of evaluations, 0 if the entry is missing
+     */
+    static int getVisits(long data) {
+        return (int) (data >>> 32);
+    }
+
+    /**
+     * Returns the mean reward of a packed evaluation
+     *
+     * @param data the packed evaluation
+     * @return the mean reward of the evaluations
+     */
+    static double getMeanReward(long data) {
+        return Float.intBitsToFloat((int) data);
+    }
+
+    /**
+     * Packs an evaluation in a long
+     *
+     * @param visits the number of evaluations
+     * @param meanReward the mean reward of the evaluations
+     * @return the packed evaluation
+     */
+    private static long pack(int visits, double meanReward) {
+        return ((long) visits << 32) | (Float.floatToIntBits((float) meanReward) & 0xFFFF_FFFFL);
+    }
+
+    /**
+     * Stores the given packed evaluation in the entry of the given key
+     *
+     * @param key the Zobrist hash of the position
+     * @param data the packed evaluation
+     */
+    private void store(long key, long data) {
+        int index = indexOf(key);
+        entries.set(index, key ^ data);
+        entries.set(index + 1, data);
+    }
+
+    /**
+     * Returns the index in the array of the entry of the given key
+     *
+     * @param key the Zobrist hash of the position
+     * @return the index of the first long of the entry
+     */
+    private int indexOf(long key) {
+        return ((int) (key ^ (key >>> 32)) & mask) * 2;
+    }
+}
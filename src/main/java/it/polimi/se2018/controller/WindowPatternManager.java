@@ -8,6 +8,7 @@ import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.NodeList;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -17,8 +18,6 @@ import java.util.stream.Collectors;
  */
 public class WindowPatternManager {
 
-    private static final Random RANDOM = new Random();
-
     /**
      * The file system path to find windowPatterns .xml files
      */
@@ -44,11 +43,41 @@ public class WindowPatternManager {
      */
     private FileFinder fileFinder = new FileFinder();
 
+    /**
+     * Source of randomness used to choose the window patterns
+     */
+    private final Random random;
+
+    /**
+     * Window patterns already loaded from file system by their ID, shared with the managers built from this one.
+     * Patterns are handed out as copies, as players place dices on them.
+     */
+    private final Map<String, WindowPattern> loadedPatterns;
+
+    /**
+     * IDs of the partner patterns already read from file system by the ID of their pattern,
+     * shared with the managers built from this one
+     */
+    private final Map<String, String> loadedPartnerIDs;
+
     /**
      * Constructor of the class. Checks if there are window patterns than can be loaded
      * from file system and if yes loads them.
      */
     public WindowPatternManager() {
+        this(new Random());
+    }
+
+    /**
+     * Constructor of the class choosing the window patterns with the given source of randomness.
+     * Checks if there are window patterns than can be loaded from file system and if yes loads them.
+     *
+     * @param random the source of randomness used to choose the window patterns
+     */
+    public WindowPatternManager(Random random) {
+        this.random = random;
+        this.loadedPatterns = new ConcurrentHashMap<>();
+        this.loadedPartnerIDs = new ConcurrentHashMap<>();
 
         try{
 
@@ -60,6 +89,21 @@ public class WindowPatternManager {
 
     }
 
+    /**
+     * Constructor of a manager choosing among the window patterns of the given one with the given source of randomness.
+     * The window patterns loaded by any of the two managers are shared, so each file is loaded only once
+     * even by many managers (e.g. by the games of a simulation). Managers can be used by different threads.
+     *
+     * @param library the manager whose window patterns are shared
+     * @param random the source of randomness used to choose the window patterns
+     */
+    WindowPatternManager(WindowPatternManager library, Random random) {
+        this.random = random;
+        this.loadedPatterns = library.loadedPatterns;
+        this.loadedPartnerIDs = library.loadedPartnerIDs;
+        this.availablePatternsIDs = new ArrayList<>(library.availablePatternsIDs);
+    }
+
     /**
      * Returns a list of the requested quantity of Window Patterns
      *
@@ -71,14 +115,15 @@ public class WindowPatternManager {
     public Set<WindowPattern> getPairsOfPatterns(int numberOfPairs) {
         if(numberOfPairs < 0){ throw new IllegalArgumentException(CANT_GET_A_NEGATIVE_NUMBER_OF_COUPLES_OF_WINDOW_PATTERNS);}
 
-        Set<WindowPattern> couplesOfPatterns = new HashSet<>();
+        //Keeps the order of loading, so that the same random choices always give the same patterns
+        Set<WindowPattern> couplesOfPatterns = new LinkedHashSet<>();
 
         if( availablePatternsIDs.size() >= numberOfPairs * 2 ){
 
             for(int i=0; i<numberOfPairs; i++){
 
                 //Choose randomly one of the available patterns
-                int randomIndex = RANDOM.nextInt(availablePatternsIDs.size());
+                int randomIndex = random.nextInt(availablePatternsIDs.size());
                 String randomPatternID = availablePatternsIDs.get(randomIndex);
                 String randomPartnerPatternID = getPartnerPatternID(randomPatternID);
 
@@ -87,8 +132,8 @@ public class WindowPatternManager {
                 availablePatternsIDs.remove(randomPartnerPatternID);
 
                 //Load the randomly selected pattern
-                WindowPattern randomPattern = loadPatternFromFileSystem(randomPatternID.concat(".xml"));
-                WindowPattern randomPartnerPattern = loadPatternFromFileSystem(randomPartnerPatternID.concat(".xml"));
+                WindowPattern randomPattern = loadPattern(randomPatternID.concat(".xml"));
+                WindowPattern randomPartnerPattern = loadPattern(randomPartnerPatternID.concat(".xml"));
 
                 //The successfully loaded patterns are added in a list that will be returned at the end of bulk loading
                 couplesOfPatterns.add(randomPattern);
@@ -101,6 +146,18 @@ public class WindowPatternManager {
         return couplesOfPatterns;
     }
 
+    /**
+     * Returns a copy of the specified window pattern, loading it from file the first time it is requested.
+     *
+     * @param patternID the ID String representing the window pattern to be loaded
+     * @return the requested {@link WindowPattern}
+     * @throws BadFormattedPatternFileException if during the loading of a window pattern it comes out that
+     * the file is not correctly formatted. This error is not handlable in this context so it is thrown to the caller.
+     */
+    private WindowPattern loadPattern(String patternID) {
+        return loadedPatterns.computeIfAbsent(patternID, this::loadPatternFromFileSystem).copy();
+    }
+
     /**
      * Loads from file the specified toolCard loading all its properties in a new {@link WindowPattern} class.
      *
@@ -166,11 +223,20 @@ public class WindowPatternManager {
     }
 
     /**
-     * Returns the id of the partner pattern of the given pattern
+     * Returns the id of the partner pattern of the given pattern, reading it from file the first time it is requested
      * @param patternID the id of the pattern to check
      * @return the id of the partner pattern of the given pattern
      */
     private String getPartnerPatternID(String patternID){
+        return loadedPartnerIDs.computeIfAbsent(patternID, this::readPartnerPatternID);
+    }
+
+    /**
+     * Reads from file the id of the partner pattern of the given pattern
+     * @param patternID the id of the pattern to check
+     * @return the id of the partner pattern of the given pattern
+     */
+    private String readPartnerPatternID(String patternID){
         try{
             Document document = fileFinder.getFileDocument(PATH.concat(patternID).concat(".xml"));
             return document.getElementsByTagName("partnerID").item(0).getTextContent();
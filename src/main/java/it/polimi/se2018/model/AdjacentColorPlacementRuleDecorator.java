@@ -8,6 +8,11 @@ package it.polimi.se2018.model;
  */
 public class AdjacentColorPlacementRuleDecorator extends PlacementRuleDecorator {
 
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = -6721048566280862920L;
+
     /**
      * Class constructor specifying {@link PlacementRule} to be decorated.
      *
@@ -47,7 +52,7 @@ public class AdjacentColorPlacementRuleDecorator extends PlacementRuleDecorator
      * @see AdjacentColorPlacementRuleDecorator for formal rule.
      */
     private boolean checkAdjacentColorConstraints(WindowPattern windowPattern, Dice dice, int row, int col){
-        Cell[][] pattern = windowPattern.getPattern();
+        Cell[][] pattern = windowPattern.getCells();
         int numberOfRows = windowPattern.getNumberOfRows();
         int numberOfColumns = windowPattern.getNumberOfColumns();
 
@@ -8,6 +8,11 @@ package it.polimi.se2018.model;
  */
 public class AdjacentDicePlacementRuleDecorator extends PlacementRuleDecorator {
 
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = -2836659095759238755L;
+
     /**
      * Class constructor specifying {@link PlacementRule} to be decorated.
      *
@@ -50,7 +55,7 @@ public class AdjacentDicePlacementRuleDecorator extends PlacementRuleDecorator {
         if (windowPattern.isEmpty()) {
             return true;
         }
-        Cell[][] pattern = windowPattern.getPattern();
+        Cell[][] pattern = windowPattern.getCells();
         int numberOfRows = windowPattern.getNumberOfRows();
         int numberOfColumns = windowPattern.getNumberOfColumns();
 
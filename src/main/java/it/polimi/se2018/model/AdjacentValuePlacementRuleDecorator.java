@@ -8,6 +8,11 @@ package it.polimi.se2018.model;
  */
 public class AdjacentValuePlacementRuleDecorator extends PlacementRuleDecorator {
 
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = 8270954468753766498L;
+
     /**
      * Class constructor specifying {@link PlacementRule} to be decorated.
      *
@@ -46,7 +51,7 @@ public class AdjacentValuePlacementRuleDecorator extends PlacementRuleDecorator
      * @see AdjacentValuePlacementRuleDecorator for formal rule.
      */
     private boolean checkAdjacentValueConstraints(WindowPattern windowPattern, Dice dice, int row, int col){
-        Cell[][] pattern = windowPattern.getPattern();
+        Cell[][] pattern = windowPattern.getCells();
         int numberOfRows = windowPattern.getNumberOfRows();
         int numberOfColumns = windowPattern.getNumberOfColumns();
 
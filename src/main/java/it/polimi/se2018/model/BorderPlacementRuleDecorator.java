@@ -7,6 +7,11 @@ package it.polimi.se2018.model;
  */
 public class BorderPlacementRuleDecorator extends PlacementRuleDecorator {
 
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = -6703531863012891427L;
+
     /**
      * Class constructor specifying {@link PlacementRule} to be decorated.
      *
@@ -1,6 +1,7 @@
 package it.polimi.se2018.model;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * Represent a cell of a {@link WindowPattern}. May contains a {@link Dice}.
@@ -51,6 +52,11 @@ public class Cell implements Serializable{
      */
     private Dice dice;
 
+    /**
+     * Last copy returned by {@link Cell#snapshot()}
+     */
+    private transient Cell snapshot;
+
     /**
      * Constructor for Cell class without specifying value and color constraints.
      * No constraints are inserted.
@@ -123,6 +129,18 @@ public class Cell implements Serializable{
         return d;
     }
 
+    /**
+     * Returns a copy of the cell that must not be changed. The same copy is returned as long as the
+     * dice of the cell doesn't change, so it is shared by the snapshots of the window pattern.
+     * @return a shared copy of the cell
+     */
+    Cell snapshot(){
+        if(this.snapshot == null || !Objects.equals(this.snapshot.dice, this.dice)) {
+            this.snapshot = copy();
+        }
+        return this.snapshot;
+    }
+
     /**
      * Makes a copy of the cell.
      * @return a copy of the cell
@@ -139,11 +157,23 @@ public class Cell implements Serializable{
      */
     @Override
     public String toString() {
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the string representation of the cell to the given builder
+     *
+     * @param builder the builder the cell is appended to
+     * @return the given builder
+     */
+    StringBuilder appendTo(StringBuilder builder) {
+        builder.append(BEGIN_STRING);
         if(this.dice == null) {
-            return BEGIN_STRING + allowedColor.toOneLetter() + DIVIDER + allowedValue + END_STRING;
+            builder.append(allowedColor.toOneLetter()).append(DIVIDER).append(allowedValue);
         }else{
-            return BEGIN_STRING + BEFORE_DICE + dice + AFTER_DICE + END_STRING;
+            builder.append(BEFORE_DICE).append(dice).append(AFTER_DICE);
         }
+        return builder.append(END_STRING);
     }
 
     /**
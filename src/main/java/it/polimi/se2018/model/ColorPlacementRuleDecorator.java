@@ -7,6 +7,11 @@ package it.polimi.se2018.model;
  */
 public class ColorPlacementRuleDecorator extends PlacementRuleDecorator {
 
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = 7294029020684567748L;
+
     /**
      * Class constructor specifying {@link PlacementRule} to be decorated.
      *
@@ -45,7 +50,7 @@ public class ColorPlacementRuleDecorator extends PlacementRuleDecorator {
      * @see ColorPlacementRuleDecorator for formal rule.
      */
     private boolean checkColorConstraints(WindowPattern windowPattern, Dice dice, int row, int col){
-        return windowPattern.getPattern()[row][col].getAllowedColor() == DiceColor.NOCOLOR
-                || windowPattern.getPattern()[row][col].getAllowedColor() == dice.getColor();
+        return windowPattern.getCells()[row][col].getAllowedColor() == DiceColor.NOCOLOR
+                || windowPattern.getCells()[row][col].getAllowedColor() == dice.getColor();
     }
 }
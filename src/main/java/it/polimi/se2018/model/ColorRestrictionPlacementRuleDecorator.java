@@ -7,6 +7,11 @@ package it.polimi.se2018.model;
  * @author Lorenzo Minto
  */
 public class ColorRestrictionPlacementRuleDecorator extends PlacementRuleDecorator {
+
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = -8517239087157343714L;
     DiceColor color;
 
     /**
@@ -183,7 +183,7 @@ public class DiagonalsPublicObjectiveCard extends PublicObjectiveCard {
     private int getCellPairScore(WindowPattern windowPattern, List<Integer> listOfNotConsideredDice, int move,
                                  int row, int column){
         int score = 0;
-        Cell[][] pattern = windowPattern.getPattern();
+        Cell[][] pattern = windowPattern.getCells();
         int numberOfRows = windowPattern.getNumberOfRows();
 
         Dice currentDice;
@@ -117,7 +117,17 @@ public class Dice implements Serializable {
      * Rolls the Dice. Means that assign a new random value to it.
      */
     public void roll() {
-        this.value = RANDOM.nextInt(MAX_VALUE)+1;
+        roll(RANDOM);
+    }
+
+    /**
+     * Rolls the Dice using the given source of randomness.
+     * Games pass their own seeded source, so that they can be replayed.
+     *
+     * @param random the source of randomness used to roll the Dice
+     */
+    public void roll(Random random) {
+        this.value = random.nextInt(MAX_VALUE)+1;
     }
 
 
@@ -24,7 +24,15 @@ public enum DiceColor {
      * @return a random color
      */
     public static DiceColor getRandomColor(){
-        Random random = new Random();
+        return getRandomColor(new Random());
+    }
+
+    /**
+     * Returns a random color, except the NOCOLOR, using the given source of randomness.
+     * @param random the source of randomness used to choose the color
+     * @return a random color
+     */
+    public static DiceColor getRandomColor(Random random){
         DiceColor randomColor;
 
         do{
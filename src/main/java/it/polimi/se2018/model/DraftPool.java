@@ -4,11 +4,14 @@ import it.polimi.se2018.utils.Observable;
 import it.polimi.se2018.utils.Message;
 import it.polimi.se2018.utils.ViewBoundMessageType;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.stream.Collectors;
 
 /**
@@ -32,6 +35,13 @@ public class DraftPool extends Observable implements Serializable {
      */
     private List<Dice> dices;
 
+    /**
+     * Zobrist hash of the dices of the draftpool. As the same dice can be there more than once,
+     * keys are summed instead of xored.
+     * @see Zobrist
+     */
+    private transient long zobristHash;
+
     /**
      * Constructor of a DraftPool containing the given dices
      * @param dices the dices that will be contained in the new draft pool
@@ -39,6 +49,7 @@ public class DraftPool extends Observable implements Serializable {
     public DraftPool(List<Dice> dices){
         if(dices == null){ throw new IllegalArgumentException(NULL_DICE);}
         this.dices = dices;
+        computeZobristHash();
     }
 
     /**
@@ -46,10 +57,20 @@ public class DraftPool extends Observable implements Serializable {
      * @see Dice#roll()
      */
     public void reRoll() {
+        reRoll(new Random());
+    }
+
+    /**
+     * Rolls each dice in draft pool using the given source of randomness.
+     * @param random the source of randomness used to roll the dices
+     * @see Dice#roll(Random)
+     */
+    public void reRoll(Random random) {
 
         for (Dice dice : dices) {
-            dice.roll();
+            dice.roll(random);
         }
+        computeZobristHash();
 
         notifyGame();
     }
@@ -76,6 +97,7 @@ public class DraftPool extends Observable implements Serializable {
      */
     public boolean draftDice(Dice dice) {
         if(dices.remove(dice)) {
+            zobristHash -= getDiceKey(dice);
             notifyGame();
             return true;
         } else {
@@ -91,9 +113,61 @@ public class DraftPool extends Observable implements Serializable {
     public void putDice(Dice dice) {
         if(dice == null) {throw new IllegalArgumentException(NULL_DICE);}
         dices.add(dice);
+        zobristHash += getDiceKey(dice);
         notifyGame();
     }
 
+    /**
+     * Returns the Zobrist hash of the dices of the draftpool. It is kept up to date at each change of the draftpool.
+     *
+     * @return the Zobrist hash of the dices of the draftpool
+     * @see Zobrist
+     */
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    /**
+     * Returns the Zobrist key of the given dice being in the draftpool
+     *
+     * @param dice the dice
+     * @return the Zobrist key of the given dice being in the draftpool
+     */
+    private static long getDiceKey(Dice dice) {
+        return Zobrist.key(Zobrist.DRAFT_POOL, 0, dice);
+    }
+
+    /**
+     * Computes the Zobrist hash of the dices of the draftpool from scratch
+     */
+    private void computeZobristHash() {
+        zobristHash = 0;
+        for (Dice dice : dices) {
+            zobristHash += getDiceKey(dice);
+        }
+    }
+
+    /**
+     * Restores the draftpool after deserialization, computing again its Zobrist hash
+     *
+     * @param in the stream the draftpool is read from
+     * @throws IOException if the stream can't be read
+     * @throws ClassNotFoundException if a serialized class can't be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        computeZobristHash();
+    }
+
+    /**
+     * Makes a copy of the draftpool, with copies of its dices. Observers are not copied.
+     *
+     * @return a copy of the draftpool
+     */
+    DraftPool copy() {
+        return new DraftPool(getDices());
+    }
+
     /**
      * Method to notify observers (Game) with the updated draftpool
      *
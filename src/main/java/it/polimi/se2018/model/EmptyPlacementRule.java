@@ -7,6 +7,11 @@ package it.polimi.se2018.model;
  */
 public class EmptyPlacementRule implements PlacementRule {
 
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = 1988376061594228398L;
+
     /**
      * Checks if the move specified by a given {@link Dice} and a position (row and col) is allowed on
      * the given {@link WindowPattern}. Always returns true if not decorated.
@@ -19,6 +24,6 @@ public class EmptyPlacementRule implements PlacementRule {
      */
     @Override
     public boolean isMoveAllowed(WindowPattern windowPattern, Dice dice, int row, int col) {
-        return !windowPattern.getPattern()[row][col].hasDice();
+        return !windowPattern.getCells()[row][col].hasDice();
     }
 }
@@ -7,6 +7,9 @@ import it.polimi.se2018.utils.Observable;
 import it.polimi.se2018.utils.Observer;
 import it.polimi.se2018.utils.Message;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.*;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -17,12 +20,20 @@ import java.util.stream.Collectors;
  * An instance of this class represent a specific real game going on on the server.
  *
  * This class implements the OBSERVER PATTERN in order to notify all the Views connected.
+ * It is serializable so that the controller can snapshot an in-progress game and restore it
+ * after a crash of the server.
  *
  * @author Federico Haag
  * @author Lorenzo Minto
  * @author Jacopo Pio Gargano
  */
-public class Game extends Observable implements Observer{
+public class Game extends Observable implements Observer, Serializable {
+
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = -2650385391725377317L;
+
     /**
      * String passed as message of ValueOutOfBoundsException when is asked to create a game with a negative number of rounds
      */
@@ -180,6 +191,15 @@ public class Game extends Observable implements Observer{
         return track;
     }
 
+    /**
+     * Returns the number of rounds the game is composed of.
+     *
+     * @return the number of rounds the game is composed of
+     */
+    public int getNumberOfRounds() {
+        return numberOfRounds;
+    }
+
     /**
      * Returns the list of players.
      *
@@ -190,6 +210,15 @@ public class Game extends Observable implements Observer{
     }
 
 
+    /**
+     * Returns copies of the ToolCards that were assigned to this game at the beginning of it.
+     *
+     * @return copies of the ToolCards that were assigned to this game at the beginning of it
+     */
+    public List<ToolCard> getDrawnToolCards() {
+        return drawnToolCards.stream().map(ToolCard::copy).collect(Collectors.toList());
+    }
+
     /**
      * Returns the list of Public Objective Cards that were assigned to this game at the beginning of it.
      *
@@ -359,23 +388,10 @@ public class Game extends Observable implements Observer{
         this.status = GameStatus.PLAYING;
         this.numberOfTurnsPerRound = players.size() * 2;
 
-        //Send to all players all the needed data about game
-        Map <String, Object> messageAttributes = new HashMap<>();
-        String[] playersIDs = players.stream().map(Player::getID).toArray(String[]::new);
-        WindowPattern[] windowPatterns = players.stream().map(Player::getWindowPattern).toArray(WindowPattern[]::new);
-
-        messageAttributes.put("drawnToolCards", drawnToolCards.stream().map(ToolCard::copy).collect(Collectors.toList()));
-        messageAttributes.put("drawnPublicObjectiveCards", drawnPublicObjectiveCards.stream().map(PublicObjectiveCard::copy).collect(Collectors.toList()));
-        messageAttributes.put("players", Arrays.asList(playersIDs));
-        messageAttributes.put("windowPatterns", Arrays.stream(windowPatterns).map(WindowPattern::copy).collect(Collectors.toList()));
-        messageAttributes.put("track", track.copy());
-        messageAttributes.put("draftPoolDices", dices.stream().map(Dice::copy).collect(Collectors.toList()));
-        messageAttributes.put("favourTokens", players.stream().map(Player::getFavorTokens).collect(Collectors.toList()));
-
+        //Send to all players all the needed data about game; the public part is the same for all of them
+        Map<String, Object> publicSetupAttributes = getPublicSetupAttributes(dices.stream().map(Dice::copy).collect(Collectors.toList()));
         for (Player player: players) {
-            messageAttributes.put("privateObjectiveCard", player.getPrivateObjectiveCard().copy()); //put overrides previous values
-            messageAttributes.put("yourWindowPattern", player.getWindowPattern().copy()); //put overrides previous values
-            Message message = new Message(ViewBoundMessageType.SETUP, messageAttributes, player.getID());
+            Message message = new Message(ViewBoundMessageType.SETUP, getSetupAttributes(player, publicSetupAttributes), player.getID());
 
             notify(message);
         }
@@ -468,6 +484,203 @@ public class Game extends Observable implements Observer{
         }
     }
 
+    /**
+     * Sends to the given player all the information needed to rebuild its view of the running game.
+     * It is used when a player comes back to a game that was restored from a snapshot.
+     *
+     * @param playerID the id of the player that has to receive the game state
+     * @param permissions the set of permissions of the player if it is its turn
+     */
+    public void sendGameStateTo(String playerID, Set<Move> permissions){
+        if(this.status != GameStatus.PLAYING){ throw new BadBehaviourRuntimeException(GAME_NOT_RUNNING); }
+
+        for (Player player: players) {
+            if(player.getID().equals(playerID)){
+                notify(new Message(ViewBoundMessageType.SETUP, getSetupAttributes(player, getPublicSetupAttributes(currentRound.getDraftPool().getDices())), playerID));
+            }
+        }
+
+        Map <String, Object> messageAttributes = new HashMap<>();
+        messageAttributes.put("number", currentRound.getNumber());
+        messageAttributes.put("draftPoolDices", currentRound.getDraftPool().getDices());
+        notify(new Message(ViewBoundMessageType.NEW_ROUND, messageAttributes, playerID));
+
+        String currentPlayerID = currentRound.getCurrentTurn().getPlayer().getID();
+        notify(new Message(ViewBoundMessageType.NEW_TURN, Message.fastMap("whoIsPlaying", currentPlayerID), playerID));
+        if(currentPlayerID.equals(playerID)){
+            notify(new Message(ViewBoundMessageType.IT_IS_YOUR_TURN, null, playerID, permissions));
+        }
+    }
+
+    /**
+     * Returns the public state of the running game, as seen by who doesn't play it: the SETUP message
+     * without any private objective card, followed by the current round and the current turn.
+     *
+     * @return a broadcast batch of the messages describing the public state of the game, or null if no turn is being played
+     */
+    public Message getPublicState(){
+        if(this.status != GameStatus.PLAYING || currentRound == null || !currentRound.hasCurrentTurn()){ return null; }
+
+        List<Dice> dices = currentRound.getDraftPool().getDices();
+        List<Message> messages = new ArrayList<>();
+        messages.add(new Message(ViewBoundMessageType.SETUP, getPublicSetupAttributes(dices)));
+
+        Map <String, Object> messageAttributes = new HashMap<>();
+        messageAttributes.put("number", currentRound.getNumber());
+        messageAttributes.put("draftPoolDices", dices);
+        messages.add(new Message(ViewBoundMessageType.NEW_ROUND, messageAttributes));
+
+        String currentPlayerID = currentRound.getCurrentTurn().getPlayer().getID();
+        messages.add(new Message(ViewBoundMessageType.NEW_TURN, Message.fastMap("whoIsPlaying", currentPlayerID)));
+
+        return Message.batch(messages, null);
+    }
+
+    /**
+     * Returns the Zobrist hash of the position of the game: the dices on the window patterns, in the draft pool
+     * and on the track, the favour tokens of the players and the ones used on the toolCards, the current turn
+     * and what was already done in it. Equal positions have the same hash, so positions reached
+     * through different moves can be recognized.
+     *
+     * @return the Zobrist hash of the position of the game
+     * @see Zobrist
+     */
+    public long getZobristHash(){
+        long hash = track.getZobristHash();
+
+        List<Player> playersList = getPlayers();
+        for(int i = 0; i < playersList.size(); i++){
+            Player player = playersList.get(i);
+            WindowPattern windowPattern = player.getWindowPattern();
+            if(windowPattern != null){
+                //window patterns hash their cells alike, so each one is bound to its player
+                hash ^= Zobrist.mix(windowPattern.getZobristHash() ^ Zobrist.key(Zobrist.PLAYER, i, 0));
+            }
+            hash ^= Zobrist.key(Zobrist.FAVOUR_TOKENS, i, player.getFavorTokens());
+        }
+
+        if(drawnToolCards != null){
+            for(int i = 0; i < drawnToolCards.size(); i++){
+                hash ^= Zobrist.key(Zobrist.TOOL_CARD, i, drawnToolCards.get(i).getUsedTokens());
+            }
+        }
+
+        if(currentRound != null){
+            hash ^= currentRound.getDraftPool().getZobristHash();
+            if(currentRound.hasCurrentTurn()){
+                Turn turn = currentRound.getCurrentTurn();
+                hash ^= Zobrist.key(Zobrist.TURN, currentRound.getNumber(), turn.getNumber());
+                if(turn.getDraftedDice() != null){
+                    hash ^= Zobrist.key(Zobrist.DRAFTED_DICE, 0, turn.getDraftedDice());
+                }
+                int actions = (turn.hasDrafted() ? 1 : 0) | (turn.hasDraftedAndPlaced() ? 2 : 0) | (turn.hasUsedToolCard() ? 4 : 0);
+                hash ^= Zobrist.key(Zobrist.TURN_ACTIONS, 0, actions);
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * Builds the attributes of the SETUP message sent to the given player
+     *
+     * @param player the player receiving the message
+     * @param publicSetupAttributes the attributes of the SETUP message that all the players receive
+     * @return the attributes of the SETUP message
+     */
+    private Map<String, Object> getSetupAttributes(Player player, Map<String, Object> publicSetupAttributes){
+        Map <String, Object> messageAttributes = new HashMap<>(publicSetupAttributes);
+        messageAttributes.put("privateObjectiveCard", player.getPrivateObjectiveCard().copy());
+        messageAttributes.put("yourWindowPattern", player.getWindowPattern().snapshot());
+
+        return messageAttributes;
+    }
+
+    /**
+     * Builds the attributes of the SETUP message that all the players receive
+     *
+     * @param dices copies of the dices currently in the draft pool
+     * @return the attributes of the SETUP message that all the players receive
+     */
+    private Map<String, Object> getPublicSetupAttributes(List<Dice> dices){
+        Map <String, Object> messageAttributes = new HashMap<>();
+        String[] playersIDs = players.stream().map(Player::getID).toArray(String[]::new);
+        WindowPattern[] windowPatterns = players.stream().map(Player::getWindowPattern).toArray(WindowPattern[]::new);
+
+        messageAttributes.put("drawnToolCards", drawnToolCards.stream().map(ToolCard::copy).collect(Collectors.toList()));
+        //public objective cards never change, so they are shared instead of copied
+        messageAttributes.put("drawnPublicObjectiveCards", new ArrayList<>(drawnPublicObjectiveCards));
+        messageAttributes.put("players", Arrays.asList(playersIDs));
+        messageAttributes.put("windowPatterns", Arrays.stream(windowPatterns).map(WindowPattern::snapshot).collect(Collectors.toList()));
+        messageAttributes.put("track", track.snapshot());
+        messageAttributes.put("draftPoolDices", dices);
+        messageAttributes.put("favourTokens", players.stream().map(Player::getFavorTokens).collect(Collectors.toList()));
+
+        return messageAttributes;
+    }
+
+    /**
+     * Restores the game after deserialization. Observers are not serialized, so the game
+     * registers itself again to the model objects it has to forward notifications of.
+     *
+     * @param in the stream the game is read from
+     * @throws IOException if the stream can't be read
+     * @throws ClassNotFoundException if a serialized class can't be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        track.register(this);
+        for(Player player : players){
+            if(player.getWindowPattern()!=null){
+                player.getWindowPattern().register(this);
+            }
+        }
+        if(currentRound != null){
+            currentRound.getDraftPool().register(this);
+            currentRound.getCurrentTurn().register(this);
+        }
+    }
+
+    /**
+     * Makes a deep copy of the game, much faster than serializing it. Observers are not copied:
+     * as after deserialization, the copy is registered only to its own model objects.
+     * Public objective cards never change, so they are shared.
+     *
+     * @return a copy of the game
+     */
+    public Game copy() {
+        Game gameCopy = new Game(this.numberOfRounds, this.maxNumberOfPlayers);
+        gameCopy.numberOfTurnsPerRound = this.numberOfTurnsPerRound;
+        gameCopy.status = this.status;
+        gameCopy.drawnPublicObjectiveCards = this.drawnPublicObjectiveCards;
+        gameCopy.drawnToolCards = (this.drawnToolCards == null) ? null
+                : this.drawnToolCards.stream().map(ToolCard::copy).collect(Collectors.toList());
+
+        gameCopy.track = this.track.copy();
+        gameCopy.track.register(gameCopy);
+
+        //players are added in the same order, so that the copy iterates them in the same order
+        Map<String, Player> copiedPlayers = new LinkedHashMap<>();
+        for(Player player : this.players){
+            Player playerCopy = player.copy();
+            gameCopy.players.add(playerCopy);
+            copiedPlayers.put(playerCopy.getID(), playerCopy);
+            if(playerCopy.getWindowPattern()!=null){
+                playerCopy.getWindowPattern().register(gameCopy);
+            }
+        }
+
+        if(this.currentRound != null){
+            gameCopy.currentRound = this.currentRound.copy(copiedPlayers, gameCopy.drawnToolCards);
+            gameCopy.currentRound.getDraftPool().register(gameCopy);
+            if(gameCopy.currentRound.hasCurrentTurn()){
+                gameCopy.currentRound.getCurrentTurn().register(gameCopy);
+            }
+        }
+        return gameCopy;
+    }
+
     @Override
     public boolean update(Message m) {
         notify(m);
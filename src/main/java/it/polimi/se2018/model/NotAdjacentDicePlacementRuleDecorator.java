@@ -8,6 +8,11 @@ package it.polimi.se2018.model;
  */
 public class NotAdjacentDicePlacementRuleDecorator extends PlacementRuleDecorator {
 
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = -5086958720520138996L;
+
     /**
      * Class constructor specifying {@link PlacementRule} to be decorated.
      *
@@ -47,7 +52,7 @@ public class NotAdjacentDicePlacementRuleDecorator extends PlacementRuleDecorato
      * @see AdjacentColorPlacementRuleDecorator for formal rule.
      */
     private boolean checkAdjacentDiceConstraints(WindowPattern windowPattern, int row, int col){
-        Cell[][] pattern = windowPattern.getPattern();
+        Cell[][] pattern = windowPattern.getCells();
         int numberOfRows = windowPattern.getNumberOfRows();
         int numberOfColumns = windowPattern.getNumberOfColumns();
 
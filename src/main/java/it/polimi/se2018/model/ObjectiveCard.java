@@ -92,10 +92,6 @@ public abstract class ObjectiveCard implements Serializable {
      * @return the string representation of the card
      */
     public String toString(){
-        String s = title;
-        s = s.concat(System.lineSeparator());
-        s = s.concat(description);
-        s = s.concat(System.lineSeparator());
-        return s;
+        return title + System.lineSeparator() + description + System.lineSeparator();
     }
 }
@@ -1,13 +1,16 @@
 package it.polimi.se2018.model;
 
+import java.io.Serializable;
+
 /**
  * Interface for placement rule definition.
  *
  * Placement rules are to be composed via the decorator pattern by adding up single, independent constraints.
+ * Rules are serializable so that tool cards keep them when a game snapshot is written and restored.
  *
  * @author Lorenzo Minto
  */
-public interface PlacementRule {
+public interface PlacementRule extends Serializable {
 
     /**
      * Checks if the move specified by a given {@link Dice} and a position (row and col) is allowed on
@@ -21,4 +24,18 @@ public interface PlacementRule {
      */
     boolean isMoveAllowed(WindowPattern windowPattern, Dice dice, int row, int col);
 
+    /**
+     * Returns the rule of the placements not changed by a tool card: the dice must respect the restrictions
+     * of its cell, be adjacent to another dice and not be orthogonally adjacent to a dice of the same color or value.
+     *
+     * @return the default placement rule
+     */
+    static PlacementRule getDefault() {
+        return new AdjacentValuePlacementRuleDecorator(
+                new AdjacentDicePlacementRuleDecorator(
+                        new AdjacentColorPlacementRuleDecorator(
+                                new ColorPlacementRuleDecorator(
+                                        new ValuePlacementRuleDecorator(
+                                                new EmptyPlacementRule())))));
+    }
 }
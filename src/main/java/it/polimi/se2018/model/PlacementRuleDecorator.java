@@ -11,6 +11,11 @@ package it.polimi.se2018.model;
  */
 public abstract class PlacementRuleDecorator implements PlacementRule {
 
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = 4824024543075670387L;
+
     /**
      * The {@link PlacementRule} to be decorated. All additional constraints will be enforced together with this
      * rule's existing constraints.
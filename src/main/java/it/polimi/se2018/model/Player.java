@@ -120,6 +120,21 @@ public class Player implements Serializable {
         return windowPattern;
     }
 
+    /**
+     * Makes a copy of the player, with a copy of its windowPattern.
+     * The private objective card never changes, so it is shared.
+     *
+     * @return a copy of the player
+     */
+    public Player copy() {
+        Player playerCopy = new Player(this.nickname, this.privateObjectiveCard);
+        if(this.windowPattern != null){
+            playerCopy.setWindowPattern(this.windowPattern.copy());
+        }
+        playerCopy.favorTokens = this.favorTokens;
+        return playerCopy;
+    }
+
     /**
      * Indicates whether some other Player is "equal to" this one.
      * @param o some other Player
@@ -56,7 +56,7 @@ public class PrivateObjectiveCard extends ObjectiveCard {
     @Override
     public int calculateScore(WindowPattern windowPattern) {
         int score = 0;
-        Cell[][] pattern = windowPattern.getPattern();
+        Cell[][] pattern = windowPattern.getCells();
 
         for (int i = 0; i < windowPattern.getNumberOfRows(); i++) {
             for (int j = 0; j < windowPattern.getNumberOfColumns(); j++) {
@@ -11,8 +11,9 @@ public abstract class PublicObjectiveCard extends ObjectiveCard{
 
     /**
      * Function of Dice used to get a certain property of it.
+     * Cards created by the factory use serializable functions so that they survive game snapshots.
      */
-    private transient Function<Dice,Object> propertyFunction;
+    private Function<Dice,Object> propertyFunction;
 
     /**
      * Constructor for PublicObjectiveCard.
@@ -4,6 +4,7 @@ import it.polimi.se2018.controller.NoMoreTurnsAvailableException;
 import it.polimi.se2018.utils.EmptyListException;
 import it.polimi.se2018.utils.ValueOutOfBoundsException;
 
+import java.io.Serializable;
 import java.util.*;
 
 /**
@@ -11,7 +12,12 @@ import java.util.*;
  *
  * @author Federico Haag
  */
-public class Round {
+public class Round implements Serializable {
+
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = 4311092578841512634L;
 
     /**
      * String passed as message of IllegalArgumentException when is asked to create a round giving a null draftpool
@@ -103,6 +109,14 @@ public class Round {
         return turns.get(currentTurnIndex);
     }
 
+    /**
+     * Returns if the first turn of the round already began
+     * @return if the first turn of the round already began
+     */
+    public boolean hasCurrentTurn() {
+        return currentTurnIndex >= 0;
+    }
+
     /**
      * Returns the round's draftpool.
      * @return the round's draftpool
@@ -170,6 +184,21 @@ public class Round {
         return players.get(playerShouldPlayingIndex);
     }
 
+    /**
+     * Returns the number of turns of the specified player that will be played in this round after the current one.
+     * @param player the player whose turns are counted
+     * @return the number of turns of the player after the current one
+     */
+    public int getNumberOfNextTurnsOf(Player player) {
+        int count = 0;
+        for (int i = currentTurnIndex + 1; i < turns.size(); i++) {
+            if (turns.get(i).getPlayer().equals(player)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Removes the next turn of the specified player.
      * @param player the player whose turn needs to be removed
@@ -189,4 +218,22 @@ public class Round {
         }
         return false;
     }
+
+    /**
+     * Makes a copy of the round for a copy of the game, with copies of its turns and of its draftpool.
+     * Observers are not copied.
+     *
+     * @param players the copies of the players of the game by their ID
+     * @param toolCards the copies of the toolCards of the game
+     * @return a copy of the round
+     */
+    Round copy(Map<String, Player> players, List<ToolCard> toolCards) {
+        List<Player> turnPlayers = new ArrayList<>(players.values());
+        Round roundCopy = new Round(this.number, 0, turnPlayers, this.draftPool.copy());
+        for(Turn turn : this.turns){
+            roundCopy.turns.add(turn.copy(players, toolCards));
+        }
+        roundCopy.currentTurnIndex = this.currentTurnIndex;
+        return roundCopy;
+    }
 }
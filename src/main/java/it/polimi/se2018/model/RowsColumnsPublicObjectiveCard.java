@@ -77,7 +77,7 @@ public class RowsColumnsPublicObjectiveCard extends PublicObjectiveCard {
         int numberOfDifferentProperties;
         int numberOfRows = windowPattern.getNumberOfRows();
         int numberOfColumns = windowPattern.getNumberOfColumns();
-        Cell[][] pattern = windowPattern.getPattern();
+        Cell[][] pattern = windowPattern.getCells();
 
         //If checking by columns, transpose the pattern and swap the number of rows and columns
         if(!checkByRow){
@@ -186,9 +186,6 @@ public class RowsColumnsPublicObjectiveCard extends PublicObjectiveCard {
      */
     @Override
     public String toString(){
-        String s = super.toString();
-        s = s.concat(PRE_MULTIPLIER + multiplier + POST_MULTIPLIER);
-        s = s.concat(System.lineSeparator());
-        return s;
+        return super.toString() + PRE_MULTIPLIER + multiplier + POST_MULTIPLIER + System.lineSeparator();
     }
 }
@@ -72,7 +72,7 @@ public class SetPublicObjectiveCard extends PublicObjectiveCard {
 
         Object currentProperty;
 
-        Cell[][] pattern = windowPattern.getPattern();
+        Cell[][] pattern = windowPattern.getCells();
         List<Object> itemsList = new ArrayList<>(items);
 
         for(int i=0; i<windowPattern.getNumberOfRows(); i++){
@@ -121,9 +121,6 @@ public class SetPublicObjectiveCard extends PublicObjectiveCard {
      */
     @Override
     public String toString(){
-        String s = super.toString();
-        s = s.concat(PRE_MULTIPLIER + multiplier + POST_MULTIPLIER);
-        s = s.concat(System.lineSeparator());
-        return s;
+        return super.toString() + PRE_MULTIPLIER + multiplier + POST_MULTIPLIER + System.lineSeparator();
     }
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import java.util.*;
 /**
  * Class representing the Game's tool cards. Each card's effect is encoded in a placement rule and
  * an HashMap that describes the effect's own state transitions.
+ * Everything but the tokens never changes, so it is kept in a definition shared by all the copies of the card.
  *
  * @author Lorenzo Minto
  */
@@ -18,7 +19,7 @@ public class ToolCard implements Serializable{
     /**
      * Serial Version UID
      */
-    private static final long serialVersionUID = 3828562971059857480L;
+    private static final long serialVersionUID = 5930248173652079624L;
 
     /**
      * Part of the toString representation of the toolCard. Contains content shown before title
@@ -70,19 +71,9 @@ public class ToolCard implements Serializable{
      */
     private static final String NEEDED_TOKENS = "neededTokens";
     /**
-     * The id of the toolCard
+     * The tool card's definition, that never changes and is shared by all the copies of the card.
      */
-    private final String toolCardID;
-
-    /**
-     * The tool card's title.
-     */
-    private String title;
-
-    /**
-     * The tool card's description.
-     */
-    private String description;
+    private final Definition definition;
 
     /**
      * The number of tokens spent on the tool card.
@@ -95,34 +86,80 @@ public class ToolCard implements Serializable{
     private int neededTokens;
 
     /**
-     * The number of tokens needed to activate the tool card for the first time.
-     */
-    private int baseNeededTokens;
-
-    /**
-     * The factor that multiplies the neededTokens after the first activation.
-     */
-    private int tokensUsageMultiplier;
-
-    /**
-     * The url of the tool card's image.
-     */
-    private String imageURL;
-
-    /**
-     * The number of possible dice moves
-     */
-    private Set<Integer> possibleMovesCountSet;
-
-    /**
-     * The tool card's state transition table. Represents the tool card's effect (when active).
-     */
-    private transient HashMap<String,String> controllerStateRules;
-
-    /**
-     * The tool card's own placement rule. Enforced on the game only when active.
-     */
-    private transient PlacementRule placementRule;
+     * The parts of a tool card that never change during a game.
+     */
+    private static final class Definition implements Serializable {
+
+        /**
+         * Serial Version UID
+         */
+        private static final long serialVersionUID = -6049176823504281317L;
+
+        /**
+         * The id of the toolCard
+         */
+        private final String toolCardID;
+
+        /**
+         * The tool card's title.
+         */
+        private final String title;
+
+        /**
+         * The tool card's description.
+         */
+        private final String description;
+
+        /**
+         * The number of tokens needed to activate the tool card for the first time.
+         */
+        private final int baseNeededTokens;
+
+        /**
+         * The factor that multiplies the neededTokens after the first activation.
+         */
+        private final int tokensUsageMultiplier;
+
+        /**
+         * The url of the tool card's image.
+         */
+        private final String imageURL;
+
+        /**
+         * The number of possible dice moves
+         */
+        private final Set<Integer> possibleMovesCountSet;
+
+        /**
+         * The tool card's state transition table. Represents the tool card's effect (when active).
+         */
+        private final Map<String,String> controllerStateRules;
+
+        /**
+         * The tool card's own placement rule. Enforced on the game only when active.
+         */
+        private final PlacementRule placementRule;
+
+        /**
+         * Constructor of the definition.
+         *
+         * @param p contains id, title, description, imageURL, neededtokens, tokensUsageMultiplier
+         * @param controllerStateRules the state table that governs state transitions when the tool card is active.
+         * @param placementRule the placement rules that need to be enforced when the tool card is active.
+         * @param possibleMovesCountSet the number of possible dice moves
+         */
+        private Definition(Properties p, Map<String, String> controllerStateRules, PlacementRule placementRule, Set<Integer> possibleMovesCountSet) {
+            this.toolCardID = p.getProperty("id");
+            this.title = p.getProperty("title");
+            this.description = p.getProperty("description");
+            this.baseNeededTokens = Integer.parseInt( p.getProperty(NEEDED_TOKENS) );
+            this.tokensUsageMultiplier = Integer.parseInt( p.getProperty("tokensUsageMultiplier") );
+            this.imageURL = p.getProperty("imageURL");
+            this.possibleMovesCountSet = (possibleMovesCountSet == null) ? null : Collections.unmodifiableSet(possibleMovesCountSet);
+            this.controllerStateRules = Collections.unmodifiableMap(controllerStateRules);
+            this.placementRule = placementRule;
+        }
+    }
 
     /**
      * Class constructor.
@@ -133,24 +170,22 @@ public class ToolCard implements Serializable{
      * @param possibleMovesCountSet the number of possible dice moves
      */
     public ToolCard(Properties p, Map<String, String> controllerStateRules, PlacementRule placementRule, Set<Integer> possibleMovesCountSet) {
-        //the id of toolCard
-        this.toolCardID = p.getProperty("id");
-        //the title of the tool card.
-        this.title = p.getProperty("title");
-        //the description of the tool card.
-        this.description = p.getProperty("description");
-        //the tokens needed to activate the tool card.
-        this.neededTokens = Integer.parseInt( p.getProperty(NEEDED_TOKENS) );
-        this.baseNeededTokens = Integer.parseInt( p.getProperty(NEEDED_TOKENS) );
+        this.definition = new Definition(p, controllerStateRules, placementRule, possibleMovesCountSet);
+        this.neededTokens = definition.baseNeededTokens;
         this.tokensUsed = 0;
-        //the factor that multiplies needed tokens after the first activation.
-        this.tokensUsageMultiplier = Integer.parseInt( p.getProperty("tokensUsageMultiplier") );
-        //the URL of the tool card image.
-        this.imageURL = p.getProperty("imageURL");
-        this.possibleMovesCountSet = possibleMovesCountSet;
-
-        this.controllerStateRules = (HashMap<String,String>)controllerStateRules;
-        this.placementRule = placementRule;
+    }
+
+    /**
+     * Constructor of a copy of a tool card, sharing its definition.
+     *
+     * @param definition the definition of the tool card
+     * @param tokensUsed the number of tokens spent on the tool card
+     * @param neededTokens the number of tokens needed to activate the tool card
+     */
+    private ToolCard(Definition definition, int tokensUsed, int neededTokens) {
+        this.definition = definition;
+        this.tokensUsed = tokensUsed;
+        this.neededTokens = neededTokens;
     }
 
     /**
@@ -161,10 +196,10 @@ public class ToolCard implements Serializable{
         this.tokensUsed += this.neededTokens;
 
         //Increase neededTokens on the first usage (check of first usage is made thanks baseNeededTokens)
-        if (this.tokensUsed==this.baseNeededTokens) { this.neededTokens *= this.tokensUsageMultiplier; }
+        if (this.tokensUsed==definition.baseNeededTokens) { this.neededTokens *= definition.tokensUsageMultiplier; }
     }
 
-    private String getToolCardID() { return toolCardID; }
+    private String getToolCardID() { return definition.toolCardID; }
 
     /**
      * Returns the title of the tool card
@@ -172,7 +207,7 @@ public class ToolCard implements Serializable{
      * @return the title of the tool card
      */
     public String getTitle() {
-        return title;
+        return definition.title;
     }
 
     /**
@@ -181,7 +216,7 @@ public class ToolCard implements Serializable{
      * @return the title of the tool card
      */
     public Set<Integer> getPossibleMovesCountSet() {
-        return possibleMovesCountSet;
+        return definition.possibleMovesCountSet;
     }
 
     /**
@@ -190,7 +225,7 @@ public class ToolCard implements Serializable{
      * @return the description of the tool card's effect
      */
     public String getDescription() {
-        return description;
+        return definition.description;
     }
 
     /**
@@ -215,7 +250,7 @@ public class ToolCard implements Serializable{
      * @return the url of the tool card's image
      */
     public String getImageURL() {
-        return imageURL;
+        return definition.imageURL;
     }
 
 
@@ -224,7 +259,7 @@ public class ToolCard implements Serializable{
      *
      * @return the placement rule relative to the tool card's effect
      */
-    public PlacementRule getPlacementRule() { return placementRule; }
+    public PlacementRule getPlacementRule() { return definition.placementRule; }
 
     /**
      * Returns the ID of the next state given the current state, after having queried the tool card's state
@@ -235,7 +270,7 @@ public class ToolCard implements Serializable{
      */
     public String nextStateID(ControllerState currentState){
 
-        return controllerStateRules.get( currentState.getClass().getSimpleName() );
+        return definition.controllerStateRules.get( currentState.getClass().getSimpleName() );
     }
 
     /**
@@ -244,7 +279,7 @@ public class ToolCard implements Serializable{
      * @return whether or not the ToolCard's effect requires drafting
      */
     public boolean needsDrafting(){
-        return controllerStateRules.containsKey(DraftControllerState.class.getSimpleName());
+        return definition.controllerStateRules.containsKey(DraftControllerState.class.getSimpleName());
     }
 
     /**
@@ -276,7 +311,7 @@ public class ToolCard implements Serializable{
      */
     @Override
     public int hashCode() {
-        return Objects.hash(toolCardID);
+        return Objects.hash(getToolCardID());
     }
 
     /**
@@ -289,42 +324,12 @@ public class ToolCard implements Serializable{
         return PRE_TITLE + getTitle() + POST_TITLE + DIVIDER + PRE_NEEDED_TOKENS +getNeededTokens()+ POST_NEEDED_TOKENS + DIVIDER + PRE_USED_TOKENS + getUsedTokens()+ POST_USED_TOKENS + DIVIDER + PRE_DESCRIPTION + getDescription() + POST_DESCRIPTION;
     }
 
-    /**
-     * Set used tokens to the given quantity
-     *
-     * @param tokensUsed new amount of tokens used
-     */
-    void setTokensUsed(int tokensUsed) {
-        this.tokensUsed = tokensUsed;
-    }
-
-    /**
-     * Set base needed tokens
-     * @param baseNeededTokens amount of base needed tokens
-     */
-    void setBaseNeededTokens(int baseNeededTokens) {
-        this.baseNeededTokens = baseNeededTokens;
-    }
-
     /**
      * Returns a new ToolCard instance with same properties of this ToolCard
      *
      * @return new ToolCard instance with same properties of this ToolCard
      */
     public ToolCard copy(){
-        Properties p = new Properties();
-        p.put("id",this.toolCardID);
-        p.put("title",this.title);
-        p.put("description",this.description);
-        p.put(NEEDED_TOKENS,String.valueOf(this.neededTokens));
-        p.put("tokensUsageMultiplier",String.valueOf(this.tokensUsageMultiplier));
-        p.put("imageURL",this.imageURL);
-
-        ToolCard copy = new ToolCard(p,new HashMap<>(this.controllerStateRules),this.placementRule,new HashSet<>(this.possibleMovesCountSet));
-
-        copy.setBaseNeededTokens(this.baseNeededTokens);
-        copy.setTokensUsed(this.tokensUsed);
-
-        return copy;
+        return new ToolCard(this.definition, this.tokensUsed, this.neededTokens);
     }
 }
@@ -3,6 +3,8 @@ package it.polimi.se2018.model;
 import it.polimi.se2018.utils.*;
 import it.polimi.se2018.utils.Observable;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
 
@@ -35,6 +37,18 @@ public class Track extends Observable implements Serializable{
      */
     private ArrayList<TrackSlot> slots = new ArrayList<>();
 
+    /**
+     * Last copy returned by {@link Track#snapshot()}
+     */
+    private transient Track snapshot;
+
+    /**
+     * Zobrist hash of the dices kept on the track. As the same dice can be in a slot more than once,
+     * keys are summed instead of xored.
+     * @see Zobrist
+     */
+    private transient long zobristHash;
+
     /**
      * Creates new TrackSlot with the list of dice passed and appends it to the list.
      * Notifies game of the updates
@@ -64,6 +78,9 @@ public class Track extends Observable implements Serializable{
     public void processDices(List<Dice> dices) {
         if(dices == null){ throw new IllegalArgumentException(NULL_DICE);}
         TrackSlot slot = new TrackSlot(dices);
+        for(Dice dice : dices){
+            zobristHash += getDiceKey(slots.size(), dice);
+        }
         slots.add(slot);
     }
 
@@ -96,6 +113,7 @@ public class Track extends Observable implements Serializable{
         }
         TrackSlot slot = slots.get(slotNumber);
         slot.removeDice(dice); //throws BadDiceReferenceException
+        zobristHash -= getDiceKey(slotNumber, dice);
         notifyGame();
     }
 
@@ -112,6 +130,7 @@ public class Track extends Observable implements Serializable{
         }
         TrackSlot slot = slots.get(slotNumber);
         slot.addDice(dice);
+        zobristHash += getDiceKey(slotNumber, dice);
         notifyGame();
     }
 
@@ -140,6 +159,69 @@ public class Track extends Observable implements Serializable{
         return trackCopy;
     }
 
+    /**
+     * Returns a copy of the track that must not be changed, to be sent in messages.
+     * Unlike {@link Track#copy()}, slots that didn't change since the last snapshot are shared with it,
+     * and the same snapshot is returned as long as no slot changes.
+     *
+     * @return a shared copy of the track
+     */
+    public Track snapshot() {
+        boolean changed = this.snapshot == null || this.snapshot.slots.size() != this.slots.size();
+        ArrayList<TrackSlot> slotsSnapshots = new ArrayList<>(this.slots.size());
+        for(int i = 0; i < this.slots.size(); i++){
+            TrackSlot slotSnapshot = this.slots.get(i).snapshot();
+            slotsSnapshots.add(slotSnapshot);
+            changed = changed || slotSnapshot != this.snapshot.slots.get(i);
+        }
+
+        if(changed){
+            Track trackSnapshot = new Track();
+            trackSnapshot.slots = slotsSnapshots;
+            trackSnapshot.zobristHash = this.zobristHash;
+            this.snapshot = trackSnapshot;
+        }
+        return this.snapshot;
+    }
+
+    /**
+     * Returns the Zobrist hash of the dices kept on the track. It is kept up to date at each change of the track.
+     *
+     * @return the Zobrist hash of the dices kept on the track
+     * @see Zobrist
+     */
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    /**
+     * Returns the Zobrist key of the given dice being in the given slot
+     *
+     * @param slotNumber the number of the slot
+     * @param dice the dice
+     * @return the Zobrist key of the given dice being in the given slot
+     */
+    private static long getDiceKey(int slotNumber, Dice dice) {
+        return Zobrist.key(Zobrist.TRACK, slotNumber, dice);
+    }
+
+    /**
+     * Restores the track after deserialization, computing again its Zobrist hash
+     *
+     * @param in the stream the track is read from
+     * @throws IOException if the stream can't be read
+     * @throws ClassNotFoundException if a serialized class can't be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        zobristHash = 0;
+        for(int i = 0; i < slots.size(); i++){
+            for(Dice dice : slots.get(i).getDices()){
+                zobristHash += getDiceKey(i, dice);
+            }
+        }
+    }
+
     /**
      * Method to notify observers (Game) with the updated track
      *
@@ -147,21 +229,21 @@ public class Track extends Observable implements Serializable{
      */
     private void notifyGame() {
         Map<String, Object> messageAttributes = new HashMap<>();
-        messageAttributes.put("track", this.copy());
+        messageAttributes.put("track", this.snapshot());
 
         notify(new Message(ViewBoundMessageType.SOMETHING_CHANGED_IN_TRACK, messageAttributes));
     }
 
     @Override
     public String toString() {
-        String returnString = "";
+        StringBuilder returnString = new StringBuilder();
         for(TrackSlot trackSlot : this.slots){
-            returnString = returnString.concat("Slot:");
+            returnString.append("Slot:");
             for(Dice dice : trackSlot.getDices()){
-                returnString = returnString.concat(dice.toString());
+                returnString.append(dice);
             }
-            returnString = returnString.concat(".");
+            returnString.append('.');
         }
-        return returnString;
+        return returnString.toString();
     }
 }
\ No newline at end of file
@@ -34,6 +34,11 @@ public class TrackSlot implements Serializable {
      */
     private List<Dice> dices;
 
+    /**
+     * Last copy returned by {@link TrackSlot#snapshot()}
+     */
+    private transient TrackSlot snapshot;
+
     /**
      * Class constructor.
      *
@@ -84,6 +89,23 @@ public class TrackSlot implements Serializable {
         return new TrackSlot( new ArrayList<>(this.dices) );
     }
 
+    /**
+     * Returns a copy of the TrackSlot, and of its dices, that must not be changed.
+     * The same copy is returned as long as the dices of the TrackSlot don't change.
+     *
+     * @return a shared copy of the TrackSlot
+     */
+    TrackSlot snapshot(){
+        if(this.snapshot == null || !this.snapshot.dices.equals(this.dices)){
+            List<Dice> copiedDices = new ArrayList<>(this.dices.size());
+            for(Dice dice : this.dices){
+                copiedDices.add(dice.copy());
+            }
+            this.snapshot = new TrackSlot(copiedDices);
+        }
+        return this.snapshot;
+    }
+
     /**
      * Returns the string representation of the Track Slot.
      *
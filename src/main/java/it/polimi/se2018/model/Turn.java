@@ -4,6 +4,7 @@ import it.polimi.se2018.utils.*;
 
 import java.io.Serializable;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -264,4 +265,21 @@ public class Turn extends Observable implements Serializable {
         if(playerID == null){throw new IllegalArgumentException(GIVEN_A_NULL_PLAYER);}
         return ( this.player.getID().equals(playerID) );
     }
+
+    /**
+     * Makes a copy of the turn for a copy of the game. Observers are not copied.
+     *
+     * @param players the copies of the players of the game by their ID
+     * @param toolCards the copies of the toolCards of the game
+     * @return a copy of the turn, referencing the copies of its player and of its used toolCard
+     */
+    Turn copy(Map<String, Player> players, List<ToolCard> toolCards) {
+        Turn turnCopy = new Turn(this.number, players.get(this.player.getID()));
+        turnCopy.draftedAndPlaced = this.draftedAndPlaced;
+        turnCopy.draftedDice = (this.draftedDice == null) ? null : this.draftedDice.copy();
+        turnCopy.trackChosenDice = (this.trackChosenDice == null) ? null : this.trackChosenDice.copy();
+        turnCopy.slotOfTrackChosenDice = this.slotOfTrackChosenDice;
+        turnCopy.usedToolCard = (this.usedToolCard == null) ? null : toolCards.get(toolCards.indexOf(this.usedToolCard));
+        return turnCopy;
+    }
 }
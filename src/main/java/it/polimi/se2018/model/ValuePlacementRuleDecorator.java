@@ -7,6 +7,11 @@ package it.polimi.se2018.model;
  */
 public class ValuePlacementRuleDecorator extends PlacementRuleDecorator {
 
+    /**
+     * Serial Version UID
+     */
+    private static final long serialVersionUID = -5169420874858363278L;
+
     /**
      * Class constructor specifying {@link PlacementRule} to be decorated.
      *
@@ -45,8 +50,8 @@ public class ValuePlacementRuleDecorator extends PlacementRuleDecorator {
      * @see ValuePlacementRuleDecorator for formal rule.
      */
     private boolean checkValueConstraints(WindowPattern windowPattern, Dice dice, int row, int col){
-        return windowPattern.getPattern()[row][col].getAllowedValue() == 0
-                || windowPattern.getPattern()[row][col].getAllowedValue() == dice.getValue();
+        return windowPattern.getCells()[row][col].getAllowedValue() == 0
+                || windowPattern.getCells()[row][col].getAllowedValue() == dice.getValue();
     }
 
 
@@ -5,6 +5,8 @@ import it.polimi.se2018.utils.ValueOutOfBoundsException;
 import it.polimi.se2018.utils.Message;
 import it.polimi.se2018.utils.ViewBoundMessageType;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
@@ -82,6 +84,17 @@ public class WindowPattern extends Observable implements Serializable{
      */
     private Player owner;
 
+    /**
+     * Last copy returned by {@link WindowPattern#snapshot()}
+     */
+    private transient WindowPattern snapshot;
+
+    /**
+     * Zobrist hash of the dices placed on the pattern
+     * @see Zobrist
+     */
+    private transient long zobristHash;
+
     /**
      * Constructor of a new Window Pattern
      *
@@ -100,6 +113,7 @@ public class WindowPattern extends Observable implements Serializable{
         this.difficulty = difficulty;
         this.pattern = pattern;
         this.isEmpty = true;
+        computeZobristHash();
     }
 
     /**
@@ -207,6 +221,46 @@ public class WindowPattern extends Observable implements Serializable{
         return dice;
     }
 
+    /**
+     * Returns the cells that form the pattern without copying them, for the read-only checks
+     * of placement rules and objective cards that run many times per move.
+     *
+     * @return the cells that form the pattern, that must not be modified
+     */
+    Cell[][] getCells() {
+        return pattern;
+    }
+
+    /**
+     * Checks if the dice placed on the given cell could be moved to another cell according to the given placement rule.
+     * The dice is lifted from its cell while the rule is checked, and put back right after, so no garbage is created.
+     * Observers are not notified and the Zobrist hash doesn't change; like the other moves, the check must not run
+     * concurrently with other accesses to the pattern.
+     *
+     * @param placementRule the placement rule the move must respect
+     * @param fromRow row number representing the cell where to pick the dice
+     * @param fromCol column number representing the cell where to pick the dice
+     * @param toRow row number representing the cell where to place the picked dice
+     * @param toCol column number representing the cell where to place the picked dice
+     * @return true if there is a dice on the first cell and it could be moved to the second one
+     */
+    public boolean isMoveAllowed(PlacementRule placementRule, int fromRow, int fromCol, int toRow, int toCol) {
+        if (isIllegalPosition(fromRow, fromCol) || isIllegalPosition(toRow, toCol)) {
+            throw new ValueOutOfBoundsException(DICE_IN_ILLEGAL_POSITION_ERROR);}
+
+        if (!pattern[fromRow][fromCol].hasDice() || pattern[toRow][toCol].hasDice()) {
+            return false;
+        }
+
+        Cell from = pattern[fromRow][fromCol];
+        Dice dice = from.removeDice();
+        try {
+            return placementRule.isMoveAllowed(this, dice, toRow, toCol);
+        } finally {
+            from.setDice(dice);
+        }
+    }
+
     /**
      * Returns the Dice that is placed on the cell corresponding to the given row and column numbers after having removed
      * it.
@@ -224,6 +278,7 @@ public class WindowPattern extends Observable implements Serializable{
         if (pattern[row][col].hasDice()) {
             dice = pattern[row][col].getDice();
             pattern[row][col].removeDice();
+            zobristHash ^= getCellKey(row, col, dice);
         }
 
         return dice;
@@ -251,6 +306,7 @@ public class WindowPattern extends Observable implements Serializable{
         }
 
         this.pattern[row][col].setDice(dice);
+        zobristHash ^= getCellKey(row, col, dice);
         isEmpty = false;
 
         notifyGame();
@@ -287,6 +343,7 @@ public class WindowPattern extends Observable implements Serializable{
         if (pattern[fromRow][fromCol].hasDice() && !pattern[toRow][toCol].hasDice()) {
             Dice removedDice = pattern[fromRow][fromCol].removeDice();
             pattern[toRow][toCol].setDice(removedDice);
+            zobristHash ^= getCellKey(fromRow, fromCol, removedDice) ^ getCellKey(toRow, toCol, removedDice);
 
             notifyGame();
 
@@ -297,14 +354,90 @@ public class WindowPattern extends Observable implements Serializable{
     }
 
 
+    /**
+     * Returns the Zobrist hash of the dices placed on the pattern. It is kept up to date at each change of the pattern.
+     *
+     * @return the Zobrist hash of the dices placed on the pattern
+     * @see Zobrist
+     */
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    /**
+     * Returns the Zobrist key of the given dice placed on the given cell
+     *
+     * @param row row number of the cell
+     * @param col column number of the cell
+     * @param dice the dice placed on the cell
+     * @return the Zobrist key of the given dice placed on the given cell
+     */
+    private long getCellKey(int row, int col, Dice dice) {
+        return Zobrist.key(Zobrist.CELL, row * getNumberOfColumns() + col, dice);
+    }
+
+    /**
+     * Computes the Zobrist hash of the dices placed on the pattern from scratch
+     */
+    private void computeZobristHash() {
+        zobristHash = 0;
+        for (int i = 0; i < pattern.length; i++) {
+            for (int j = 0; j < pattern[i].length; j++) {
+                if (pattern[i][j].hasDice()) {
+                    zobristHash ^= getCellKey(i, j, pattern[i][j].getDice());
+                }
+            }
+        }
+    }
+
+    /**
+     * Restores the window pattern after deserialization, computing again its Zobrist hash
+     *
+     * @param in the stream the window pattern is read from
+     * @throws IOException if the stream can't be read
+     * @throws ClassNotFoundException if a serialized class can't be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        computeZobristHash();
+    }
+
     /**
      * Makes a copy of the Window Pattern and returns it.
      *
      * @return a copy of the Window Pattern
      */
     public WindowPattern copy(){
+        WindowPattern windowPatternCopy = new WindowPattern(this.id,this.title,this.imageURL,this.difficulty,this.getPattern());
+        windowPatternCopy.isEmpty = this.isEmpty;
+        return windowPatternCopy;
+    }
+
+    /**
+     * Returns a copy of the Window Pattern that must not be changed, to be sent in messages.
+     * Unlike {@link WindowPattern#copy()}, cells that didn't change since the last snapshot are shared with it,
+     * and the same snapshot is returned as long as no cell changes.
+     *
+     * @return a shared copy of the Window Pattern
+     */
+    public WindowPattern snapshot(){
+        int nRows = getNumberOfRows();
+        int nCols = getNumberOfColumns();
 
-        return new WindowPattern(this.id,this.title,this.imageURL,this.difficulty,this.getPattern());
+        Cell[][] p = new Cell[nRows][nCols];
+        boolean changed = this.snapshot == null || this.snapshot.isEmpty != this.isEmpty;
+        for (int i=0; i<nRows; i++){
+            for (int j=0; j<nCols; j++){
+                p[i][j] = this.pattern[i][j].snapshot();
+                changed = changed || p[i][j] != this.snapshot.pattern[i][j];
+            }
+        }
+
+        if (changed) {
+            this.snapshot = new WindowPattern(this.id,this.title,this.imageURL,this.difficulty,p);
+            this.snapshot.isEmpty = this.isEmpty;
+        }
+        return this.snapshot;
     }
 
     /**
@@ -329,14 +462,17 @@ public class WindowPattern extends Observable implements Serializable{
     }
 
     /**
-     * Method to notify observers (Game) with the updated window pattern and its owner
+     * Method to notify observers (Game) with the updated window pattern and its owner.
+     * Copies that don't belong to any player, as the ones used to evaluate placements, notify nobody.
      *
      * @author Jacopo Pio Gargano
      */
     private void notifyGame() {
+        if (owner == null) { return; }
+
         Map<String, Object> messageAttributes = new HashMap<>();
 
-        messageAttributes.put("windowPattern", this.copy());
+        messageAttributes.put("windowPattern", this.snapshot());
         messageAttributes.put("currentPlayer", owner.getID());
 
         notify(new Message(ViewBoundMessageType.SOMETHING_CHANGED_IN_WINDOWPATTERN, messageAttributes));
@@ -349,18 +485,19 @@ public class WindowPattern extends Observable implements Serializable{
      */
     @Override
     public String toString() {
-        String s = "{"+this.title +"}";
-        s = s.concat(System.lineSeparator());
-        s = s.concat(PRE_DIFFICULTY + difficulty + POST_DIFFICULTY);
-        s = s.concat(System.lineSeparator());
+        StringBuilder s = new StringBuilder();
+        s.append('{').append(this.title).append('}');
+        s.append(System.lineSeparator());
+        s.append(PRE_DIFFICULTY).append(difficulty).append(POST_DIFFICULTY);
+        s.append(System.lineSeparator());
 
         for(Cell[] cellsRow : this.pattern){
             for(Cell cell : cellsRow){
-                s = s.concat( cell.toString() );
+                cell.appendTo(s);
             }
-            s = s.concat(System.lineSeparator());
+            s.append(System.lineSeparator());
         }
 
-        return s;
+        return s.toString();
     }
 }
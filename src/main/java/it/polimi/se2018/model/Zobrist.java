@@ -0,0 +1,107 @@
+package it.polimi.se2018.model;
+
+/**
+ * Keys of the Zobrist hashing of the positions of a game.
+ *
+ * Each feature of a position (a dice on a cell, a dice in a slot of the track, the favour tokens of a player...)
+ * has its own 64 bit key, and the hash of a position combines the keys of its features. Parts of the game keep
+ * their hash up to date at each change, adding or removing the key of the changed feature in constant time.
+ * Keys are computed on the fly mixing the encoded feature with a bijective function, so they are the same
+ * on every run and two different features never have the same key.
+ *
+ * @author Federico Haag
+ */
+public final class Zobrist {
+
+    /**
+     * Kind of feature: a dice on a cell of a window pattern
+     */
+    static final int CELL = 1;
+
+    /**
+     * Kind of feature: a dice in the draft pool
+     */
+    static final int DRAFT_POOL = 2;
+
+    /**
+     * Kind of feature: a dice in a slot of the track
+     */
+    static final int TRACK = 3;
+
+    /**
+     * Kind of feature: the window pattern of a player
+     */
+    static final int PLAYER = 4;
+
+    /**
+     * Kind of feature: the favour tokens of a player
+     */
+    static final int FAVOUR_TOKENS = 5;
+
+    /**
+     * Kind of feature: the tokens used on a drawn tool card
+     */
+    static final int TOOL_CARD = 6;
+
+    /**
+     * Kind of feature: the number of the round and of the turn
+     */
+    static final int TURN = 7;
+
+    /**
+     * Kind of feature: the dice drafted in the current turn
+     */
+    static final int DRAFTED_DICE = 8;
+
+    /**
+     * Kind of feature: what was already done in the current turn
+     */
+    static final int TURN_ACTIONS = 9;
+
+    /**
+     * Seed of the keys
+     */
+    private static final long SEED = 0x5A6A_D4A1_B0A2_2018L;
+
+    /**
+     * Private constructor, as only static methods are given
+     */
+    private Zobrist() {}
+
+    /**
+     * Returns the key of a feature
+     *
+     * @param kind the kind of the feature
+     * @param position the position of the feature, as a cell index, a slot number or a player index
+     * @param value the value of the feature at that position
+     * @return the key of the feature
+     */
+    static long key(int kind, int position, int value) {
+        return mix(((long) kind << 56) ^ ((long) position << 32) ^ (value & 0xFFFF_FFFFL));
+    }
+
+    /**
+     * Returns the key of a dice being in the given position
+     *
+     * @param kind the kind of the feature
+     * @param position the position of the dice
+     * @param dice the dice
+     * @return the key of the dice being in the given position
+     */
+    static long key(int kind, int position, Dice dice) {
+        return key(kind, position, (dice.getColor().ordinal() << 8) | dice.getValue());
+    }
+
+    /**
+     * Mixes the bits of the given value, as the finalizer of SplitMix64. The function is bijective.
+     *
+     * @param value the value to mix
+     * @return the mixed value
+     */
+    public static long mix(long value) {
+        long z = value + SEED;
+        z = (z ^ (z >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return z ^ (z >>> 31);
+    }
+}
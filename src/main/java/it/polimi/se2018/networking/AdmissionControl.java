@@ -0,0 +1,229 @@
+package it.polimi.se2018.networking;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control of the connections and of the messages received by the server gateways.
+ *
+ * Connections are capped in total and for each address, so a new connection over the caps is rejected
+ * as soon as it is opened, before any thread or session is spent on it. Messages are limited by a token bucket
+ * for each session and one for each address, so a client flooding the server has its messages dropped
+ * before they reach the server, and the other tables are not slowed down. Rejections and drops are only counted,
+ * not logged, so that a flood doesn't move from the server to the log. A client whose messages are dropped
+ * is told so once, at the first dropped message, rather than being left waiting for the answers.
+ *
+ * The same instance is shared by the socket and the RMI gateways, so the caps of an address hold across both.
+ *
+ * @author Federico Haag
+ */
+public final class AdmissionControl {
+
+    /**
+     * String sent to a client whose messages are being dropped
+     */
+    public static final String MESSAGES_DROPPED = "The server is busy: your last messages were dropped, please slow down.";
+
+    /**
+     * Maximum number of open connections
+     */
+    private final int maxConnections;
+
+    /**
+     * Maximum number of open connections from the same address
+     */
+    private final int maxConnectionsPerAddress;
+
+    /**
+     * Messages a session can send at once
+     */
+    private final int sessionBurst;
+
+    /**
+     * Messages a session can send each second
+     */
+    private final int sessionRate;
+
+    /**
+     * Messages an address can send at once
+     */
+    private final int addressBurst;
+
+    /**
+     * Messages an address can send each second
+     */
+    private final int addressRate;
+
+    /**
+     * Number of open connections
+     */
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /**
+     * Number of open connections by their address
+     */
+    private final Map<String, Integer> connectionsByAddress = new ConcurrentHashMap<>();
+
+    /**
+     * Token buckets of the open sessions
+     */
+    private final Map<Object, TokenBucket> sessionBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * Token buckets of the addresses with open connections
+     */
+    private final Map<String, TokenBucket> addressBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * Sessions whose last message was dropped
+     */
+    private final Set<Object> throttledSessions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of rejected connections
+     */
+    private final AtomicLong rejectedConnections = new AtomicLong();
+
+    /**
+     * Number of dropped messages
+     */
+    private final AtomicLong droppedMessages = new AtomicLong();
+
+    /**
+     * Constructor of the admission control
+     *
+     * @param maxConnections maximum number of open connections
+     * @param maxConnectionsPerAddress maximum number of open connections from the same address
+     * @param sessionBurst messages a session can send at once
+     * @param sessionRate messages a session can send each second
+     * @param addressBurst messages an address can send at once
+     * @param addressRate messages an address can send each second
+     */
+    public AdmissionControl(int maxConnections, int maxConnectionsPerAddress, int sessionBurst, int sessionRate,
+                            int addressBurst, int addressRate) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerAddress = maxConnectionsPerAddress;
+        this.sessionBurst = sessionBurst;
+        this.sessionRate = sessionRate;
+        this.addressBurst = addressBurst;
+        this.addressRate = addressRate;
+    }
+
+    /**
+     * Admits a new connection from the given address, if the caps allow it.
+     * An admitted connection must be released with {@link AdmissionControl#release(String)} once closed.
+     *
+     * @param address the address of the client
+     * @return true if the connection is admitted, false if it has to be rejected
+     */
+    public boolean admit(String address) {
+        if (connections.incrementAndGet() > maxConnections) {
+            return reject();
+        }
+        boolean[] admitted = {false};
+        connectionsByAddress.compute(address, (key, count) -> {
+            int current = (count == null) ? 0 : count;
+            if (current >= maxConnectionsPerAddress) { return count; }
+            admitted[0] = true;
+            return current + 1;
+        });
+        return admitted[0] || reject();
+    }
+
+    /**
+     * Counts a rejected connection, that was already counted as open
+     *
+     * @return false, as the connection is rejected
+     */
+    private boolean reject() {
+        connections.decrementAndGet();
+        rejectedConnections.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Releases a connection admitted by {@link AdmissionControl#admit(String)}
+     *
+     * @param address the address of the client
+     */
+    public void release(String address) {
+        connections.decrementAndGet();
+        Integer left = connectionsByAddress.computeIfPresent(address, (key, count) -> (count > 1) ? count - 1 : null);
+        if (left == null) {
+            addressBuckets.remove(address);
+        }
+    }
+
+    /**
+     * Takes a token from the buckets of the given session and address
+     *
+     * @param session the session of the client
+     * @param address the address of the client
+     * @return true if the message is allowed, false if it has to be dropped
+     */
+    public boolean allowMessage(Object session, String address) {
+        long now = System.nanoTime();
+        TokenBucket sessionBucket = sessionBuckets.computeIfAbsent(session,
+                key -> new TokenBucket(sessionBurst, sessionRate, now));
+        TokenBucket addressBucket = addressBuckets.computeIfAbsent(address,
+                key -> new TokenBucket(addressBurst, addressRate, now));
+
+        if (sessionBucket.tryConsume(now) && addressBucket.tryConsume(now)) {
+            throttledSessions.remove(session);
+            return true;
+        }
+        droppedMessages.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Marks the given session as throttled after one of its messages was dropped. The mark is cleared
+     * as soon as a message of the session is allowed again.
+     *
+     * @param session the session of the client
+     * @return true if the session was not already throttled, so the client has to be told its messages are dropped
+     */
+    public boolean startThrottling(Object session) {
+        return throttledSessions.add(session);
+    }
+
+    /**
+     * Forgets the bucket and the throttling of a closed session
+     *
+     * @param session the session of the client
+     */
+    public void forgetSession(Object session) {
+        sessionBuckets.remove(session);
+        throttledSessions.remove(session);
+    }
+
+    /**
+     * Returns the number of open connections
+     *
+     * @return the number of open connections
+     */
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Returns the number of rejected connections
+     *
+     * @return the number of rejected connections
+     */
+    public long getRejectedConnections() {
+        return rejectedConnections.get();
+    }
+
+    /**
+     * Returns the number of dropped messages
+     *
+     * @return the number of dropped messages
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+}
@@ -59,6 +59,11 @@ public class Client extends Observable implements ClientInterface {
      */
     private boolean connectionAvailable = true;
 
+    /**
+     * Thread pinging the server, null if the gateway doesn't need it
+     */
+    private final Pinging pinging;
+
     /**
      * Constructor for Client
      *
@@ -89,7 +94,10 @@ public class Client extends Observable implements ClientInterface {
         this.gateway = g;
 
         if(needsPinging){
-            new Pinging(this,ControllerBoundMessageType.PING).start();
+            this.pinging = new Pinging(this,ControllerBoundMessageType.PING);
+            this.pinging.start();
+        } else {
+            this.pinging = null;
         }
 
         log(ACKNOWLEDGEMENT_MESSAGE_CONSTRUCTOR);
@@ -158,6 +166,19 @@ public class Client extends Observable implements ClientInterface {
         }
     }
 
+    /**
+     * Closes the connection to the server: pinging stops and the RMI session, if any, is closed,
+     * together with the thread handling the received messages.
+     */
+    public void close() {
+        if(pinging!=null){
+            pinging.interrupt();
+        }
+        if(gateway instanceof RMIClientGateway){
+            ((RMIClientGateway) gateway).close();
+        }
+    }
+
     @Override
     public void fixConnection() {
         setConnectionAvailable(false);
@@ -186,4 +207,17 @@ public class Client extends Observable implements ClientInterface {
             }
         }
     }
+
+    /**
+     * Notifies the view of the given message received from the server.
+     * Messages sent together in a batch are notified one by one, in the order they were sent.
+     *
+     * @param message the message received from the server
+     */
+    @Override
+    public void notify(Message message){
+        for(Message batchedMessage : message.unbatch()){
+            super.notify(batchedMessage);
+        }
+    }
 }
@@ -12,5 +12,15 @@ public interface ClientProxyInterface {
      * @param message message to be sent to the client
      * @throws NetworkingException if something during sending message goes wrong
      */
-    void receiveMessage(Message message) throws NetworkingException;
+    default void receiveMessage(Message message) throws NetworkingException {
+        receiveMessage(EncodedMessage.encode(message));
+    }
+
+    /**
+     * Send to the client the given already serialized message.
+     * The same encoded message can be sent to many clients without serializing it again.
+     * @param message encoded message to be sent to the client
+     * @throws NetworkingException if something during sending message goes wrong
+     */
+    void receiveMessage(EncodedMessage message) throws NetworkingException;
 }
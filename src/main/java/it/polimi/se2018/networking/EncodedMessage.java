@@ -0,0 +1,104 @@
+package it.polimi.se2018.networking;
+
+import it.polimi.se2018.utils.Message;
+
+import java.io.*;
+
+/**
+ * A message already serialized, ready to be sent to any number of clients.
+ * The server encodes each message once and every client proxy writes the same bytes,
+ * so the cost of a broadcast doesn't depend on the number of players.
+ *
+ * @author Federico Haag
+ */
+public final class EncodedMessage implements Serializable {
+
+    private static final long serialVersionUID = 3877451938112843021L;
+
+    /**
+     * String used as message of NetworkingException when the message can't be serialized
+     */
+    private static final String FAILED_ENCODING_MESSAGE = "Failed encoding the message: ";
+
+    /**
+     * String used as message of NetworkingException when the received bytes are not a message
+     */
+    private static final String FAILED_DECODING_MESSAGE = "Failed decoding a received message";
+
+    /**
+     * The serialized message. It is never modified after the encoding.
+     */
+    private final byte[] payload;
+
+    /**
+     * Constructor of the encoded message
+     *
+     * @param payload the serialized message
+     */
+    private EncodedMessage(byte[] payload) {
+        this.payload = payload;
+    }
+
+    /**
+     * Serializes the given message
+     *
+     * @param message the message to encode
+     * @return the encoded message
+     * @throws NetworkingException if the message can't be serialized
+     */
+    public static EncodedMessage encode(Message message) throws NetworkingException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(message);
+        } catch (IOException e) {
+            throw new NetworkingException(FAILED_ENCODING_MESSAGE + message);
+        }
+        return new EncodedMessage(bytes.toByteArray());
+    }
+
+    /**
+     * Deserializes the message. Each call returns a new copy of it.
+     *
+     * @return the decoded message
+     * @throws NetworkingException if the payload is not a valid message
+     */
+    public Message decode() throws NetworkingException {
+        return decode(payload, 0, payload.length);
+    }
+
+    /**
+     * Deserializes a message from a region of an array, without copying it
+     *
+     * @param bytes the array holding the serialized message
+     * @param offset index of the first byte of the serialized message
+     * @param length number of bytes of the serialized message
+     * @return the decoded message
+     * @throws NetworkingException if the bytes are not a valid message
+     */
+    public static Message decode(byte[] bytes, int offset, int length) throws NetworkingException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes, offset, length))) {
+            return (Message) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new NetworkingException(FAILED_DECODING_MESSAGE);
+        }
+    }
+
+    /**
+     * Writes the serialized message to the given stream, as it is
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream can't be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(payload);
+    }
+
+    /**
+     * Returns the number of bytes of the serialized message
+     *
+     * @return the number of bytes of the serialized message
+     */
+    public int size() {
+        return payload.length;
+    }
+}
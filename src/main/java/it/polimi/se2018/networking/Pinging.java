@@ -3,7 +3,8 @@ package it.polimi.se2018.networking;
 import it.polimi.se2018.utils.Message;
 
 /**
- * Class used to ping server / client when connection network is active
+ * Class used to ping server / client when connection network is active.
+ * Pinging stops when the thread is interrupted.
  */
 public class Pinging extends Thread{
 
@@ -32,8 +33,7 @@ public class Pinging extends Thread{
     public void run() {
         super.run();
 
-        //noinspection InfiniteLoopStatement
-        while(true){
+        while(!isInterrupted()){
 
             try {
                 sender.sendMessage(new Message(this.ping));
@@ -1,18 +1,27 @@
 package it.polimi.se2018.networking;
 
 import it.polimi.se2018.controller.Controller;
+import it.polimi.se2018.controller.GameLog;
+import it.polimi.se2018.controller.Matchmaker;
+import it.polimi.se2018.controller.MctsBot;
+import it.polimi.se2018.controller.PlacementHint;
 import it.polimi.se2018.model.Game;
+import it.polimi.se2018.model.GameStatus;
 import it.polimi.se2018.networking.rmi.RMIServerGateway;
 import it.polimi.se2018.networking.socket.SocketServerGateway;
 import it.polimi.se2018.utils.*;
 import it.polimi.se2018.utils.Observer;
 import it.polimi.se2018.utils.Message;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.rmi.RemoteException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 /**
  * Server
@@ -31,11 +40,20 @@ public class Server implements Observer, SenderInterface, ServerInterface {
         Major information can be found looking for their usage.
         Being private, they are used only in this file. So if a change is needed, just look for usages in this file.
      */
-    private static final String CONFIG_PROPERTY_MAX_NUMBER_OF_PLAYERS = "maxNumberOfPlayers";
-    private static final String CONFIG_PROPERTY_NUMBER_OF_ROUNDS = "numberOfRounds";
+    private static final String CONFIG_PROPERTY_MAX_NUMBER_OF_PLAYERS = Config.MAX_NUMBER_OF_PLAYERS;
     private static final String CONFIG_PROPERTY_NICKNAME = "nickname";
-    private static final String CONFIG_PROPERTY_MIN_NUMBER_OF_PLAYERS = "minNumberOfPlayers";
-    private static final String CONFIG_PROPERTY_TIMEOUT_LAUNCHING_GAME = "timeoutLaunchingGame";
+    private static final String CONFIG_PROPERTY_MIN_NUMBER_OF_PLAYERS = Config.MIN_NUMBER_OF_PLAYERS;
+    private static final String CONFIG_PROPERTY_TIMEOUT_LAUNCHING_GAME = Config.TIMEOUT_LAUNCHING_GAME;
+    private static final String GAME_LOG_FILE_NAME = "sagradaGame";
+    private static final String REPLAYS_DIRECTORY_NAME = "replays";
+    private static final String REPLAY_FILE_PREFIX = "game-";
+    private static final String REPLAY_FILE_EXTENSION = ".replay";
+    private static final int BOT_QUEUE_CAPACITY = 8;
+    private static final int SPECTATOR_QUEUE_CAPACITY = 32;
+    private static final long SPECTATOR_WRITE_TIMEOUT = 2000;
+    private static final long ADMISSION_REPORT_PERIOD = 60000;
+    private static final long PLACEMENT_HINTS_TIME_BUDGET = 300;
+    private static final String PARAM_PLACEMENT_HINTS = "placementHints";
 
 
     /*  CONSTANTS FOR LOGS
@@ -56,6 +74,7 @@ public class Server implements Observer, SenderInterface, ServerInterface {
     private static final String STARTING_SOCKET = "Starting Socket...";
     private static final String SAGRADA_SERVER_IS_UP = "Sagrada Server is up.";
     private static final String CANT_LOAD_DEFAULT_CONFIG_FILE = "Can't load default config file.";
+    private static final String NOT_VALID_CONFIG_FILE = "Not valid config file, using the default one: ";
     private static final String ERROR_ANSWERING_TO_MESSAGE = "Error answering to message ";
     private static final String RECEIVED_MESSAGE = "Received message: ";
     private static final String ANSWERED_WITH = "Answered with: ";
@@ -63,6 +82,14 @@ public class Server implements Observer, SenderInterface, ServerInterface {
     private static final String COULD_NOT_SEND_THE_MESSAGE_DUE_TO_CONNECTION_ERROR_TO = "Could not send the message due to connection error to";
     private static final String THE_MESSAGE_WAS = "The message was";
     private static final String SUCCESSFULLY_SENT_MESSAGE_TO = "Successfully sent message to";
+    private static final String RECOVERED_GAME = "Recovered the game that was running before the server stopped.";
+    private static final String CANT_RECOVER_GAME = "Can't recover the game from its log: ";
+    private static final String CANT_CREATE_GAME_LOG = "Can't create the game log, the game will not be recoverable: ";
+    private static final String PLAYER_REJOINED = " joined again the recovered game.";
+    private static final String SPECTATOR_ADDED = "Added a spectator: ";
+    private static final String SPECTATOR_REMOVED = "Removed a spectator: ";
+    private static final String DROPPED_MESSAGES = "Dropped messages over the rate limits: ";
+    private static final String REJECTED_CONNECTIONS = ". Rejected connections over the caps: ";
 
 
     /*  CONSTANTS FOR MESSAGES CONTENT
@@ -83,6 +110,27 @@ public class Server implements Observer, SenderInterface, ServerInterface {
      */
     private boolean isTimerForLaunchingGameActive = false;
 
+    /**
+     * Timer used to check periodically if a table can be formed, as the skill tolerance widens with waiting time
+     */
+    private final Timer matchmakingTimer = new Timer(true);
+
+    /**
+     * Queue of the players of the waiting room, that forms the table of the game grouping players by skill
+     */
+    private Matchmaker matchmaker;
+
+    /**
+     * Fan-out of the public events of the game to the spectators
+     */
+    private SpectatorFanOut spectators;
+
+    /**
+     * Maximum number of players in the waiting room. It can be greater than the maximum number of players of a game,
+     * letting the matchmaker choose the players with the most similar skill.
+     */
+    private int waitingRoomCapacity;
+
     /**
      * Logger class
      */
@@ -119,9 +167,16 @@ public class Server implements Observer, SenderInterface, ServerInterface {
     private final String configFileName;
 
     /**
-     * List of players waiting for playing. Implemented as a map to store coupling of player id and respective client
+     * Admission control of the connections and of the received messages, shared by RMI and Socket
      */
-    private HashMap<String,ClientProxyInterface> waitingList = new HashMap<>();
+    private AdmissionControl admission;
+
+    /**
+     * List of players waiting for playing. Implemented as a map to store coupling of player id and respective client.
+     * It is changed only holding the lock of the server, together with the matchmaker, so a table is launched
+     * atomically; it is concurrent so that the messages to the waiting room are sent without holding the lock.
+     */
+    private final Map<String,ClientProxyInterface> waitingList = new ConcurrentHashMap<>();
 
     /**
      * List of gateways for communicating with clients
@@ -150,7 +205,7 @@ public class Server implements Observer, SenderInterface, ServerInterface {
      * State of the server to distinguish from waiting room
      * handling and forwarding to controller.
      */
-    private ServerState serverState = ServerState.WAITING_ROOM;
+    private volatile ServerState serverState = ServerState.WAITING_ROOM;
 
     /**
      * Controller created by the server
@@ -172,6 +227,11 @@ public class Server implements Observer, SenderInterface, ServerInterface {
      */
     private final String persistencyPath;
 
+    /**
+     * True if the controlled game was recovered from its log after a crash of the server
+     */
+    private boolean recoveredGame = false;
+
     /**
      * The main class for server in order to make it runnable.
      *
@@ -250,15 +310,83 @@ public class Server implements Observer, SenderInterface, ServerInterface {
         this.maxNumberOfAttempts = maxNumberOfAttempts;
         this.persistencyPath = persistencyPath;
 
-        setupNetworking();
-
         //Creates controller and game
-        this.controller = createController();
+        ConfigImporter configImporter = getConfigImporter();
+        this.controller = createController(configImporter);
+        this.controller.batchNotificationsOfMoves();
         this.controller.register(this);
 
+        Config config;
+        try {
+            config = configImporter.getConfig();
+        } catch (NoConfigParamFoundException e) {
+            throw new BadBehaviourRuntimeException(CANT_LOAD_DEFAULT_CONFIG_FILE);
+        }
+        setupMatchmaking(config);
+        this.spectators = new SpectatorFanOut(
+                config.getMaxNumberOfSpectators(),
+                SPECTATOR_QUEUE_CAPACITY,
+                config.getSpectatorWriterThreads(),
+                SPECTATOR_WRITE_TIMEOUT,
+                controller::getPublicGameState
+        );
+
+        //Networking is set up last, so the first clients find the server ready
+        setupAdmission(config);
+        setupNetworking();
+
+        //Tuned timeouts of the config file are used without restarting the server
+        new ConfigWatcher(configImporter.getConfigFilePath(), config, controller::reloadTimeouts).start();
+
         new Pinging(this,ViewBoundMessageType.PING).start();
     }
 
+    /**
+     * Creates the matchmaker of the waiting room and starts checking periodically if a table can be formed
+     *
+     * @param config the config of the server
+     */
+    private void setupMatchmaking(Config config){
+        int maxNumberOfPlayers = config.getMaxNumberOfPlayers();
+        long wideningTime = config.getMatchmakingWideningTime() * 1000L;
+
+        this.waitingRoomCapacity = config.getWaitingRoomCapacity();
+        this.matchmaker = new Matchmaker(
+                maxNumberOfPlayers,
+                config.getMatchmakingBucketWidth(),
+                wideningTime,
+                this.persistencyPath
+        );
+
+        this.matchmakingTimer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                checkForLaunchingGame();
+            }
+        }, wideningTime, wideningTime);
+    }
+
+    /**
+     * Creates the admission control of the connections and of the received messages with the caps and rates
+     * of the config. Spectators connect through the same gateways of the players, so the cap of the connections
+     * is raised, if needed, to let in all the players of the waiting room, the ones playing and all the spectators.
+     *
+     * @param config the config of the server
+     */
+    private void setupAdmission(Config config){
+        int neededConnections = config.getMaxNumberOfPlayers() + this.waitingRoomCapacity
+                + config.getMaxNumberOfSpectators();
+
+        this.admission = new AdmissionControl(
+                Math.max(neededConnections, config.getMaxConnections()),
+                config.getMaxConnectionsPerAddress(),
+                config.getSessionMessagesBurst(),
+                config.getSessionMessagesPerSecond(),
+                config.getAddressMessagesBurst(),
+                config.getAddressMessagesPerSecond()
+        );
+    }
+
     /**
      * Setup of networking starting RMI and Socket servers
      */
@@ -268,7 +396,7 @@ public class Server implements Observer, SenderInterface, ServerInterface {
 
         try {
             LOGGER.info(STARTING_RMI);
-            new RMIServerGateway(this.serverName,this.portNumberRMI,this);
+            new RMIServerGateway(this.serverName,this.portNumberRMI,this,this.admission);
 
         } catch (RemoteException | MalformedURLException e) {
             LOGGER.severe(FAILED_RMI_SETUP);
@@ -276,46 +404,155 @@ public class Server implements Observer, SenderInterface, ServerInterface {
         }
 
         LOGGER.info(STARTING_SOCKET);
-        new SocketServerGateway(this.portNumberSOCKET,this);
+        new SocketServerGateway(this.portNumberSOCKET,this,this.admission);
 
+        scheduleAdmissionReport();
         LOGGER.info(SAGRADA_SERVER_IS_UP);
     }
 
     /**
-     * Creates an returns the instance of a new controller.
-     *
-     * @return an returns the instance of a new controller
+     * Logs periodically the totals of dropped messages and rejected connections, if they changed.
+     * Drops are not logged one by one, so that a flooding client doesn't flood the log too.
      */
-    private Controller createController(){
+    private void scheduleAdmissionReport(){
+        new Timer(true).schedule(new TimerTask() {
+            private long reportedDrops = 0;
+            private long reportedRejections = 0;
 
-        //Loads config parameters
+            @Override
+            public void run() {
+                long drops = admission.getDroppedMessages();
+                long rejections = admission.getRejectedConnections();
+                if (drops != reportedDrops || rejections != reportedRejections) {
+                    LOGGER.warning(DROPPED_MESSAGES + drops + REJECTED_CONNECTIONS + rejections);
+                    reportedDrops = drops;
+                    reportedRejections = rejections;
+                }
+            }
+        }, ADMISSION_REPORT_PERIOD, ADMISSION_REPORT_PERIOD);
+    }
+
+    /**
+     * Returns the importer of the config file given at startup, or of the default one if it is missing or not valid.
+     * The returned importer has already parsed and validated its config.
+     *
+     * @return the importer of a valid config file
+     */
+    private ConfigImporter getConfigImporter(){
         ConfigImporter configImporter = new ConfigImporter(this.configFileName);
-        Properties properties;
         try{
-            properties = configImporter.getProperties();
+            configImporter.getConfig();
         } catch(NoConfigParamFoundException e){
+            LOGGER.warning(NOT_VALID_CONFIG_FILE + e.getMessage());
 
             //Try with default configuration
             configImporter = new ConfigImporter();
 
             try{
-                properties = configImporter.getProperties();
+                configImporter.getConfig();
             } catch(NoConfigParamFoundException ex){
 
                 throw new BadBehaviourRuntimeException(CANT_LOAD_DEFAULT_CONFIG_FILE);
             }
         }
+        return configImporter;
+    }
 
-        //Creates the game
-        Game game = new Game(
-                Integer.parseInt( properties.getProperty(CONFIG_PROPERTY_NUMBER_OF_ROUNDS) ),
-                Integer.parseInt( properties.getProperty(CONFIG_PROPERTY_MAX_NUMBER_OF_PLAYERS) )
-        );
-        game.register(this);
+    /**
+     * Creates an returns the instance of a new controller.
+     *
+     * @param configImporter the importer of a valid config file
+     * @return an returns the instance of a new controller
+     */
+    private Controller createController(ConfigImporter configImporter){
+
+        //Loads config parameters
+        Config config;
+        try{
+            config = configImporter.getConfig();
+        } catch(NoConfigParamFoundException e){
+            throw new BadBehaviourRuntimeException(CANT_LOAD_DEFAULT_CONFIG_FILE);
+        }
+        Properties properties = config.getProperties();
+
+        //Creates the game (used only if there is no game to recover)
+        Game game = new Game(config.getNumberOfRounds(), config.getMaxNumberOfPlayers());
 
         properties.put("persistencyPath",this.persistencyPath);
 
-        return new Controller(game,properties,LOGGER);
+        File persistencyDirectory = new File(this.persistencyPath).getAbsoluteFile().getParentFile();
+        String gameLogPath = new File(persistencyDirectory, GAME_LOG_FILE_NAME).getPath();
+        int gameLogSyncInterval = config.getGameLogSyncInterval();
+
+        Controller recoveredController = recoverController(properties, gameLogPath, gameLogSyncInterval);
+        if(recoveredController!=null){
+            setBot(recoveredController, config);
+            return recoveredController;
+        }
+
+        Controller newController = new Controller(game,properties,LOGGER);
+        setBot(newController, config);
+        File replaysDirectory = new File(persistencyDirectory, REPLAYS_DIRECTORY_NAME);
+        newController.setReplayPath(new File(replaysDirectory, REPLAY_FILE_PREFIX + System.currentTimeMillis() + REPLAY_FILE_EXTENSION).getPath());
+        try {
+            newController.setGameLog(new GameLog(gameLogPath, gameLogSyncInterval));
+        } catch (IOException e) {
+            LOGGER.warning(CANT_CREATE_GAME_LOG + e.getMessage());
+        }
+        return newController;
+    }
+
+    /**
+     * Sets to the given controller a bot that plays the turns of inactive players, if enabled by the config
+     *
+     * @param controller the controller of the game
+     * @param config the config of the game
+     */
+    private void setBot(Controller controller, Config config){
+        int thinkingTime = config.getBotThinkingTime();
+        if(thinkingTime > 0){
+            controller.setBot(new MctsBot(thinkingTime, config.getBotThreads(), BOT_QUEUE_CAPACITY));
+        }
+    }
+
+    /**
+     * Recovers the game that was running when the server stopped, if any.
+     * Players of the recovered game can join it again with their nickname.
+     *
+     * @param properties dictionary of parameters loaded from config file
+     * @param gameLogPath path of the game log
+     * @param gameLogSyncInterval how many records of the game log are written before forcing them to disk
+     * @return the controller of the recovered game or null if there is no game to recover
+     */
+    private Controller recoverController(Properties properties, String gameLogPath, int gameLogSyncInterval){
+        GameLog.Recovery recovery;
+        try {
+            recovery = GameLog.recover(gameLogPath);
+        } catch (IOException e) {
+            LOGGER.warning(CANT_RECOVER_GAME + e.getMessage());
+            return null;
+        }
+        if(recovery==null){
+            return null;
+        }
+
+        Game recovered = recovery.getSnapshot().getGame();
+        Controller recoveredController = new Controller(recovery,properties,LOGGER);
+        try {
+            recoveredController.resumeGame(recovery, new GameLog(recovery, gameLogSyncInterval));
+        } catch (IOException e) {
+            LOGGER.warning(CANT_RECOVER_GAME + e.getMessage());
+            return null;
+        }
+        if(recovered.getStatus()!=GameStatus.PLAYING){
+            return null;
+        }
+
+        this.serverState = ServerState.FORWARDING_TO_CONTROLLER;
+        this.recoveredGame = true;
+        LOGGER.info(RECOVERED_GAME);
+
+        return recoveredController;
     }
 
     /**
@@ -329,13 +566,24 @@ public class Server implements Observer, SenderInterface, ServerInterface {
 
         Message returnMessage;
 
-        if(message.isMove()){
+        if(spectators.contains(sender)){
+
+            returnMessage = handleSpectatorMessage(message,sender);
+
+        } else if(type==ControllerBoundMessageType.PLACEMENT_HINTS){
+
+            returnMessage = handlePlacementHintsRequest(sender);
+
+        } else if(message.isMove()){
 
             message.setPlayerID( gatewayToPlayerIDMap.get(sender) );
 
             if(message.isMove(Move.JOIN) || message.isMove(Move.LEAVE)){
                 returnMessage = handleWaitingRoomMessage(message,sender);
 
+            } else if(message.isMove(Move.SPECTATE)){
+                returnMessage = addSpectator(sender);
+
             } else {
                 returnMessage = controller.handleMoveMessage(message);
             }
@@ -370,12 +618,16 @@ public class Server implements Observer, SenderInterface, ServerInterface {
 
     /**
      * Reads the type of message and calls needed methods depending on that.
+     * The lock of the server is held, so a game can't be launched while the waiting room is changed.
      * @param message the message received
      * @param sender the sender of the message
      * @return a message containing if the operation went good or not
      */
-    private Message handleWaitingRoomMessage(Message message, ClientProxyInterface sender){
+    private synchronized Message handleWaitingRoomMessage(Message message, ClientProxyInterface sender){
         if(serverState != ServerState.WAITING_ROOM){
+            if(recoveredGame && message.isMove(Move.JOIN) && rejoinRecoveredGame(message,sender)){
+                return null;
+            }
             return new Message(ViewBoundMessageType.JOIN_WR_DENIED_PLAYING, GAME_IS_PLAYING);
         }
 
@@ -397,22 +649,100 @@ public class Server implements Observer, SenderInterface, ServerInterface {
         }
     }
 
+    /**
+     * Adds the given client to the spectators of the game. Players can't be spectators.
+     * @param sender the client asking to watch the game
+     * @return a message containing if the operation went good or not
+     */
+    private Message addSpectator(ClientProxyInterface sender){
+        if(waitingList.containsValue(sender) || gatewayToPlayerIDMap.containsKey(sender)){
+            return new Message(ViewBoundMessageType.ERROR_MESSAGE);
+        }
+        if(!spectators.add(sender)){
+            return new Message(ViewBoundMessageType.JOIN_WR_DENIED_LIMIT);
+        }
+        logInfo(SPECTATOR_ADDED + sender);
+        return new Message(ViewBoundMessageType.ADDED_AS_SPECTATOR,null,null,EnumSet.of(Move.QUIT));
+    }
+
+    /**
+     * Handles the messages sent by a spectator. Spectators are read-only: they can only stop watching the game.
+     * @param message the message received
+     * @param sender the spectator
+     * @return the answer to the spectator, null if no answer is needed
+     */
+    private Message handleSpectatorMessage(Message message, ClientProxyInterface sender){
+        if(message.getType()==ControllerBoundMessageType.PING){
+            return null;
+        }
+        if(message.isMove(Move.QUIT)){
+            spectators.remove(sender);
+            return null;
+        }
+        return new Message(ViewBoundMessageType.ERROR_MESSAGE);
+    }
+
+    /**
+     * Answers a player asking where to place the dice drafted in the current turn
+     *
+     * @param sender the sender of the request
+     * @return a message containing the hints, empty if the player can't place a dice now
+     */
+    private Message handlePlacementHintsRequest(ClientProxyInterface sender){
+        String playerID = gatewayToPlayerIDMap.get(sender);
+        if(playerID == null){
+            return new Message(ViewBoundMessageType.ERROR_MESSAGE);
+        }
+        List<PlacementHint> hints = controller.getPlacementHints(playerID, PLACEMENT_HINTS_TIME_BUDGET);
+        return new Message(ViewBoundMessageType.PLACEMENT_HINTS, Message.fastMap(PARAM_PLACEMENT_HINTS, new ArrayList<>(hints)));
+    }
+
+    /**
+     * Lets a player of a recovered game join it again, binding its nickname to the given client.
+     *
+     * @param message the join message
+     * @param sender the client of the player
+     * @return true if the player joined again the game
+     */
+    private boolean rejoinRecoveredGame(Message message, ClientProxyInterface sender){
+        String nickname;
+        try {
+            nickname = (String) message.getParam(CONFIG_PROPERTY_NICKNAME);
+        } catch (NoSuchParamInMessageException e) {
+            return false;
+        }
+
+        if(!controller.hasPlayer(nickname) || playerIDToGatewayMap.containsKey(nickname)){
+            return false;
+        }
+
+        gateways.add(sender);
+        playerIDToGatewayMap.put(nickname,sender);
+        gatewayToPlayerIDMap.put(sender,nickname);
+        unSentMessages.put(sender,new ArrayList<>());
+
+        logInfo(nickname + PLAYER_REJOINED);
+        controller.playerRejoined(nickname);
+        return true;
+    }
+
     /**
      * Adds the given couple nickname - client from the waiting room
      * @param nickname the nickname to add from the waiting room
      * @param client the client to add from the waiting room
      * @return a message containing if the operation went good or not
      */
-    private Message addInWaitingRoom(String nickname, ClientProxyInterface client){
+    private synchronized Message addInWaitingRoom(String nickname, ClientProxyInterface client){
         Message message;
 
         if (nickname.equals("")) {
             return new Message(ViewBoundMessageType.ERROR_MESSAGE);
         }
 
-        if(waitingList.size() < controller.getConfigProperty(CONFIG_PROPERTY_MAX_NUMBER_OF_PLAYERS)){
+        if(waitingList.size() < waitingRoomCapacity){
             if(!waitingList.containsKey(nickname)){
                 waitingList.put(nickname,client);
+                matchmaker.add(nickname, System.currentTimeMillis());
                 message = new Message(ViewBoundMessageType.ADDED_TO_WR,Message.fastMap("players",new ArrayList<>(waitingList.keySet())),nickname,EnumSet.of(Move.LEAVE));
             } else {
                 message = new Message(ViewBoundMessageType.JOIN_WR_DENIED_NICKNAME);
@@ -433,9 +763,10 @@ public class Server implements Observer, SenderInterface, ServerInterface {
      * @param client the client to remove from the waiting room
      * @return a message containing if the operation went good or not
      */
-    private Message removeFromWaitingRoom(String nickname, ClientProxyInterface client){
+    private synchronized Message removeFromWaitingRoom(String nickname, ClientProxyInterface client){
         if( waitingList.containsKey(nickname) && waitingList.get(nickname).equals(client) ){
             waitingList.remove(nickname);
+            matchmaker.remove(nickname);
 
             if(waitingList.size() < controller.getConfigProperty(CONFIG_PROPERTY_MIN_NUMBER_OF_PLAYERS)){
                 cancelTimerForLaunchingGame();
@@ -452,10 +783,11 @@ public class Server implements Observer, SenderInterface, ServerInterface {
      * @param client the client to remove from the waiting room
      * @return a message containing if the operation went good or not
      */
-    private boolean removeFromWaitingRoom(ClientProxyInterface client){
+    private synchronized boolean removeFromWaitingRoom(ClientProxyInterface client){
         for (Map.Entry<String, ClientProxyInterface> entry : waitingList.entrySet()) {
             if (entry.getValue().equals(client)) {
                 waitingList.remove(entry.getKey());
+                matchmaker.remove(entry.getKey());
                 return true;
             }
         }
@@ -463,13 +795,22 @@ public class Server implements Observer, SenderInterface, ServerInterface {
     }
 
     /**
-     * Launch the game if 4 players are in waiting room and manages the TimerForLaunchingGame
+     * Launch the game if a full table of players with similar skill is in waiting room
+     * (or if the waiting room is full) and manages the TimerForLaunchingGame
      */
-    private void checkForLaunchingGame(){
-        if(waitingList.size() == controller.getConfigProperty(CONFIG_PROPERTY_MAX_NUMBER_OF_PLAYERS)){
+    private synchronized void checkForLaunchingGame(){
+        if(serverState != ServerState.WAITING_ROOM){ return; }
+
+        List<String> table = matchmaker.pollTable(System.currentTimeMillis());
+        if(table.isEmpty() && waitingList.size() >= waitingRoomCapacity){
+            //The waiting room is full, so the table is formed whatever the skills of the players
+            table = matchmaker.pollAnyTable(controller.getConfigProperty(CONFIG_PROPERTY_MIN_NUMBER_OF_PLAYERS));
+        }
+
+        if(!table.isEmpty()){
             //The game can be launched. Eventual timer is stopped. Game is launched.
-            cancelTimerForLaunchingGame();
-            launchGame();
+            if(this.isTimerForLaunchingGameActive){ cancelTimerForLaunchingGame(); }
+            launchGame(table);
         } else if(waitingList.size() >= controller.getConfigProperty(Server.CONFIG_PROPERTY_MIN_NUMBER_OF_PLAYERS)){
             //The game can be launched. If timer was not already started, it is started now.
             if(!this.isTimerForLaunchingGameActive){ startTimerForLaunchingGame(); }
@@ -489,7 +830,7 @@ public class Server implements Observer, SenderInterface, ServerInterface {
         this.timerForLaunchingGame.schedule(new TimerTask() {
             @Override
             public void run() {
-                launchGame();
+                launchGameWithWaitingPlayers();
             }
         },(long)(controller.getConfigProperty(CONFIG_PROPERTY_TIMEOUT_LAUNCHING_GAME)*1000));
     }
@@ -503,26 +844,54 @@ public class Server implements Observer, SenderInterface, ServerInterface {
         this.timerForLaunchingGame.cancel();
     }
 
+    /**
+     * Launches the game with the table formed around the player waiting for longest, whatever the skills of the players.
+     * Called when the players waited enough.
+     */
+    private synchronized void launchGameWithWaitingPlayers(){
+        this.isTimerForLaunchingGameActive = false;
+        if(serverState != ServerState.WAITING_ROOM){ return; }
+
+        List<String> table = matchmaker.pollAnyTable(controller.getConfigProperty(CONFIG_PROPERTY_MIN_NUMBER_OF_PLAYERS));
+        if(!table.isEmpty()){
+            launchGame(table);
+        }
+    }
+
     /**
      * Sets the server state to FORWARDING_TO_CONTROLLER in order to forward
      * future messages to controller instance (for move handling). It also
      * sets the gateways for handling bidirectional communication server to/from client
      * and register in bidirectional map the coupling of players with respective client interface
-     * and vice versa.
+     * and vice versa. Players of the waiting room that are not in the table can't join the game.
+     *
+     * @param table the players of the game
      */
-    private void launchGame(){
+    private synchronized void launchGame(List<String> table){
         //Forward future messages to controller and prevent that waitinglist is changed
         this.serverState = ServerState.FORWARDING_TO_CONTROLLER;
+        this.matchmakingTimer.cancel();
         //Add ReceiverInterfaces of players to gateways that will manage the bi-directional communication during game
-        gateways.addAll(waitingList.values());
         //Map players id with gateway and vice versa, plus creates unSentMessages map
-        playerIDToGatewayMap.putAll(waitingList);
-        for(Map.Entry<String, ClientProxyInterface> entry : playerIDToGatewayMap.entrySet()){
-            gatewayToPlayerIDMap.put(entry.getValue(), entry.getKey());
-            unSentMessages.put(entry.getValue(),new ArrayList<>());
+        for(String playerID : table){
+            ClientProxyInterface gateway = waitingList.remove(playerID);
+            gateways.add(gateway);
+            playerIDToGatewayMap.put(playerID, gateway);
+            gatewayToPlayerIDMap.put(gateway, playerID);
+            unSentMessages.put(gateway,new ArrayList<>());
+        }
+        //Players left out of the table are notified that the game started without them
+        for(Map.Entry<String, ClientProxyInterface> entry : waitingList.entrySet()){
+            matchmaker.remove(entry.getKey());
+            try {
+                entry.getValue().receiveMessage(new Message(ViewBoundMessageType.JOIN_WR_DENIED_PLAYING, GAME_IS_PLAYING));
+            } catch (NetworkingException e) {
+                LOGGER.warning(COULD_NOT_SEND_THE_MESSAGE_DUE_TO_CONNECTION_ERROR_TO + ": " + entry.getKey());
+            }
         }
+        waitingList.clear();
         //Send players to controller and let it actually starting the game
-        controller.launchGame(waitingList.keySet());
+        controller.launchGame(new LinkedHashSet<>(table));
     }
 
     /**
@@ -536,17 +905,30 @@ public class Server implements Observer, SenderInterface, ServerInterface {
             g = this.serverState == ServerState.WAITING_ROOM ? new ArrayList<>(waitingList.values()) : gateways;
         } else {
             g = new ArrayList<>();
-            g.add(playerIDToGatewayMap.get(message.getPlayerID()));
+            //In a recovered game, players that did not join again have no gateway yet
+            if(playerIDToGatewayMap.containsKey(message.getPlayerID())){
+                g.add(playerIDToGatewayMap.get(message.getPlayerID()));
+            }
         }
         return g;
     }
 
     @Override
     public void sendMessage(Message message) throws NetworkingException {
+        //The message is serialized once and the same bytes are sent to all the gateways
+        sendMessage(message, EncodedMessage.encode(message));
+    }
+
+    /**
+     * Sends the given already serialized message to its recipients
+     * @param message the message to send
+     * @param encodedMessage the serialized message
+     * @throws NetworkingException if the message could not be sent to at least one recipient
+     */
+    private void sendMessage(Message message, EncodedMessage encodedMessage) throws NetworkingException {
         boolean somethingFailed = false;
         List<ClientProxyInterface> g = getGateway(message);
 
-
         for(ClientProxyInterface o : g){
             int attempts = 0;
             boolean correctlySent = false;
@@ -560,7 +942,7 @@ public class Server implements Observer, SenderInterface, ServerInterface {
             while(attempts< maxNumberOfAttempts && !correctlySent) {
                 attempts++;
                 try {
-                    o.receiveMessage(message);
+                    o.receiveMessage(encodedMessage);
                 } catch (NetworkingException e) {
                     LOGGER.warning(ATTEMPT + attempts + ": " + COULD_NOT_SEND_THE_MESSAGE_DUE_TO_CONNECTION_ERROR_TO + ": " + o + ". " + THE_MESSAGE_WAS + ": " + message);
                     continue;
@@ -605,10 +987,17 @@ public class Server implements Observer, SenderInterface, ServerInterface {
         this.controller.playerLostConnection(gatewayToPlayerIDMap.get(gateway));
 
         new Thread(()->{
+            EncodedMessage ping;
+            try {
+                ping = EncodedMessage.encode(new Message(ViewBoundMessageType.PING));
+            } catch (NetworkingException e) {
+                return;
+            }
+
             while(true){
                 boolean restored = false;
                 try {
-                    gateway.receiveMessage(new Message(ViewBoundMessageType.PING));
+                    gateway.receiveMessage(ping);
                     this.disconnectedGateways.remove(gateway);
                     restored = true;
                 } catch (NetworkingException e) {
@@ -642,16 +1031,75 @@ public class Server implements Observer, SenderInterface, ServerInterface {
         }
     }
 
+    /**
+     * Splits a batch of messages into one batch for each recipient, containing the broadcast messages
+     * and the ones sent to that recipient only. Batches of broadcast messages only are sent as they are.
+     *
+     * @param message the message to split
+     * @return the messages to send
+     */
+    private List<Message> splitBatch(Message message){
+        List<Message> messages = message.unbatch();
+        if(messages.stream().allMatch(m -> m.getPlayerID()==null)){
+            return Collections.singletonList(message);
+        }
+
+        List<Message> batches = new ArrayList<>();
+        for(ClientProxyInterface gateway : getGateway(new Message(ViewBoundMessageType.BATCH))){
+            String playerID = gatewayToPlayerIDMap.get(gateway);
+            if(playerID==null){ continue; }
+
+            List<Message> playerMessages = messages.stream()
+                    .filter(m -> m.getPlayerID()==null || m.getPlayerID().equals(playerID))
+                    .collect(Collectors.toList());
+            if(!playerMessages.isEmpty()){
+                batches.add(Message.batch(playerMessages, playerID));
+            }
+        }
+        return batches;
+    }
+
+    /**
+     * Returns the public events of the given message, the ones that are sent to all the players
+     *
+     * @param message the message sent by the game
+     * @return the given message if it is all public, a batch of its public events, or null if it has no public event
+     */
+    private Message getPublicEvents(Message message){
+        List<Message> messages = message.unbatch();
+        List<Message> publicMessages = messages.stream()
+                .filter(m -> m.getPlayerID()==null)
+                .collect(Collectors.toList());
+
+        if(publicMessages.isEmpty()){
+            return null;
+        }
+        return publicMessages.size()==messages.size() ? message : Message.batch(publicMessages, null);
+    }
+
     @Override
     public boolean update(Message m) {
         boolean succeeded;
+        Message publicEvents = getPublicEvents(m);
+        EncodedMessage publicFrame = null;
         try {
-            sendMessage(m);
+            if(publicEvents!=null){
+                publicFrame = EncodedMessage.encode(publicEvents);
+            }
+            for(Message message : splitBatch(m)){
+                //Public events are sent to players and spectators with the same bytes
+                sendMessage(message, message==publicEvents ? publicFrame : EncodedMessage.encode(message));
+            }
             succeeded = true;
         } catch (NetworkingException e) {
             LOGGER.severe(EXCEPTION_SENDING_TO_CLIENTS_DURING_UPDATE);
             succeeded = false;
         }
+
+        //Spectators are served after players and never make them wait
+        if(publicFrame!=null){
+            spectators.publish(publicFrame);
+        }
         return succeeded;
     }
 
@@ -667,7 +1115,11 @@ public class Server implements Observer, SenderInterface, ServerInterface {
 
     @Override
     public void lostSocketConnection(ClientProxyInterface sender) {
-        if (serverState == ServerState.WAITING_ROOM) {
+        if (spectators.remove(sender)) {
+
+            logInfo(SPECTATOR_REMOVED + sender);
+
+        } else if (serverState == ServerState.WAITING_ROOM) {
 
             removeFromWaitingRoom(sender);
 
@@ -0,0 +1,329 @@
+package it.polimi.se2018.networking;
+
+import it.polimi.se2018.utils.Message;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Fan-out of the public events of the game to the spectators.
+ *
+ * Each event is encoded once and the same frame is queued to all the spectators. Frames are written
+ * by a shared pool of threads, so publishing an event never waits for the connections of the spectators
+ * and doesn't slow down the players. A spectator that can't keep up with the events loses its queued
+ * frames and, at the next event, receives a snapshot of the public state of the game instead.
+ * New spectators receive the snapshot too, as soon as a turn is being played.
+ *
+ * Gateways only offer blocking writes, so each write is made by a call thread, and the writer waits for it
+ * at most for the write timeout: a spectator whose connection stalls is dropped, and its writer goes on with
+ * the other spectators instead of being pinned by it. The stalled call is left to its own thread.
+ *
+ * @author Federico Haag
+ */
+final class SpectatorFanOut {
+
+    /**
+     * String logged when a spectator is dropped because it can't be reached
+     */
+    private static final String DROPPED_SPECTATOR = "Dropped spectator due to connection error: ";
+
+    /**
+     * String logged when a spectator can't keep up with the events
+     */
+    private static final String SLOW_SPECTATOR = "Spectator can't keep up with the game, it will receive a snapshot: ";
+
+    /**
+     * String logged when a spectator is dropped because a write to it didn't end in time
+     */
+    private static final String STALLED_SPECTATOR = "Dropped spectator whose connection stalled: ";
+
+    /**
+     * String logged when the public state of the game can't be encoded
+     */
+    private static final String CANT_ENCODE_SNAPSHOT = "Can't encode the public state of the game";
+
+    /**
+     * Prefix of the names of the threads writing to spectators
+     */
+    private static final String THREAD_NAME_PREFIX = "spectators-writer-";
+
+    /**
+     * Prefix of the names of the threads calling the gateways of the spectators
+     */
+    private static final String CALL_THREAD_NAME_PREFIX = "spectators-call-";
+
+    /**
+     * Logger of the fan-out
+     */
+    private static final Logger LOGGER = Logger.getLogger(SpectatorFanOut.class.getName());
+
+    /**
+     * Maximum number of spectators
+     */
+    private final int maxSpectators;
+
+    /**
+     * Number of frames that can wait to be written to a spectator before it is considered too slow
+     */
+    private final int queueCapacity;
+
+    /**
+     * Milliseconds a write to a spectator can last before the spectator is dropped
+     */
+    private final long writeTimeout;
+
+    /**
+     * Supplier of the public state of the game, returning null if no turn is being played
+     */
+    private final Supplier<Message> snapshotSupplier;
+
+    /**
+     * Threads writing the frames to the spectators
+     */
+    private final Executor writers;
+
+    /**
+     * Threads calling the gateways of the spectators for the writers
+     */
+    private final ExecutorService calls;
+
+    /**
+     * The spectators by their gateway
+     */
+    private final Map<ClientProxyInterface,Spectator> spectators = new ConcurrentHashMap<>();
+
+    /**
+     * A spectator with its queue of frames to be written
+     */
+    private final class Spectator {
+
+        /**
+         * Gateway of the spectator
+         */
+        private final ClientProxyInterface gateway;
+
+        /**
+         * Frames waiting to be written
+         */
+        private final BlockingQueue<EncodedMessage> frames = new ArrayBlockingQueue<>(queueCapacity);
+
+        /**
+         * True while a writer is writing the frames of the spectator
+         */
+        private final AtomicBoolean writing = new AtomicBoolean(false);
+
+        /**
+         * True if the spectator has to receive the public state of the game before any other event
+         */
+        private volatile boolean needsSnapshot = true;
+
+        /**
+         * Constructor of the spectator
+         *
+         * @param gateway gateway of the spectator
+         */
+        Spectator(ClientProxyInterface gateway) {
+            this.gateway = gateway;
+        }
+
+        /**
+         * Queues the given frame. If the queue is full, the queued frames are dropped
+         * and the spectator will receive a snapshot instead.
+         *
+         * @param frame the frame to write
+         */
+        void offer(EncodedMessage frame){
+            if(frames.offer(frame)){
+                scheduleWriting();
+            } else {
+                frames.clear();
+                needsSnapshot = true;
+                LOGGER.warning(SLOW_SPECTATOR + gateway);
+            }
+        }
+
+        /**
+         * Makes a writer write the queued frames, if none is already writing them
+         */
+        private void scheduleWriting(){
+            if(writing.compareAndSet(false,true)){
+                try {
+                    writers.execute(this::write);
+                } catch (RejectedExecutionException e) {
+                    writing.set(false);
+                }
+            }
+        }
+
+        /**
+         * Writes the queued frames, in order, dropping the spectator if a write fails or doesn't end in time
+         */
+        private void write(){
+            EncodedMessage frame;
+            while((frame = frames.poll()) != null){
+                String failure = writeInTime(frame);
+                if(failure != null){
+                    remove(gateway);
+                    frames.clear();
+                    LOGGER.warning(failure + gateway);
+                    return;
+                }
+            }
+            writing.set(false);
+            //A frame queued after the last poll but before releasing the writer would be left behind
+            if(!frames.isEmpty()){
+                scheduleWriting();
+            }
+        }
+
+        /**
+         * Writes a frame by a call thread, waiting for it at most for the write timeout
+         *
+         * @param frame the frame to write
+         * @return null if the frame was written, otherwise the reason why the spectator has to be dropped
+         */
+        private String writeInTime(EncodedMessage frame){
+            Future<?> call;
+            try {
+                call = calls.submit(() -> {
+                    gateway.receiveMessage(frame);
+                    return null;
+                });
+            } catch (RejectedExecutionException e) {
+                return DROPPED_SPECTATOR;
+            }
+            try {
+                call.get(writeTimeout, TimeUnit.MILLISECONDS);
+                return null;
+            } catch (ExecutionException e) {
+                return DROPPED_SPECTATOR;
+            } catch (TimeoutException e) {
+                call.cancel(true);
+                return STALLED_SPECTATOR;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                call.cancel(true);
+                return DROPPED_SPECTATOR;
+            }
+        }
+    }
+
+    /**
+     * Constructor of the fan-out
+     *
+     * @param maxSpectators maximum number of spectators
+     * @param queueCapacity number of frames that can wait to be written to a spectator before it is considered too slow
+     * @param writerThreads number of threads writing the frames to the spectators
+     * @param writeTimeout milliseconds a write to a spectator can last before the spectator is dropped
+     * @param snapshotSupplier supplier of the public state of the game, returning null if no turn is being played
+     */
+    SpectatorFanOut(int maxSpectators, int queueCapacity, int writerThreads, long writeTimeout,
+                    Supplier<Message> snapshotSupplier) {
+        this.maxSpectators = maxSpectators;
+        this.queueCapacity = queueCapacity;
+        this.writeTimeout = writeTimeout;
+        this.snapshotSupplier = snapshotSupplier;
+        this.writers = Executors.newFixedThreadPool(writerThreads, daemonThreads(THREAD_NAME_PREFIX));
+        //call threads are reused, and more of them are started only while some calls are stalled
+        this.calls = Executors.newCachedThreadPool(daemonThreads(CALL_THREAD_NAME_PREFIX));
+    }
+
+    /**
+     * Returns a factory of daemon threads named with the given prefix and a number
+     *
+     * @param namePrefix the prefix of the names of the threads
+     * @return the factory of the threads
+     */
+    private static ThreadFactory daemonThreads(String namePrefix){
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Adds a spectator. Nothing happens if the gateway is already of a spectator.
+     *
+     * @param gateway the gateway of the spectator
+     * @return true if the gateway is of a spectator, false if there are already too many spectators
+     */
+    synchronized boolean add(ClientProxyInterface gateway){
+        if(spectators.containsKey(gateway)){ return true; }
+        if(spectators.size() >= maxSpectators){ return false; }
+
+        spectators.put(gateway, new Spectator(gateway));
+        return true;
+    }
+
+    /**
+     * Removes a spectator. Frames not yet written to it are dropped.
+     *
+     * @param gateway the gateway of the spectator
+     * @return true if the gateway was of a spectator
+     */
+    boolean remove(ClientProxyInterface gateway){
+        return spectators.remove(gateway) != null;
+    }
+
+    /**
+     * Returns true if the given gateway is of a spectator
+     *
+     * @param gateway the gateway to check
+     * @return true if the given gateway is of a spectator
+     */
+    boolean contains(ClientProxyInterface gateway){
+        return spectators.containsKey(gateway);
+    }
+
+    /**
+     * Queues the given public event to all the spectators, without waiting for it to be written.
+     * Spectators that need a snapshot receive it instead of the event; the snapshot is built at most once per event.
+     *
+     * @param frame the encoded public event
+     */
+    void publish(EncodedMessage frame){
+        if(spectators.isEmpty()){ return; }
+
+        EncodedMessage snapshot = null;
+        boolean snapshotTaken = false;
+        for(Spectator spectator : spectators.values()){
+            if(spectator.needsSnapshot){
+                if(!snapshotTaken){
+                    snapshot = encodeSnapshot();
+                    snapshotTaken = true;
+                }
+                if(snapshot == null){
+                    //No turn is being played yet: the spectator follows the events until the game starts
+                    spectator.offer(frame);
+                } else {
+                    spectator.needsSnapshot = false;
+                    spectator.offer(snapshot);
+                }
+            } else {
+                spectator.offer(frame);
+            }
+        }
+    }
+
+    /**
+     * Encodes the public state of the game
+     *
+     * @return the encoded public state of the game, or null if no turn is being played
+     */
+    private EncodedMessage encodeSnapshot(){
+        Message snapshot = snapshotSupplier.get();
+        if(snapshot == null){ return null; }
+        try {
+            return EncodedMessage.encode(snapshot);
+        } catch (NetworkingException e) {
+            LOGGER.severe(CANT_ENCODE_SNAPSHOT);
+            return null;
+        }
+    }
+}
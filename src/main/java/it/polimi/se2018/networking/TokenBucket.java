@@ -0,0 +1,63 @@
+package it.polimi.se2018.networking;
+
+/**
+ * Token bucket limiting the rate of the messages of a sender.
+ *
+ * The bucket holds up to a number of tokens, the burst, and is refilled at a constant rate.
+ * Each message takes a token: a sender keeping under the rate is never limited, and a sender
+ * that was quiet can send a burst of messages at once.
+ *
+ * @author Federico Haag
+ */
+final class TokenBucket {
+
+    /**
+     * Maximum number of tokens
+     */
+    private final double burst;
+
+    /**
+     * Tokens added each nanosecond
+     */
+    private final double tokensPerNano;
+
+    /**
+     * Tokens available at the last refill
+     */
+    private double tokens;
+
+    /**
+     * Nanoseconds of the last refill
+     */
+    private long lastRefill;
+
+    /**
+     * Constructor of a full bucket
+     *
+     * @param burst maximum number of tokens
+     * @param tokensPerSecond tokens added each second
+     * @param now current time in nanoseconds
+     */
+    TokenBucket(int burst, int tokensPerSecond, long now) {
+        this.burst = burst;
+        this.tokensPerNano = tokensPerSecond / 1e9;
+        this.tokens = burst;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Takes a token, if available
+     *
+     * @param now current time in nanoseconds
+     * @return true if a token was taken, false if the bucket is empty
+     */
+    synchronized boolean tryConsume(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+        if (tokens < 1) { return false; }
+        tokens--;
+        return true;
+    }
+}
@@ -0,0 +1,149 @@
+package it.polimi.se2018.networking.rmi;
+
+import it.polimi.se2018.utils.Message;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Dispatcher of the messages received through RMI to their consumer.
+ *
+ * Remote calls are served by the threads of RMI, which give no guarantee about the order of two calls.
+ * Messages are therefore queued in the order they are received and handed to the consumer by a single
+ * thread, so they are handled one at a time and in order, and the remote call returns as soon as the message
+ * is queued. The queue is bounded: if the consumer can't keep up, the remote caller waits for some room.
+ *
+ * @author Federico Haag
+ */
+final class MessageDispatcher {
+
+    /**
+     * String logged when the consumer fails handling a message
+     */
+    private static final String CONSUMER_FAILED = "Failed handling the received message: ";
+
+    /**
+     * Name of the dispatching thread
+     */
+    private static final String THREAD_NAME = "rmi-dispatcher";
+
+    /**
+     * Logger of the dispatcher
+     */
+    private static final Logger LOGGER = Logger.getLogger(MessageDispatcher.class.getName());
+
+    /**
+     * Messages waiting to be handled
+     */
+    private final BlockingQueue<Message> queue;
+
+    /**
+     * Consumer of the messages
+     */
+    private final Consumer<Message> consumer;
+
+    /**
+     * Thread handing the messages to the consumer
+     */
+    private final Thread thread;
+
+    /**
+     * Maximum number of messages that waited in the queue at the same time
+     */
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+
+    /**
+     * Number of messages handed to the consumer
+     */
+    private final AtomicLong dispatchedMessages = new AtomicLong();
+
+    /**
+     * Constructor of the dispatcher. The dispatching thread is started immediately.
+     *
+     * @param capacity maximum number of messages waiting to be handled
+     * @param consumer consumer of the messages
+     */
+    MessageDispatcher(int capacity, Consumer<Message> consumer) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.consumer = consumer;
+        this.thread = new Thread(this::dispatch, THREAD_NAME);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a message to be handled after the ones already received, waiting for room if the queue is full
+     *
+     * @param message the message to queue
+     * @param timeout milliseconds to wait for room in the queue
+     * @return true if the message was queued, false if there was no room before the timeout
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    boolean offer(Message message, long timeout) throws InterruptedException {
+        if(!queue.offer(message, timeout, TimeUnit.MILLISECONDS)){ return false; }
+
+        int depth = queue.size();
+        peakQueueDepth.accumulateAndGet(depth, Math::max);
+        return true;
+    }
+
+    /**
+     * Hands the queued messages to the consumer, in order, until the dispatcher is stopped
+     */
+    private void dispatch() {
+        while(!Thread.currentThread().isInterrupted()){
+            Message message;
+            try {
+                message = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                consumer.accept(message);
+            } catch (RuntimeException e) {
+                LOGGER.warning(CONSUMER_FAILED + e);
+            }
+            dispatchedMessages.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops the dispatching thread. Messages still in the queue are not handled.
+     */
+    void stop() {
+        thread.interrupt();
+    }
+
+    /**
+     * Returns the number of messages waiting to be handled
+     *
+     * @return the number of messages waiting to be handled
+     */
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the maximum number of messages that waited to be handled at the same time
+     *
+     * @return the maximum number of messages that waited to be handled at the same time
+     */
+    int getPeakQueueDepth() {
+        return peakQueueDepth.get();
+    }
+
+    /**
+     * Returns the number of messages handed to the consumer
+     *
+     * @return the number of messages handed to the consumer
+     */
+    long getDispatchedMessages() {
+        return dispatchedMessages.get();
+    }
+}
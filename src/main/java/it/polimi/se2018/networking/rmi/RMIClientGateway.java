@@ -2,12 +2,15 @@ package it.polimi.se2018.networking.rmi;
 
 import it.polimi.se2018.networking.Client;
 import it.polimi.se2018.networking.ClientInterface;
+import it.polimi.se2018.networking.EncodedMessage;
 import it.polimi.se2018.networking.NetworkingException;
 import it.polimi.se2018.utils.Message;
 
 import java.rmi.Naming;
+import java.rmi.NoSuchObjectException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.logging.Logger;
 
 /**
  * Extends RMIReceiverInterface because can receive messages from Server,
@@ -34,15 +37,60 @@ public final class RMIClientGateway implements ClientInterface, RMIReceiverInter
      */
     private static final String FAILED_EXPORTING_RMI_OBJECT = "Failed exporting RMI object";
 
+    /**
+     * String used as message of NetworkingException in case of failure opening the session
+     */
+    private static final String FAILED_OPENING_SESSION = "Failed opening the RMI session";
+
+    /**
+     * String used as NetworkingException message when the server doesn't admit a new session
+     */
+    private static final String SESSION_REFUSED = "The server refused the RMI session";
+
     /**
      * String used as reason of failing in case fixing connection thread is interrupted
      */
     private static final String FIXING_CONNECTION_INTERRUPTED = "FixingConnection interrupted";
 
+    /**
+     * String used as message of NetworkingException when a received message can't be queued in time
+     */
+    private static final String INBOUND_QUEUE_FULL = "Too many received messages waiting to be handled";
+
+    /**
+     * String used as message of NetworkingException when the thread queuing a received message is interrupted
+     */
+    private static final String QUEUING_INTERRUPTED = "Interrupted while queuing a received message";
+
+    /**
+     * String logged when the gateway is closed, followed by the metrics of the queue of the received messages
+     */
+    private static final String INBOUND_QUEUE_METRICS = "RMI gateway closed. Received messages handled: %d, peak of waiting messages: %d/%d, still waiting: %d";
+
+    /**
+     * Logger of the gateway
+     */
+    private static final Logger LOGGER = Logger.getLogger(RMIClientGateway.class.getName());
+
+    /**
+     * Maximum number of received messages waiting to be handled
+     */
+    private static final int INBOUND_QUEUE_CAPACITY = 256;
+
+    /**
+     * Milliseconds a remote call waits for room in the queue of the received messages
+     */
+    private static final long INBOUND_QUEUE_TIMEOUT = 5000;
+
     /**
      * The receiver of messages sent through this gateway
      */
-    private RMIReceiverInterface receiver;
+    private RMIServerInterface receiver;
+
+    /**
+     * Token of the session opened with the server
+     */
+    private volatile String sessionToken;
 
     /**
      * The client connected to this gateway
@@ -64,6 +112,11 @@ public final class RMIClientGateway implements ClientInterface, RMIReceiverInter
      */
     private final int port;
 
+    /**
+     * Dispatcher handing the received messages to the client, one at a time and in order
+     */
+    private final MessageDispatcher dispatcher;
+
     /**
      * Gateway constructor.
      * @param path path to the server
@@ -75,9 +128,16 @@ public final class RMIClientGateway implements ClientInterface, RMIReceiverInter
         this.path = path;
         this.port = port;
         this.client = client;
+        this.dispatcher = new MessageDispatcher(INBOUND_QUEUE_CAPACITY, message -> this.client.notify(message));
 
-        resetRecipient();
-        resetSender();
+        try {
+            resetRecipient();
+            resetSender();
+            openSession();
+        } catch (NetworkingException e) {
+            dispatcher.stop();
+            throw e;
+        }
     }
 
     /**
@@ -86,7 +146,7 @@ public final class RMIClientGateway implements ClientInterface, RMIReceiverInter
      */
     private void resetRecipient() throws NetworkingException {
         try{
-            this.receiver = (RMIReceiverInterface) Naming.lookup(path);
+            this.receiver = (RMIServerInterface) Naming.lookup(path);
         } catch(Exception e){
             throw new NetworkingException(FAILED_LOOKING_FOR_RMI_NAME);
         }
@@ -104,21 +164,62 @@ public final class RMIClientGateway implements ClientInterface, RMIReceiverInter
         }
     }
 
+    /**
+     * Opens a session with the server, or gets the one already open
+     * @throws NetworkingException if the session can't be opened
+     */
+    private void openSession() throws NetworkingException {
+        try {
+            this.sessionToken = this.receiver.openSession(this.sender);
+        } catch (RemoteException e) {
+            throw new NetworkingException(FAILED_OPENING_SESSION);
+        }
+        if(this.sessionToken == null){ throw new NetworkingException(SESSION_REFUSED); }
+    }
+
     @Override
     public void sendMessage(Message message) throws NetworkingException{
+        EncodedMessage encodedMessage = EncodedMessage.encode(message);
         try {
-            this.receiver.receiveMessage(message,this.sender);
+            if(!this.receiver.receiveMessage(encodedMessage, this.sessionToken)){
+                //the session was closed by the server: a new one is opened and the message sent again
+                openSession();
+                if(!this.receiver.receiveMessage(encodedMessage, this.sessionToken)){
+                    throw new NetworkingException(FAILED_OPENING_SESSION);
+                }
+            }
         } catch (RemoteException e) {
             throw new NetworkingException();
         }
     }
 
+    /**
+     * Closes the session with the server and stops receiving messages through this gateway.
+     * The metrics of the queue of the received messages are logged, to tell if its capacity fits the client.
+     */
+    public void close() {
+        try {
+            this.receiver.closeSession(this.sessionToken);
+        } catch (RemoteException e) {
+            //the server will close the session for inactivity
+        }
+        try {
+            UnicastRemoteObject.unexportObject(this, true);
+        } catch (NoSuchObjectException e) {
+            //already unexported
+        }
+        dispatcher.stop();
+        LOGGER.info(String.format(INBOUND_QUEUE_METRICS, dispatcher.getDispatchedMessages(),
+                dispatcher.getPeakQueueDepth(), INBOUND_QUEUE_CAPACITY, dispatcher.getQueueDepth()));
+    }
+
     @Override
     public void fixConnection() {
         new Thread(() -> {
             while(!Thread.currentThread().isInterrupted()) {
                 try {
                     resetRecipient();
+                    openSession();
                     this.client.setConnectionAvailable(true);
                     return;
                 } catch (NetworkingException e) {
@@ -134,8 +235,16 @@ public final class RMIClientGateway implements ClientInterface, RMIReceiverInter
     }
 
     @Override
-    public void receiveMessage(Message message, RMIReceiverInterface sender){
-        //Il thread viene creato per disaccoppiare la chiamata remota da quella effettiva
-        new Thread(()-> this.client.notify(message)).start();
+    public void receiveMessage(EncodedMessage encodedMessage) throws NetworkingException {
+        Message message = encodedMessage.decode();
+        //The message is queued to decouple the remote call from its handling, without losing the order of messages
+        try {
+            if(!dispatcher.offer(message, INBOUND_QUEUE_TIMEOUT)){
+                throw new NetworkingException(INBOUND_QUEUE_FULL);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NetworkingException(QUEUING_INTERRUPTED);
+        }
     }
 }
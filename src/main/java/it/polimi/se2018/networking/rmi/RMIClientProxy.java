@@ -1,8 +1,8 @@
 package it.polimi.se2018.networking.rmi;
 
 import it.polimi.se2018.networking.ClientProxyInterface;
+import it.polimi.se2018.networking.EncodedMessage;
 import it.polimi.se2018.networking.NetworkingException;
-import it.polimi.se2018.utils.Message;
 
 import java.rmi.RemoteException;
 
@@ -16,27 +16,20 @@ public final class RMIClientProxy implements ClientProxyInterface {
     /**
      * The former client
      */
-    private RMIReceiverInterface receiver;
-
-    /**
-     * The sender of the message (former server)
-     */
-    private RMIReceiverInterface sender;
+    private final RMIReceiverInterface receiver;
 
     /**
      * Constructor of the proxy
-     * @param sender the sender of the message (former server)
      * @param receiver the former client
      */
-    RMIClientProxy(RMIReceiverInterface sender, RMIReceiverInterface receiver) {
+    RMIClientProxy(RMIReceiverInterface receiver) {
         this.receiver = receiver;
-        this.sender = sender;
     }
 
     @Override
-    public void receiveMessage(Message message) throws NetworkingException {
+    public void receiveMessage(EncodedMessage message) throws NetworkingException {
         try {
-            this.receiver.receiveMessage(message,this.sender);
+            this.receiver.receiveMessage(message);
         } catch (RemoteException e) {
             throw new NetworkingException();
         }
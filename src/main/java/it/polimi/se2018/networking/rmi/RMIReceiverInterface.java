@@ -1,7 +1,7 @@
 package it.polimi.se2018.networking.rmi;
 
+import it.polimi.se2018.networking.EncodedMessage;
 import it.polimi.se2018.networking.NetworkingException;
-import it.polimi.se2018.utils.Message;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
@@ -12,11 +12,11 @@ import java.rmi.RemoteException;
 public interface RMIReceiverInterface extends Remote {
 
     /**
-     * Received a message from the specified sender.
-     * @param message the message received
-     * @param sender the sender of the message
+     * Received a message from the server.
+     * The message is already serialized, so that RMI marshals it as a plain array of bytes.
+     * @param message the encoded message received
      * @throws NetworkingException if something receiving message went wrong due to connection problems
      * @throws RemoteException if something receiving message went wrong due to connection problems
      */
-    void receiveMessage(Message message, RMIReceiverInterface sender) throws RemoteException, NetworkingException;
+    void receiveMessage(EncodedMessage message) throws RemoteException, NetworkingException;
 }
@@ -1,14 +1,22 @@
 package it.polimi.se2018.networking.rmi;
 
+import it.polimi.se2018.networking.AdmissionControl;
+import it.polimi.se2018.networking.EncodedMessage;
+import it.polimi.se2018.networking.NetworkingException;
 import it.polimi.se2018.networking.Server;
 import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.ViewBoundMessageType;
 
 import java.net.MalformedURLException;
 import java.rmi.Naming;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
+import java.rmi.server.ServerNotActiveException;
 import java.rmi.server.UnicastRemoteObject;
-import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 /**
  * Gateway used by server to send messages.
@@ -16,7 +24,42 @@ import java.util.HashMap;
  *
  * @author Federico Haag
  */
-public final class RMIServerGateway extends UnicastRemoteObject implements RMIReceiverInterface {
+public final class RMIServerGateway extends UnicastRemoteObject implements RMIServerInterface {
+
+    /**
+     * String logged when idle sessions are closed
+     */
+    private static final String EVICTED_SESSIONS = "Closed idle RMI sessions: ";
+
+    /**
+     * Name of the thread closing idle sessions
+     */
+    private static final String EVICTION_THREAD_NAME = "rmi-sessions-eviction";
+
+    /**
+     * Milliseconds without messages after which a session is closed. Clients ping the server much more often.
+     */
+    private static final long SESSION_IDLE_TIMEOUT = 60000;
+
+    /**
+     * Milliseconds after the eviction of a session during which its client can resume it
+     */
+    private static final long SESSION_RESUME_TIMEOUT = 600000;
+
+    /**
+     * Milliseconds between two searches of idle sessions
+     */
+    private static final long EVICTION_PERIOD = 15000;
+
+    /**
+     * Address used for the clients whose address is not known
+     */
+    private static final String UNKNOWN_ADDRESS = "unknown";
+
+    /**
+     * Logger of the gateway
+     */
+    private static final Logger LOGGER = Logger.getLogger(RMIServerGateway.class.getName());
 
     /**
      * The server connected to this gateway
@@ -24,34 +67,84 @@ public final class RMIServerGateway extends UnicastRemoteObject implements RMIRe
     private transient Server server;
 
     /**
-     * Map used to convert a RMIReceiverInterface into a RMIClientProxy
+     * Admission control of the sessions and of the received messages
      */
-    private HashMap<RMIReceiverInterface,RMIClientProxy> map = new HashMap<>();
+    private final transient AdmissionControl admission;
+
+    /**
+     * Sessions of the connected clients
+     */
+    private final transient RMISessionRegistry sessions;
 
     /**
      * Constructor of the gateway.
      * @param name name to be binded to this gateway during rmi exporting
      * @param port port to which open the connection
      * @param server the server connected to this gateway
+     * @param admission admission control of the sessions and of the received messages
      * @throws RemoteException if something opening connection went wrong
      * @throws MalformedURLException if the given name/port are bad fomatted
      */
-    public RMIServerGateway(String name, int port, Server server) throws RemoteException, MalformedURLException {
+    public RMIServerGateway(String name, int port, Server server, AdmissionControl admission) throws RemoteException, MalformedURLException {
         this.server = server;
+        this.admission = admission;
+        this.sessions = new RMISessionRegistry(SESSION_IDLE_TIMEOUT, SESSION_RESUME_TIMEOUT, admission, server);
 
         LocateRegistry.createRegistry(port);
 
         Naming.rebind(name, this);
+
+        ScheduledExecutorService eviction = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, EVICTION_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        eviction.scheduleWithFixedDelay(() -> {
+            int evicted = sessions.evictIdleSessions(System.currentTimeMillis());
+            if(evicted > 0){ LOGGER.info(EVICTED_SESSIONS + evicted); }
+        }, EVICTION_PERIOD, EVICTION_PERIOD, TimeUnit.MILLISECONDS);
     }
 
     @Override
-    public void receiveMessage(Message message, RMIReceiverInterface sender){
+    public String openSession(RMIReceiverInterface client) {
+        return sessions.open(client, getClientAddress(), RMIClientProxy::new, System.currentTimeMillis());
+    }
 
-        if(!map.containsKey(sender)){
-            map.put(sender,new RMIClientProxy(this,sender));
+    @Override
+    public boolean receiveMessage(EncodedMessage message, String sessionToken) throws NetworkingException {
+        RMIClientProxy sender = sessions.touch(sessionToken, System.currentTimeMillis());
+        String address = sessions.getAddress(sessionToken);
+        if(sender == null || address == null){ return false; }
+
+        //a dropped message is not decoded at all; it counts as received, so the client doesn't send it again
+        if(admission.allowMessage(sessionToken, address)){
+            server.handleInBoundMessage(message.decode(), sender);
+        } else if(admission.startThrottling(sessionToken)){
+            try {
+                sender.receiveMessage(new Message(ViewBoundMessageType.ERROR_MESSAGE, AdmissionControl.MESSAGES_DROPPED));
+            } catch (NetworkingException e) {
+                //the client can't be reached: its session is closed when idle
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the address of the client of the remote call being served
+     *
+     * @return the address of the client
+     */
+    private static String getClientAddress() {
+        try {
+            return getClientHost();
+        } catch (ServerNotActiveException e) {
+            return UNKNOWN_ADDRESS;
         }
+    }
 
-        server.handleInBoundMessage(message,map.get(sender));
+    @Override
+    public void closeSession(String sessionToken) {
+        sessions.close(sessionToken);
     }
 
     @Override
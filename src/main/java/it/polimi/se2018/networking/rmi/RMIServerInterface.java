@@ -0,0 +1,44 @@
+package it.polimi.se2018.networking.rmi;
+
+import it.polimi.se2018.networking.EncodedMessage;
+import it.polimi.se2018.networking.NetworkingException;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Interface of the RMI server. Clients open a session giving their exported receiver,
+ * then send their messages with the token of the session.
+ *
+ * @author Federico Haag
+ */
+public interface RMIServerInterface extends Remote {
+
+    /**
+     * Opens a session for the given client. If the client has already an open session, its token is returned.
+     * @param client the exported receiver of the client, used to send it messages
+     * @return the token of the session, null if the server doesn't admit new sessions
+     * @throws RemoteException if something opening the session went wrong due to connection problems
+     */
+    String openSession(RMIReceiverInterface client) throws RemoteException;
+
+    /**
+     * Receives a message sent in the given session.
+     * The message is already serialized, so that RMI marshals it as a plain array of bytes.
+     * @param message the encoded message received
+     * @param sessionToken the token of the session of the sender
+     * @return true if the message was received, even if it was dropped as over the rate of the client,
+     * false if the session is not open (e.g. it was closed for inactivity)
+     * and the client has to open a new one
+     * @throws NetworkingException if something receiving message went wrong due to connection problems
+     * @throws RemoteException if something receiving message went wrong due to connection problems
+     */
+    boolean receiveMessage(EncodedMessage message, String sessionToken) throws RemoteException, NetworkingException;
+
+    /**
+     * Closes the given session. Nothing happens if the session is not open.
+     * @param sessionToken the token of the session
+     * @throws RemoteException if something closing the session went wrong due to connection problems
+     */
+    void closeSession(String sessionToken) throws RemoteException;
+}
@@ -0,0 +1,290 @@
+package it.polimi.se2018.networking.rmi;
+
+import it.polimi.se2018.networking.AdmissionControl;
+import it.polimi.se2018.networking.ServerInterface;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Registry of the sessions of the RMI clients, safe to be used by the concurrent threads of RMI.
+ *
+ * Each session is identified by a random token issued by the server and keeps the proxy of its client,
+ * so a message is matched to its sender by a lookup of the token, without calling the remote stub.
+ * The stub is only used when a session is opened, to give the same session to a client asking twice.
+ * Sessions are closed explicitly by their client or, if no message is received for a while, by
+ * {@link RMISessionRegistry#evictIdleSessions(long)}, so the stubs of clients gone away are not kept forever.
+ * The server is told of each closed session as of a lost connection. The proxy of an evicted session is kept
+ * for a while: if its client opens a session again, it gets the same proxy, so the server still knows who it is
+ * and is told that the connection was restored.
+ * Each open session counts as a connection of the admission control, so new sessions over its caps are refused.
+ *
+ * @author Federico Haag
+ */
+final class RMISessionRegistry {
+
+    /**
+     * Number of random bytes of a token
+     */
+    private static final int TOKEN_BYTES = 16;
+
+    /**
+     * Digits of a token
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Source of the tokens
+     */
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Milliseconds without messages after which a session is closed
+     */
+    private final long idleTimeout;
+
+    /**
+     * Milliseconds after the eviction of a session during which its client can get its proxy back
+     */
+    private final long resumeTimeout;
+
+    /**
+     * The server told of the lost and restored connections
+     */
+    private final ServerInterface server;
+
+    /**
+     * Admission control of the sessions
+     */
+    private final AdmissionControl admission;
+
+    /**
+     * Open sessions by their token
+     */
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Tokens of the open sessions by the stub of their client
+     */
+    private final Map<RMIReceiverInterface, String> tokens = new ConcurrentHashMap<>();
+
+    /**
+     * Evicted sessions whose client can still get its proxy back, by the stub of their client
+     */
+    private final Map<RMIReceiverInterface, Session> evicted = new ConcurrentHashMap<>();
+
+    /**
+     * An open session
+     */
+    private static final class Session {
+
+        /**
+         * Stub of the client
+         */
+        private final RMIReceiverInterface client;
+
+        /**
+         * Proxy of the client
+         */
+        private final RMIClientProxy proxy;
+
+        /**
+         * Address of the client
+         */
+        private final String address;
+
+        /**
+         * Milliseconds of the last message received in the session, or of its eviction once evicted
+         */
+        private volatile long lastSeen;
+
+        /**
+         * Constructor of the session
+         *
+         * @param client stub of the client
+         * @param proxy proxy of the client
+         * @param address address of the client
+         * @param now current time in milliseconds
+         */
+        Session(RMIReceiverInterface client, RMIClientProxy proxy, String address, long now) {
+            this.client = client;
+            this.proxy = proxy;
+            this.address = address;
+            this.lastSeen = now;
+        }
+    }
+
+    /**
+     * Constructor of the registry
+     *
+     * @param idleTimeout milliseconds without messages after which a session is closed
+     * @param resumeTimeout milliseconds after the eviction of a session during which its client can get its proxy back
+     * @param admission admission control of the sessions
+     * @param server the server told of the lost and restored connections
+     */
+    RMISessionRegistry(long idleTimeout, long resumeTimeout, AdmissionControl admission, ServerInterface server) {
+        this.idleTimeout = idleTimeout;
+        this.resumeTimeout = resumeTimeout;
+        this.admission = admission;
+        this.server = server;
+    }
+
+    /**
+     * Opens a session for the given client, or returns the token of its open session.
+     * A client whose session was evicted gets its previous proxy back.
+     *
+     * @param client stub of the client
+     * @param address address of the client
+     * @param proxyFactory creates the proxy of the client
+     * @param now current time in milliseconds
+     * @return the token of the session, null if a new session is refused by the admission control
+     */
+    String open(RMIReceiverInterface client, String address,
+                Function<RMIReceiverInterface, RMIClientProxy> proxyFactory, long now) {
+        RMIClientProxy[] restored = {null};
+        String openToken = tokens.compute(client, (stub, token) -> {
+            Session session = (token == null) ? null : sessions.get(token);
+            if (session != null) {
+                session.lastSeen = now;
+                return token;
+            }
+            if (!admission.admit(address)) { return null; }
+            Session previous = evicted.remove(stub);
+            RMIClientProxy proxy = (previous == null) ? proxyFactory.apply(stub) : previous.proxy;
+            String newToken = newToken();
+            sessions.put(newToken, new Session(stub, proxy, address, now));
+            restored[0] = (previous == null) ? null : proxy;
+            return newToken;
+        });
+        //the server is called out of the registry, so that it doesn't wait on a client opening a session
+        if (restored[0] != null) {
+            server.restoredSocketConnection(restored[0], restored[0]);
+        }
+        return openToken;
+    }
+
+    /**
+     * Returns the address of the client of the given session
+     *
+     * @param token the token of the session
+     * @return the address of the client, or null if the session is not open
+     */
+    String getAddress(String token) {
+        if (token == null) { return null; }
+        Session session = sessions.get(token);
+        return (session == null) ? null : session.address;
+    }
+
+    /**
+     * Returns the proxy of the client of the given session, marking the session as active
+     *
+     * @param token the token of the session
+     * @param now current time in milliseconds
+     * @return the proxy of the client, or null if the session is not open
+     */
+    RMIClientProxy touch(String token, long now) {
+        if (token == null) { return null; }
+        Session session = sessions.get(token);
+        if (session == null) { return null; }
+        session.lastSeen = now;
+        return session.proxy;
+    }
+
+    /**
+     * Closes the given session and tells the server that its client is gone. Nothing happens if the session is not open.
+     *
+     * @param token the token of the session
+     * @return true if the session was open
+     */
+    boolean close(String token) {
+        if (token == null) { return false; }
+        Session session = sessions.remove(token);
+        if (session == null) { return false; }
+        tokens.remove(session.client, token);
+        released(token, session);
+        server.lostSocketConnection(session.proxy);
+        return true;
+    }
+
+    /**
+     * Releases the admission of a closed session
+     *
+     * @param token the token of the session
+     * @param session the closed session
+     */
+    private void released(String token, Session session) {
+        admission.forgetSession(token);
+        admission.release(session.address);
+    }
+
+    /**
+     * Closes the sessions that received no message for longer than the idle timeout, telling the server that
+     * their clients are gone, and forgets the evicted sessions that can't be resumed anymore
+     *
+     * @param now current time in milliseconds
+     * @return the number of closed sessions
+     */
+    int evictIdleSessions(long now) {
+        evicted.values().removeIf(session -> now - session.lastSeen > resumeTimeout);
+
+        int evictedSessions = 0;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            if (now - session.lastSeen > idleTimeout && evict(entry.getKey(), session, now)) {
+                released(entry.getKey(), session);
+                server.lostSocketConnection(session.proxy);
+                evictedSessions++;
+            }
+        }
+        return evictedSessions;
+    }
+
+    /**
+     * Evicts the given session, keeping it to be resumed by its client. The session is evicted under the lock
+     * of the stub of its client, so that the client can't open a session meanwhile.
+     *
+     * @param token the token of the session
+     * @param session the session to evict
+     * @param now current time in milliseconds
+     * @return true if the session was evicted, false if it was closed meanwhile
+     */
+    private boolean evict(String token, Session session, long now) {
+        boolean[] removed = {false};
+        tokens.compute(session.client, (stub, openToken) -> {
+            //removed only if not closed meanwhile, so that its admission is released once
+            if (!sessions.remove(token, session)) { return openToken; }
+            removed[0] = true;
+            session.lastSeen = now;
+            evicted.put(stub, session);
+            return token.equals(openToken) ? null : openToken;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Returns the number of open sessions
+     *
+     * @return the number of open sessions
+     */
+    int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Creates a new random token
+     *
+     * @return a new random token
+     */
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        char[] token = new char[TOKEN_BYTES * 2];
+        for (int i = 0; i < TOKEN_BYTES; i++) {
+            token[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            token[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(token);
+    }
+}
@@ -0,0 +1,85 @@
+package it.polimi.se2018.networking.socket;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of byte buffers of the same size, shared by the connections reading frames.
+ *
+ * Buffers are reused instead of being allocated for each frame. A request bigger than the buffers
+ * of the pool is served by a new buffer, that is not kept once released.
+ *
+ * @author Federico Haag
+ */
+final class BufferPool {
+
+    /**
+     * Capacity of the buffers of the pool
+     */
+    private final int bufferSize;
+
+    /**
+     * Maximum number of idle buffers kept by the pool
+     */
+    private final int maxIdleBuffers;
+
+    /**
+     * Idle buffers
+     */
+    private final Queue<ByteBuffer> idleBuffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of idle buffers
+     */
+    private final AtomicInteger numberOfIdleBuffers = new AtomicInteger();
+
+    /**
+     * Constructor of the pool
+     *
+     * @param bufferSize capacity of the buffers of the pool
+     * @param maxIdleBuffers maximum number of idle buffers kept by the pool
+     */
+    BufferPool(int bufferSize, int maxIdleBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxIdleBuffers = maxIdleBuffers;
+    }
+
+    /**
+     * Returns a buffer of at least the given capacity, backed by an array. Its limit is set to the given size.
+     *
+     * @param size the number of bytes needed
+     * @return a buffer with the given number of bytes between its position and its limit
+     */
+    ByteBuffer acquire(int size) {
+        ByteBuffer buffer;
+        if (size <= bufferSize) {
+            buffer = idleBuffers.poll();
+            if (buffer != null) {
+                numberOfIdleBuffers.decrementAndGet();
+            } else {
+                buffer = ByteBuffer.allocate(bufferSize);
+            }
+        } else {
+            buffer = ByteBuffer.allocate(size);
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Gives back a buffer obtained from {@link BufferPool#acquire(int)}. The buffer must not be used anymore.
+     *
+     * @param buffer the buffer to give back
+     */
+    void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize) { return; }
+        if (numberOfIdleBuffers.incrementAndGet() <= maxIdleBuffers) {
+            idleBuffers.offer(buffer);
+        } else {
+            numberOfIdleBuffers.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package it.polimi.se2018.networking.socket;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Compression of the frames of the socket protocol.
+ *
+ * Right after connecting, the client offers the compression it supports in a {@link FrameWriter#HELLO} frame
+ * and the server answers with the compression it accepts; from then on both of them compress with Deflate the
+ * messages bigger than {@link Compression#THRESHOLD}. Messages are serialized objects of few classes, so
+ * Deflate starts from a preset dictionary of the names and of the serialized messages of a sample game,
+ * built by {@link DictionaryBuilder} and shipped as a resource. Its checksum is part of the offer: a peer with
+ * a different dictionary, or with none, is answered with no compression.
+ *
+ * @author Federico Haag
+ */
+final class Compression {
+
+    /**
+     * Flag of the offer: no compression
+     */
+    static final byte NONE = 0;
+
+    /**
+     * Flag of the offer: Deflate with the preset dictionary
+     */
+    static final byte DEFLATE = 1;
+
+    /**
+     * Number of bytes of a message under which it is not compressed
+     */
+    static final int THRESHOLD = 1024;
+
+    /**
+     * A compressed message must be smaller than its message by at least this fraction of it (one eighth),
+     * or it is sent as it is: a smaller saving is not worth inflating it on the other side
+     */
+    static final int MIN_SAVING_FRACTION = 8;
+
+    /**
+     * Maximum number of bytes of the dictionary: Deflate doesn't look back further than this
+     */
+    static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    /**
+     * Path of the resource of the preset dictionary, built by {@link DictionaryBuilder}
+     */
+    static final String DICTIONARY_PATH = "networking/compression-dictionary";
+
+    /**
+     * String logged when the preset dictionary can't be loaded
+     */
+    private static final String NO_DICTIONARY = "Compression disabled, can't load its dictionary: ";
+
+    /**
+     * String logged when the preset dictionary is too big
+     */
+    private static final String DICTIONARY_TOO_BIG = "Dictionary bigger than the window of Deflate: ";
+
+    /**
+     * Logger of the compression
+     */
+    private static final Logger LOGGER = Logger.getLogger(Compression.class.getName());
+
+    /**
+     * The preset dictionary
+     */
+    private static final byte[] DICTIONARY = loadDictionary();
+
+    /**
+     * Checksum of the preset dictionary
+     */
+    private static final int DICTIONARY_CHECKSUM = checksum(DICTIONARY);
+
+    /**
+     * Private constructor, as only static methods are given
+     */
+    private Compression() {}
+
+    /**
+     * Returns the preset dictionary
+     *
+     * @return the preset dictionary, that must not be changed
+     */
+    static byte[] getDictionary() {
+        return DICTIONARY;
+    }
+
+    /**
+     * Returns the checksum of the preset dictionary, sent with the offer
+     *
+     * @return the checksum of the preset dictionary
+     */
+    static int getDictionaryChecksum() {
+        return DICTIONARY_CHECKSUM;
+    }
+
+    /**
+     * Returns the compression accepted for the given offer
+     *
+     * @param offer the flags of the offered compression
+     * @param dictionaryChecksum the checksum of the dictionary of the peer
+     * @return the flags of the accepted compression
+     */
+    static byte accept(byte offer, int dictionaryChecksum) {
+        boolean sameDictionary = DICTIONARY.length > 0 && dictionaryChecksum == DICTIONARY_CHECKSUM;
+        return ((offer & DEFLATE) != 0 && sameDictionary) ? DEFLATE : NONE;
+    }
+
+    /**
+     * Loads the preset dictionary shipped with the application
+     *
+     * @return the preset dictionary, empty if it can't be loaded
+     */
+    private static byte[] loadDictionary() {
+        try (InputStream input = Compression.class.getClassLoader().getResourceAsStream(DICTIONARY_PATH)) {
+            if (input == null) { throw new IOException(DICTIONARY_PATH); }
+            ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) > 0 && dictionary.size() <= MAX_DICTIONARY_SIZE) {
+                dictionary.write(buffer, 0, count);
+            }
+            if (dictionary.size() > MAX_DICTIONARY_SIZE) { throw new IOException(DICTIONARY_TOO_BIG + DICTIONARY_PATH); }
+            return dictionary.toByteArray();
+        } catch (IOException e) {
+            LOGGER.warning(NO_DICTIONARY + e.getMessage());
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Returns the checksum of the given bytes
+     *
+     * @param bytes the bytes
+     * @return the checksum of the given bytes
+     */
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,290 @@
+package it.polimi.se2018.networking.socket;
+
+import it.polimi.se2018.controller.*;
+import it.polimi.se2018.model.*;
+import it.polimi.se2018.networking.EncodedMessage;
+import it.polimi.se2018.networking.NetworkingException;
+import it.polimi.se2018.utils.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Builder of the preset dictionary of the {@link Compression} of the socket protocol.
+ *
+ * The dictionary is made of the names of the classes that are sent, of their fields and of the values
+ * of the enums that are sent, followed by the serialized messages of the beginning of a sample game. These carry
+ * what the names alone miss: the class descriptors written by Java serialization, with the type signatures of
+ * the fields, and the texts of the cards and of the window patterns. The sample game draws its cards, patterns
+ * and dices as the controller does, from a fixed seed, so the dictionary is always built the same.
+ *
+ * The dictionary is not built at runtime: client and server load the one shipped with them, that is built
+ * by running this class and saved as the resource {@link Compression#DICTIONARY_PATH}. It has to be built again
+ * when the sent classes change; peers shipping different dictionaries just don't compress.
+ *
+ * @author Federico Haag
+ */
+final class DictionaryBuilder {
+
+    /**
+     * String logged when the path of the dictionary is missing
+     */
+    private static final String PATH_IS_COMPULSORY = "The path where the dictionary is written is compulsory";
+
+    /**
+     * String logged when the dictionary is written
+     */
+    private static final String DICTIONARY_WRITTEN = "Compression dictionary written, bytes: ";
+
+    /**
+     * String logged when the dictionary can't be built or written
+     */
+    private static final String DICTIONARY_NOT_WRITTEN = "Compression dictionary not written: ";
+
+    /**
+     * Seed of the sample game
+     */
+    private static final long SAMPLE_SEED = 2018;
+
+    /**
+     * Number of players of the sample game
+     */
+    private static final int SAMPLE_PLAYERS = 4;
+
+    /**
+     * Number of rounds of the sample game
+     */
+    private static final int SAMPLE_ROUNDS = 10;
+
+    /**
+     * Number of toolCards and of public objective cards of the sample game
+     */
+    private static final int SAMPLE_CARDS = 3;
+
+    /**
+     * Number of couples of window patterns offered to each player of the sample game
+     */
+    private static final int SAMPLE_COUPLES_OF_PATTERNS = 2;
+
+    /**
+     * Number of dices of each color in the dice bag of the sample game
+     */
+    private static final int SAMPLE_DICES_PER_COLOR = 18;
+
+    /**
+     * Prefix of the nicknames of the players of the sample game
+     */
+    private static final String SAMPLE_NICKNAME = "player";
+
+    /**
+     * Logger of the builder
+     */
+    private static final Logger LOGGER = Logger.getLogger(DictionaryBuilder.class.getName());
+
+    /**
+     * Classes whose instances are sent in messages, from the least frequent
+     */
+    private static final Class<?>[] SENT_CLASSES = {
+            RankingRecord.class, PrivateObjectiveCard.class, RowsColumnsPublicObjectiveCard.class,
+            SetPublicObjectiveCard.class, DiagonalsPublicObjectiveCard.class, PublicObjectiveCard.class,
+            ObjectiveCard.class, ToolCard.class, TrackSlot.class, Track.class, WindowPattern.class,
+            Message.class, Cell.class, Dice.class
+    };
+
+    /**
+     * Enums whose values are sent in messages, from the least frequent
+     */
+    private static final Class<?>[] SENT_ENUMS = {
+            Move.class, ViewBoundMessageType.class, DiceColor.class
+    };
+
+    /**
+     * Other names found in the serialized messages
+     */
+    private static final String[] SENT_NAMES = {
+            "java.util.Collections$UnmodifiableSet", "java.util.Collections$UnmodifiableMap",
+            "java.util.Collections$UnmodifiableRandomAccessList", "java.util.LinkedHashMap",
+            "java.util.EnumSet", "java.util.RegularEnumSet", "java.util.HashSet", "java.lang.Boolean",
+            "java.lang.Number", "java.lang.Integer", "java.lang.Enum", "java.util.ArrayList",
+            "java.util.HashMap", "java.lang.String", "java.lang.Object",
+            "globalRankings", "rankings", "winnerPlayerID", "drawnPublicObjectiveCards", "drawnToolCards",
+            "privateObjectiveCard", "yourWindowPattern", "favourTokens", "players", "windowPatterns",
+            "whoIsPlaying", "currentPlayer", "draftPoolDices", "windowPattern", "images/"
+    };
+
+    /**
+     * Private constructor, as only static methods are given
+     */
+    private DictionaryBuilder() {}
+
+    /**
+     * Builds the dictionary and writes it to the given path
+     *
+     * @param args the path where the dictionary is written, usually the resource {@link Compression#DICTIONARY_PATH}
+     *             in the resources of the sources
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            LOGGER.info(PATH_IS_COMPULSORY);
+            return;
+        }
+        try (OutputStream out = new FileOutputStream(args[0])) {
+            byte[] dictionary = buildDictionary();
+            out.write(dictionary);
+            LOGGER.info(DICTIONARY_WRITTEN + dictionary.length);
+        } catch (IOException | NetworkingException e) {
+            LOGGER.severe(DICTIONARY_NOT_WRITTEN + e);
+        }
+    }
+
+    /**
+     * Builds the preset dictionary. Names and messages that are more frequent are at the end, where Deflate finds
+     * them with shorter distances; if the dictionary is too long, only its end is kept.
+     *
+     * @return the preset dictionary
+     * @throws IOException if a sample message can't be written
+     * @throws NetworkingException if a sample message can't be encoded
+     */
+    static byte[] buildDictionary() throws IOException, NetworkingException {
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+        appendNames(dictionary);
+        for (EncodedMessage sample : encodedSampleMessages()) {
+            sample.writeTo(dictionary);
+        }
+
+        byte[] bytes = dictionary.toByteArray();
+        int maxSize = Compression.MAX_DICTIONARY_SIZE;
+        if (bytes.length <= maxSize) { return bytes; }
+        return Arrays.copyOfRange(bytes, bytes.length - maxSize, bytes.length);
+    }
+
+    /**
+     * Appends to the dictionary the names of the sent classes, of their fields and of the values of the sent enums
+     *
+     * @param dictionary the dictionary
+     */
+    private static void appendNames(ByteArrayOutputStream dictionary) {
+        for (String name : SENT_NAMES) {
+            append(dictionary, name);
+        }
+        for (Class<?> sentEnum : SENT_ENUMS) {
+            append(dictionary, sentEnum.getName());
+            for (Object value : sentEnum.getEnumConstants()) {
+                append(dictionary, ((Enum<?>) value).name());
+            }
+        }
+        for (Class<?> sentClass : SENT_CLASSES) {
+            append(dictionary, sentClass.getName());
+            //fields are sorted as the order given by reflection is not specified
+            SortedSet<String> fields = new TreeSet<>();
+            for (Field field : sentClass.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    fields.add(field.getName());
+                }
+            }
+            for (String field : fields) {
+                append(dictionary, field);
+            }
+        }
+    }
+
+    /**
+     * Encodes the messages of the sample game, from the least frequent: the window patterns offered to a player,
+     * the setup of the game as a player receives it, and a change of a window pattern.
+     *
+     * @return the encoded messages of the sample game
+     * @throws NetworkingException if a message can't be encoded
+     */
+    private static List<EncodedMessage> encodedSampleMessages() throws NetworkingException {
+        Random random = new Random(SAMPLE_SEED);
+        ObjectiveCardManager objectiveCardManager = new ObjectiveCardManager(random);
+        WindowPatternManager windowPatternManager = new WindowPatternManager(random);
+        ToolCardManager toolCardManager = new ToolCardManager(PlacementRule.getDefault(), random);
+        DiceBag diceBag = new DiceBag(SAMPLE_DICES_PER_COLOR, random);
+
+        Game game = new Game(SAMPLE_ROUNDS, SAMPLE_PLAYERS);
+        game.setCards(toolCardManager.getRandomToolCards(SAMPLE_CARDS),
+                objectiveCardManager.getPublicObjectiveCards(SAMPLE_CARDS));
+
+        Message distribution = null;
+        List<List<WindowPattern>> offeredPatterns = new ArrayList<>();
+        for (int i = 0; i < SAMPLE_PLAYERS; i++) {
+            Player player = new Player(SAMPLE_NICKNAME + i, objectiveCardManager.getPrivateObjectiveCard());
+            game.addPlayer(player);
+
+            //patterns are sorted, as the order of the returned set changes from a run to another
+            List<WindowPattern> patterns = new ArrayList<>(windowPatternManager.getPairsOfPatterns(SAMPLE_COUPLES_OF_PATTERNS));
+            patterns.sort(Comparator.comparing(WindowPattern::getID));
+            offeredPatterns.add(patterns);
+
+            HashMap<String, Object> params = new HashMap<>();
+            params.put("windowPatterns", new ArrayList<>(patterns));
+            params.put("privateObjectiveCard", player.getPrivateObjectiveCard());
+            distribution = new Message(ViewBoundMessageType.DISTRIBUTION_OF_WINDOW_PATTERNS, params, player.getID());
+        }
+
+        game.setStatusAsWaitingForPatternsChoice();
+        List<Player> players = game.getPlayers();
+        for (int i = 0; i < SAMPLE_PLAYERS; i++) {
+            game.assignWindowPatternToPlayer(offeredPatterns.get(i).get(0), players.get(i).getID());
+        }
+
+        List<Message> notifications = new ArrayList<>();
+        game.register(notifications::add);
+        game.startGame(diceBag.getDices(SAMPLE_PLAYERS * 2 + 1),
+                EnumSet.of(Move.DRAFT_DICE_FROM_DRAFTPOOL, Move.USE_TOOLCARD, Move.END_TURN));
+
+        //the setup is sent to each player in a batch, together with the public notifications
+        Player firstPlayer = players.get(0);
+        List<Message> setup = new ArrayList<>();
+        for (Message notification : notifications) {
+            if (notification.getPlayerID() == null || notification.getPlayerID().equals(firstPlayer.getID())) {
+                setup.add(notification);
+            }
+        }
+
+        notifications.clear();
+        placeFirstDice(firstPlayer.getWindowPattern(), diceBag.getDices(1).get(0));
+
+        List<EncodedMessage> samples = new ArrayList<>();
+        samples.add(EncodedMessage.encode(distribution));
+        samples.add(EncodedMessage.encode(Message.batch(setup, firstPlayer.getID())));
+        for (Message notification : notifications) {
+            samples.add(EncodedMessage.encode(notification));
+        }
+        return samples;
+    }
+
+    /**
+     * Places the given dice on the first cell of the window pattern that allows it
+     *
+     * @param windowPattern the window pattern
+     * @param dice the dice to place
+     */
+    private static void placeFirstDice(WindowPattern windowPattern, Dice dice) {
+        for (int row = 0; row < windowPattern.getNumberOfRows(); row++) {
+            for (int col = 0; col < windowPattern.getNumberOfColumns(); col++) {
+                if (windowPattern.putDiceOnCell(dice, row, col)) { return; }
+            }
+        }
+    }
+
+    /**
+     * Appends a name to the dictionary
+     *
+     * @param dictionary the dictionary
+     * @param name the name to append
+     */
+    private static void append(ByteArrayOutputStream dictionary, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        dictionary.write(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,293 @@
+package it.polimi.se2018.networking.socket;
+
+import it.polimi.se2018.networking.EncodedMessage;
+import it.polimi.se2018.networking.NetworkingException;
+import it.polimi.se2018.utils.Message;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reader of the frames of the socket protocol.
+ *
+ * Bodies are read into buffers of a shared pool and decoded directly from them. As the length of each frame
+ * is known before its body is read, a frame that is too big, of an unknown type or not decodable is skipped,
+ * and the following frames are read as usual: a bad frame doesn't tear down the connection.
+ * Only a header that can't be the header of a frame closes the connection, as the stream can't be followed anymore.
+ *
+ * Hello frames are not returned as messages: the compression accepted for the offer they carry is given to
+ * the hello listener of the reader. Compressed messages are always understood, whatever was negotiated.
+ *
+ * @author Federico Haag
+ * @see FrameWriter
+ */
+final class FrameReader {
+
+    /**
+     * String used as message of StreamCorruptedException when the length of a frame is not valid
+     */
+    private static final String BAD_FRAME_LENGTH = "Bad frame length: ";
+
+    /**
+     * String logged when a frame is skipped
+     */
+    private static final String SKIPPED_FRAME = "Skipped received frame: ";
+
+    /**
+     * Reason of skipping a frame too big
+     */
+    private static final String TOO_BIG = "too big, bytes ";
+
+    /**
+     * Reason of skipping a frame of unknown type
+     */
+    private static final String UNKNOWN_TYPE = "unknown type ";
+
+    /**
+     * Reason of skipping a frame whose body can't be decoded
+     */
+    private static final String NOT_DECODABLE = "not decodable";
+
+    /**
+     * Reason of skipping a hello frame of the wrong length
+     */
+    private static final String BAD_HELLO = "bad hello, bytes ";
+
+    /**
+     * Length over which a header is considered garbage instead of a frame to be skipped
+     */
+    private static final int MAX_SKIPPABLE_FRAME_SIZE = 16 * FrameWriter.MAX_FRAME_SIZE;
+
+    /**
+     * Number of bytes of the buffers of the pool
+     */
+    private static final int POOLED_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum number of idle buffers kept by the pool
+     */
+    private static final int MAX_IDLE_BUFFERS = 32;
+
+    /**
+     * Pool of the buffers of all the readers
+     */
+    private static final BufferPool BUFFERS = new BufferPool(POOLED_BUFFER_SIZE, MAX_IDLE_BUFFERS);
+
+    /**
+     * Logger of the reader
+     */
+    private static final Logger LOGGER = Logger.getLogger(FrameReader.class.getName());
+
+    /**
+     * Stream of the socket
+     */
+    private final DataInputStream in;
+
+    /**
+     * Listener of the compression accepted for the offers received in hello frames
+     */
+    private final IntConsumer helloListener;
+
+    /**
+     * Decompressor of the messages, created when the first compressed message is received
+     */
+    private Inflater inflater = null;
+
+    /**
+     * Number of frames skipped
+     */
+    private long skippedFrames = 0;
+
+    /**
+     * Constructor of the reader
+     *
+     * @param in stream of the socket
+     * @param helloListener listener of the compression accepted for the offers received in hello frames
+     */
+    FrameReader(InputStream in, IntConsumer helloListener) {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        this.helloListener = helloListener;
+    }
+
+    /**
+     * Reads the next message, skipping any bad frame before it and handling any hello frame
+     *
+     * @return the next message
+     * @throws EOFException if the connection is closed
+     * @throws StreamCorruptedException if a header can't be the header of a frame
+     * @throws IOException if the socket can't be read
+     */
+    Message read() throws IOException {
+        while (true) {
+            int length = in.readInt();
+            byte type = in.readByte();
+            if (length < 0 || length > MAX_SKIPPABLE_FRAME_SIZE) {
+                throw new StreamCorruptedException(BAD_FRAME_LENGTH + length);
+            }
+
+            if (length > FrameWriter.MAX_FRAME_SIZE) {
+                skip(length, TOO_BIG + length);
+            } else if (type == FrameWriter.MESSAGE) {
+                Message message = readMessage(length);
+                if (message != null) { return message; }
+            } else if (type == FrameWriter.COMPRESSED_MESSAGE) {
+                Message message = readCompressedMessage(length);
+                if (message != null) { return message; }
+            } else if (type == FrameWriter.HELLO) {
+                readHello(length);
+            } else {
+                skip(length, UNKNOWN_TYPE + type);
+            }
+        }
+    }
+
+    /**
+     * Reads and decodes the body of a message frame
+     *
+     * @param length number of bytes of the body
+     * @return the decoded message, null if the body is not a message
+     * @throws IOException if the socket can't be read
+     */
+    private Message readMessage(int length) throws IOException {
+        ByteBuffer buffer = BUFFERS.acquire(length);
+        try {
+            in.readFully(buffer.array(), buffer.arrayOffset(), length);
+            return EncodedMessage.decode(buffer.array(), buffer.arrayOffset(), length);
+        } catch (NetworkingException e) {
+            skipped(NOT_DECODABLE);
+            return null;
+        } finally {
+            BUFFERS.release(buffer);
+        }
+    }
+
+    /**
+     * Reads and decompresses the body of a compressed message frame, then decodes it
+     *
+     * @param length number of bytes of the body
+     * @return the decoded message, null if the body is not a compressed message
+     * @throws IOException if the socket can't be read
+     */
+    private Message readCompressedMessage(int length) throws IOException {
+        if (length < FrameWriter.ORIGINAL_LENGTH_SIZE) {
+            skip(length, NOT_DECODABLE);
+            return null;
+        }
+        int originalLength = in.readInt();
+        int compressedLength = length - FrameWriter.ORIGINAL_LENGTH_SIZE;
+        if (originalLength < 0 || originalLength > FrameWriter.MAX_FRAME_SIZE) {
+            skip(compressedLength, TOO_BIG + originalLength);
+            return null;
+        }
+
+        ByteBuffer input = BUFFERS.acquire(compressedLength);
+        //one byte more than expected, to tell a message longer than declared
+        ByteBuffer output = BUFFERS.acquire(originalLength + 1);
+        try {
+            in.readFully(input.array(), input.arrayOffset(), compressedLength);
+            if (inflate(input, compressedLength, output) != originalLength) {
+                skipped(NOT_DECODABLE);
+                return null;
+            }
+            return EncodedMessage.decode(output.array(), output.arrayOffset(), originalLength);
+        } catch (DataFormatException | NetworkingException | IllegalArgumentException e) {
+            //a message compressed with another dictionary is refused by the inflater with IllegalArgumentException
+            skipped(NOT_DECODABLE);
+            return null;
+        } finally {
+            BUFFERS.release(output);
+            BUFFERS.release(input);
+        }
+    }
+
+    /**
+     * Decompresses a message compressed with the preset dictionary
+     *
+     * @param input buffer of the compressed message
+     * @param length number of bytes of the compressed message
+     * @param output buffer of the decompressed message, whose limit is the maximum number of bytes to decompress
+     * @return the number of bytes of the decompressed message, -1 if the compressed message is truncated or longer
+     * than the output buffer
+     * @throws DataFormatException if the compressed message is not valid
+     * @throws IllegalArgumentException if the message was compressed with another dictionary
+     */
+    private int inflate(ByteBuffer input, int length, ByteBuffer output) throws DataFormatException {
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        inflater.reset();
+        inflater.setInput(input.array(), input.arrayOffset(), length);
+
+        int capacity = output.limit();
+        int inflated = 0;
+        while (!inflater.finished()) {
+            int count = inflater.inflate(output.array(), output.arrayOffset() + inflated, capacity - inflated);
+            if (count == 0) {
+                if (!inflater.needsDictionary()) { return -1; }
+                inflater.setDictionary(Compression.getDictionary());
+            }
+            inflated += count;
+        }
+        return inflated;
+    }
+
+    /**
+     * Reads the body of a hello frame and gives the accepted compression to the hello listener
+     *
+     * @param length number of bytes of the body
+     * @throws IOException if the socket can't be read
+     */
+    private void readHello(int length) throws IOException {
+        if (length != FrameWriter.HELLO_SIZE) {
+            skip(length, BAD_HELLO + length);
+            return;
+        }
+        byte flags = in.readByte();
+        int dictionaryChecksum = in.readInt();
+        helloListener.accept(Compression.accept(flags, dictionaryChecksum));
+    }
+
+    /**
+     * Skips the body of a frame
+     *
+     * @param length number of bytes of the body
+     * @param reason why the frame is skipped
+     * @throws IOException if the socket can't be read
+     */
+    private void skip(int length, String reason) throws IOException {
+        int left = length;
+        while (left > 0) {
+            int skipped = in.skipBytes(left);
+            if (skipped <= 0) {
+                //skipBytes returns 0 both at the end of the stream and when no byte is available yet
+                in.readByte();
+                skipped = 1;
+            }
+            left -= skipped;
+        }
+        skipped(reason);
+    }
+
+    /**
+     * Counts and logs a skipped frame
+     *
+     * @param reason why the frame was skipped
+     */
+    private void skipped(String reason) {
+        skippedFrames++;
+        LOGGER.warning(SKIPPED_FRAME + reason);
+    }
+
+    /**
+     * Returns the number of frames skipped
+     *
+     * @return the number of frames skipped
+     */
+    long getSkippedFrames() {
+        return skippedFrames;
+    }
+}
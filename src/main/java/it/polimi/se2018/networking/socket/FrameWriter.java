@@ -0,0 +1,171 @@
+package it.polimi.se2018.networking.socket;
+
+import it.polimi.se2018.networking.EncodedMessage;
+import it.polimi.se2018.networking.NetworkingException;
+
+import java.io.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writer of the frames of the socket protocol.
+ *
+ * A frame is made of a header, the length of the body as a 4 bytes integer followed by a byte with the type
+ * of the frame, and then the body. The body of a {@link FrameWriter#MESSAGE} frame is an {@link EncodedMessage}:
+ * its bytes are written as they are, so a message encoded once is forwarded to any number of connections
+ * without being serialized again.
+ *
+ * Once compression is enabled, after the {@link FrameWriter#HELLO} frames are exchanged, messages bigger than
+ * {@link Compression#THRESHOLD} are sent as {@link FrameWriter#COMPRESSED_MESSAGE} frames, whose body is the
+ * length of the message as a 4 bytes integer followed by the message compressed with Deflate and the preset
+ * dictionary. A message that doesn't get smaller is sent as it is.
+ *
+ * @author Federico Haag
+ * @see FrameReader
+ */
+final class FrameWriter {
+
+    /**
+     * Type of the frames whose body is an encoded message
+     */
+    static final byte MESSAGE = 1;
+
+    /**
+     * Type of the frames offering or accepting compression. The body is a byte with the flags of the compression
+     * followed by the checksum of the preset dictionary as a 4 bytes integer.
+     */
+    static final byte HELLO = 2;
+
+    /**
+     * Type of the frames whose body is a compressed encoded message
+     */
+    static final byte COMPRESSED_MESSAGE = 3;
+
+    /**
+     * Number of bytes of the body of a hello frame
+     */
+    static final int HELLO_SIZE = 5;
+
+    /**
+     * Number of bytes of the length of the message at the beginning of a compressed message frame
+     */
+    static final int ORIGINAL_LENGTH_SIZE = 4;
+
+    /**
+     * Maximum number of bytes of the body of a frame that is handled
+     */
+    static final int MAX_FRAME_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * String used as message of NetworkingException when a message is too big to be sent in a frame
+     */
+    private static final String MESSAGE_TOO_BIG = "Message too big to be sent in a frame, bytes ";
+
+    /**
+     * Number of bytes buffered before writing to the socket
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+
+    /**
+     * Maximum number of bytes the buffer of the compressed messages keeps between two messages
+     */
+    static final int MAX_RETAINED_COMPRESSED_SIZE = 64 * 1024;
+
+    /**
+     * Stream of the socket
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Compressor of the messages, null until compression is enabled
+     */
+    private Deflater deflater = null;
+
+    /**
+     * Buffer of the last compressed message, reused by the next ones. It is replaced after a message bigger than
+     * {@link FrameWriter#MAX_RETAINED_COMPRESSED_SIZE}, so that a connection doesn't keep the size of its biggest message.
+     */
+    private ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+    /**
+     * Constructor of the writer
+     *
+     * @param out stream of the socket
+     */
+    FrameWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE));
+    }
+
+    /**
+     * Writes a message frame and flushes it to the socket
+     *
+     * @param message the encoded message
+     * @throws NetworkingException if the message is bigger than {@link FrameWriter#MAX_FRAME_SIZE}, as the peer
+     * would skip it; nothing is written in this case
+     * @throws IOException if the socket can't be written
+     */
+    synchronized void write(EncodedMessage message) throws IOException, NetworkingException {
+        if (message.size() > MAX_FRAME_SIZE) {
+            throw new NetworkingException(MESSAGE_TOO_BIG + message.size());
+        }
+        if (deflater != null && message.size() > Compression.THRESHOLD && compress(message)) {
+            out.writeInt(ORIGINAL_LENGTH_SIZE + compressed.size());
+            out.writeByte(COMPRESSED_MESSAGE);
+            out.writeInt(message.size());
+            compressed.writeTo(out);
+        } else {
+            out.writeInt(message.size());
+            out.writeByte(MESSAGE);
+            message.writeTo(out);
+        }
+        out.flush();
+
+        //also after a message sent as it is, as it was compressed anyway
+        if (compressed.size() > MAX_RETAINED_COMPRESSED_SIZE) {
+            compressed = new ByteArrayOutputStream();
+        }
+    }
+
+    /**
+     * Writes a hello frame and flushes it to the socket
+     *
+     * @param flags the flags of the offered or accepted compression
+     * @throws IOException if the socket can't be written
+     */
+    synchronized void writeHello(byte flags) throws IOException {
+        out.writeInt(HELLO_SIZE);
+        out.writeByte(HELLO);
+        out.writeByte(flags);
+        out.writeInt(Compression.getDictionaryChecksum());
+        out.flush();
+    }
+
+    /**
+     * Enables the compression of the messages bigger than {@link Compression#THRESHOLD}.
+     * To be called only once the peer accepted the compression.
+     */
+    synchronized void enableCompression() {
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+    }
+
+    /**
+     * Compresses a message into the buffer of the compressed messages
+     *
+     * @param message the encoded message
+     * @return true if the compressed message is smaller than the message by at least
+     * {@link Compression#MIN_SAVING_FRACTION} of it
+     * @throws IOException if the message can't be compressed
+     */
+    private boolean compress(EncodedMessage message) throws IOException {
+        deflater.reset();
+        deflater.setDictionary(Compression.getDictionary());
+        compressed.reset();
+        DeflaterOutputStream deflaterStream = new DeflaterOutputStream(compressed, deflater);
+        message.writeTo(deflaterStream);
+        deflaterStream.finish();
+        int minSaving = message.size() / Compression.MIN_SAVING_FRACTION;
+        return ORIGINAL_LENGTH_SIZE + compressed.size() <= message.size() - minSaving;
+    }
+}
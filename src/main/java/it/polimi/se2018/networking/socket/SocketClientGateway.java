@@ -4,8 +4,6 @@ import it.polimi.se2018.networking.*;
 import it.polimi.se2018.utils.Message;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
 
 /**
@@ -33,9 +31,9 @@ public final class SocketClientGateway extends Thread implements ClientInterface
     private static final String EXCEPTION_THROWN_OPENING_SOCKET_OR_READING_FROM_STREAM = "Exception thrown opening socket or reading from stream";
 
     /**
-     * Output stream for sending messages to server
+     * Writer of the frames sent to server
      */
-    private ObjectOutputStream out;
+    private volatile FrameWriter out;
 
     /**
      * The client that sends messages through this gateway
@@ -85,8 +83,7 @@ public final class SocketClientGateway extends Thread implements ClientInterface
         }
 
         try {
-            this.out.reset();
-            this.out.writeObject(message);
+            this.out.write(EncodedMessage.encode(message));
         } catch (IOException e) {
             throw new NetworkingException(FAILED_SENDING_MESSAGE);
         }
@@ -116,18 +113,19 @@ public final class SocketClientGateway extends Thread implements ClientInterface
         //noinspection InfiniteLoopStatement
         while(true){
             try (Socket echoSocket = new Socket(this.hostName, this.portNumber)) {
-                this.out = new ObjectOutputStream(echoSocket.getOutputStream());
-                this.out.flush();
-
-                ObjectInputStream in;
-                in = new ObjectInputStream(echoSocket.getInputStream());
+                FrameWriter writer = new FrameWriter(echoSocket.getOutputStream());
+                FrameReader in = new FrameReader(echoSocket.getInputStream(), accepted -> {
+                    if ((accepted & Compression.DEFLATE) != 0) { writer.enableCompression(); }
+                });
+                writer.writeHello(Compression.DEFLATE);
+                this.out = writer;
                 this.running = true;
 
                 this.client.setConnectionAvailable(true);
 
                 //noinspection InfiniteLoopStatement
                 while (true) {
-                    receiveMessage((Message) in.readObject(), null);
+                    receiveMessage(in.read(), null);
                 }
 
             } catch (Exception e) {
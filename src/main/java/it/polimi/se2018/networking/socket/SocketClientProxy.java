@@ -1,9 +1,8 @@
 package it.polimi.se2018.networking.socket;
 
 import it.polimi.se2018.networking.*;
-import it.polimi.se2018.utils.Message;
 
-import java.io.*;
+import java.io.IOException;
 
 /**
  * Proxy of a socket client.
@@ -18,22 +17,22 @@ public final class SocketClientProxy implements ClientProxyInterface {
     private static final String IOEXCEPTION_THROWN = "IOException thrown writing in socket stream during receiveMessage method call";
 
     /**
-     * Stream were to write to send a message to the former client
+     * Writer of the frames sent to the former client
      */
-    private ObjectOutputStream stream;
+    private final FrameWriter writer;
 
     /**
      * Constructor of the proxy
-     * @param stream the stream were to write to send a message to the former client
+     * @param writer the writer of the frames sent to the former client
      */
-    SocketClientProxy(ObjectOutputStream stream) {
-        this.stream = stream;
+    SocketClientProxy(FrameWriter writer) {
+        this.writer = writer;
     }
 
     @Override
-    public void receiveMessage(Message message) throws NetworkingException {
+    public void receiveMessage(EncodedMessage message) throws NetworkingException {
         try {
-            this.stream.writeObject(message);
+            this.writer.write(message);
         } catch (IOException e) {
             throw new NetworkingException(IOEXCEPTION_THROWN);
         }
@@ -1,7 +1,6 @@
 package it.polimi.se2018.networking.socket;
 
-import it.polimi.se2018.networking.ClientProxyInterface;
-import it.polimi.se2018.networking.ServerInterface;
+import it.polimi.se2018.networking.AdmissionControl;
 import it.polimi.se2018.networking.NetworkingException;
 import it.polimi.se2018.networking.Server;
 import it.polimi.se2018.utils.Message;
@@ -13,7 +12,7 @@ import it.polimi.se2018.utils.Message;
  * @author Federico Haag
  * @author Jacopo Pio Gargano
  */
-public final class SocketServerGateway implements SocketReceiverInterface, ServerInterface {
+public final class SocketServerGateway implements SocketReceiverInterface {
 
     /**
      * Remote client that receives messages
@@ -25,11 +24,12 @@ public final class SocketServerGateway implements SocketReceiverInterface, Serve
      *
      * @param portNumber port number on which the connection must be established
      * @param server remote client that receives messages
+     * @param admission admission control of the connections and of the received messages
      */
-    public SocketServerGateway(Integer portNumber, Server server) {
+    public SocketServerGateway(Integer portNumber, Server server, AdmissionControl admission) {
         this.server = server;
 
-        SocketServerGatherer socketServerGatherer = new SocketServerGatherer(portNumber,this);
+        SocketServerGatherer socketServerGatherer = new SocketServerGatherer(portNumber,this,server,admission);
         socketServerGatherer.start();
     }
 
@@ -51,14 +51,4 @@ public final class SocketServerGateway implements SocketReceiverInterface, Serve
     public void fail(String reason) {
         this.server.fail(reason);
     }
-
-    @Override
-    public void lostSocketConnection(ClientProxyInterface sender) {
-        this.server.lostSocketConnection(sender);
-    }
-
-    @Override
-    public void restoredSocketConnection(ClientProxyInterface previous, ClientProxyInterface next) {
-        this.server.restoredSocketConnection(previous,next);
-    }
 }
@@ -1,15 +1,22 @@
 package it.polimi.se2018.networking.socket;
 
+import it.polimi.se2018.networking.AdmissionControl;
+import it.polimi.se2018.networking.NetworkingException;
 import it.polimi.se2018.networking.ServerInterface;
 import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.ViewBoundMessageType;
 
-import java.io.*;
+import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Gatherer of new socket connections.
- * A thread is started for each new socket connection to read the input coming from it.
+ * A thread is started for each new socket connection to read the frames coming from it.
+ * Connections over the caps of the admission control are closed as soon as they are accepted,
+ * and the messages over the rate of their connection or address are dropped.
  *
  * @author Federico Haag
  * @author Jacopo Pio Gargano
@@ -22,15 +29,30 @@ public final class SocketServerGatherer extends Thread{
     private static final String ACCEPTING_CONNECTION_EXCEPTION = "Exception thrown accepting socket connections";
 
     /**
-     * String sent as content of fail() when something in reading from stream input goes wrong.
+     * String logged when a received message can't be handled
      */
-    private static final String READING_STREAM_EXCEPTION = "Exception thrown reading socket input stream";
+    private static final String HANDLING_MESSAGE_EXCEPTION = "Exception thrown handling the received message: ";
+
+    /**
+     * Logger of the gatherer
+     */
+    private static final Logger LOGGER = Logger.getLogger(SocketServerGatherer.class.getName());
 
     /**
      * The server that is connected to this gatherer.
      */
     private final SocketReceiverInterface receiver;
 
+    /**
+     * The server told of the lost connections
+     */
+    private final ServerInterface server;
+
+    /**
+     * Admission control of the connections and of the received messages
+     */
+    private final AdmissionControl admission;
+
     /**
      * Port number on which the socket connection is opened
      */
@@ -40,9 +62,13 @@ public final class SocketServerGatherer extends Thread{
      * Constructor for this class
      * @param portNumber port number on which the socket connection is opened
      * @param receiver the server that is connected to this gatherer
+     * @param server the server told of the lost connections
+     * @param admission admission control of the connections and of the received messages
      */
-    SocketServerGatherer(Integer portNumber, SocketReceiverInterface receiver) {
+    SocketServerGatherer(Integer portNumber, SocketReceiverInterface receiver, ServerInterface server, AdmissionControl admission) {
         this.receiver = receiver;
+        this.server = server;
+        this.admission = admission;
         this.portNumber = portNumber;
     }
 
@@ -70,70 +96,125 @@ public final class SocketServerGatherer extends Thread{
      */
     private void acceptConnection(ServerSocket socket) throws IOException{
         Socket clientSocket = socket.accept();
-
-        ObjectOutputStream outputStream = new ObjectOutputStream(clientSocket.getOutputStream());
-        outputStream.flush();
+        String address = clientSocket.getInetAddress().getHostAddress();
+        if(!admission.admit(address)){
+            try {
+                clientSocket.close();
+            } catch (IOException e) {
+                //the rejected socket is already unusable
+            }
+            return;
+        }
 
         //Starts a thread listening for messages
-        new ConnectionFixer(clientSocket,outputStream).start();
+        new ConnectionReader(clientSocket, address).start();
     }
 
-    private class ConnectionFixer extends Thread {
+    /**
+     * Thread reading the frames sent through a socket connection until it is closed.
+     * Bad frames are skipped by the {@link FrameReader}, so they don't close the connection.
+     */
+    private class ConnectionReader extends Thread {
 
+        /**
+         * The socket of the connection
+         */
         private final Socket clientSocket;
-        private final ObjectOutputStream outputStream;
-        private SocketClientProxy socketClientProxyBeforeConnectionDrop;
 
-        ConnectionFixer(Socket clientSocket, ObjectOutputStream outputStream) {
-            this.clientSocket=clientSocket;
-            this.outputStream=outputStream;
-            this.socketClientProxyBeforeConnectionDrop = null;
+        /**
+         * Address of the client
+         */
+        private final String address;
+
+        /**
+         * Constructor of the reader
+         * @param clientSocket the socket of the connection
+         * @param address address of the client
+         */
+        ConnectionReader(Socket clientSocket, String address) {
+            this.clientSocket = clientSocket;
+            this.address = address;
         }
 
         @Override
         public void run() {
-            super.run();
-
-            while(true) {
+            SocketClientProxy proxy;
+            FrameReader in;
+            try {
+                FrameWriter writer = new FrameWriter(clientSocket.getOutputStream());
+                proxy = new SocketClientProxy(writer);
+                in = new FrameReader(clientSocket.getInputStream(), accepted -> answerHello(writer, (byte) accepted));
+            } catch (IOException e) {
+                close();
+                admission.release(address);
+                return;
+            }
 
-                ObjectInputStream in;
-                SocketClientProxy socketClientAsAServer;
-                try {
-                    in = new ObjectInputStream(clientSocket.getInputStream());
-                    socketClientAsAServer = new SocketClientProxy(outputStream);
-                    if(socketClientProxyBeforeConnectionDrop==null){
-                        socketClientProxyBeforeConnectionDrop=socketClientAsAServer;
+            try {
+                //noinspection InfiniteLoopStatement
+                while (true) {
+                    Message message = in.read();
+                    if (!admission.allowMessage(proxy, address)) {
+                        if (admission.startThrottling(proxy)) { answerThrottled(proxy); }
+                        continue;
+                    }
+                    try {
+                        receiver.receiveMessage(message, proxy);
+                    } catch (NetworkingException e) {
+                        LOGGER.warning(HANDLING_MESSAGE_EXCEPTION + message);
+                    } catch (RuntimeException e) {
+                        //a message the server can't handle (e.g. of an unexpected type) is dropped, not the connection
+                        LOGGER.log(Level.WARNING, HANDLING_MESSAGE_EXCEPTION + message, e);
                     }
-                } catch (IOException e) {
-                    return;
                 }
+            } catch (IOException e) {
+                //the connection is lost: handled below
+            } finally {
+                close();
+                server.lostSocketConnection(proxy);
+                admission.forgetSession(proxy);
+                admission.release(address);
+            }
+        }
 
-                ((ServerInterface)receiver).restoredSocketConnection(socketClientProxyBeforeConnectionDrop,socketClientAsAServer);
-
-                tryToFix(in,socketClientAsAServer);
+        /**
+         * Tells the client that its messages are being dropped, so it doesn't wait for their answers
+         *
+         * @param proxy the proxy of the client
+         */
+        private void answerThrottled(SocketClientProxy proxy) {
+            try {
+                proxy.receiveMessage(new Message(ViewBoundMessageType.ERROR_MESSAGE, AdmissionControl.MESSAGES_DROPPED));
+            } catch (NetworkingException e) {
+                //the connection is lost: the reading fails too
+            }
+        }
 
-                try {
-                    sleep(500);
-                } catch (InterruptedException e1) {
-                    receiver.fail(READING_STREAM_EXCEPTION);
-                    Thread.currentThread().interrupt();
-                    return;
-                }
+        /**
+         * Answers the compression offered by the client with the accepted one, then enables it.
+         * If the answer can't be sent the socket is closed, so the reading fails too.
+         *
+         * @param writer the writer of the frames sent to the client
+         * @param accepted the flags of the accepted compression
+         */
+        private void answerHello(FrameWriter writer, byte accepted) {
+            try {
+                writer.writeHello(accepted);
+            } catch (IOException e) {
+                close();
+                return;
             }
+            if ((accepted & Compression.DEFLATE) != 0) { writer.enableCompression(); }
         }
 
-        private void tryToFix(ObjectInputStream in, SocketClientProxy socketClientAsAServer){
-            boolean c = true;
-            while (c) {
-                Message message;
-                try {
-                    message = (Message) in.readObject();
-                    receiver.receiveMessage(message, socketClientAsAServer);
-                } catch (Exception e) {
-                    ((ServerInterface)receiver).lostSocketConnection(socketClientAsAServer);
-                    socketClientProxyBeforeConnectionDrop = socketClientAsAServer;
-                    c = false;
-                }
+        /**
+         * Closes the socket of the connection
+         */
+        private void close() {
+            try {
+                clientSocket.close();
+            } catch (IOException e) {
+                //the socket is already unusable
             }
         }
     }
@@ -0,0 +1,370 @@
+package it.polimi.se2018.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Immutable configuration of the server and of its games.
+ * Properties are parsed once when the config is created, so reading them doesn't parse strings anymore.
+ *
+ * @author Federico Haag
+ */
+public final class Config {
+
+    /*  CONSTANTS FOR NAMES OF CONFIG PROPERTIES
+        Following constants are the names of the properties in the config files
+     */
+    public static final String NUMBER_OF_ROUNDS = "numberOfRounds";
+    public static final String MAX_NUMBER_OF_PLAYERS = "maxNumberOfPlayers";
+    public static final String MIN_NUMBER_OF_PLAYERS = "minNumberOfPlayers";
+    public static final String NUMBER_OF_DICES_PER_COLOR = "numberOfDicesPerColor";
+    public static final String NUMBER_OF_TOOL_CARDS = "numberOfToolCards";
+    public static final String NUMBER_OF_PUBLIC_OBJECTIVE_CARDS = "numberOfPublicObjectiveCards";
+    public static final String TIMEOUT_LAUNCHING_GAME = "timeoutLaunchingGame";
+    public static final String TIMEOUT_CHOOSING_PATTERNS = "timeoutChoosingPatterns";
+    public static final String TIMEOUT_PLAYER_MOVE = "timeoutPlayerMove";
+    public static final String AMOUNT_OF_COUPLES_OF_PATTERNS_PER_PLAYER = "amountOfCouplesOfPatternsPerPlayer";
+
+    /*  CONSTANTS FOR NAMES OF OPTIONAL CONFIG PROPERTIES
+        Following properties can be missing from the config files: their getters return the default values below
+     */
+    public static final String GAME_LOG_SYNC_INTERVAL = "gameLogSyncInterval";
+    public static final String BOT_THINKING_TIME = "botThinkingTime";
+    public static final String BOT_THREADS = "botThreads";
+    public static final String WAITING_ROOM_CAPACITY = "waitingRoomCapacity";
+    public static final String MATCHMAKING_BUCKET_WIDTH = "matchmakingBucketWidth";
+    public static final String MATCHMAKING_WIDENING_TIME = "matchmakingWideningTime";
+    public static final String MAX_NUMBER_OF_SPECTATORS = "maxNumberOfSpectators";
+    public static final String SPECTATOR_WRITER_THREADS = "spectatorWriterThreads";
+    public static final String MAX_CONNECTIONS = "maxConnections";
+    public static final String MAX_CONNECTIONS_PER_ADDRESS = "maxConnectionsPerAddress";
+    public static final String SESSION_MESSAGES_BURST = "sessionMessagesBurst";
+    public static final String SESSION_MESSAGES_PER_SECOND = "sessionMessagesPerSecond";
+    public static final String ADDRESS_MESSAGES_BURST = "addressMessagesBurst";
+    public static final String ADDRESS_MESSAGES_PER_SECOND = "addressMessagesPerSecond";
+
+    /*  CONSTANTS FOR DEFAULT VALUES OF OPTIONAL CONFIG PROPERTIES
+     */
+    private static final int DEFAULT_GAME_LOG_SYNC_INTERVAL = 8;
+    private static final int DEFAULT_BOT_THINKING_TIME = 0;
+    private static final int DEFAULT_BOT_THREADS = 1;
+    private static final int DEFAULT_MATCHMAKING_BUCKET_WIDTH = 10;
+    private static final int DEFAULT_MATCHMAKING_WIDENING_TIME = 10;
+    private static final int DEFAULT_MAX_NUMBER_OF_SPECTATORS = 500;
+    private static final int DEFAULT_SPECTATOR_WRITER_THREADS = 2;
+    private static final int DEFAULT_MAX_CONNECTIONS = 256;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ADDRESS = 8;
+    //clients ping twice a second, so the rates leave plenty of room for the moves of a player
+    private static final int DEFAULT_SESSION_MESSAGES_BURST = 30;
+    private static final int DEFAULT_SESSION_MESSAGES_PER_SECOND = 10;
+    private static final int DEFAULT_ADDRESS_MESSAGES_BURST = 120;
+    private static final int DEFAULT_ADDRESS_MESSAGES_PER_SECOND = 40;
+
+    /**
+     * Properties that must be positive integers in a valid config
+     */
+    private static final String[] REQUIRED_PROPERTIES = {
+            NUMBER_OF_ROUNDS, MAX_NUMBER_OF_PLAYERS, MIN_NUMBER_OF_PLAYERS, NUMBER_OF_DICES_PER_COLOR,
+            NUMBER_OF_TOOL_CARDS, NUMBER_OF_PUBLIC_OBJECTIVE_CARDS, TIMEOUT_LAUNCHING_GAME,
+            TIMEOUT_CHOOSING_PATTERNS, TIMEOUT_PLAYER_MOVE, AMOUNT_OF_COUPLES_OF_PATTERNS_PER_PLAYER
+    };
+
+    /**
+     * Properties that can be changed for a game in progress
+     */
+    private static final String[] TIMEOUTS = {TIMEOUT_LAUNCHING_GAME, TIMEOUT_CHOOSING_PATTERNS, TIMEOUT_PLAYER_MOVE};
+
+    /**
+     * String used as message of NoConfigParamFoundException when a required property is missing or not valid
+     */
+    private static final String NOT_VALID_PROPERTY = "Missing or not positive integer config property: ";
+
+    /**
+     * String used as message of NoConfigParamFoundException when the minimum number of players is greater than the maximum
+     */
+    private static final String NOT_VALID_NUMBER_OF_PLAYERS = "The minimum number of players is greater than the maximum";
+
+    /**
+     * String used as message of NumberFormatException when an integer property is read but it is not in the config
+     */
+    private static final String NO_INTEGER_PROPERTY = "No integer config property: ";
+
+    /**
+     * All the properties of the config
+     */
+    private final Properties properties;
+
+    /**
+     * The properties whose value is an integer, already parsed
+     */
+    private final Map<String,Integer> integerProperties;
+
+    /**
+     * Creates the config of the given properties, parsing the integer ones.
+     * The config is not validated: reading a missing integer property throws NumberFormatException.
+     *
+     * @param properties the properties of the config
+     */
+    public Config(Properties properties) {
+        this.properties = new Properties();
+        this.properties.putAll(properties);
+
+        Map<String,Integer> integers = new HashMap<>();
+        for(String name : this.properties.stringPropertyNames()){
+            try {
+                integers.put(name, Integer.parseInt(this.properties.getProperty(name).trim()));
+            } catch (NumberFormatException e) {
+                //not an integer property
+            }
+        }
+        this.integerProperties = Collections.unmodifiableMap(integers);
+    }
+
+    /**
+     * Creates the config of the given properties, checking that all the parameters of a game are valid
+     *
+     * @param properties the properties of the config
+     * @return the config of the given properties
+     * @throws NoConfigParamFoundException if a parameter of the game is missing or not valid
+     */
+    public static Config validated(Properties properties) throws NoConfigParamFoundException {
+        Config config = new Config(properties);
+
+        for(String name : REQUIRED_PROPERTIES){
+            Integer value = config.integerProperties.get(name);
+            if(value==null || value <= 0){
+                throw new NoConfigParamFoundException(NOT_VALID_PROPERTY + name);
+            }
+        }
+        if(config.getMinNumberOfPlayers() > config.getMaxNumberOfPlayers()){
+            throw new NoConfigParamFoundException(NOT_VALID_NUMBER_OF_PLAYERS);
+        }
+        return config;
+    }
+
+    /**
+     * Returns a config equal to this one, except for the timeouts that are taken from the given config
+     *
+     * @param other the config to take the timeouts from
+     * @return a config equal to this one with the timeouts of the given config
+     */
+    public Config withTimeoutsOf(Config other){
+        Properties merged = getProperties();
+        for(String name : TIMEOUTS){
+            String value = other.properties.getProperty(name);
+            if(value!=null){
+                merged.setProperty(name, value);
+            }
+        }
+        return new Config(merged);
+    }
+
+    /**
+     * Returns the value of the given integer property
+     *
+     * @param name the name of the property
+     * @return the value of the property
+     * @throws NumberFormatException if the property is missing or it is not an integer
+     */
+    public int getInt(String name){
+        Integer value = integerProperties.get(name);
+        if(value==null){
+            throw new NumberFormatException(NO_INTEGER_PROPERTY + name);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value of the given integer property, or the given default value if it is missing or not an integer
+     *
+     * @param name the name of the property
+     * @param defaultValue the value returned if the property is missing or not an integer
+     * @return the value of the property or the default value
+     */
+    public int getInt(String name, int defaultValue){
+        return integerProperties.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Returns a copy of all the properties of the config
+     *
+     * @return a copy of all the properties of the config
+     */
+    public Properties getProperties(){
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
+    }
+
+    /**
+     * @return the number of rounds of a game
+     */
+    public int getNumberOfRounds(){
+        return getInt(NUMBER_OF_ROUNDS);
+    }
+
+    /**
+     * @return the maximum number of players of a game
+     */
+    public int getMaxNumberOfPlayers(){
+        return getInt(MAX_NUMBER_OF_PLAYERS);
+    }
+
+    /**
+     * @return the minimum number of players of a game
+     */
+    public int getMinNumberOfPlayers(){
+        return getInt(MIN_NUMBER_OF_PLAYERS);
+    }
+
+    /**
+     * @return the number of dices of each color in the dice bag
+     */
+    public int getNumberOfDicesPerColor(){
+        return getInt(NUMBER_OF_DICES_PER_COLOR);
+    }
+
+    /**
+     * @return the number of toolCards drawn for a game
+     */
+    public int getNumberOfToolCards(){
+        return getInt(NUMBER_OF_TOOL_CARDS);
+    }
+
+    /**
+     * @return the number of public objective cards drawn for a game
+     */
+    public int getNumberOfPublicObjectiveCards(){
+        return getInt(NUMBER_OF_PUBLIC_OBJECTIVE_CARDS);
+    }
+
+    /**
+     * @return the seconds waited in the waiting room before launching a game with less than the maximum number of players
+     */
+    public int getTimeoutLaunchingGame(){
+        return getInt(TIMEOUT_LAUNCHING_GAME);
+    }
+
+    /**
+     * @return the seconds given to players for choosing their window pattern
+     */
+    public int getTimeoutChoosingPatterns(){
+        return getInt(TIMEOUT_CHOOSING_PATTERNS);
+    }
+
+    /**
+     * @return the seconds given to a player for playing its turn
+     */
+    public int getTimeoutPlayerMove(){
+        return getInt(TIMEOUT_PLAYER_MOVE);
+    }
+
+    /**
+     * @return the number of couples of window patterns proposed to each player
+     */
+    public int getAmountOfCouplesOfPatternsPerPlayer(){
+        return getInt(AMOUNT_OF_COUPLES_OF_PATTERNS_PER_PLAYER);
+    }
+
+    /**
+     * @return how many records of the game log are written before forcing them to disk
+     */
+    public int getGameLogSyncInterval(){
+        return getInt(GAME_LOG_SYNC_INTERVAL, DEFAULT_GAME_LOG_SYNC_INTERVAL);
+    }
+
+    /**
+     * @return the milliseconds a bot thinks for each move of an inactive player, 0 if inactive players
+     * are not substituted by bots
+     */
+    public int getBotThinkingTime(){
+        return getInt(BOT_THINKING_TIME, DEFAULT_BOT_THINKING_TIME);
+    }
+
+    /**
+     * @return the number of threads of the bots
+     */
+    public int getBotThreads(){
+        return getInt(BOT_THREADS, DEFAULT_BOT_THREADS);
+    }
+
+    /**
+     * @return the maximum number of players in the waiting room, never less than the maximum number of players of a game
+     */
+    public int getWaitingRoomCapacity(){
+        int maxNumberOfPlayers = getMaxNumberOfPlayers();
+        return Math.max(maxNumberOfPlayers, getInt(WAITING_ROOM_CAPACITY, maxNumberOfPlayers));
+    }
+
+    /**
+     * @return the width of the buckets of players with similar scores made by the matchmaker
+     */
+    public int getMatchmakingBucketWidth(){
+        return getInt(MATCHMAKING_BUCKET_WIDTH, DEFAULT_MATCHMAKING_BUCKET_WIDTH);
+    }
+
+    /**
+     * @return the seconds after which the matchmaker widens the buckets of the waiting players
+     */
+    public int getMatchmakingWideningTime(){
+        return getInt(MATCHMAKING_WIDENING_TIME, DEFAULT_MATCHMAKING_WIDENING_TIME);
+    }
+
+    /**
+     * @return the maximum number of spectators of a game
+     */
+    public int getMaxNumberOfSpectators(){
+        return getInt(MAX_NUMBER_OF_SPECTATORS, DEFAULT_MAX_NUMBER_OF_SPECTATORS);
+    }
+
+    /**
+     * @return the number of threads writing to the spectators
+     */
+    public int getSpectatorWriterThreads(){
+        return getInt(SPECTATOR_WRITER_THREADS, DEFAULT_SPECTATOR_WRITER_THREADS);
+    }
+
+    /**
+     * @return the maximum number of open connections of the server
+     */
+    public int getMaxConnections(){
+        return getInt(MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * @return the maximum number of open connections of the server from the same address
+     */
+    public int getMaxConnectionsPerAddress(){
+        return getInt(MAX_CONNECTIONS_PER_ADDRESS, DEFAULT_MAX_CONNECTIONS_PER_ADDRESS);
+    }
+
+    /**
+     * @return the number of messages a session can send at once
+     */
+    public int getSessionMessagesBurst(){
+        return getInt(SESSION_MESSAGES_BURST, DEFAULT_SESSION_MESSAGES_BURST);
+    }
+
+    /**
+     * @return the number of messages a session can send each second
+     */
+    public int getSessionMessagesPerSecond(){
+        return getInt(SESSION_MESSAGES_PER_SECOND, DEFAULT_SESSION_MESSAGES_PER_SECOND);
+    }
+
+    /**
+     * @return the number of messages an address can send at once
+     */
+    public int getAddressMessagesBurst(){
+        return getInt(ADDRESS_MESSAGES_BURST, DEFAULT_ADDRESS_MESSAGES_BURST);
+    }
+
+    /**
+     * @return the number of messages an address can send each second
+     */
+    public int getAddressMessagesPerSecond(){
+        return getInt(ADDRESS_MESSAGES_PER_SECOND, DEFAULT_ADDRESS_MESSAGES_PER_SECOND);
+    }
+}
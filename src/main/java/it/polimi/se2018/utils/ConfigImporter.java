@@ -2,6 +2,10 @@ package it.polimi.se2018.utils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Properties;
 
 /**
@@ -26,6 +30,11 @@ public final class ConfigImporter {
      */
     private boolean parametersLoaded = false;
 
+    /**
+     * The validated config, parsed the first time it is requested
+     */
+    private Config config = null;
+
     /**
      * Default config file path
      */
@@ -64,6 +73,7 @@ public final class ConfigImporter {
 
         try (InputStream input = fileFinder.getResourceAsStream(GENERAL_PATH.concat(configFileName))) {
 
+            if(input==null){ throw new NoConfigParamFoundException(); }
             this.properties.load(input);
         } catch(IOException e){
             throw new NoConfigParamFoundException();
@@ -83,4 +93,35 @@ public final class ConfigImporter {
         p.putAll(this.properties);
         return p;
     }
+
+    /**
+     * Returns the config read from the config file, parsed and validated only the first time it is requested
+     *
+     * @return the validated config
+     * @throws NoConfigParamFoundException if the config file can't be read or a parameter of the game is not valid
+     */
+    public Config getConfig() throws NoConfigParamFoundException{
+        if(config==null){
+            if(!parametersLoaded){ loadParameters(); }
+            config = Config.validated(this.properties);
+        }
+        return config;
+    }
+
+    /**
+     * Returns the path of the config file if it is a file of the file system (and not, for example, an entry of a jar)
+     *
+     * @return the path of the config file or null if it is not a file of the file system
+     */
+    public Path getConfigFilePath(){
+        URL url = getClass().getClassLoader().getResource(GENERAL_PATH.concat(configFileName));
+        if(url==null || !"file".equals(url.getProtocol())){
+            return null;
+        }
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,126 @@
+package it.polimi.se2018.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the current config of the server, reloading it each time the config file is changed.
+ * A changed file that is not a valid config is ignored, keeping the previous config.
+ *
+ * @author Federico Haag
+ */
+public final class ConfigWatcher extends Thread {
+
+    /**
+     * String logged when the config is reloaded
+     */
+    private static final String CONFIG_RELOADED = "Reloaded config file: ";
+
+    /**
+     * String logged when the changed config file is not valid
+     */
+    private static final String NOT_VALID_CONFIG = "Ignored not valid config file: ";
+
+    /**
+     * String logged when the config file can't be watched anymore
+     */
+    private static final String CANT_WATCH_CONFIG = "Can't watch anymore the config file: ";
+
+    /**
+     * Logger of the reloads
+     */
+    private static final Logger LOGGER = Logger.getLogger(ConfigWatcher.class.getName());
+
+    /**
+     * The current config
+     */
+    private final AtomicReference<Config> config;
+
+    /**
+     * The watched config file, null if the config can't change
+     */
+    private final Path configFile;
+
+    /**
+     * Called with the new config each time it is reloaded
+     */
+    private final Consumer<Config> onReload;
+
+    /**
+     * Creates the watcher of the given config file. It starts watching it when the thread is started.
+     *
+     * @param configFile the config file, or null if the config can't change
+     * @param initialConfig the config read from the config file
+     * @param onReload called with the new config each time it is reloaded
+     */
+    public ConfigWatcher(Path configFile, Config initialConfig, Consumer<Config> onReload) {
+        this.configFile = configFile;
+        this.config = new AtomicReference<>(initialConfig);
+        this.onReload = onReload;
+        setDaemon(true);
+    }
+
+    /**
+     * Returns the current config
+     *
+     * @return the current config
+     */
+    public Config getConfig(){
+        return config.get();
+    }
+
+    /**
+     * Reads again the config file and, if it is valid, makes it the current config
+     *
+     * @return true if the config was reloaded
+     */
+    boolean reload(){
+        Properties properties = new Properties();
+        Config reloaded;
+        try (InputStream input = Files.newInputStream(configFile)) {
+            properties.load(input);
+            reloaded = Config.validated(properties);
+        } catch (IOException | NoConfigParamFoundException e) {
+            LOGGER.warning(NOT_VALID_CONFIG + configFile + " " + e.getMessage());
+            return false;
+        }
+
+        config.set(reloaded);
+        onReload.accept(reloaded);
+        LOGGER.info(CONFIG_RELOADED + configFile);
+        return true;
+    }
+
+    /**
+     * Watching loop
+     */
+    @Override
+    public void run() {
+        if(configFile==null){ return; }
+
+        Path directory = configFile.toAbsolutePath().getParent();
+        try (WatchService watchService = directory.getFileSystem().newWatchService()) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            //noinspection InfiniteLoopStatement
+            while(true){
+                WatchKey key = watchService.take();
+                boolean changed = key.pollEvents().stream()
+                        .anyMatch(event -> configFile.getFileName().equals(event.context()));
+                key.reset();
+                if(changed){
+                    reload();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warning(CANT_WATCH_CONFIG + configFile);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -5,5 +5,6 @@ package it.polimi.se2018.utils;
  */
 public enum ControllerBoundMessageType {
     MOVE,
-    PING
+    PING,
+    PLACEMENT_HINTS
 }
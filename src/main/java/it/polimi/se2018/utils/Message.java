@@ -15,6 +15,11 @@ public final class Message implements Serializable{
      */
     private static final long serialVersionUID = 4259191690541234881L;
 
+    /**
+     * Name of the param of a batch message containing the batched messages
+     */
+    private static final String PARAM_MESSAGES = "messages";
+
     /**
      * Type of message (answering the question: "what is this message aim?")
      */
@@ -187,6 +192,28 @@ public final class Message implements Serializable{
         return params;
     }
 
+    /**
+     * Creates a message containing the given messages, to be delivered together and in order
+     * @param messages the messages to be delivered together
+     * @param playerID the player to send the batch to, or null if it is broadcast
+     * @return the batch message
+     */
+    public static Message batch(List<Message> messages, String playerID){
+        return new Message(ViewBoundMessageType.BATCH, fastMap(PARAM_MESSAGES, new ArrayList<>(messages)), playerID);
+    }
+
+    /**
+     * Returns the messages contained in this message if it is a batch, otherwise this message
+     * @return the messages to be delivered, in order
+     */
+    @SuppressWarnings("unchecked")
+    public List<Message> unbatch(){
+        if(type!=ViewBoundMessageType.BATCH){
+            return Collections.singletonList(this);
+        }
+        return Collections.unmodifiableList((List<Message>) params.get(PARAM_MESSAGES));
+    }
+
     /**
      * Returns if this message is a "move" message or not
      * @return if this message is a "move" message or not
@@ -22,7 +22,8 @@ public enum Move {
     JOIN("Join waiting room", "joined waiting room.", getEmptyParams()),
     BACK_GAME ("Back to game", "joined back the game.", getEmptyParams()),
     LEAVE ("Leave waiting room", "has left the game.", getEmptyParams()),
-    QUIT ("Quit the game", "has quit the game.", getEmptyParams());
+    QUIT ("Quit the game", "has quit the game.", getEmptyParams()),
+    SPECTATE ("Watch the game", "is watching the game.", getEmptyParams());
 
     /**
      * A human readable text representation of the move in active form
@@ -65,12 +66,12 @@ public enum Move {
      * @return a composed string representing the move made by a player using the given params
      */
     public String getRepresentationOfMove(Map<String,Object> oldparams){
-        String string = " ";
+        StringBuilder string = new StringBuilder(" ");
 
-        string = string.concat(this.passiveTextualRepresentation).concat(" ");
+        string.append(this.passiveTextualRepresentation).append(' ');
 
         for(Map.Entry<String,String> entry : this.params.entrySet()){
-            string = string.concat(entry.getKey()).concat(": ").concat(oldparams.get(entry.getValue()).toString()).concat(", ");
+            string.append(entry.getKey()).append(": ").append(oldparams.get(entry.getValue()).toString()).append(", ");
         }
 
         return string.substring(0,string.length()-2);
@@ -16,4 +16,13 @@ public class NoConfigParamFoundException extends Exception {
         super();
         //do nothing else
     }
+
+    /**
+     * Constructor with the explanation of the problem found in the config
+     *
+     * @param message the explanation of the problem found in the config
+     */
+    public NoConfigParamFoundException(String message) {
+        super(message);
+    }
 }
@@ -1,7 +1,8 @@
 package it.polimi.se2018.utils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This class represents an observable object.
@@ -19,6 +20,14 @@ import java.util.List;
  * The default implementation provided in the Observable class will
  * notify Observers in the order in which they registered interest.
  *
+ * Notifications are synchronous and no lock is held while the observers are updated: observers may send
+ * the message over the network, and a slow one must not stall the notifications of the other threads.
+ * Observers are kept in a copy-on-write array, so notifying iterates over a snapshot of them taken when
+ * the notification starts, and observers can be registered and deregistered from other threads (or from an update)
+ * while a slow observer is still sending a message. Messages notified by the same thread are received in order;
+ * messages notified concurrently by different threads may be received in different orders by different observers.
+ * An observer that throws an exception does not prevent the other ones from being notified.
+ *
  * When an observable object is newly created, its set of observers is
  * empty.
  *
@@ -28,7 +37,20 @@ import java.util.List;
  */
 public class Observable {
 
-    private final List<Observer> observers = new ArrayList<>();
+    /**
+     * String logged when an observer fails handling a message
+     */
+    private static final String OBSERVER_FAILED = "An observer failed handling the message: ";
+
+    /**
+     * Logger of the failures of the observers
+     */
+    private static final Logger LOGGER = Logger.getLogger(Observable.class.getName());
+
+    /**
+     * Observers of this object, in registration order
+     */
+    private final CopyOnWriteArrayList<Observer> observers = new CopyOnWriteArrayList<>();
 
     /**
      * Adds an observer to the set of observers for this object, provided
@@ -39,9 +61,7 @@ public class Observable {
      * @param   observer   an observer to be added
      */
     public void register(Observer observer){
-        synchronized (observers) {
-            observers.add(observer);
-        }
+        observers.addIfAbsent(observer);
     }
 
     /**
@@ -51,24 +71,22 @@ public class Observable {
      * @param   observer   the observer to be deleted
      */
     public void deregister(Observer observer){
-        synchronized (observers) {
-            observers.remove(observer);
-        }
+        observers.remove(observer);
     }
 
-
     /**
      * Calls all observers method update sending the received message
      *
      * @param message message received from the calling application
-     */ 
+     */
     public void notify(Message message){
-        synchronized (observers) {
-            for(Observer observer : observers){
+        //the iterator of the copy-on-write array is a snapshot, updates are done without holding any lock
+        for(Observer observer : observers){
+            try {
                 observer.update(message);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, OBSERVER_FAILED + message, e);
             }
         }
     }
-
 }
-
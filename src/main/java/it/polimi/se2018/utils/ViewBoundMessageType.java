@@ -38,5 +38,8 @@ public enum ViewBoundMessageType {
     ABORTED,
     A_PLAYER_QUITTED,
     HISTORY,
-    PING
+    PING,
+    BATCH,
+    ADDED_AS_SPECTATOR,
+    PLACEMENT_HINTS
 }
@@ -1,6 +1,8 @@
 package it.polimi.se2018.view;
 
 import it.polimi.se2018.controller.RankingRecord;
+import it.polimi.se2018.controller.ReplayEvent;
+import it.polimi.se2018.controller.ReplayReader;
 import it.polimi.se2018.model.Dice;
 import it.polimi.se2018.model.PublicObjectiveCard;
 import it.polimi.se2018.model.ToolCard;
@@ -11,6 +13,7 @@ import it.polimi.se2018.utils.ControllerBoundMessageType;
 import it.polimi.se2018.utils.Move;
 import it.polimi.se2018.utils.Message;
 
+import java.io.*;
 import java.util.*;
 import java.util.function.Consumer;
 
@@ -26,6 +29,17 @@ public class CLIView extends View{
      */
     private static final Scanner SCANNER = new Scanner(System.in);
 
+    /**
+     * Initial capacity of the buffer of the text to be written on console, and size of the console output buffer
+     */
+    private static final int SCREEN_BUFFER_SIZE = 8192;
+
+    /**
+     * Console output. It isn't flushed at each line, so a whole screen is written at once.
+     */
+    private static final PrintStream OUT = new PrintStream(
+            new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), SCREEN_BUFFER_SIZE), false);
+
 
     /*  CONSTANTS FOR CONSOLE MESSAGES
         Following constants are not commented one by one because they are as self explaining as needed.
@@ -33,6 +47,7 @@ public class CLIView extends View{
         Being private, they are used only in this file. So if a change is needed, just look for usages in this file.
     */
     private static final String INPUT_NOT_VALID = "Input not valid.";
+    private static final String PLACEMENT_NOT_ALLOWED = "The drafted dice can't be placed there.";
     private static final String EXIT_FROM_READING_LOOP = "exit";
     private static final String CHOOSE_CONNECTION_TYPE = "Choose the type of connection technology you want to use:";
     private static final String INSERT_NAME_SERVER = "Insert name server";
@@ -73,6 +88,13 @@ public class CLIView extends View{
     private static final String GLOBAL_RANKINGS_FOLLOWING = "Global rankings following:";
     private static final String YOU_ARE_QUITTING = "You are quitting...";
     private static final String QUIT_GAME = "Quit game";
+    private static final String ASK_WHERE_TO_PLACE_THE_DRAFTED_DICE = "Ask where to place the drafted dice";
+    private static final String REPLAY_ARGUMENT = "--replay";
+    private static final String REPLAY_OF_GAME_PLAYED_BY = "Replay of the game played by: ";
+    private static final String FINAL_SCORES = "Final scores:";
+    private static final String CANT_READ_REPLAY = "Can't read the replay: ";
+    private static final String REPLAY_EVENT_FORMAT = "[%02d:%02d] %s %s";
+    private static final String POINTS = " points";
 
 
     /*  CONSTANTS FOR MESSAGES PARAMS
@@ -89,8 +111,6 @@ public class CLIView extends View{
     private static final String PARAM_COL_TO = "colTo";
     private static final String PARAM_SLOT_NUMBER = "slotNumber";
     private static final String PARAM_VALUE = "value";
-    private static final String PARAM_ROW = "row";
-    private static final String PARAM_COL = "col";
     private static final String PARAM_TOOL_CARD = "toolCard";
     private static final String PARAM_DICE = "dice";
     private static final String PARAM_MOVE = "move";
@@ -161,13 +181,48 @@ public class CLIView extends View{
      */
     private boolean gameEnded = false;
 
+    /**
+     * Text printed since the console was last rendered. It is reused for all the screens.
+     */
+    private final StringBuilder screen = new StringBuilder(SCREEN_BUFFER_SIZE);
+
     /**
      * Main method to make runnable the class.
-     * A new instance of CLIView is created.
-     * @param args default param for main. no args are processed.
+     * A new instance of CLIView is created, unless a replay file is given with "--replay path".
+     * @param args default param for main. "--replay path" shows the replay of a finished game.
      */
     public static void main(String[] args) {
-        new CLIView();
+        if(args.length == 2 && args[0].equals(REPLAY_ARGUMENT)){
+            showReplay(args[1]);
+        } else {
+            new CLIView();
+        }
+    }
+
+    /**
+     * Prints on console the events of a finished game contained in the given replay file.
+     * Events are read and printed one by one, so the replay is never entirely loaded in memory.
+     * @param path the path of the replay file
+     */
+    private static void showReplay(String path){
+        try(ReplayReader reader = new ReplayReader(path)){
+            System.out.println(REPLAY_OF_GAME_PLAYED_BY + String.join(", ", reader.getPlayers()));
+
+            ReplayEvent event;
+            while((event = reader.next()) != null){
+                long seconds = event.getTime()/1000;
+                String player = (event.getPlayerID() == null) ? "" : event.getPlayerID();
+                String details = (event.getMove() == null) ? event.getKind().toString() : event.getMove().getParams().toString();
+                System.out.println(String.format(REPLAY_EVENT_FORMAT, seconds/60, seconds%60, player, details));
+            }
+
+            System.out.println(FINAL_SCORES);
+            for(Map.Entry<String, Integer> score : reader.getScores().entrySet()){
+                System.out.println(score.getKey() + ": " + score.getValue() + POINTS);
+            }
+        } catch (IOException e) {
+            System.out.println(CANT_READ_REPLAY + e.getMessage());
+        }
     }
 
     /**
@@ -183,6 +238,7 @@ public class CLIView extends View{
 
         //Connection to server
         connect();
+        render();
     }
 
 
@@ -212,6 +268,7 @@ public class CLIView extends View{
                 } else {
                     print(YOU_CANT_WRITE_ON_CONSOLE_NOW);
                 }
+                render();
             } while(!text.equals(EXIT_FROM_READING_LOOP));
         }).start();
     }
@@ -279,6 +336,7 @@ public class CLIView extends View{
      * and inserting it into a new instance of {@link CLIView#currentInputConsumer}.
      * This enables to generate dinamically indexes of choices (1. xxx 2. xxx).
      * This function actually doesn't hardcode any move option except for the standard ones:
+     *      ASK_WHERE_TO_PLACE_THE_DRAFTED_DICE (only if the drafted dice can be placed)
      *      SHOW_MY_WINDOW_PATTERN
      *      SHOW_MY_PRIVATE_OBJECTIVE_CARD
      *      SHOW_PUBLIC_OBJECTIVE_CARDS
@@ -297,6 +355,11 @@ public class CLIView extends View{
             index++;
         }
 
+        if(this.getPermissions().contains(Move.PLACE_DICE_ON_WINDOWPATTERN)){
+            mapConsoleMoves.put(Integer.toString(index), new ConsoleMove(ASK_WHERE_TO_PLACE_THE_DRAFTED_DICE,this::handlePlacementHintsRequest));
+            index++;
+        }
+
         if(gameStarted){
             mapConsoleMoves.put(Integer.toString(index), new ConsoleMove(SHOW_MY_WINDOW_PATTERN,this::printWindowPattern));
             index++;
@@ -389,6 +452,9 @@ public class CLIView extends View{
             case QUIT:
                 consoleMove = new ConsoleMove(move.getTextualREP(),this::handleQuitMove);
                 break;
+            case SPECTATE:
+                consoleMove = new ConsoleMove(move.getTextualREP(),this::handleSpectateMove);
+                break;
             default:
                 break;
 
@@ -398,11 +464,31 @@ public class CLIView extends View{
 
 
     /**
-     * Print given text on console.
+     * Print given text on console. The text is actually written when the console is rendered.
      * @param text to be printed on console.
      */
-    private void print(String text){
-        System.out.println(text);
+    private synchronized void print(String text){
+        screen.append(text).append(System.lineSeparator());
+    }
+
+    /**
+     * Writes on console, with a single write, all the text printed since the last rendering.
+     * It is called once the handling of a console input or of a received message is completed.
+     */
+    private synchronized void render(){
+        if(screen.length() == 0){
+            return;
+        }
+        OUT.append(screen);
+        OUT.flush();
+        screen.setLength(0);
+    }
+
+    @Override
+    public boolean update(Message m) {
+        boolean handled = super.update(m);
+        render();
+        return handled;
     }
 
     /**
@@ -616,14 +702,8 @@ public class CLIView extends View{
                     return;
                 }
                 if(row < windowPattern.getNumberOfRows() && row >= 0 && col < windowPattern.getNumberOfColumns() && col>=0){
-                    HashMap<String,Object> params = new HashMap<>();
-                    params.put(PARAM_ROW,row);
-                    params.put(PARAM_COL,col);
-                    params.put(PARAM_MOVE,Move.PLACE_DICE_ON_WINDOWPATTERN);
-                    try {
-                        notifyGame(new Message(ControllerBoundMessageType.MOVE,params));
-                    } catch (NetworkingException e) {
-                        print(e.getMessage());
+                    if(!placeDraftedDice(row,col)){
+                        print(PLACEMENT_NOT_ALLOWED);
                     }
                 } else {
                     print(INPUT_NOT_VALID);
@@ -1102,6 +1182,13 @@ public class CLIView extends View{
         waitForMove();
     }
 
+    @Override
+    void handlePlacementHintsEvent(Message m){
+        super.handlePlacementHintsEvent(m);
+        removeHandlingMessage(m);
+        waitForMove();
+    }
+
     @Override
     void handleChangedTrackEvent(Message m){
         super.handleChangedTrackEvent(m);
@@ -41,6 +41,9 @@ public class GUIView extends Application {
 
     @Override
     public void start(Stage primaryStage) throws Exception {
+        //decodes once the images of dices and cells, that are drawn again at every change of the window patterns
+        ImageCache.getShared().preload();
+
         primaryStage.setTitle("Sagrada Login");
 
         GridPane grid = new GridPane();
@@ -0,0 +1,281 @@
+package it.polimi.se2018.view;
+
+import it.polimi.se2018.model.DiceColor;
+import it.polimi.se2018.utils.BadBehaviourRuntimeException;
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Cache of the decoded images of the GUI, shared by all its views.
+ *
+ * Images are keyed by their asset path and by the size they are decoded at. The images of the dices and of the
+ * cell constraints are few, small and used all over the game, so they are decoded once at startup and never evicted.
+ * Any other image (mainly the art of the cards) is kept while the decoded pixels of all of them fit in a
+ * memory budget; past it, the least recently used ones are evicted and decoded again if needed.
+ *
+ * @author Federico Haag
+ */
+final class ImageCache {
+
+    /**
+     * String used as message of BadBehaviourRuntimeException when an asset can't be found
+     */
+    private static final String ASSET_NOT_FOUND = "Image asset not found: ";
+
+    /**
+     * Path of the images of the dices
+     */
+    private static final String DICES_PATH = "images/Dices/";
+
+    /**
+     * Path of the images of the cell constraints
+     */
+    private static final String CELLS_PATH = "images/Cells/";
+
+    /**
+     * Extension of the images of the dices and of the cell constraints
+     */
+    private static final String EXTENSION = ".jpg";
+
+    /**
+     * Constraint of a cell without any constraint
+     */
+    private static final String NO_CONSTRAINT = "X";
+
+    /**
+     * Maximum value of a dice
+     */
+    private static final int MAX_DICE_VALUE = 6;
+
+    /**
+     * Bytes of a decoded pixel
+     */
+    private static final long BYTES_PER_PIXEL = 4;
+
+    /**
+     * Default maximum number of bytes of the decoded images that can be evicted
+     */
+    private static final long DEFAULT_BUDGET = 64L * 1024 * 1024;
+
+    /**
+     * The cache shared by the views of the GUI
+     */
+    private static final ImageCache SHARED = new ImageCache(DEFAULT_BUDGET);
+
+    /**
+     * Maximum number of bytes of the decoded images that can be evicted
+     */
+    private final long budget;
+
+    /**
+     * Images that are never evicted
+     */
+    private final Map<Key,Image> pinned = new HashMap<>();
+
+    /**
+     * Images that can be evicted, from the least recently used
+     */
+    private final LinkedHashMap<Key,Image> evictable = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Number of bytes of the decoded images that can be evicted
+     */
+    private long evictableBytes = 0;
+
+    /**
+     * Key of an image: its asset path and the size it is decoded at
+     */
+    private static final class Key {
+
+        /**
+         * Asset path of the image
+         */
+        private final String path;
+
+        /**
+         * Width the image is decoded at, 0 for its own width
+         */
+        private final double width;
+
+        /**
+         * Height the image is decoded at, 0 for its own height
+         */
+        private final double height;
+
+        /**
+         * Constructor of the key
+         *
+         * @param path asset path of the image
+         * @param width width the image is decoded at, 0 for its own width
+         * @param height height the image is decoded at, 0 for its own height
+         */
+        Key(String path, double width, double height) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Double.compare(key.width, width) == 0
+                    && Double.compare(key.height, height) == 0
+                    && path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, width, height);
+        }
+    }
+
+    /**
+     * Constructor of the cache
+     *
+     * @param budget maximum number of bytes of the decoded images that can be evicted
+     */
+    ImageCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the cache shared by the views of the GUI
+     *
+     * @return the cache shared by the views of the GUI
+     */
+    static ImageCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Decodes the images of all the dices and of all the cell constraints
+     */
+    synchronized void preload() {
+        for (DiceColor color : DiceColor.values()) {
+            if (color == DiceColor.NOCOLOR) { continue; }
+            pin(CELLS_PATH + color.toOneLetter() + EXTENSION);
+            for (int value = 1; value <= MAX_DICE_VALUE; value++) {
+                pin(DICES_PATH + color.toOneLetter() + value + EXTENSION);
+            }
+        }
+        for (int value = 1; value <= MAX_DICE_VALUE; value++) {
+            pin(CELLS_PATH + value + EXTENSION);
+        }
+        pin(CELLS_PATH + NO_CONSTRAINT + EXTENSION);
+    }
+
+    /**
+     * Decodes the image of the given asset and keeps it until the cache is discarded
+     *
+     * @param path the asset path
+     */
+    private void pin(String path) {
+        Key key = new Key(path, 0, 0);
+        if (!pinned.containsKey(key)) {
+            Image image = evictable.remove(key);
+            if (image != null) {
+                evictableBytes -= sizeOf(image);
+            } else {
+                image = decode(key);
+            }
+            pinned.put(key, image);
+        }
+    }
+
+    /**
+     * Returns the image of the given asset, decoded at its own size
+     *
+     * @param path the asset path
+     * @return the image of the given asset
+     */
+    Image get(String path) {
+        return get(path, 0, 0);
+    }
+
+    /**
+     * Returns the image of the given asset, decoded to fit the given size preserving its ratio
+     *
+     * @param path the asset path
+     * @param width width the image is decoded at, 0 for its own width
+     * @param height height the image is decoded at, 0 for its own height
+     * @return the image of the given asset
+     */
+    synchronized Image get(String path, double width, double height) {
+        Key key = new Key(path, width, height);
+        Image image = pinned.get(key);
+        if (image == null) {
+            image = evictable.get(key);
+        }
+        if (image == null) {
+            image = decode(key);
+            evictable.put(key, image);
+            evictableBytes += sizeOf(image);
+            evict();
+        }
+        return image;
+    }
+
+    /**
+     * Returns the image of the given dice
+     *
+     * @param dice the textual representation of the dice
+     * @return the image of the given dice
+     */
+    Image getDice(String dice) {
+        return get(DICES_PATH + dice + EXTENSION);
+    }
+
+    /**
+     * Returns the image of the given cell constraint
+     *
+     * @param constraint the textual representation of the cell constraint
+     * @return the image of the given cell constraint
+     */
+    Image getCell(String constraint) {
+        return get(CELLS_PATH + constraint + EXTENSION);
+    }
+
+    /**
+     * Evicts the least recently used images until the evictable ones fit the budget.
+     * The most recently used image is kept even if it doesn't fit alone.
+     */
+    private void evict() {
+        Iterator<Image> iterator = evictable.values().iterator();
+        while (evictableBytes > budget && evictable.size() > 1) {
+            evictableBytes -= sizeOf(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of the given decoded image
+     *
+     * @param image the decoded image
+     * @return the number of bytes of the given decoded image
+     */
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * Decodes the image of the given key
+     *
+     * @param key the key of the image
+     * @return the decoded image
+     */
+    private Image decode(Key key) {
+        try (InputStream input = getClass().getClassLoader().getResourceAsStream(key.path)) {
+            if (input == null) {
+                throw new BadBehaviourRuntimeException(ASSET_NOT_FOUND + key.path);
+            }
+            return new Image(input, key.width, key.height, true, true);
+        } catch (IOException e) {
+            throw new BadBehaviourRuntimeException(e);
+        }
+    }
+}
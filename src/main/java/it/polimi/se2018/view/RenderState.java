@@ -0,0 +1,198 @@
+package it.polimi.se2018.view;
+
+import it.polimi.se2018.model.Dice;
+import it.polimi.se2018.model.WindowPattern;
+import it.polimi.se2018.utils.Move;
+
+import java.util.*;
+
+/**
+ * Immutable state of the game as shown by the GUI. Message handlers build a new state for each change
+ * and the scene is updated once per frame, comparing the new state with the one that is shown.
+ *
+ * @author Federico Haag
+ */
+final class RenderState {
+
+    /**
+     * State shown before the game starts
+     */
+    static final RenderState EMPTY = new RenderState(
+            Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+            Collections.emptyList(), null, Collections.emptySet(), null);
+
+    /**
+     * IDs of the players, in the order of their window patterns
+     */
+    private final List<String> players;
+
+    /**
+     * Window patterns of the players
+     */
+    private final List<WindowPattern> windowPatterns;
+
+    /**
+     * Favour tokens of the players
+     */
+    private final List<Integer> favourTokens;
+
+    /**
+     * Dices of the draft pool
+     */
+    private final List<Dice> draftPool;
+
+    /**
+     * Dice drafted by the player, null if there is none
+     */
+    private final Dice draftedDice;
+
+    /**
+     * Moves that the player can perform
+     */
+    private final Set<Move> permissions;
+
+    /**
+     * ID of the player playing the current turn, null if no turn is being played
+     */
+    private final String playingPlayerID;
+
+    /**
+     * Constructor of the state
+     *
+     * @param players IDs of the players, in the order of their window patterns
+     * @param windowPatterns window patterns of the players
+     * @param favourTokens favour tokens of the players
+     * @param draftPool dices of the draft pool
+     * @param draftedDice dice drafted by the player, null if there is none
+     * @param permissions moves that the player can perform
+     * @param playingPlayerID ID of the player playing the current turn
+     */
+    private RenderState(List<String> players, List<WindowPattern> windowPatterns, List<Integer> favourTokens,
+                        List<Dice> draftPool, Dice draftedDice, Set<Move> permissions, String playingPlayerID) {
+        this.players = players;
+        this.windowPatterns = windowPatterns;
+        this.favourTokens = favourTokens;
+        this.draftPool = draftPool;
+        this.draftedDice = draftedDice;
+        this.permissions = permissions;
+        this.playingPlayerID = playingPlayerID;
+    }
+
+    /**
+     * Returns an unmodifiable copy of the given list, empty if the list is null
+     *
+     * @param list the list to copy
+     * @param <T> the type of the elements of the list
+     * @return an unmodifiable copy of the given list
+     */
+    private static <T> List<T> copyOf(List<T> list){
+        return list == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(list));
+    }
+
+    /**
+     * Returns this state with the given players, window patterns and favour tokens
+     *
+     * @param players IDs of the players, in the order of their window patterns
+     * @param windowPatterns window patterns of the players
+     * @param favourTokens favour tokens of the players
+     * @return the changed state
+     */
+    RenderState withWindowPatterns(List<String> players, List<WindowPattern> windowPatterns, List<Integer> favourTokens){
+        return new RenderState(copyOf(players), copyOf(windowPatterns), copyOf(favourTokens),
+                draftPool, draftedDice, permissions, playingPlayerID);
+    }
+
+    /**
+     * Returns this state with the given draft pool
+     *
+     * @param draftPool dices of the draft pool
+     * @return the changed state
+     */
+    RenderState withDraftPool(List<Dice> draftPool){
+        return new RenderState(players, windowPatterns, favourTokens,
+                copyOf(draftPool), draftedDice, permissions, playingPlayerID);
+    }
+
+    /**
+     * Returns this state with the given drafted dice
+     *
+     * @param draftedDice dice drafted by the player, null if there is none
+     * @return the changed state
+     */
+    RenderState withDraftedDice(Dice draftedDice){
+        return new RenderState(players, windowPatterns, favourTokens,
+                draftPool, draftedDice, permissions, playingPlayerID);
+    }
+
+    /**
+     * Returns this state with the given permissions
+     *
+     * @param permissions moves that the player can perform
+     * @return the changed state
+     */
+    RenderState withPermissions(Set<Move> permissions){
+        Set<Move> copy = (permissions == null || permissions.isEmpty()) ? EnumSet.noneOf(Move.class) : EnumSet.copyOf(permissions);
+        return new RenderState(players, windowPatterns, favourTokens,
+                draftPool, draftedDice, Collections.unmodifiableSet(copy), playingPlayerID);
+    }
+
+    /**
+     * Returns this state with the given player playing the current turn
+     *
+     * @param playingPlayerID ID of the player playing the current turn
+     * @return the changed state
+     */
+    RenderState withPlayingPlayerID(String playingPlayerID){
+        return new RenderState(players, windowPatterns, favourTokens,
+                draftPool, draftedDice, permissions, playingPlayerID);
+    }
+
+    /**
+     * @return the IDs of the players, in the order of their window patterns
+     */
+    List<String> getPlayers() {
+        return players;
+    }
+
+    /**
+     * @return the window patterns of the players
+     */
+    List<WindowPattern> getWindowPatterns() {
+        return windowPatterns;
+    }
+
+    /**
+     * @return the favour tokens of the players
+     */
+    List<Integer> getFavourTokens() {
+        return favourTokens;
+    }
+
+    /**
+     * @return the dices of the draft pool
+     */
+    List<Dice> getDraftPool() {
+        return draftPool;
+    }
+
+    /**
+     * @return the dice drafted by the player, null if there is none
+     */
+    Dice getDraftedDice() {
+        return draftedDice;
+    }
+
+    /**
+     * @return the moves that the player can perform
+     */
+    Set<Move> getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * @return the ID of the player playing the current turn, null if no turn is being played
+     */
+    String getPlayingPlayerID() {
+        return playingPlayerID;
+    }
+}
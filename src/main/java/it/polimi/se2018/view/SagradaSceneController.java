@@ -5,6 +5,7 @@ import it.polimi.se2018.model.ToolCard;
 import it.polimi.se2018.model.WindowPattern;
 import it.polimi.se2018.networking.NetworkingException;
 import it.polimi.se2018.utils.*;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -28,6 +29,8 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * Controller class for SagradaScene fxml scene. Displays the main game interface.
@@ -49,7 +52,6 @@ public class SagradaSceneController extends View implements Initializable {
     private static final String PARAM_TOOLCARD = "toolCard";
     private static final String PARAM_MOVE = "move";
     private static final String PARAM_NICKNAME = "nickname";
-    private static final String SRC_MAIN_RESOURCES_IMAGES_DICES = "images/Dices/";
 
     //WAITING LIST
 
@@ -92,7 +94,7 @@ public class SagradaSceneController extends View implements Initializable {
     /**
      * The List of {@link WindowPatternPlayerView}s, representing all the players' window patterns
      */
-    private List<WindowPatternPlayerView> wpViews;
+    private List<WindowPatternPlayerView> wpViews = new ArrayList<>();
     /**
      * The {@link WindowPatternPlayerView} representing the user's window pattern
      */
@@ -135,6 +137,35 @@ public class SagradaSceneController extends View implements Initializable {
     private List<Button> dicesButtons = new ArrayList<>();
 
 
+    //FRAME RENDERING
+    /**
+     * State of the game as last changed by the message handlers
+     */
+    private RenderState state = RenderState.EMPTY;
+
+    /**
+     * State waiting to be rendered at the next frame, null if the scene already shows the last state
+     */
+    private final AtomicReference<RenderState> pendingState = new AtomicReference<>();
+
+    /**
+     * State shown by the scene. It is used only by the JavaFX application thread.
+     */
+    private RenderState renderedState = RenderState.EMPTY;
+
+    /**
+     * Timer rendering the last state once per frame. Changes made between two frames are rendered together.
+     */
+    private final AnimationTimer frameRenderer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            RenderState next = pendingState.getAndSet(null);
+            if (next != null) {
+                render(next);
+            }
+        }
+    };
+
     //CARDS CAROUSEL COMPONENTS
     private List<Node> cardsCarouselVisibleComponents = new ArrayList<>();
 
@@ -261,6 +292,8 @@ public class SagradaSceneController extends View implements Initializable {
     @Override
     public void initialize(URL location, ResourceBundle resources) {
 
+        frameRenderer.start();
+
         diceValuePicker.getItems().addAll("1","2","3","4","5", "6");
         diceValuePicker.setDisable(true);
 
@@ -426,7 +459,7 @@ public class SagradaSceneController extends View implements Initializable {
      * @return an Image object for the wanted asset
      */
     private Image getImageFromPath(String path) {
-        return new Image(getClass().getClassLoader().getResourceAsStream(path));
+        return ImageCache.getShared().get(path);
     }
 
     /**
@@ -447,6 +480,10 @@ public class SagradaSceneController extends View implements Initializable {
             Button join = new Button(m.getTextualREP());
             join.setOnAction(event -> checkID(m));
             waitingRoomView.addPermissions(join);
+
+            Button spectate = new Button(Move.SPECTATE.getTextualREP());
+            spectate.setOnAction(event -> checkID(Move.SPECTATE));
+            waitingRoomView.addPermissions(spectate);
         });
     }
 
@@ -611,6 +648,9 @@ public class SagradaSceneController extends View implements Initializable {
             case JOIN:
                 handleJoinGameMove();
                 break;
+            case SPECTATE:
+                handleSpectateMove();
+                break;
             default:
                 break;
         }
@@ -770,15 +810,10 @@ public class SagradaSceneController extends View implements Initializable {
         int y = userWindowPatternView.getySelected();
 
         if (x != -1  && y != -1) {
-            showInformation("Trying to place dice on: " + x + " " + y);
-            HashMap<String,Object> params = new HashMap<>();
-            params.put("row",x);
-            params.put("col",y);
-            params.put(PARAM_MOVE,Move.PLACE_DICE_ON_WINDOWPATTERN);
-            try {
-                notifyGame(new Message(ControllerBoundMessageType.MOVE,params));
-            } catch (NetworkingException e) {
-                printOnConsole(e.getMessage());
+            if (placeDraftedDice(x, y)) {
+                showInformation("Trying to place dice on: " + x + " " + y);
+            } else {
+                showError("The dice can't be placed there!");
             }
         } else {
             showError("No cell was selected!");
@@ -874,19 +909,8 @@ public class SagradaSceneController extends View implements Initializable {
     @Override
     void handleDraftedDiceEvent(Message m) {
         super.handleDraftedDiceEvent(m);
-        if (draftedDice != null) {
-            Button dice = new Button();
-            dice.prefWidthProperty().bind(currentDraftedPane.widthProperty().multiply(0.3));
-            dice.prefHeightProperty().bind(dice.prefWidthProperty());
-            Image diceImage = getImageFromPath(SRC_MAIN_RESOURCES_IMAGES_DICES +draftedDice.toString()+".jpg");
-            dice.setBackground(getBackgroundFromImage(diceImage));
-            Platform.runLater(() -> {
-                currentDraftedPane.getChildren().clear();
-                currentDraftedPane.getChildren().add(dice);
-            });
-        } else {
-            Platform.runLater(() -> currentDraftedPane.getChildren().clear());
-        }
+        Dice dice = draftedDice;
+        updateState(s -> s.withDraftedDice(dice));
     }
 
     @Override
@@ -1004,7 +1028,7 @@ public class SagradaSceneController extends View implements Initializable {
                         trackSlotDice.setId(dice.toString());
                         trackDiceButtons.add(trackSlotDice);
 
-                        Image diceImage = getImageFromPath(SRC_MAIN_RESOURCES_IMAGES_DICES + dice + ".jpg");
+                        Image diceImage = ImageCache.getShared().getDice(dice.toString());
                         trackSlotDice.setBackground(getBackgroundFromImage(diceImage));
 
                         trackSlotDice.setPrefHeight(50);
@@ -1165,63 +1189,94 @@ public class SagradaSceneController extends View implements Initializable {
                 -> cards.add(getImageFromPath(card.getImageURL())));
         drawnPublicObjectiveCards.forEach(card
                 -> cards.add(getImageFromPath(card.getImageURL())));
-        cards.add(getImageFromPath(privateObjectiveCard.getImageURL()));
+        //Spectators have no private objective card
+        if(privateObjectiveCard!=null){
+            cards.add(getImageFromPath(privateObjectiveCard.getImageURL()));
+        }
 
         updateCardCarousel();
     }
 
+    /**
+     * Changes the state of the game shown by the scene. The change is rendered at the next frame.
+     *
+     * @param change the change of the state
+     */
+    private synchronized void updateState(UnaryOperator<RenderState> change) {
+        state = change.apply(state);
+        pendingState.set(state);
+    }
+
     /**
      * Updates the draftpool displaying
      */
     private void updateDraftPool() {
-        if (!dicesButtons.isEmpty()) {
-            dicesButtons.clear();
-            Platform.runLater(() -> draftPoolPane.getChildren().clear());
-        }
-        for (Dice d: draftPoolDices) {
-            Button dice = new Button();
-            dice.prefWidthProperty().bind(draftPoolPane.widthProperty().multiply(0.25));
-            dice.prefHeightProperty().bind(dice.prefWidthProperty());
-            dice.setId(d.toString());
-
-            Image diceImage = getImageFromPath(SRC_MAIN_RESOURCES_IMAGES_DICES +d.toString()+".jpg");
-            dice.setBackground(getBackgroundFromImage(diceImage));
-
-            dice.setOnAction(e -> {
-                selectedDiceButton = dice;
-                for (Button d1 : dicesButtons) {
-                    if (d1 == selectedDiceButton) {
-                        d1.setBorder(getBorderWithColor(Color.BLACK));
-                    } else {
-                        d1.setBorder(new Border(new BorderStroke(Color.YELLOWGREEN,
-                                BorderStrokeStyle.NONE, CornerRadii.EMPTY, BorderWidths.DEFAULT)));
-                    }
-                }
-            });
-
-            Platform.runLater(() -> draftPoolPane.getChildren().add(dice));
-
-            dicesButtons.add(dice);
-        }
+        List<Dice> dices = draftPoolDices;
+        updateState(s -> s.withDraftPool(dices));
     }
 
-
     /**
      * Sets up the WindowPatternViews for each player
      */
     private void setupWindowPatterns() {
-        wpViews = new ArrayList<>();
-        int i = 0;
+        updateWindowPatterns();
+    }
 
-        Platform.runLater(() -> windowPatternsBox.getChildren().clear());
+    /**
+     * Updates the WindowPatternView for each player
+     */
+    private void updateWindowPatterns() {
+        List<String> nicknames = players;
+        List<WindowPattern> patterns = windowPatterns;
+        List<Integer> favourTokens = playersFavourTokens;
+        //clears currently drafted dice. This is always called after someone's placing.
+        updateState(s -> s.withWindowPatterns(nicknames, patterns, favourTokens).withDraftedDice(null));
+    }
 
-        for (WindowPattern wp: windowPatterns) {
-            String nickname = players.get(i);
+    /**
+     * Updates the scene so that it shows the given state, changing only the components
+     * whose part of the state is different from the one shown
+     *
+     * @param next the state to show
+     */
+    private void render(RenderState next) {
+        boolean playersChanged = !next.getPlayers().equals(renderedState.getPlayers());
+        if (playersChanged) {
+            renderWindowPatternViews(next);
+        }
+        if (playersChanged || next.getWindowPatterns() != renderedState.getWindowPatterns()
+                || !next.getFavourTokens().equals(renderedState.getFavourTokens())) {
+            renderWindowPatterns(next, playersChanged);
+        }
+        if (playersChanged || !Objects.equals(next.getPlayingPlayerID(), renderedState.getPlayingPlayerID())) {
+            renderCurrentPlayer(next.getPlayingPlayerID());
+        }
+        if (!next.getDraftPool().equals(renderedState.getDraftPool())) {
+            renderDraftPool(next.getDraftPool());
+        }
+        if (!Objects.equals(next.getDraftedDice(), renderedState.getDraftedDice())) {
+            renderDraftedDice(next.getDraftedDice());
+        }
+        if (!next.getPermissions().equals(renderedState.getPermissions())) {
+            renderPermissions(next.getPermissions());
+        }
+        renderedState = next;
+    }
+
+    /**
+     * Creates the WindowPatternViews of the players of the given state
+     *
+     * @param next the state to show
+     */
+    private void renderWindowPatternViews(RenderState next) {
+        List<WindowPatternPlayerView> views = new ArrayList<>();
+        for (int i = 0; i < next.getPlayers().size() && i < next.getWindowPatterns().size(); i++) {
+            String nickname = next.getPlayers().get(i);
+            WindowPattern wp = next.getWindowPatterns().get(i);
             WindowPatternPlayerView wpView = new WindowPatternPlayerView();
 
             wpView.prefHeightProperty().bind(windowPatternsBox.heightProperty());
 
-            wpView.setFavourTokens(playersFavourTokens.get(i));
             wpView.setNickname(nickname);
             wpView.setWindowPattern(wp);
             if (nickname.equals(getPlayerID())) {
@@ -1229,48 +1284,114 @@ public class SagradaSceneController extends View implements Initializable {
                 userWindowPatternView = wpView;
             }
             wpView.setId(wp.getTitle());
-            wpViews.add(wpView);
-            i += 1;
+            views.add(wpView);
+        }
+        wpViews = views;
+        windowPatternsBox.getChildren().setAll(views);
+    }
 
-            Platform.runLater(() -> windowPatternsBox.getChildren().add(wpView));
+    /**
+     * Updates the WindowPatternViews whose window pattern or favour tokens changed
+     *
+     * @param next the state to show
+     * @param all true if all the WindowPatternViews have to be updated
+     */
+    private void renderWindowPatterns(RenderState next, boolean all) {
+        List<WindowPattern> shownPatterns = renderedState.getWindowPatterns();
+        List<Integer> shownTokens = renderedState.getFavourTokens();
+
+        for (int i = 0; i < wpViews.size() && i < next.getWindowPatterns().size(); i++) {
+            WindowPattern wp = next.getWindowPatterns().get(i);
+            Integer favourTokens = i < next.getFavourTokens().size() ? next.getFavourTokens().get(i) : null;
+            WindowPatternPlayerView wpv = wpViews.get(i);
+
+            if (all || i >= shownPatterns.size() || shownPatterns.get(i) != wp) {
+                wpv.updateWindowPattern(wp);
+            }
+            if (favourTokens != null && (all || i >= shownTokens.size() || !favourTokens.equals(shownTokens.get(i)))) {
+                wpv.setFavourTokens(favourTokens);
+            }
         }
     }
 
     /**
-     * Updates the WindowPatternView for each player
+     * Highlights WindowPatternPlayerView of current player with a red border
+     *
+     * @param playingPlayerID the ID of the player playing the current turn
      */
-    private void updateWindowPatterns() {
-        int i = 0;
-        for (WindowPattern wp: windowPatterns) {
-            WindowPatternPlayerView wpv = getWPViewById(wp.getTitle());
-            Integer favourTokens = playersFavourTokens.get(i);
-
-            Platform.runLater(() -> {
-                if (wpv != null) {
-                    wpv.updateWindowPattern(wp);
-                    wpv.setFavourTokens(favourTokens);
+    private void renderCurrentPlayer(String playingPlayerID) {
+        for (WindowPatternPlayerView wpView : wpViews) {
+            wpView.setThisAsCurrentPlayer(wpView.getNickname().equals(playingPlayerID));
+        }
+    }
+
+    /**
+     * Replaces the draft pool dices with the given ones
+     *
+     * @param dices the dices of the draft pool
+     */
+    private void renderDraftPool(List<Dice> dices) {
+        List<Button> buttons = new ArrayList<>();
+        for (Dice d: dices) {
+            Button dice = new Button();
+            dice.prefWidthProperty().bind(draftPoolPane.widthProperty().multiply(0.25));
+            dice.prefHeightProperty().bind(dice.prefWidthProperty());
+            dice.setId(d.toString());
+
+            Image diceImage = ImageCache.getShared().getDice(d.toString());
+            dice.setBackground(getBackgroundFromImage(diceImage));
+
+            dice.setOnAction(e -> {
+                selectedDiceButton = dice;
+                for (Button d1 : dicesButtons) {
+                    if (d1 == selectedDiceButton) {
+                        d1.setBorder(getBorderWithColor(Color.BLACK));
+                    } else {
+                        d1.setBorder(new Border(new BorderStroke(Color.YELLOWGREEN,
+                                BorderStrokeStyle.NONE, CornerRadii.EMPTY, BorderWidths.DEFAULT)));
+                    }
                 }
             });
-            i++;
+            buttons.add(dice);
         }
+        dicesButtons = buttons;
+        draftPoolPane.getChildren().setAll(buttons);
+    }
 
-        //clears currently drafted dice. This is always called after someone's placing.
-        Platform.runLater(() -> currentDraftedPane.getChildren().clear());
+    /**
+     * Shows the given drafted dice
+     *
+     * @param draftedDice the drafted dice, null if there is none
+     */
+    private void renderDraftedDice(Dice draftedDice) {
+        if (draftedDice == null) {
+            currentDraftedPane.getChildren().clear();
+            return;
+        }
+        Button dice = new Button();
+        dice.prefWidthProperty().bind(currentDraftedPane.widthProperty().multiply(0.3));
+        dice.prefHeightProperty().bind(dice.prefWidthProperty());
+        Image diceImage = ImageCache.getShared().getDice(draftedDice.toString());
+        dice.setBackground(getBackgroundFromImage(diceImage));
+        currentDraftedPane.getChildren().setAll(dice);
     }
 
     /**
-     * Returns the WindowPatternView in wpViews with the given title
+     * Replaces the buttons of the moves with the ones of the given permissions
      *
-     * @param title the given title string
-     * @return a WindowPatternView object
+     * @param permissions the moves that the player can perform
      */
-    private WindowPatternPlayerView getWPViewById(String title) {
-        for (WindowPatternPlayerView wpv : wpViews) {
-            if (wpv.getId().equals(title)) {
-                return wpv;
-            }
+    private void renderPermissions(Set<Move> permissions) {
+        List<Button> buttons = new ArrayList<>();
+        for (Move m: permissions) {
+            Button button = new Button(m.getTextualREP());
+            button.setId(m.toString());
+
+            button.setOnAction(event -> checkID(m));
+            buttons.add(button);
         }
-        return null;
+        dynamicChoicesPane.getChildren().setAll(buttons);
+        enableAuxiliaryComponents(permissions);
     }
 
     @Override
@@ -1287,35 +1408,23 @@ public class SagradaSceneController extends View implements Initializable {
             }
 
         } else {
-
-            if (getPermissions().isEmpty()) {
-                Platform.runLater(() -> dynamicChoicesPane.getChildren().clear());
-            } else {
-                Set<Move> permissions = getPermissions();
-                Platform.runLater(() -> dynamicChoicesPane.getChildren().clear());
-                for (Move m: permissions) {
-                    Button button = new Button(m.getTextualREP());
-                    button.setId(m.toString());
-
-                    button.setOnAction(event -> checkID(m));
-                    Platform.runLater(() -> dynamicChoicesPane.getChildren().add(button));
-                }
-            }
-            Platform.runLater(this::enableAuxiliaryComponents);
-
+            Set<Move> permissions = getPermissions();
+            updateState(s -> s.withPermissions(permissions));
         }
     }
 
     /**
-     * Enables the auxiliary components to the current presented permissions
+     * Enables the auxiliary components to the given permissions
+     *
+     * @param permissions the moves that the player can perform
      */
-    private void enableAuxiliaryComponents() {
+    private void enableAuxiliaryComponents(Set<Move> permissions) {
         if (userWindowPatternView != null) {
             userWindowPatternView.enableMoveSelection(false);
         }
-        if (getPermissions().contains(Move.MOVE_DICE)) {
+        if (permissions.contains(Move.MOVE_DICE) && userWindowPatternView != null) {
             userWindowPatternView.enableMoveSelection(true);
-        } else if (getPermissions().contains(Move.CHANGE_DRAFTED_DICE_VALUE)) {
+        } else if (permissions.contains(Move.CHANGE_DRAFTED_DICE_VALUE)) {
             diceValuePicker.setDisable(false);
         }
     }
@@ -1324,11 +1433,8 @@ public class SagradaSceneController extends View implements Initializable {
      * Highlights WindowPatternPlayerView of current player with a red border
      */
     private void highlightCurrentPlayer() {
-        Platform.runLater(() -> {
-            for (WindowPatternPlayerView wpView: wpViews) {
-                wpView.setThisAsCurrentPlayer(playingPlayerID.equals(wpView.getNickname()));
-            }
-        });
+        String playing = playingPlayerID;
+        updateState(s -> s.withPlayingPlayerID(playing));
     }
 
     @Override
@@ -1,6 +1,7 @@
 package it.polimi.se2018.view;
 
 
+import it.polimi.se2018.controller.PlacementHint;
 import it.polimi.se2018.controller.RankingRecord;
 import it.polimi.se2018.model.*;
 import it.polimi.se2018.networking.*;
@@ -58,7 +59,11 @@ public abstract class View implements Observer {
     private static final String TRACK_HAS_NOW_NEW_DICES = "Track has now new dices";
     private static final String THERE_IS_NO_MORE_DRAFTED_DICE = "There is no more drafted dice";
     private static final String GAME_WAS_ABORTED = "Game was aborted";
+    private static final String YOU_ARE_WATCHING_THE_GAME = "You are watching the game. It will be shown as soon as a turn is being played.";
     private static final String QUITTED_THE_GAME = " quitted the game";
+    private static final String NO_PLACEMENT_HINTS = "There is no cell where the drafted dice can be placed now";
+    private static final String PLACEMENT_HINTS = "Best cells for the drafted dice:";
+    private static final String PLACEMENT_HINT = "row %d, column %d: %.1f points expected at the end of the game (%d now)";
 
     /*  CONSTANTS FOR MESSAGES PARAMS
         Following constants are not commented one by one because they are as self explaining as needed.
@@ -87,6 +92,10 @@ public abstract class View implements Observer {
     private static final String PARAM_PLAYERS_FAVOUR_TOKENS = "favourTokens";
     private static final String PARAM_MOVE = "move";
     private static final String PARAM_NICKNAME = "nickname";
+    private static final String PARAM_PLACEMENT_RULE = "placementRule";
+    private static final String PARAM_ROW = "row";
+    private static final String PARAM_COL = "col";
+    private static final String PARAM_PLACEMENT_HINTS = "placementHints";
 
 
     // CONSTANTS USED AS MESSAGE OF EXCEPTIONS
@@ -97,7 +106,7 @@ public abstract class View implements Observer {
     /**
      * Set of moves that the player can do with this view
      */
-    private EnumSet<Move> permissions = EnumSet.of(Move.JOIN);
+    private EnumSet<Move> permissions = EnumSet.of(Move.JOIN, Move.SPECTATE);
 
     /**
      * Permissions before connection lost
@@ -112,7 +121,7 @@ public abstract class View implements Observer {
     /**
      * The client that handles communication of this view
      */
-    private ClientInterface client;
+    private Client client;
 
     /**
      * List of messages that are being handled
@@ -207,11 +216,27 @@ public abstract class View implements Observer {
      */
     Dice draftedDice;
 
+    /**
+     * Hints received for the placement of the drafted dice, from the best cell
+     */
+    List<PlacementHint> placementHints = new ArrayList<>();
+
     /**
      * Window Pattern of the view's player
      */
     WindowPattern windowPattern;
 
+    /**
+     * Placement rule used by the server to check the placements of the view's player.
+     * Null if it is unknown, in that case placements are checked by the server only.
+     */
+    PlacementRule placementRule;
+
+    /**
+     * True if a placement was sent and the server did not answer yet
+     */
+    private boolean placementPending = false;
+
     /**
      * Window Patterns of players.
      */
@@ -274,6 +299,7 @@ public abstract class View implements Observer {
         } catch (NetworkingException e) {
             showInformation(e.getMessage());
         }
+        this.client.close();
     }
 
     /**
@@ -298,6 +324,17 @@ public abstract class View implements Observer {
         }
     }
 
+    /**
+     * Asks the server where to place the drafted dice
+     */
+    void handlePlacementHintsRequest(){
+        try {
+            notifyGame(new Message(ControllerBoundMessageType.PLACEMENT_HINTS));
+        } catch (NetworkingException e) {
+            showInformation(e.getMessage());
+        }
+    }
+
     /**
      * Handles the move "Drafted dice from Drat Pool"
      */
@@ -312,6 +349,48 @@ public abstract class View implements Observer {
         //no behaviour in common between CLI and GUI
     }
 
+    /**
+     * Predicts if the server will accept the placement of the drafted dice on the given cell,
+     * checking it with the same placement rule used by the server.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return false if the placement is surely illegal, true otherwise
+     */
+    boolean isPlacementAllowed(int row, int col){
+        if(placementRule==null || windowPattern==null || draftedDice==null){
+            return true;
+        }
+        return placementRule.isMoveAllowed(windowPattern, draftedDice, row, col) && !windowPattern.isThereADice(row, col);
+    }
+
+    /**
+     * Sends the placement of the drafted dice on the given cell, if it is predicted legal
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if the placement was sent, false if it is illegal
+     * @see View#isPlacementAllowed(int, int)
+     */
+    boolean placeDraftedDice(int row, int col){
+        if(!isPlacementAllowed(row, col)){
+            return false;
+        }
+
+        HashMap<String,Object> params = new HashMap<>();
+        params.put(PARAM_ROW,row);
+        params.put(PARAM_COL,col);
+        params.put(PARAM_MOVE,Move.PLACE_DICE_ON_WINDOWPATTERN);
+        try {
+            placementPending = true;
+            notifyGame(new Message(ControllerBoundMessageType.MOVE,params));
+        } catch (NetworkingException e) {
+            placementPending = false;
+            showInformation(e.getMessage());
+        }
+        return true;
+    }
+
     /**
      * Handles the move "Use tool card"
      */
@@ -380,6 +459,17 @@ public abstract class View implements Observer {
         //no behaviour in common between CLI and GUI
     }
 
+    /**
+     * Handles the move "Watch the game"
+     */
+    void handleSpectateMove(){
+        try {
+            notifyGame(new Message(ControllerBoundMessageType.MOVE,Message.fastMap(PARAM_MOVE,Move.SPECTATE)));
+        } catch (NetworkingException e) {
+            showInformation(e.getMessage());
+        }
+    }
+
 
     /*  HANDLING OF EVENTS. EVENTS ARE BASICALLY MESSAGES RECEIVED FROM SERVER.
         Some of the following methods are private because they are not extended or overridden by CLI and GUI.
@@ -390,6 +480,13 @@ public abstract class View implements Observer {
      * @param m message containing the acknowledgment
      */
     private void handleAcknowledgmentEvent(Message m){
+        placementPending = false;
+        try {
+            placementRule = (PlacementRule) m.getParam(PARAM_PLACEMENT_RULE);
+        } catch (NoSuchParamInMessageException e) {
+            placementRule = null;
+        }
+
         Object o;
         try {
             o = m.getParam(PARAM_MESSAGE);
@@ -447,6 +544,12 @@ public abstract class View implements Observer {
      * @param m the message containing information about the error
      */
     private void handleErrorEvent(Message m){
+        if(placementPending){
+            //The server refused a placement predicted legal: the local state is not trusted until the next answer
+            placementPending = false;
+            placementRule = null;
+        }
+
         Object o;
         try {
             o = m.getParam(PARAM_MESSAGE);
@@ -615,17 +718,15 @@ public abstract class View implements Observer {
 
         waitingRoomPlayers = playersList;
 
-        String msg = "";
-        int index = 0;
-        for(String player : playersList){
-            if(index>0){
-                msg = msg.concat(", ");
-            }
-            msg = msg.concat(player);
-            index++;
-        }
+        showInformation(YOU_HAVE_JOINED_THE_WAITING_ROOM + String.join(", ", playersList));
+    }
 
-        showInformation(YOU_HAVE_JOINED_THE_WAITING_ROOM + msg);
+    /**
+     * Handles the event "Added as spectator"
+     */
+    @SuppressWarnings("unused")
+    void handleAddedAsSpectatorEvent(Message m){
+        showInformation(YOU_ARE_WATCHING_THE_GAME);
     }
 
     /**
@@ -766,14 +867,13 @@ public abstract class View implements Observer {
         @SuppressWarnings("unchecked")
         List<WindowPattern> mWindowPatterns = (List<WindowPattern>) o;
 
+        PrivateObjectiveCard mPrivateObjectiveCard;
         try {
-            o = m.getParam(PARAM_PRIVATE_OBJECTIVE_CARD);
+            mPrivateObjectiveCard = (PrivateObjectiveCard) m.getParam(PARAM_PRIVATE_OBJECTIVE_CARD);
         } catch (NoSuchParamInMessageException e) {
-            showInformation(FAILED_SETUP_GAME);
-            return;
+            //Spectators don't receive any private objective card
+            mPrivateObjectiveCard = null;
         }
-        @SuppressWarnings("unchecked")
-        PrivateObjectiveCard mPrivateObjectiveCard = (PrivateObjectiveCard) o;
 
         try {
             o = m.getParam(PARAM_PLAYERS_FAVOUR_TOKENS);
@@ -1022,6 +1122,33 @@ public abstract class View implements Observer {
         showInformation(YOU_HAVE_DRAFTED +mDraftedDice);
     }
 
+    /**
+     * Handles the event "Placement hints" that happens when the server answers where to place the drafted dice
+     * @param m the message relative to this event
+     */
+    void handlePlacementHintsEvent(Message m) {
+        Object o;
+        try {
+            o = m.getParam(PARAM_PLACEMENT_HINTS);
+        } catch (NoSuchParamInMessageException e) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<PlacementHint> hints = (List<PlacementHint>) o;
+        this.placementHints = hints;
+
+        if(hints.isEmpty()){
+            showInformation(NO_PLACEMENT_HINTS);
+            return;
+        }
+        StringBuilder text = new StringBuilder(PLACEMENT_HINTS);
+        for(PlacementHint hint : hints){
+            text.append(System.lineSeparator()).append(String.format(PLACEMENT_HINT,
+                    hint.getRow() + 1, hint.getCol() + 1, hint.getExpectedScore(), hint.getImmediateScore()));
+        }
+        showInformation(text.toString());
+    }
+
     // NOTIFY METHODS
 
     /**
@@ -1261,6 +1388,9 @@ public abstract class View implements Observer {
             case REMOVED_FROM_WR:
                 handleRemovedEvent(m);
                 break;
+            case ADDED_AS_SPECTATOR:
+                handleAddedAsSpectatorEvent(m);
+                break;
             case PLAYER_ADDED_TO_WR:
                 handlePlayerAddedToWREvent(m);
                 break;
@@ -1285,6 +1415,9 @@ public abstract class View implements Observer {
             case HISTORY:
                 handleHistoryMessageEvent(m);
                 break;
+            case PLACEMENT_HINTS:
+                handlePlacementHintsEvent(m);
+                break;
             default:
                 //No other messages are evaluated in this state
                 break;
@@ -115,7 +115,7 @@ public class WindowPatternPlayerView extends Pane {
             for (int j=0; j<wp.getNumberOfColumns(); j++) {
                 Pane dice = new Pane();
                 wpGrid.add(dice, j, i);
-                Image cellBack = new Image(getClass().getClassLoader().getResourceAsStream("images/Cells/" + pattern[i][j].getCellConstraintsToString() + ".jpg"));
+                Image cellBack = ImageCache.getShared().getCell(pattern[i][j].getCellConstraintsToString());
                 dice.setBackground(new Background(new BackgroundFill(new ImagePattern(cellBack), CornerRadii.EMPTY, Insets.EMPTY)));
                 dice.setOnMouseClicked(e -> mouseEventHandler(wp, dice));
 
@@ -185,10 +185,10 @@ public class WindowPatternPlayerView extends Pane {
             for (int j = 0; j < wp.getNumberOfColumns(); j++) {
                 Dice dice = pattern[i][j].getDice();
                 if (dice != null) {
-                    Image diceImage = new Image(getClass().getClassLoader().getResourceAsStream("images/Dices/" + dice.toString() + ".jpg"));
+                    Image diceImage = ImageCache.getShared().getDice(dice.toString());
                     gridDiceButtons[i][j].setBackground(new Background(new BackgroundFill(new ImagePattern(diceImage), CornerRadii.EMPTY, Insets.EMPTY)));
                 } else {
-                    Image cellBack = new Image(getClass().getClassLoader().getResourceAsStream("images/Cells/" + pattern[i][j].getCellConstraintsToString() + ".jpg"));
+                    Image cellBack = ImageCache.getShared().getCell(pattern[i][j].getCellConstraintsToString());
                     gridDiceButtons[i][j].setBackground(new Background(new BackgroundFill(new ImagePattern(cellBack), CornerRadii.EMPTY, Insets.EMPTY)));
                 }
                 gridDiceButtons[i][j].setBorder(new Border(new BorderStroke(Color.YELLOWGREEN,
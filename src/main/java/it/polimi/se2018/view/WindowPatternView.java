@@ -40,7 +40,7 @@ class WindowPatternView extends Pane {
             for (int j=0; j<wp.getNumberOfColumns(); j++) {
                 Pane dice = new Pane();
                 gridWp.add(dice, j, i);
-                Image cellBack = new Image(getClass().getClassLoader().getResourceAsStream("images/Cells/" + pattern[i][j].getCellConstraintsToString() + ".jpg"));
+                Image cellBack = ImageCache.getShared().getCell(pattern[i][j].getCellConstraintsToString());
                 dice.setBackground(new Background(new BackgroundFill(new ImagePattern(cellBack), CornerRadii.EMPTY, Insets.EMPTY)));
 
                 gridCellPanes[i][j] = dice;
@@ -4,6 +4,7 @@ import it.polimi.se2018.model.*;
 import it.polimi.se2018.utils.ControllerBoundMessageType;
 import it.polimi.se2018.utils.Message;
 import it.polimi.se2018.utils.Move;
+import it.polimi.se2018.utils.NoSuchParamInMessageException;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -11,7 +12,10 @@ import java.util.*;
 
 import static it.polimi.se2018.model.GameStatus.ENDED;
 import static it.polimi.se2018.utils.ViewBoundMessageType.ACKNOWLEDGMENT_MESSAGE;
+import static it.polimi.se2018.utils.ViewBoundMessageType.BATCH;
 import static it.polimi.se2018.utils.ViewBoundMessageType.ERROR_MESSAGE;
+import static it.polimi.se2018.utils.ViewBoundMessageType.HISTORY;
+import static it.polimi.se2018.utils.ViewBoundMessageType.NEW_TURN;
 import static org.junit.Assert.*;
 
 
@@ -176,4 +180,76 @@ public class ControllerTest {
         assertEquals(3,controller.game.getCurrentRound().getCurrentTurn().getNumber());
         assertEquals(ENDED,controller.game.getStatus());
     }
+
+    /**
+     * Tests that, when batching is enabled, each move produces a single notification
+     * containing the notifications of the game and of the controller
+     * @see Controller#batchNotificationsOfMoves()
+     */
+    @Test
+    public void testBatchNotificationsOfMoves(){
+        List<Message> notifications = new ArrayList<>();
+        controller.batchNotificationsOfMoves();
+        controller.register(message -> notifications.add(message));
+        launchGameAndSetWindowPatterns();
+
+        notifications.clear();
+        String currentPlayer = controller.game.getCurrentRound().getCurrentTurn().getPlayer().getID();
+        controller.handleMoveMessage(new Message(ControllerBoundMessageType.MOVE,Message.fastMap("move",Move.END_TURN),currentPlayer));
+
+        assertEquals(1, notifications.size());
+        assertEquals(BATCH, notifications.get(0).getType());
+
+        List<Message> batched = notifications.get(0).unbatch();
+        assertTrue(batched.stream().anyMatch(m -> m.getType()==NEW_TURN));
+        assertTrue(batched.stream().anyMatch(m -> m.getType()==HISTORY));
+    }
+
+    /**
+     * Tests that the answer to a move allowing the player to place a dice contains the placement rule
+     * that the server uses to check the placement
+     * @see Controller#handleMoveMessage(Message)
+     */
+    @Test
+    public void testPlacementRuleSentWithPlacePermission() throws NoSuchParamInMessageException {
+        launchGameAndSetWindowPatterns();
+        String currentPlayer = controller.game.getCurrentRound().getCurrentTurn().getPlayer().getID();
+        Dice dice = controller.game.getCurrentRound().getDraftPool().getDices().get(0);
+
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("move", Move.DRAFT_DICE_FROM_DRAFTPOOL);
+        params.put("dice", dice);
+        Message answer = controller.handleMoveMessage(new Message(ControllerBoundMessageType.MOVE, params, currentPlayer));
+
+        assertEquals(ACKNOWLEDGMENT_MESSAGE, answer.getType());
+        assertTrue(answer.getPermissions().contains(Move.PLACE_DICE_ON_WINDOWPATTERN));
+        assertSame(controller.placementRule, answer.getParam("placementRule"));
+    }
+
+    /**
+     * Tests that hints are given only to the current player and only once a dice is drafted,
+     * and that they point to cells where the drafted dice can be placed
+     * @see Controller#getPlacementHints(String, long)
+     */
+    @Test
+    public void testPlacementHints() {
+        launchGameAndSetWindowPatterns();
+        String currentPlayer = controller.game.getCurrentRound().getCurrentTurn().getPlayer().getID();
+        String otherPlayer = nicknames.stream().filter(nickname -> !nickname.equals(currentPlayer)).findFirst().orElse(null);
+        assertTrue(controller.getPlacementHints(currentPlayer, 10).isEmpty());
+
+        Dice dice = controller.game.getCurrentRound().getDraftPool().getDices().get(0);
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("move", Move.DRAFT_DICE_FROM_DRAFTPOOL);
+        params.put("dice", dice);
+        controller.handleMoveMessage(new Message(ControllerBoundMessageType.MOVE, params, currentPlayer));
+
+        assertTrue(controller.getPlacementHints(otherPlayer, 10).isEmpty());
+        List<PlacementHint> hints = controller.getPlacementHints(currentPlayer, 10);
+        assertFalse(hints.isEmpty());
+        WindowPattern windowPattern = controller.game.getCurrentRound().getCurrentTurn().getPlayer().getWindowPattern();
+        for(PlacementHint hint : hints){
+            assertTrue(controller.placementRule.isMoveAllowed(windowPattern, dice, hint.getRow(), hint.getCol()));
+        }
+    }
 }
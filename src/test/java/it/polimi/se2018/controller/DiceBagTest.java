@@ -7,6 +7,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.Random;
 
 import static it.polimi.se2018.model.DiceColor.*;
 import static org.junit.Assert.*;
@@ -116,6 +117,53 @@ public class DiceBagTest {
         assertTrue(diceBag.getDices(1).get(0).getColor()== RED);
     }
 
+    /**
+     * Tests that each dice is drawn with the same probability, so colors are drawn
+     * proportionally to their available dices
+     * @see DiceBag#getDices(int)
+     */
+    @Test
+    public void testDrawIsProportionalToAvailableDices() {
+        DiceBag diceBag = new DiceBag(0, new Random(42));
+        for (int i = 0; i < 90; i++) {
+            diceBag.addDice(new Dice(RED,1));
+        }
+        for (int i = 0; i < 10; i++) {
+            diceBag.addDice(new Dice(BLUE,1));
+        }
+
+        int drawnRedDices = 0;
+        for (int i = 0; i < 10000; i++) {
+            Dice dice = diceBag.getDices(1).get(0);
+            if (dice.getColor() == RED) {
+                drawnRedDices++;
+            }
+            diceBag.addDice(dice);
+        }
+
+        assertEquals(9000, drawnRedDices, 300);
+    }
+
+    /**
+     * Tests that a whole bag can be drawn in a single call, with the right quantity of dices of each color
+     * @see DiceBag#getDices(int)
+     */
+    @Test
+    public void testDrawWholeBag() {
+        DiceBag diceBag = new DiceBag(3);
+        List<Dice> dices = diceBag.getDices(3*(DiceColor.values().length-1));
+
+        for (DiceColor color : DiceColor.values()) {
+            if (color != NOCOLOR) {
+                assertEquals(3, dices.stream().filter(dice -> dice.getColor() == color).count());
+            }
+        }
+        try{
+            diceBag.getDices(1);
+            fail();
+        }catch (BadBehaviourRuntimeException e){}
+    }
+
     /**
      * Tests adding a null dice to the dice bag
      * @see DiceBag#addDice(Dice)
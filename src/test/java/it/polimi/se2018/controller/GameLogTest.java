@@ -0,0 +1,210 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.*;
+import it.polimi.se2018.utils.ControllerBoundMessageType;
+import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.Move;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.*;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link GameLog} class
+ *
+ * @author Federico Haag
+ */
+public class GameLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String path;
+    private Properties properties;
+
+    @Before
+    public void init(){
+        path = new File(folder.getRoot(), "game").getPath();
+
+        properties = new Properties();
+        properties.setProperty("numberOfRounds","10");
+        properties.setProperty("numberOfDicesPerColor","18");
+        properties.setProperty("numberOfToolCards","3");
+        properties.setProperty("numberOfPublicObjectiveCards","2");
+        properties.setProperty("maxNumberOfPlayers","4");
+        properties.setProperty("minNumberOfPlayers","2");
+        properties.setProperty("timeoutLaunchingGame","1000");
+        properties.setProperty("timeoutChoosingPatterns","1000");
+        properties.setProperty("amountOfCouplesOfPatternsPerPlayer","1");
+        properties.setProperty("timeoutPlayerMove","1000");
+        properties.setProperty("persistencyPath","globalrankings.xml");
+    }
+
+    /**
+     * Creates a snapshot of a not started game
+     * @return a snapshot of a not started game
+     */
+    private GameSnapshot emptySnapshot(){
+        return new GameSnapshot(new Game(4,4), new DiceBag(18), new Random(), new HashSet<>(), new HashSet<>(), 0);
+    }
+
+    /**
+     * Creates a message containing the draft of the given dice
+     * @param playerID the player drafting the dice
+     * @param dice the drafted dice
+     * @return the message containing the draft of the given dice
+     */
+    private Message draftMessage(String playerID, Dice dice){
+        HashMap<String,Object> params = new HashMap<>();
+        params.put("move", Move.DRAFT_DICE_FROM_DRAFTPOOL);
+        params.put("dice", dice);
+        return new Message(ControllerBoundMessageType.MOVE, params, playerID);
+    }
+
+    /**
+     * Tests that nothing is recovered if no snapshot was written
+     * @see GameLog#recover(String)
+     */
+    @Test
+    public void testRecoverWithoutSnapshot() throws IOException {
+        GameLog log = new GameLog(path, 1);
+        log.appendMove(log.nextSequence(), draftMessage("Johnnyfer", new Dice(DiceColor.RED, 3)));
+        log.close();
+
+        assertNull(GameLog.recover(path));
+    }
+
+    /**
+     * Tests that moves written after the snapshot are recovered with their params
+     * @see GameLog#recover(String)
+     */
+    @Test
+    public void testRecoverMovesAfterSnapshot() throws IOException {
+        GameLog log = new GameLog(path, 2);
+        log.appendMove(log.nextSequence(), draftMessage("Johnnyfer", new Dice(DiceColor.RED, 3)));
+        log.writeSnapshot(emptySnapshot());
+
+        HashMap<String,Object> params = new HashMap<>();
+        params.put("move", Move.PLACE_DICE_ON_WINDOWPATTERN);
+        params.put("row", 2);
+        params.put("col", 4);
+        log.appendMove(log.nextSequence(), new Message(ControllerBoundMessageType.MOVE, params, "Rubens"));
+        log.appendPlayerMoveTimeout(log.nextSequence(), "Rubens");
+        log.close();
+
+        GameLog.Recovery recovery = GameLog.recover(path);
+        assertNotNull(recovery);
+        assertEquals(GameStatus.WAITING_FOR_CARDS, recovery.getSnapshot().getGame().getStatus());
+
+        List<GameLog.LogRecord> records = recovery.getRecords();
+        assertEquals(2, records.size());
+
+        Message move = records.get(0).getMove();
+        assertFalse(records.get(0).isPlayerMoveTimeout());
+        assertEquals("Rubens", move.getPlayerID());
+        assertTrue(move.isMove(Move.PLACE_DICE_ON_WINDOWPATTERN));
+        assertEquals(2, move.getParams().get("row"));
+        assertEquals(4, move.getParams().get("col"));
+
+        assertTrue(records.get(1).isPlayerMoveTimeout());
+        assertEquals("Rubens", records.get(1).getPlayerID());
+    }
+
+    /**
+     * Tests that a record whose sequence number was reserved before the snapshot is not recovered
+     * @see GameLog#writeSnapshot(GameSnapshot)
+     */
+    @Test
+    public void testRecordReservedBeforeSnapshotIsSkipped() throws IOException {
+        GameLog log = new GameLog(path, 1);
+        long sequence = log.nextSequence();
+        log.writeSnapshot(emptySnapshot());
+        log.appendMove(sequence, draftMessage("Johnnyfer", new Dice(DiceColor.BLUE, 6)));
+        log.close();
+
+        assertTrue(GameLog.recover(path).getRecords().isEmpty());
+    }
+
+    /**
+     * Tests that a truncated record at the end of the log is ignored
+     * @see GameLog#recover(String)
+     */
+    @Test
+    public void testTruncatedTailIsIgnored() throws IOException {
+        GameLog log = new GameLog(path, 1);
+        log.writeSnapshot(emptySnapshot());
+        log.appendMove(log.nextSequence(), draftMessage("Johnnyfer", new Dice(DiceColor.GREEN, 1)));
+        log.appendMove(log.nextSequence(), draftMessage("Johnnyfer", new Dice(DiceColor.YELLOW, 2)));
+        log.close();
+
+        try(RandomAccessFile file = new RandomAccessFile(path + ".log", "rw")){
+            file.setLength(file.length() - 3);
+        }
+
+        List<GameLog.LogRecord> records = GameLog.recover(path).getRecords();
+        assertEquals(1, records.size());
+        assertEquals(new Dice(DiceColor.GREEN, 1), records.get(0).getMove().getParams().get("dice"));
+    }
+
+    /**
+     * Tests that discarding the log deletes it, so the game is not recovered anymore
+     * @see GameLog#discard()
+     */
+    @Test
+    public void testDiscard() throws IOException {
+        GameLog log = new GameLog(path, 1);
+        log.writeSnapshot(emptySnapshot());
+        log.discard();
+
+        assertNull(GameLog.recover(path));
+    }
+
+    /**
+     * Tests that a game is rebuilt from its snapshot replaying the moves written after it
+     * @see Controller#resumeGame(GameLog.Recovery, GameLog)
+     */
+    @Test
+    public void testControllerRecovery() throws IOException {
+        Controller controller = new Controller(new Game(10,4), properties);
+        controller.setGameLog(new GameLog(path, 4));
+
+        WindowPattern wp = new WindowPatternManager().getPairsOfPatterns(1).iterator().next();
+        controller.launchGame(new HashSet<>(Arrays.asList("Johnnyfer", "Rubens")));
+        for (Player player : controller.game.getPlayers()) {
+            HashMap<String, Object> params = new HashMap<>();
+            params.put("windowPattern", wp.copy());
+            params.put("move", Move.CHOOSE_WINDOW_PATTERN);
+            controller.handleMoveMessage(new Message(ControllerBoundMessageType.MOVE, params, player.getID()));
+        }
+
+        Turn turn = controller.game.getCurrentRound().getCurrentTurn();
+        String currentPlayerID = turn.getPlayer().getID();
+        Dice drafted = controller.game.getCurrentRound().getDraftPool().getDices().get(0);
+        controller.handleMoveMessage(draftMessage(currentPlayerID, drafted));
+        assertTrue(turn.hasDrafted());
+
+        GameLog.Recovery recovery = GameLog.recover(path);
+        assertEquals(1, recovery.getRecords().size());
+
+        Controller recovered = new Controller(recovery, properties, Logger.getLogger("TestLogger"));
+        recovered.resumeGame(recovery, new GameLog(recovery, 4));
+
+        Turn recoveredTurn = recovered.game.getCurrentRound().getCurrentTurn();
+        assertEquals(currentPlayerID, recoveredTurn.getPlayer().getID());
+        assertTrue(recoveredTurn.hasDrafted());
+        assertEquals(drafted, recoveredTurn.getDraftedDice());
+        assertEquals(controller.game.getCurrentRound().getDraftPool().getDices().size(),
+                recovered.game.getCurrentRound().getDraftPool().getDices().size());
+
+        //After resuming, the replayed moves are included in a new snapshot
+        assertTrue(GameLog.recover(path).getRecords().isEmpty());
+    }
+}
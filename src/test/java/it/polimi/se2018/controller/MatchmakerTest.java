@@ -0,0 +1,127 @@
+package it.polimi.se2018.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link Matchmaker} class
+ *
+ * @author Federico Haag
+ */
+public class MatchmakerTest {
+
+    private static final long WIDENING_TIME = 1000;
+
+    private List<RankingRecord> rankings;
+
+    @Before
+    public void setUp(){
+        rankings = new ArrayList<>();
+        rankings.add(new RankingRecord("strong1", 500, 10, 0, 0));
+        rankings.add(new RankingRecord("strong2", 510, 10, 0, 0));
+        rankings.add(new RankingRecord("weak", 0, 0, 10, 0));
+    }
+
+    /**
+     * Tests the skill of players with and without played games
+     * @see Matchmaker#getSkill(RankingRecord)
+     */
+    @Test
+    public void testGetSkill(){
+        assertEquals(50, Matchmaker.getSkill(new RankingRecord("new", 0, 0, 0, 0)), 0.001);
+        assertEquals(100 * 11 / 12.0 + 50, Matchmaker.getSkill(rankings.get(0)), 0.001);
+        assertEquals(100 / 12.0, Matchmaker.getSkill(rankings.get(2)), 0.001);
+    }
+
+    /**
+     * Tests that a full table is formed by players of similar skill, skipping the others
+     * @see Matchmaker#pollTable(long)
+     */
+    @Test
+    public void testPollTable(){
+        Matchmaker matchmaker = new Matchmaker(2, 10, WIDENING_TIME, rankings);
+        matchmaker.add("new1", 0);
+        matchmaker.add("strong1", 1);
+        matchmaker.add("new2", 2);
+
+        assertEquals(Arrays.asList("new1","new2"), matchmaker.pollTable(3));
+        assertEquals(1, matchmaker.size());
+        assertTrue(matchmaker.pollTable(3).isEmpty());
+
+        matchmaker.add("strong2", 4);
+        assertEquals(Arrays.asList("strong1","strong2"), matchmaker.pollTable(5));
+        assertEquals(0, matchmaker.size());
+    }
+
+    /**
+     * Tests that players of different skill form a table only after waiting long enough
+     * @see Matchmaker#pollTable(long)
+     */
+    @Test
+    public void testPollTableWidening(){
+        Matchmaker matchmaker = new Matchmaker(2, 10, WIDENING_TIME, rankings);
+        matchmaker.add("strong1", 0);
+        matchmaker.add("new", 0);
+
+        assertTrue(matchmaker.pollTable(0).isEmpty());
+        assertTrue(matchmaker.pollTable(8 * WIDENING_TIME).isEmpty());
+        assertEquals(2, matchmaker.pollTable(9 * WIDENING_TIME).size());
+    }
+
+    /**
+     * Tests that the table of the player waiting for longest is formed whatever the skills, if enough players are queued
+     * @see Matchmaker#pollAnyTable(int)
+     */
+    @Test
+    public void testPollAnyTable(){
+        Matchmaker matchmaker = new Matchmaker(4, 10, WIDENING_TIME, rankings);
+        matchmaker.add("weak", 0);
+        assertTrue(matchmaker.pollAnyTable(2).isEmpty());
+
+        matchmaker.add("strong1", 1);
+        matchmaker.add("new", 2);
+
+        assertEquals(Arrays.asList("weak","new","strong1"), matchmaker.pollAnyTable(2));
+        assertEquals(0, matchmaker.size());
+    }
+
+    /**
+     * Tests that removed players are not part of tables anymore
+     * @see Matchmaker#remove(String)
+     */
+    @Test
+    public void testRemove(){
+        Matchmaker matchmaker = new Matchmaker(2, 10, WIDENING_TIME, Collections.emptyList());
+        matchmaker.add("player1", 0);
+        matchmaker.add("player1", 0);
+        matchmaker.add("player2", 0);
+
+        assertTrue(matchmaker.remove("player1"));
+        assertFalse(matchmaker.remove("player1"));
+        assertEquals(1, matchmaker.size());
+        assertTrue(matchmaker.pollTable(0).isEmpty());
+    }
+
+    /**
+     * Tests that the matchmaker can't be created with not valid parameters
+     * @see Matchmaker#Matchmaker(int, double, long, java.util.Collection)
+     */
+    @Test
+    public void testConstructorFailure(){
+        try {
+            new Matchmaker(0, 10, WIDENING_TIME, rankings);
+            fail();
+        } catch (IllegalArgumentException e) {}
+        try {
+            new Matchmaker(2, 10, 0, rankings);
+            fail();
+        } catch (IllegalArgumentException e) {}
+    }
+}
@@ -0,0 +1,261 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.Game;
+import it.polimi.se2018.model.GameStatus;
+import it.polimi.se2018.model.Player;
+import it.polimi.se2018.utils.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link MctsBot} class
+ *
+ * @author Federico Haag
+ */
+public class MctsBotTest {
+
+    private static final Logger LOGGER = Logger.getLogger(MctsBotTest.class.getName());
+
+    private Properties properties;
+
+    private MctsBot bot;
+
+    @Before
+    public void init(){
+        LOGGER.setLevel(Level.OFF);
+
+        properties = new Properties();
+        properties.setProperty("numberOfRounds","10");
+        properties.setProperty("numberOfDicesPerColor","18");
+        properties.setProperty("numberOfToolCards","3");
+        properties.setProperty("numberOfPublicObjectiveCards","2");
+        properties.setProperty("maxNumberOfPlayers","4");
+        properties.setProperty("minNumberOfPlayers","2");
+        properties.setProperty("timeoutLaunchingGame","1000");
+        properties.setProperty("timeoutChoosingPatterns","1000");
+        properties.setProperty("amountOfCouplesOfPatternsPerPlayer","2");
+        properties.setProperty("timeoutPlayerMove","1000");
+        properties.setProperty("botThinkingTime","20");
+
+        bot = new MctsBot(20, 1, 4);
+    }
+
+    @After
+    public void tearDown(){
+        bot.shutdown();
+    }
+
+    /**
+     * Creates a headless controller of a started game, where each player chose its first window pattern
+     *
+     * @param seed the seed of the game
+     * @return the controller of the started game
+     */
+    private Controller startedGame(long seed){
+        return startedGame(seed, true);
+    }
+
+    /**
+     * Creates a controller of a started game, where each player chose its first window pattern
+     *
+     * @param seed the seed of the game
+     * @param headless true if the game is driven without timers
+     * @return the controller of the started game
+     */
+    private Controller startedGame(long seed, boolean headless){
+        Controller controller = new Controller(new Game(10, 4), properties, LOGGER, seed);
+        if(headless){ controller.setHeadless(); }
+        controller.launchGame(new LinkedHashSet<>(Arrays.asList("A", "B", "C")));
+
+        for(Player player : controller.game.getPlayers()){
+            HashMap<String, Object> params = new HashMap<>();
+            params.put("move", Move.CHOOSE_WINDOW_PATTERN);
+            params.put("windowPattern", controller.getAssignedWindowPatterns(player.getID()).get(0));
+            controller.handleMoveMessage(new Message(ControllerBoundMessageType.MOVE, params, player.getID()));
+        }
+        return controller;
+    }
+
+    /**
+     * Returns the ID of the current player of the game handled by the given controller
+     *
+     * @param controller the controller of the game
+     * @return the ID of the current player
+     */
+    private static String currentPlayer(Controller controller){
+        return controller.game.getCurrentRound().getCurrentTurn().getPlayer().getID();
+    }
+
+    /**
+     * Tests that the chosen action is a legal one and that, at the beginning of the game,
+     * the bot prefers placing a dice to ending the turn
+     * @see MctsBot#chooseAction(MctsBot.TurnStart, List, Random, int, long)
+     */
+    @Test
+    public void testChooseAction() {
+        Controller controller = startedGame(5);
+        MctsBot.TurnStart turnStart = new MctsBot.TurnStart(controller);
+
+        int action = bot.chooseAction(turnStart, Collections.emptyList(), new Random(1), 300, Long.MAX_VALUE);
+
+        MoveGenerator.Actions actions = new MoveGenerator.Actions();
+        new MoveGenerator().generate(controller, actions);
+        boolean isLegal = false;
+        for(int i = 0; i < actions.size(); i++){
+            isLegal |= actions.get(i) == action;
+        }
+        assertTrue(isLegal);
+        assertTrue(MoveGenerator.isDraftAndPlace(action));
+    }
+
+    /**
+     * Tests that the search doesn't change the game it was copied from
+     * @see MctsBot#chooseAction(MctsBot.TurnStart, List, Random, int, long)
+     */
+    @Test
+    public void testChooseActionDoesNotChangeTheGame() {
+        Controller controller = startedGame(6);
+        String before = controller.game.getCurrentRound().getDraftPool().getDices().toString();
+
+        bot.chooseAction(new MctsBot.TurnStart(controller), Collections.emptyList(), new Random(1), 50, Long.MAX_VALUE);
+
+        assertEquals(before, controller.game.getCurrentRound().getDraftPool().getDices().toString());
+        assertTrue(controller.game.getCurrentRound().getCurrentTurn().getPlayer().getWindowPattern().isEmpty());
+    }
+
+    /**
+     * Tests that the turn of an inactive player is played by the bot instead of being skipped
+     * @see Controller#setBot(MctsBot)
+     */
+    @Test
+    public void testInactivePlayerTurnIsPlayedByBot() throws InterruptedException {
+        Controller controller = startedGame(7);
+        controller.setBot(bot);
+
+        List<String> playersOfMoves = new CopyOnWriteArrayList<>();
+        controller.register(message -> {
+            if(message.getType() == ViewBoundMessageType.HISTORY){
+                try {
+                    playersOfMoves.add((String) message.getParam("player"));
+                } catch (NoSuchParamInMessageException e) {
+                    fail();
+                }
+            }
+            return true;
+        });
+
+        String inactivePlayer = controller.game.getPlayers().stream()
+                .map(Player::getID).filter(id -> !id.equals(currentPlayer(controller))).findFirst().orElse(null);
+        controller.playerLostConnection(inactivePlayer);
+
+        while(!currentPlayer(controller).equals(inactivePlayer)){
+            HashMap<String, Object> params = new HashMap<>();
+            params.put("move", Move.END_TURN);
+            controller.handleMoveMessage(new Message(ControllerBoundMessageType.MOVE, params, currentPlayer(controller)));
+        }
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while(currentPlayer(controller).equals(inactivePlayer) && System.currentTimeMillis() < deadline){
+            Thread.sleep(10);
+        }
+
+        assertEquals(GameStatus.PLAYING, controller.game.getStatus());
+        assertNotEquals(inactivePlayer, currentPlayer(controller));
+        assertTrue(playersOfMoves.contains(inactivePlayer));
+    }
+
+    /**
+     * Tests that the turn of an inactive player that the bot can't play is ended right away,
+     * instead of waiting for the player move timer
+     * @see Controller#setBot(MctsBot)
+     */
+    @Test
+    public void testTurnRefusedByBotIsEnded() throws InterruptedException {
+        //timers are needed to end the refused turn
+        Controller controller = startedGame(11, false);
+        bot.shutdown();
+        controller.setBot(bot);
+
+        String inactivePlayer = controller.game.getPlayers().stream()
+                .map(Player::getID).filter(id -> !id.equals(currentPlayer(controller))).findFirst().orElse(null);
+        controller.playerLostConnection(inactivePlayer);
+
+        while(!currentPlayer(controller).equals(inactivePlayer)){
+            HashMap<String, Object> params = new HashMap<>();
+            params.put("move", Move.END_TURN);
+            controller.handleMoveMessage(new Message(ControllerBoundMessageType.MOVE, params, currentPlayer(controller)));
+        }
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while(currentPlayer(controller).equals(inactivePlayer) && System.currentTimeMillis() < deadline){
+            Thread.sleep(10);
+        }
+
+        assertEquals(GameStatus.PLAYING, controller.game.getStatus());
+        assertNotEquals(inactivePlayer, currentPlayer(controller));
+    }
+
+    /**
+     * Tests that the copies of the game searched by the bot have the same hash of the real game,
+     * and that the hash changes when a move is performed on them
+     * @see Controller#getZobristHash()
+     */
+    @Test
+    public void testCopiesHaveTheSameZobristHash() {
+        Controller controller = startedGame(8);
+        Controller copy = new MctsBot.TurnStart(controller).copy();
+        long hash = controller.getZobristHash();
+        assertEquals(hash, copy.getZobristHash());
+
+        MoveGenerator.Actions actions = new MoveGenerator.Actions();
+        new MoveGenerator().generate(copy, actions);
+        int action = -1;
+        for(int i = 0; i < actions.size() && action < 0; i++){
+            if(MoveGenerator.isDraftAndPlace(actions.get(i))){ action = actions.get(i); }
+        }
+        MoveGenerator.perform(new BotTurn(copy, new Random(1), (playerID, toolCard) -> {}), action);
+
+        assertNotEquals(hash, copy.getZobristHash());
+        assertEquals(hash, controller.getZobristHash());
+    }
+
+    /**
+     * Tests that the search fills the given transposition table and still chooses a legal action
+     * @see MctsBot#chooseAction(MctsBot.TurnStart, List, Random, int, long, TranspositionTable)
+     */
+    @Test
+    public void testChooseActionWithTranspositionTable() {
+        Controller controller = startedGame(9);
+        MctsBot.TurnStart turnStart = new MctsBot.TurnStart(controller);
+        TranspositionTable table = new TranspositionTable(1 << 16);
+
+        int action = bot.chooseAction(turnStart, Collections.emptyList(), new Random(1), 100, Long.MAX_VALUE, table);
+
+        Controller copy = turnStart.copy();
+        MoveGenerator.perform(new BotTurn(copy, new Random(1), (playerID, toolCard) -> {}), action);
+        assertTrue(TranspositionTable.getVisits(table.probe(copy.getZobristHash())) > 0);
+    }
+
+    /**
+     * Tests that the copies of the game draw the same dices the real game would draw from the same point,
+     * without drawing them from the real game
+     * @see MctsBot.TurnStart#copy()
+     */
+    @Test
+    public void testCopiesDrawTheSameDices() {
+        Controller controller = startedGame(10);
+        MctsBot.TurnStart turnStart = new MctsBot.TurnStart(controller);
+
+        String drawnByCopy = turnStart.copy().diceBag.getDices(5).toString();
+        assertEquals(drawnByCopy, turnStart.copy().diceBag.getDices(5).toString());
+        assertEquals(drawnByCopy, controller.diceBag.getDices(5).toString());
+    }
+}
@@ -0,0 +1,204 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.Game;
+import it.polimi.se2018.model.GameStatus;
+import it.polimi.se2018.model.Player;
+import it.polimi.se2018.utils.ControllerBoundMessageType;
+import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.Move;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link MoveGenerator} class
+ *
+ * @author Federico Haag
+ */
+public class MoveGeneratorTest {
+
+    private static final Logger LOGGER = Logger.getLogger(MoveGeneratorTest.class.getName());
+
+    private Properties properties;
+
+    private MoveGenerator moveGenerator;
+
+    private MoveGenerator.Actions actions;
+
+    @Before
+    public void init(){
+        LOGGER.setLevel(Level.OFF);
+
+        properties = new Properties();
+        properties.setProperty("numberOfRounds","10");
+        properties.setProperty("numberOfDicesPerColor","18");
+        properties.setProperty("numberOfToolCards","3");
+        properties.setProperty("numberOfPublicObjectiveCards","2");
+        properties.setProperty("maxNumberOfPlayers","4");
+        properties.setProperty("minNumberOfPlayers","2");
+        properties.setProperty("timeoutLaunchingGame","1000");
+        properties.setProperty("timeoutChoosingPatterns","1000");
+        properties.setProperty("amountOfCouplesOfPatternsPerPlayer","2");
+        properties.setProperty("timeoutPlayerMove","1000");
+
+        moveGenerator = new MoveGenerator();
+        actions = new MoveGenerator.Actions();
+    }
+
+    /**
+     * Creates a headless controller of a started game, where each player chose its first window pattern
+     *
+     * @param seed the seed of the game
+     * @return the controller of the started game
+     */
+    private Controller startedGame(long seed){
+        Controller controller = new Controller(new Game(10, 4), properties, LOGGER, seed);
+        controller.setHeadless();
+        controller.launchGame(new LinkedHashSet<>(Arrays.asList("A", "B", "C")));
+
+        for(Player player : controller.game.getPlayers()){
+            HashMap<String, Object> params = new HashMap<>();
+            params.put("move", Move.CHOOSE_WINDOW_PATTERN);
+            params.put("windowPattern", controller.getAssignedWindowPatterns(player.getID()).get(0));
+            controller.handleMoveMessage(new Message(ControllerBoundMessageType.MOVE, params, player.getID()));
+        }
+        assertEquals(GameStatus.PLAYING, controller.game.getStatus());
+        return controller;
+    }
+
+    /**
+     * Creates a bot turn that ignores the used toolCards
+     *
+     * @param controller the controller of the game
+     * @return the current turn
+     */
+    private static BotTurn turnOf(Controller controller){
+        return new BotTurn(controller, new Random(0), (playerID, toolCard) -> {});
+    }
+
+    /**
+     * Tests that nothing is generated if the game is not being played
+     * @see MoveGenerator#generate(Controller, MoveGenerator.Actions)
+     */
+    @Test
+    public void testGenerateWhenGameIsNotPlaying(){
+        Controller controller = new Controller(new Game(10, 4), properties, LOGGER, 1);
+
+        assertEquals(0, moveGenerator.generate(controller, actions));
+        assertEquals(0, actions.size());
+    }
+
+    /**
+     * Tests that at the beginning of a turn the generated draft and place actions and toolCard uses
+     * are exactly the ones accepted by the controller
+     * @see MoveGenerator#generate(Controller, MoveGenerator.Actions)
+     */
+    @Test
+    public void testGenerateAtBeginningOfTurnIsSoundAndComplete(){
+        long seed = 3;
+        Controller controller = startedGame(seed);
+        moveGenerator.generate(controller, actions);
+
+        Set<String> generated = new HashSet<>();
+        boolean canEndTurn = false;
+        for(int i = 0; i < actions.size(); i++){
+            int action = actions.get(i);
+            Move move = MoveGenerator.getMove(action);
+            if(move == Move.DRAFT_DICE_FROM_DRAFTPOOL){
+                assertTrue(MoveGenerator.isDraftAndPlace(action));
+                Object dice = controller.game.getCurrentRound().getDraftPool().getDices().get(MoveGenerator.getArg(action, 0));
+                assertTrue(generated.add(dice + " " + MoveGenerator.getArg(action, 1) + " " + MoveGenerator.getArg(action, 2)));
+            } else if(move == Move.USE_TOOLCARD){
+                generated.add("toolCard " + MoveGenerator.getArg(action, 0));
+            } else {
+                assertEquals(Move.END_TURN, move);
+                canEndTurn = true;
+            }
+        }
+        assertTrue(canEndTurn);
+
+        int numberOfDices = controller.game.getCurrentRound().getDraftPool().getDices().size();
+        for(int dice = 0; dice < numberOfDices; dice++){
+            for(int row = 0; row < 4; row++){
+                for(int col = 0; col < 5; col++){
+                    Controller fresh = startedGame(seed);
+                    BotTurn turn = turnOf(fresh);
+                    Object draftedDice = fresh.game.getCurrentRound().getDraftPool().getDices().get(dice);
+                    boolean accepted = turn.perform(Move.DRAFT_DICE_FROM_DRAFTPOOL, "dice", draftedDice)
+                            && turn.perform(Move.PLACE_DICE_ON_WINDOWPATTERN, "row", row, "col", col);
+
+                    assertEquals(accepted, generated.contains(draftedDice + " " + row + " " + col));
+                }
+            }
+        }
+
+        for(int toolCard = 0; toolCard < controller.game.getDrawnToolCards().size(); toolCard++){
+            Controller fresh = startedGame(seed);
+            boolean accepted = turnOf(fresh).perform(Move.USE_TOOLCARD, "toolCard", fresh.game.getDrawnToolCards().get(toolCard));
+
+            assertEquals(accepted, generated.contains("toolCard " + toolCard));
+        }
+    }
+
+    /**
+     * Tests that whole games can be played choosing random generated actions, all of them being accepted
+     * by the controller, also while applying the effects of toolCards
+     * @see MoveGenerator#generate(Controller, MoveGenerator.Actions)
+     * @see MoveGenerator#perform(BotTurn, int)
+     */
+    @Test
+    public void testGeneratedActionsAreAccepted(){
+        for(long seed = 0; seed < 20; seed++){
+            Controller controller = startedGame(seed);
+            Random random = new Random(seed);
+
+            while(controller.game.getStatus() == GameStatus.PLAYING){
+                BotTurn turn = turnOf(controller);
+                while(!turn.isOver()){
+                    assertTrue(moveGenerator.generate(controller, actions) > 0);
+                    int action = actions.get(random.nextInt(actions.size()));
+
+                    assertTrue(MoveGenerator.getMove(action).toString(), MoveGenerator.perform(turn, action));
+                }
+            }
+            assertEquals(GameStatus.ENDED, controller.game.getStatus());
+        }
+    }
+
+    /**
+     * Tests the encoding of the actions arguments
+     * @see MoveGenerator#getArg(int, int)
+     */
+    @Test
+    public void testGetArgOutOfRange(){
+        try{
+            MoveGenerator.getArg(0, 4);
+            fail();
+        }catch (IllegalArgumentException e){}
+    }
+
+    /**
+     * Tests that the buffer of actions grows and is reused after being cleared
+     * @see MoveGenerator.Actions
+     */
+    @Test
+    public void testActions(){
+        for(int i = 0; i < 100; i++){
+            actions.add(i);
+        }
+        assertEquals(100, actions.size());
+        assertEquals(99, actions.get(99));
+
+        actions.clear();
+        assertEquals(0, actions.size());
+        try{
+            actions.get(0);
+            fail();
+        }catch (IndexOutOfBoundsException e){}
+    }
+}
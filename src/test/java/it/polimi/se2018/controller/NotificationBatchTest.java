@@ -0,0 +1,101 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.ViewBoundMessageType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link NotificationBatch} class
+ *
+ * @author Federico Haag
+ */
+public class NotificationBatchTest {
+
+    private NotificationBatch batch;
+
+    @Before
+    public void setUp(){
+        batch = new NotificationBatch();
+    }
+
+    /**
+     * Creates an update of the window pattern of the given player
+     *
+     * @param owner the owner of the window pattern
+     * @return the update of the window pattern
+     */
+    private static Message windowPatternUpdate(String owner){
+        Map<String,Object> params = new HashMap<>();
+        params.put("currentPlayer", owner);
+        return new Message(ViewBoundMessageType.SOMETHING_CHANGED_IN_WINDOWPATTERN, params);
+    }
+
+    /**
+     * Tests that an empty batch has no message to send and that a single message is sent as it is
+     * @see NotificationBatch#toMessage()
+     */
+    @Test
+    public void testToMessage(){
+        assertTrue(batch.isEmpty());
+        assertNull(batch.toMessage());
+
+        Message message = new Message(ViewBoundMessageType.HISTORY);
+        batch.add(message);
+
+        assertFalse(batch.isEmpty());
+        assertSame(message, batch.toMessage());
+    }
+
+    /**
+     * Tests that outdated states of the same entity are dropped, keeping the order of the other messages
+     * @see NotificationBatch#add(Message)
+     */
+    @Test
+    public void testAddDropsOutdatedStates(){
+        Message firstDraftPool = new Message(ViewBoundMessageType.SOMETHING_CHANGED_IN_DRAFTPOOL);
+        Message usedToolCard = new Message(ViewBoundMessageType.USED_TOOLCARD);
+        Message firstPattern = windowPatternUpdate("A");
+        Message otherPattern = windowPatternUpdate("B");
+        Message lastDraftPool = new Message(ViewBoundMessageType.SOMETHING_CHANGED_IN_DRAFTPOOL);
+        Message lastPattern = windowPatternUpdate("A");
+
+        batch.add(firstDraftPool);
+        batch.add(usedToolCard);
+        batch.add(firstPattern);
+        batch.add(otherPattern);
+        batch.add(lastDraftPool);
+        batch.add(lastPattern);
+
+        Message message = batch.toMessage();
+        assertEquals(ViewBoundMessageType.BATCH, message.getType());
+        assertNull(message.getPlayerID());
+
+        List<Message> messages = message.unbatch();
+        assertEquals(4, messages.size());
+        assertSame(usedToolCard, messages.get(0));
+        assertSame(otherPattern, messages.get(1));
+        assertSame(lastDraftPool, messages.get(2));
+        assertSame(lastPattern, messages.get(3));
+    }
+
+    /**
+     * Tests that states sent to different recipients don't supersede each other
+     * @see NotificationBatch#add(Message)
+     */
+    @Test
+    public void testAddKeepsStatesOfDifferentRecipients(){
+        batch.add(new Message(ViewBoundMessageType.SOMETHING_CHANGED_IN_TRACK, null, "A"));
+        batch.add(new Message(ViewBoundMessageType.SOMETHING_CHANGED_IN_TRACK, null, "B"));
+        batch.add(new Message(ViewBoundMessageType.HISTORY));
+        batch.add(new Message(ViewBoundMessageType.HISTORY));
+
+        assertEquals(4, batch.toMessage().unbatch().size());
+    }
+}
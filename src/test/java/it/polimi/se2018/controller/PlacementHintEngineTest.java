@@ -0,0 +1,149 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static it.polimi.se2018.model.DiceColor.*;
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link PlacementHintEngine} class
+ *
+ * @author Federico Haag
+ */
+public class PlacementHintEngineTest {
+
+    private static final int ROWS = 4;
+
+    private static final int COLS = 5;
+
+    private PlacementHintEngine engine;
+
+    private WindowPattern windowPattern;
+
+    private List<PublicObjectiveCard> publicObjectiveCards;
+
+    private PrivateObjectiveCard privateObjectiveCard;
+
+    private PlacementRule placementRule;
+
+    /**
+     * Initializes a window pattern whose first row misses only a red dice
+     * to score the row color variety public objective card
+     */
+    @Before
+    public void initialize(){
+        engine = new PlacementHintEngine(16, new Random(1));
+
+        Cell[][] cells = new Cell[ROWS][COLS];
+        for(int i = 0; i < ROWS; i++){
+            for(int j = 0; j < COLS; j++){
+                cells[i][j] = new Cell();
+            }
+        }
+        windowPattern = new WindowPattern("id", "title", "", 1, cells);
+        windowPattern.putDiceOnCell(new Dice(BLUE, 1), 0, 0);
+        windowPattern.putDiceOnCell(new Dice(GREEN, 2), 0, 1);
+        windowPattern.putDiceOnCell(new Dice(YELLOW, 3), 0, 2);
+        windowPattern.putDiceOnCell(new Dice(PURPLE, 4), 0, 3);
+
+        publicObjectiveCards = Collections.singletonList(
+                ObjectiveCardFactory.getInstance().createPublicObjectiveCardCardByIndex(0));
+        privateObjectiveCard = new PrivateObjectiveCard("", "", "", RED);
+        placementRule = new EmptyPlacementRule();
+    }
+
+    /**
+     * Tests that every empty cell is a hint and that the cell completing the row is the best one
+     * @see PlacementHintEngine#getHints(WindowPattern, Dice, PlacementRule, PlacementRule, List, PrivateObjectiveCard, int, int, long)
+     */
+    @Test
+    public void testBestHint(){
+        List<PlacementHint> hints = engine.getHints(windowPattern, new Dice(RED, 5), placementRule, placementRule,
+                publicObjectiveCards, privateObjectiveCard, 0, 5, 1000);
+
+        assertEquals(ROWS * COLS - 4, hints.size());
+        assertEquals(0, hints.get(0).getRow());
+        assertEquals(4, hints.get(0).getCol());
+        assertTrue(hints.get(0).getImmediateScore() > hints.get(1).getImmediateScore());
+        for(int i = 1; i < hints.size(); i++){
+            assertTrue(hints.get(i - 1).getExpectedScore() >= hints.get(i).getExpectedScore());
+        }
+    }
+
+    /**
+     * Tests that asking for hints doesn't change the window pattern
+     * @see PlacementHintEngine#getHints(WindowPattern, Dice, PlacementRule, PlacementRule, List, PrivateObjectiveCard, int, int, long)
+     */
+    @Test
+    public void testWindowPatternIsNotChanged(){
+        String before = windowPattern.toString();
+        long hash = windowPattern.getZobristHash();
+
+        engine.getHints(windowPattern, new Dice(RED, 5), placementRule, placementRule,
+                publicObjectiveCards, privateObjectiveCard, 3, 5, 1000);
+
+        assertEquals(before, windowPattern.toString());
+        assertEquals(hash, windowPattern.getZobristHash());
+    }
+
+    /**
+     * Tests that with enough time every cell is evaluated by all the rollouts and the result is cached
+     * @see PlacementHintEngine#getHints(WindowPattern, Dice, PlacementRule, PlacementRule, List, PrivateObjectiveCard, int, int, long)
+     */
+    @Test
+    public void testRolloutsAreCached(){
+        List<PlacementHint> hints = engine.getHints(windowPattern, new Dice(RED, 5), placementRule, placementRule,
+                publicObjectiveCards, privateObjectiveCard, 2, 5, 10000);
+
+        for(PlacementHint hint : hints){
+            assertEquals(PlacementHintEngine.MAX_ROLLOUTS, hint.getRollouts());
+        }
+        assertSame(hints, engine.getHints(windowPattern, new Dice(RED, 5), placementRule, placementRule,
+                publicObjectiveCards, privateObjectiveCard, 2, 5, 0));
+    }
+
+    /**
+     * Tests that without time only the heuristic is used and the result is not cached
+     * @see PlacementHintEngine#getHints(WindowPattern, Dice, PlacementRule, PlacementRule, List, PrivateObjectiveCard, int, int, long)
+     */
+    @Test
+    public void testNoTimeBudget(){
+        List<PlacementHint> hints = engine.getHints(windowPattern, new Dice(RED, 5), placementRule, placementRule,
+                publicObjectiveCards, privateObjectiveCard, 2, 5, 0);
+
+        for(PlacementHint hint : hints){
+            assertEquals(0, hint.getRollouts());
+            assertEquals(hint.getImmediateScore(), hint.getExpectedScore(), 0);
+        }
+        assertNotSame(hints, engine.getHints(windowPattern, new Dice(RED, 5), placementRule, placementRule,
+                publicObjectiveCards, privateObjectiveCard, 2, 5, 0));
+    }
+
+    /**
+     * Tests that there are no hints if the dice can't be placed
+     * @see PlacementHintEngine#getHints(WindowPattern, Dice, PlacementRule, PlacementRule, List, PrivateObjectiveCard, int, int, long)
+     */
+    @Test
+    public void testNoLegalCells(){
+        PlacementRule nowhere = (pattern, dice, row, col) -> false;
+
+        assertTrue(engine.getHints(windowPattern, new Dice(RED, 5), nowhere, placementRule,
+                publicObjectiveCards, privateObjectiveCard, 2, 5, 1000).isEmpty());
+    }
+
+    /**
+     * Tests the impossibility of asking hints for a null dice
+     * @see PlacementHintEngine#getHints(WindowPattern, Dice, PlacementRule, PlacementRule, List, PrivateObjectiveCard, int, int, long)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullDice(){
+        engine.getHints(windowPattern, null, placementRule, placementRule,
+                publicObjectiveCards, privateObjectiveCard, 2, 5, 1000);
+    }
+}
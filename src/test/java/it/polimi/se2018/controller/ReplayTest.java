@@ -0,0 +1,178 @@
+package it.polimi.se2018.controller;
+
+import it.polimi.se2018.model.*;
+import it.polimi.se2018.utils.ControllerBoundMessageType;
+import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.Move;
+import it.polimi.se2018.utils.ViewBoundMessageType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for the recording and the replay of a game
+ *
+ * @author Federico Haag
+ * @see ReplayRecorder
+ * @see ReplayReader
+ * @see ReplayEngine
+ */
+public class ReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String path;
+    private Properties properties;
+    private Controller controller;
+
+    @Before
+    public void init(){
+        path = new File(folder.getRoot(), "game.replay").getPath();
+
+        properties = new Properties();
+        properties.setProperty("numberOfRounds","1");
+        properties.setProperty("numberOfDicesPerColor","18");
+        properties.setProperty("numberOfToolCards","3");
+        properties.setProperty("numberOfPublicObjectiveCards","2");
+        properties.setProperty("maxNumberOfPlayers","4");
+        properties.setProperty("minNumberOfPlayers","2");
+        properties.setProperty("timeoutLaunchingGame","1000");
+        properties.setProperty("timeoutChoosingPatterns","1000");
+        properties.setProperty("amountOfCouplesOfPatternsPerPlayer","1");
+        properties.setProperty("timeoutPlayerMove","1000");
+        properties.setProperty("persistencyPath","globalrankings.xml");
+
+        controller = new Controller(new Game(1,4), properties, Logger.getLogger("TestLogger"), 42);
+        controller.setHeadless();
+        controller.setReplayPath(path);
+    }
+
+    /**
+     * Sends a move to the controller
+     *
+     * @param playerID the player performing the move
+     * @param move the move
+     * @param params the params of the move, as couples of key and value
+     * @return the answer of the controller
+     */
+    private Message move(String playerID, Move move, Object... params){
+        HashMap<String,Object> map = new HashMap<>();
+        map.put("move", move);
+        for(int i = 0; i < params.length; i += 2){
+            map.put((String) params[i], params[i+1]);
+        }
+        return controller.handleMoveMessage(new Message(ControllerBoundMessageType.MOVE, map, playerID));
+    }
+
+    /**
+     * Plays a whole game: a player chooses the pattern while the other gets it when the timer expires,
+     * then each player drafts and places a dice in the first turn and ends the following ones
+     */
+    @SuppressWarnings("unchecked")
+    private void playGame(){
+        Map<String,List<WindowPattern>> distributedPatterns = new HashMap<>();
+        controller.register(message -> {
+            if(message.getType()==ViewBoundMessageType.DISTRIBUTION_OF_WINDOW_PATTERNS){
+                distributedPatterns.put(message.getPlayerID(), (List<WindowPattern>) message.getParams().get("windowPatterns"));
+            }
+            return true;
+        });
+        controller.launchGame(new LinkedHashSet<>(Arrays.asList("Johnnyfer", "Rubens")));
+
+        String chooser = "Rubens";
+        WindowPattern chosen = distributedPatterns.get(chooser).get(1);
+        move(chooser, Move.CHOOSE_WINDOW_PATTERN, "windowPattern", chosen.copy());
+        controller.patternsChoiceTimerExpired();
+
+        assertEquals(GameStatus.PLAYING, controller.game.getStatus());
+
+        while(controller.game.getStatus()==GameStatus.PLAYING){
+            Turn turn = controller.game.getCurrentRound().getCurrentTurn();
+            String playerID = turn.getPlayer().getID();
+
+            if(turn.getPlayer().getWindowPattern().isEmpty()){
+                Dice dice = controller.game.getCurrentRound().getDraftPool().getDices().get(0);
+                move(playerID, Move.DRAFT_DICE_FROM_DRAFTPOOL, "dice", dice);
+                move(playerID, Move.PLACE_DICE_ON_WINDOWPATTERN, "row", 0, "col", 0);
+            }
+            move(playerID, Move.END_TURN);
+        }
+    }
+
+    /**
+     * Tests that the replay file is written when the game ends and that it is read event by event
+     * @see ReplayReader#next()
+     */
+    @Test
+    public void testReplayFileIsWrittenAndRead() throws IOException {
+        playGame();
+        assertEquals(GameStatus.ENDED, controller.game.getStatus());
+        assertTrue(new File(path).exists());
+
+        try(ReplayReader reader = new ReplayReader(path)){
+            assertEquals(42, reader.getSeed());
+            assertEquals(Arrays.asList("Johnnyfer", "Rubens"), reader.getPlayers());
+            assertEquals("1", reader.getProperties().getProperty("numberOfRounds"));
+
+            ReplayEvent first = reader.next();
+            assertEquals(ReplayEvent.Kind.MOVE, first.getKind());
+            assertTrue(first.getMove().isMove(Move.CHOOSE_WINDOW_PATTERN));
+            //Without a resolver window patterns are read as their ID
+            assertTrue(first.getMove().getParams().get("windowPattern") instanceof String);
+
+            assertEquals(ReplayEvent.Kind.PATTERNS_CHOICE_TIMEOUT, reader.next().getKind());
+
+            assertNull(reader.getScores());
+            long previousTime = first.getTime();
+            ReplayEvent event;
+            while((event = reader.next()) != null){
+                assertTrue(event.getTime() >= previousTime);
+                previousTime = event.getTime();
+            }
+            assertEquals(controller.getFinalScores(), reader.getScores());
+        }
+    }
+
+    /**
+     * Tests that the replayed game ends exactly as the recorded one
+     * @see ReplayEngine#replay(String, Logger)
+     */
+    @Test
+    public void testReplayIsConsistent() throws IOException {
+        playGame();
+
+        ReplayEngine.Result result = ReplayEngine.replay(path, Logger.getLogger("TestLogger"));
+
+        assertTrue(result.isConsistent());
+        assertEquals(controller.getFinalScores(), result.getReplayedScores());
+
+        for(Player player : controller.game.getPlayers()){
+            for(Player replayedPlayer : result.getGame().getPlayers()){
+                if(replayedPlayer.getID().equals(player.getID())){
+                    assertEquals(player.getWindowPattern().toString(), replayedPlayer.getWindowPattern().toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that controllers created with the same seed give the same dices
+     * @see Controller#Controller(Game, Properties, Logger, long)
+     */
+    @Test
+    public void testSameSeedGivesSameDices(){
+        Controller other = new Controller(new Game(1,4), properties, Logger.getLogger("TestLogger"), 42);
+        other.setHeadless();
+
+        assertEquals(controller.diceBag.getDices(20), other.diceBag.getDices(20));
+    }
+}
@@ -0,0 +1,81 @@
+package it.polimi.se2018.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link Simulation} class
+ *
+ * @author Federico Haag
+ */
+public class SimulationTest {
+
+    private Properties properties;
+
+    @Before
+    public void init(){
+        properties = new Properties();
+        properties.setProperty("numberOfRounds","10");
+        properties.setProperty("numberOfDicesPerColor","18");
+        properties.setProperty("numberOfToolCards","3");
+        properties.setProperty("numberOfPublicObjectiveCards","2");
+        properties.setProperty("maxNumberOfPlayers","4");
+        properties.setProperty("minNumberOfPlayers","2");
+        properties.setProperty("timeoutLaunchingGame","1000");
+        properties.setProperty("timeoutChoosingPatterns","1000");
+        properties.setProperty("amountOfCouplesOfPatternsPerPlayer","2");
+        properties.setProperty("timeoutPlayerMove","1000");
+    }
+
+    /**
+     * Tests that all the simulated games are played and counted in the statistics
+     * @see Simulation#run(int, long, int)
+     */
+    @Test
+    public void testRun(){
+        List<BotPolicy> seats = Collections.nCopies(3, new RandomBotPolicy(0.5));
+        SimulationStatistics statistics = new Simulation(properties, seats).run(40, 7, 4);
+
+        assertEquals(40, statistics.getNumberOfGames());
+        assertEquals(0, statistics.getNumberOfFailedGames());
+
+        long players = 0;
+        long wins = 0;
+        for(SimulationStatistics.Record record : statistics.getWindowPatterns().values()){
+            players += record.getNumberOfPlayers();
+            wins += record.getWins();
+            assertEquals(record.getNumberOfPlayers(),
+                    record.getScoreDistribution().values().stream().mapToLong(Long::longValue).sum());
+        }
+        assertEquals(120, players);
+        assertEquals(40, wins);
+        assertFalse(statistics.getToolCards().isEmpty());
+    }
+
+    /**
+     * Tests that the same seed gives the same statistics, whatever the number of threads
+     * @see Simulation#run(int, long, int)
+     */
+    @Test
+    public void testSameSeedGivesSameStatistics(){
+        Simulation simulation = new Simulation(properties, Arrays.asList(new RandomBotPolicy(0.3), new RandomBotPolicy(0)));
+
+        assertEquals(simulation.run(20, 42, 1).toString(), simulation.run(20, 42, 3).toString());
+    }
+
+    /**
+     * Tests that a simulation can't have more seats than the max number of players
+     * @see Simulation#Simulation(Properties, List)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManySeats(){
+        new Simulation(properties, Collections.nCopies(5, new RandomBotPolicy(0)));
+    }
+}
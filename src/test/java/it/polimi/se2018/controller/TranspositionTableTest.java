@@ -0,0 +1,99 @@
+package it.polimi.se2018.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link TranspositionTable} class
+ *
+ * @author Federico Haag
+ */
+public class TranspositionTableTest {
+
+    private static final double DELTA = 1e-6;
+
+    private TranspositionTable table;
+
+    /**
+     * Initializes an empty table before each test
+     */
+    @Before
+    public void initializeTable(){
+        table = new TranspositionTable(100);
+    }
+
+    /**
+     * Tests that the capacity is rounded up to a power of two
+     * @see TranspositionTable#TranspositionTable(int)
+     */
+    @Test
+    public void testCapacity(){
+        assertEquals(128, table.getCapacity());
+        assertEquals(64, new TranspositionTable(64).getCapacity());
+        assertEquals(1, new TranspositionTable(1).getCapacity());
+    }
+
+    /**
+     * Tests the impossibility of creating a table without entries
+     * @see TranspositionTable#TranspositionTable(int)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorWithoutEntries(){
+        new TranspositionTable(0);
+    }
+
+    /**
+     * Tests that a position never evaluated is missing
+     * @see TranspositionTable#probe(long)
+     */
+    @Test
+    public void testProbeMissing(){
+        assertEquals(TranspositionTable.MISSING, table.probe(42));
+        assertEquals(0, TranspositionTable.getVisits(table.probe(42)));
+    }
+
+    /**
+     * Tests that the evaluations of a position are counted and averaged
+     * @see TranspositionTable#add(long, double)
+     */
+    @Test
+    public void testAdd(){
+        table.add(42, 0.2);
+        table.add(42, 0.4);
+        table.add(42, 0.9);
+
+        long data = table.probe(42);
+        assertEquals(3, TranspositionTable.getVisits(data));
+        assertEquals(0.5, TranspositionTable.getMeanReward(data), DELTA);
+    }
+
+    /**
+     * Tests that a position stored in the same entry of another one replaces it
+     * @see TranspositionTable#add(long, double)
+     */
+    @Test
+    public void testReplacement(){
+        long key = 42;
+        long otherKey = key + ((long) table.getCapacity() << 32) + table.getCapacity();
+
+        table.add(key, 0.3);
+        table.add(otherKey, 0.7);
+
+        assertEquals(TranspositionTable.MISSING, table.probe(key));
+        assertEquals(0.7, TranspositionTable.getMeanReward(table.probe(otherKey)), DELTA);
+    }
+
+    /**
+     * Tests that clearing the table removes all its entries
+     * @see TranspositionTable#clear()
+     */
+    @Test
+    public void testClear(){
+        table.add(42, 0.3);
+        table.clear();
+
+        assertEquals(TranspositionTable.MISSING, table.probe(42));
+    }
+}
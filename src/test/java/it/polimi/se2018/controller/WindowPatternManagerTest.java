@@ -1,10 +1,16 @@
 package it.polimi.se2018.controller;
 
+import it.polimi.se2018.model.Dice;
+import it.polimi.se2018.model.DiceColor;
+import it.polimi.se2018.model.WindowPattern;
 import it.polimi.se2018.utils.BadBehaviourRuntimeException;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -68,4 +74,27 @@ public class WindowPatternManagerTest {
         assertEquals(2, windowPatterns.size());
     }
 
+    /**
+     * Tests that managers sharing the window patterns of another one hand out copies of them,
+     * and that patterns chosen by one manager are still available to the others
+     * @see WindowPatternManager#WindowPatternManager(WindowPatternManager, Random)
+     */
+    @Test
+    public void testSharedWindowPatterns(){
+        WindowPatternManager library = new WindowPatternManager();
+        List<WindowPattern> first = new ArrayList<>(new WindowPatternManager(library, new Random(1)).getPairsOfPatterns(2));
+        List<WindowPattern> second = new ArrayList<>(new WindowPatternManager(library, new Random(1)).getPairsOfPatterns(2));
+
+        assertEquals(4, second.size());
+        for(int i = 0; i < first.size(); i++){
+            assertEquals(first.get(i).getID(), second.get(i).getID());
+            assertNotSame(first.get(i), second.get(i));
+        }
+
+        assertTrue(first.get(0).putDiceOnCell(new Dice(DiceColor.RED, 1), 0, 0));
+        assertFalse(first.get(0).isEmpty());
+        assertTrue(second.get(0).isEmpty());
+        assertNull(second.get(0).getDiceOnCell(0, 0));
+    }
+
 }
\ No newline at end of file
@@ -116,4 +116,24 @@ public class CellTest {
         cell = new Cell(0, RED);
         assertEquals("R", cell.getCellConstraintsToString());
     }
+
+    /**
+     * Tests that the snapshot of a cell is shared until its dice changes
+     * @see Cell#snapshot()
+     */
+    @Test
+    public void testSnapshot(){
+        Cell emptyCell = new Cell();
+        Cell snapshot = emptyCell.snapshot();
+        assertSame(snapshot, emptyCell.snapshot());
+
+        emptyCell.setDice(new Dice(RED,2));
+        Cell changedSnapshot = emptyCell.snapshot();
+        assertNotSame(snapshot, changedSnapshot);
+        assertFalse(snapshot.hasDice());
+        assertEquals(new Dice(RED,2), changedSnapshot.getDice());
+
+        emptyCell.getDice().incrementValue();
+        assertEquals(new Dice(RED,3), emptyCell.snapshot().getDice());
+    }
 }
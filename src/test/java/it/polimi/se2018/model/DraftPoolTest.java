@@ -127,4 +127,36 @@ public class DraftPoolTest {
 
         assertFalse(draftPool.draftDice(dice));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the Zobrist hash is kept up to date when dices are drafted and put back,
+     * and that it doesn't depend on the order of the dices
+     * @see DraftPool#getZobristHash()
+     */
+    @Test
+    public void testZobristHash(){
+        Dice red = new Dice(DiceColor.RED, 3);
+        Dice yellow = new Dice(DiceColor.YELLOW, 2);
+        long emptyHash = draftPool.getZobristHash();
+
+        draftPool.putDice(red);
+        draftPool.putDice(yellow);
+        long hash = draftPool.getZobristHash();
+        assertNotEquals(emptyHash, hash);
+
+        List<Dice> dices = new ArrayList<>();
+        dices.add(yellow.copy());
+        dices.add(red.copy());
+        assertEquals(hash, new DraftPool(dices).getZobristHash());
+
+        draftPool.putDice(red.copy());
+        assertNotEquals(hash, draftPool.getZobristHash());
+
+        draftPool.draftDice(red);
+        assertEquals(hash, draftPool.getZobristHash());
+
+        draftPool.draftDice(red);
+        draftPool.draftDice(yellow);
+        assertEquals(emptyHash, draftPool.getZobristHash());
+    }
+}
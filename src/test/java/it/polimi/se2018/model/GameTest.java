@@ -5,8 +5,11 @@ import it.polimi.se2018.controller.NoMoreTurnsAvailableException;
 import it.polimi.se2018.controller.WindowPatternManager;
 import it.polimi.se2018.utils.BadBehaviourRuntimeException;
 import it.polimi.se2018.utils.EmptyListException;
+import it.polimi.se2018.utils.Message;
 import it.polimi.se2018.utils.Move;
+import it.polimi.se2018.utils.NoSuchParamInMessageException;
 import it.polimi.se2018.utils.ValueOutOfBoundsException;
+import it.polimi.se2018.utils.ViewBoundMessageType;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -699,4 +702,63 @@ public class GameTest {
             fail();
         }catch (BadBehaviourRuntimeException e){}
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the public state of a running game has no private objective card
+     * @see Game#getPublicState()
+     */
+    @Test
+    public void testGetPublicState() throws NoSuchParamInMessageException {
+        assertNull(game.getPublicState());
+
+        game.setCards(toolCards, publicObjectiveCards);
+        game.addPlayer(player);
+        game.setStatusAsWaitingForPatternsChoice();
+        game.assignWindowPatternToPlayer(windowPattern, player.getID());
+        game.startGame(dices, permissions);
+
+        Message publicState = game.getPublicState();
+        assertNull(publicState.getPlayerID());
+
+        List<Message> messages = publicState.unbatch();
+        assertEquals(3, messages.size());
+        assertEquals(ViewBoundMessageType.SETUP, messages.get(0).getType());
+        assertEquals(ViewBoundMessageType.NEW_ROUND, messages.get(1).getType());
+        assertEquals(ViewBoundMessageType.NEW_TURN, messages.get(2).getType());
+        assertEquals(player.getID(), messages.get(2).getParam("whoIsPlaying"));
+        try {
+            messages.get(0).getParam("privateObjectiveCard");
+            fail();
+        } catch (NoSuchParamInMessageException e) {}
+    }
+
+    /**
+     * Tests that the copy of a started game is equal to the game but doesn't share with it
+     * the model objects that change during the game
+     * @see Game#copy()
+     */
+    @Test
+    public void testCopy(){
+        Player player = new Player("nickname", new PrivateObjectiveCard("","","",RED));
+        game.setCards(toolCards, publicObjectiveCards);
+        game.addPlayer(player);
+        game.setStatusAsWaitingForPatternsChoice();
+        game.assignWindowPatternToPlayer(windowPattern, player.getID());
+        game.startGame(dices, permissions);
+
+        Game copy = game.copy();
+
+        assertEquals(game.getStatus(), copy.getStatus());
+        assertTrue(copy.isCurrentPlayer(player.getID()));
+        Player playerCopy = copy.getPlayers().get(0);
+        assertNotSame(player, playerCopy);
+        assertSame(playerCopy, copy.getCurrentRound().getCurrentTurn().getPlayer());
+        assertNotSame(player.getWindowPattern(), playerCopy.getWindowPattern());
+        assertEquals(player.getFavorTokens(), playerCopy.getFavorTokens());
+        assertEquals(game.getDrawnToolCards(), copy.getDrawnToolCards());
+
+        Dice drafted = copy.getCurrentRound().getDraftPool().getDices().get(0);
+        assertTrue(copy.getCurrentRound().getDraftPool().draftDice(drafted));
+        assertEquals(dices.size(), game.getCurrentRound().getDraftPool().getDices().size());
+    }
+}
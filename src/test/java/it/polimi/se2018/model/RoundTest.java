@@ -308,6 +308,22 @@ public class RoundTest {
         assertEquals(draftPool, round.getDraftPool());
     }
 
+    /**
+     * Tests the count of the turns of a player after the current one
+     * @see Round#getNumberOfNextTurnsOf(Player)
+     */
+    @Test
+    public void testGetNumberOfNextTurnsOf() throws NoMoreTurnsAvailableException {
+        round = new Round(0, players.size() * 2, players, draftPool);
+        round.nextTurn();
+        Player currentPlayer = round.getCurrentTurn().getPlayer();
+
+        assertEquals(1, round.getNumberOfNextTurnsOf(currentPlayer));
+
+        round.removeNextTurnOfPlayer(currentPlayer);
+        assertEquals(0, round.getNumberOfNextTurnsOf(currentPlayer));
+    }
+
     /**
      * Tests the removal of the next turn of a player
      * @see Round#removeNextTurnOfPlayer(Player)
@@ -240,4 +240,21 @@ public class ToolCardTest {
         assertNotNull(toolCard.hashCode());
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests that a copy has the same properties and tokens of the card, and that using it doesn't change the card
+     * @see ToolCard#copy()
+     */
+    @Test
+    public void testCopy() {
+        toolCard.use();
+        ToolCard copy = toolCard.copy();
+
+        assertEquals(toolCard, copy);
+        assertEquals(toolCard.toString(), copy.toString());
+        assertSame(toolCard.getPlacementRule(), copy.getPlacementRule());
+
+        copy.use();
+        assertEquals(neededTokens.intValue(), toolCard.getUsedTokens());
+        assertEquals(neededTokens*3, copy.getUsedTokens());
+    }
+}
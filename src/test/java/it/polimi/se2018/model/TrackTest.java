@@ -199,4 +199,41 @@ public class TrackTest {
         }
         assertEquals(5, track.size());
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that a snapshot is equal to a copy and is shared while the track doesn't change
+     * @see Track#snapshot()
+     */
+    @Test
+    public void testSnapshot() throws BadDiceReferenceException {
+        Track snapshot = track.snapshot();
+        assertEquals(track.toString(), snapshot.toString());
+        assertSame(snapshot, track.snapshot());
+
+        track.takeDice(dice1, 0);
+        Track changedSnapshot = track.snapshot();
+
+        assertNotSame(snapshot, changedSnapshot);
+        assertEquals(track.toString(), changedSnapshot.toString());
+        assertTrue(snapshot.getDicesFromSlotNumber(0).contains(dice1));
+    }
+
+    /**
+     * Tests that the Zobrist hash is kept up to date when dices are taken from and put on the track,
+     * and that copies have the same hash
+     * @see Track#getZobristHash()
+     */
+    @Test
+    public void testZobristHash() throws BadDiceReferenceException {
+        long hash = track.getZobristHash();
+        assertEquals(hash, track.copy().getZobristHash());
+        assertEquals(hash, track.snapshot().getZobristHash());
+
+        track.takeDice(dice1, 0);
+        assertNotEquals(hash, track.getZobristHash());
+        assertEquals(track.copy().getZobristHash(), track.getZobristHash());
+
+        track.putDice(dice1, 0);
+        assertEquals(hash, track.getZobristHash());
+    }
+}
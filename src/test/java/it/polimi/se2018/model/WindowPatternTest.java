@@ -223,6 +223,48 @@ public class WindowPatternTest {
         assertFalse(windowPattern.moveDiceFromCellToCell(1,1, 1,2));
     }
 
+    /**
+     * Tests the check of moving a dice, made lifting the moved dice from its cell and putting it back
+     * @see WindowPattern#isMoveAllowed(PlacementRule, int, int, int, int)
+     */
+    @Test
+    public void testIsMoveAllowed(){
+        PlacementRule placementRule = new AdjacentDicePlacementRuleDecorator(new EmptyPlacementRule());
+        Cell[][] cells = new Cell[rows][cols];
+        for(int i=0; i<rows; i++){
+            for(int j=0; j<cols; j++){
+                cells[i][j] = new Cell();
+            }
+        }
+        windowPattern = new WindowPattern("id","title", "",1, cells);
+        player.setWindowPattern(windowPattern);
+        windowPattern.setOwner(player);
+        windowPattern.putDiceOnCell(dice, 1, 1);
+        windowPattern.putDiceOnCell(new Dice(YELLOW), 2, 2);
+
+        assertTrue(windowPattern.isMoveAllowed(placementRule, 1, 1, 1, 2));
+        assertFalse(windowPattern.isMoveAllowed(placementRule, 1, 1, 0, 0));
+        assertFalse(windowPattern.isMoveAllowed(placementRule, 1, 1, 2, 2));
+        assertFalse(windowPattern.isMoveAllowed(placementRule, 0, 0, 1, 0));
+        assertEquals(dice, windowPattern.getDiceOnCell(1,1));
+
+        //while the rule is checked the moved dice is lifted from its cell, then it is put back
+        long hash = windowPattern.getZobristHash();
+        PlacementRule checkingRule = (pattern, checkedDice, row, col) -> pattern == windowPattern
+                && !pattern.isThereADice(1, 1) && checkedDice.equals(dice);
+        assertTrue(windowPattern.isMoveAllowed(checkingRule, 1, 1, 0, 2));
+        assertEquals(dice, windowPattern.getDiceOnCell(1,1));
+        assertEquals(hash, windowPattern.getZobristHash());
+
+        PlacementRule failingRule = (pattern, checkedDice, row, col) -> { throw new IllegalStateException(); };
+        try {
+            windowPattern.isMoveAllowed(failingRule, 1, 1, 0, 2);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(dice, windowPattern.getDiceOnCell(1,1));
+        }
+    }
+
     /**
      * Tests the legality of a position (cell) implicitly testing {@link WindowPattern#isIllegalPosition(int, int)}
      * @see WindowPattern#isIllegalPosition(int, int)
@@ -303,17 +345,112 @@ public class WindowPatternTest {
         assertNotNull(windowPattern.copy());
     }
 
+    /**
+     * Tests that the copy of a pattern with a dice is not empty, as placement rules depend on it
+     * @see WindowPattern#copy()
+     */
+    @Test
+    public void testCopyOfNotEmptyPattern(){
+        Cell[][] cells = new Cell[rows][cols];
+        for(int i=0; i<rows; i++){
+            for(int j=0; j<cols; j++){
+                cells[i][j] = new Cell();
+            }
+        }
+        WindowPattern notShared = new WindowPattern("id","title", "",1, cells);
+        assertTrue(notShared.copy().isEmpty());
 
+        assertTrue(notShared.putDiceOnCell(dice, 2, 4));
 
+        assertFalse(notShared.copy().isEmpty());
+    }
 
+    /**
+     * Tests that a snapshot is equal to a copy, is shared while the pattern doesn't change,
+     * and shares with the previous snapshot the cells that didn't change
+     * @see WindowPattern#snapshot()
+     */
+    @Test
+    public void testSnapshot(){
+        Cell[][] cells = new Cell[rows][cols];
+        for(int i=0; i<rows; i++){
+            for(int j=0; j<cols; j++){
+                cells[i][j] = new Cell();
+            }
+        }
+        windowPattern = new WindowPattern("id","title", "",1, cells);
+        player.setWindowPattern(windowPattern);
+        windowPattern.setOwner(player);
 
+        WindowPattern snapshot = windowPattern.snapshot();
+        assertEquals(windowPattern.toString(), snapshot.toString());
+        assertSame(snapshot, windowPattern.snapshot());
 
+        windowPattern.putDiceOnCell(new Dice(RED,3), 0, 0);
+        WindowPattern changedSnapshot = windowPattern.snapshot();
 
+        assertNotSame(snapshot, changedSnapshot);
+        assertEquals(windowPattern.toString(), changedSnapshot.toString());
+        assertFalse(snapshot.isThereADice(0,0));
+        assertNotSame(snapshot.getCells()[0][0], changedSnapshot.getCells()[0][0]);
+        assertSame(snapshot.getCells()[1][1], changedSnapshot.getCells()[1][1]);
+    }
+
+    /**
+     * Tests that a snapshot taken after the first placement is not empty,
+     * so the placement rules checked on it give the same result as on the pattern
+     * @see WindowPattern#snapshot()
+     */
+    @Test
+    public void testSnapshotAfterFirstPlacement(){
+        Cell[][] cells = new Cell[rows][cols];
+        for(int i=0; i<rows; i++){
+            for(int j=0; j<cols; j++){
+                cells[i][j] = new Cell();
+            }
+        }
+        windowPattern = new WindowPattern("id","title", "",1, cells);
+        assertTrue(windowPattern.snapshot().isEmpty());
 
+        windowPattern.putDiceOnCell(new Dice(RED,3), 0, 0);
+        WindowPattern snapshot = windowPattern.snapshot();
+        PlacementRule rule = PlacementRule.getDefault();
 
+        assertFalse(snapshot.isEmpty());
+        assertFalse(rule.isMoveAllowed(windowPattern, new Dice(BLUE,5), 3, 4));
+        assertFalse(rule.isMoveAllowed(snapshot, new Dice(BLUE,5), 3, 4));
+        assertTrue(rule.isMoveAllowed(snapshot, new Dice(BLUE,5), 1, 1));
+    }
 
+    /**
+     * Tests that the Zobrist hash is kept up to date when dices are placed, moved and removed,
+     * and that it depends only on the dices on the pattern
+     * @see WindowPattern#getZobristHash()
+     */
+    @Test
+    public void testZobristHash(){
+        Cell[][] cells = new Cell[rows][cols];
+        for(int i=0; i<rows; i++){
+            for(int j=0; j<cols; j++){
+                cells[i][j] = new Cell();
+            }
+        }
+        windowPattern = new WindowPattern("id","title", "",1, cells);
+        player.setWindowPattern(windowPattern);
+        windowPattern.setOwner(player);
 
+        long emptyHash = windowPattern.getZobristHash();
 
+        windowPattern.putDiceOnCell(new Dice(RED,3), 0, 0);
+        long placedHash = windowPattern.getZobristHash();
+        assertNotEquals(emptyHash, placedHash);
+        assertEquals(placedHash, windowPattern.copy().getZobristHash());
 
+        windowPattern.moveDiceFromCellToCell(0, 0, 1, 1);
+        assertNotEquals(placedHash, windowPattern.getZobristHash());
+        assertEquals(windowPattern.copy().getZobristHash(), windowPattern.getZobristHash());
 
-}
\ No newline at end of file
+        windowPattern.removeDiceFromCell(1, 1);
+        assertEquals(emptyHash, windowPattern.getZobristHash());
+    }
+}
@@ -0,0 +1,149 @@
+package it.polimi.se2018.networking;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link AdmissionControl} class
+ *
+ * @author Federico Haag
+ */
+public class AdmissionControlTest {
+
+    private static final String ADDRESS = "127.0.0.1";
+    private static final String OTHER_ADDRESS = "127.0.0.2";
+    private static final int BURST = 3;
+
+    /**
+     * Tests that connections are rejected over the total cap, and admitted again once one is released
+     * @see AdmissionControl#admit(String)
+     */
+    @Test
+    public void testTotalCap(){
+        AdmissionControl admission = new AdmissionControl(2, 10, BURST, 1, 100, 1);
+
+        assertTrue(admission.admit(ADDRESS));
+        assertTrue(admission.admit(OTHER_ADDRESS));
+        assertFalse(admission.admit(ADDRESS));
+        assertEquals(2, admission.getConnections());
+        assertEquals(1, admission.getRejectedConnections());
+
+        admission.release(ADDRESS);
+        assertTrue(admission.admit(OTHER_ADDRESS));
+        assertEquals(2, admission.getConnections());
+    }
+
+    /**
+     * Tests that connections are rejected over the cap of their address, without affecting the other addresses
+     * @see AdmissionControl#admit(String)
+     */
+    @Test
+    public void testPerAddressCap(){
+        AdmissionControl admission = new AdmissionControl(10, 2, BURST, 1, 100, 1);
+
+        assertTrue(admission.admit(ADDRESS));
+        assertTrue(admission.admit(ADDRESS));
+        assertFalse(admission.admit(ADDRESS));
+        assertTrue(admission.admit(OTHER_ADDRESS));
+        assertEquals(3, admission.getConnections());
+        assertEquals(1, admission.getRejectedConnections());
+    }
+
+    /**
+     * Tests that a rejected connection doesn't keep its place, so releasing the admitted ones frees all the caps
+     * @see AdmissionControl#release(String)
+     */
+    @Test
+    public void testReleaseAfterReject(){
+        AdmissionControl admission = new AdmissionControl(10, 1, BURST, 1, 100, 1);
+
+        assertTrue(admission.admit(ADDRESS));
+        for(int i = 0; i < 5; i++){
+            assertFalse(admission.admit(ADDRESS));
+        }
+        assertEquals(1, admission.getConnections());
+
+        admission.release(ADDRESS);
+        assertEquals(0, admission.getConnections());
+        assertTrue(admission.admit(ADDRESS));
+        assertEquals(1, admission.getConnections());
+        assertEquals(5, admission.getRejectedConnections());
+    }
+
+    /**
+     * Tests that a session can send a burst of messages, then its messages are dropped
+     * without affecting the other sessions of the same address
+     * @see AdmissionControl#allowMessage(Object, String)
+     */
+    @Test
+    public void testSessionBurst(){
+        AdmissionControl admission = new AdmissionControl(10, 10, BURST, 1, 100, 1);
+        Object session = new Object();
+
+        for(int i = 0; i < BURST; i++){
+            assertTrue(admission.allowMessage(session, ADDRESS));
+        }
+        assertFalse(admission.allowMessage(session, ADDRESS));
+        assertTrue(admission.allowMessage(new Object(), ADDRESS));
+        assertEquals(1, admission.getDroppedMessages());
+    }
+
+    /**
+     * Tests that the sessions of an address share the burst of the address
+     * @see AdmissionControl#allowMessage(Object, String)
+     */
+    @Test
+    public void testAddressBurst(){
+        AdmissionControl admission = new AdmissionControl(10, 10, 100, 1, BURST, 1);
+
+        for(int i = 0; i < BURST; i++){
+            assertTrue(admission.allowMessage(new Object(), ADDRESS));
+        }
+        assertFalse(admission.allowMessage(new Object(), ADDRESS));
+        assertTrue(admission.allowMessage(new Object(), OTHER_ADDRESS));
+        assertEquals(1, admission.getDroppedMessages());
+    }
+
+    /**
+     * Tests that a forgotten session starts again with a full bucket
+     * @see AdmissionControl#forgetSession(Object)
+     */
+    @Test
+    public void testForgetSession(){
+        AdmissionControl admission = new AdmissionControl(10, 10, BURST, 1, 100, 1);
+        Object session = new Object();
+        for(int i = 0; i < BURST; i++){
+            admission.allowMessage(session, ADDRESS);
+        }
+
+        admission.forgetSession(session);
+        assertTrue(admission.allowMessage(session, ADDRESS));
+    }
+
+    /**
+     * Tests that a throttled session is reported once for each run of dropped messages
+     * @see AdmissionControl#startThrottling(Object)
+     */
+    @Test
+    public void testThrottling(){
+        AdmissionControl admission = new AdmissionControl(10, 10, BURST, 1, 100, 1);
+        Object session = new Object();
+        for(int i = 0; i < BURST; i++){
+            assertTrue(admission.allowMessage(session, ADDRESS));
+        }
+
+        assertFalse(admission.allowMessage(session, ADDRESS));
+        assertTrue(admission.startThrottling(session));
+        assertFalse(admission.allowMessage(session, ADDRESS));
+        assertFalse(admission.startThrottling(session));
+
+        //a fresh bucket lets messages through again, so the next dropped one is reported again
+        admission.forgetSession(session);
+        for(int i = 0; i < BURST; i++){
+            assertTrue(admission.allowMessage(session, ADDRESS));
+        }
+        assertFalse(admission.allowMessage(session, ADDRESS));
+        assertTrue(admission.startThrottling(session));
+    }
+}
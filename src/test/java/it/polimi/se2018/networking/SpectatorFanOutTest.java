@@ -0,0 +1,188 @@
+package it.polimi.se2018.networking;
+
+import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.NoSuchParamInMessageException;
+import it.polimi.se2018.utils.ViewBoundMessageType;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link SpectatorFanOut} class
+ *
+ * @author Federico Haag
+ */
+public class SpectatorFanOutTest {
+
+    private static final String PARAM_NUMBER = "number";
+    private static final int SNAPSHOT_NUMBER = 0;
+    private static final long WAIT = 5000;
+
+    /**
+     * Gateway of a spectator recording the numbers carried by the frames written to it.
+     * Writes can be held until they are released.
+     */
+    private static final class RecordingGateway implements ClientProxyInterface {
+
+        /**
+         * Numbers carried by the written frames, in order
+         */
+        private final BlockingQueue<Integer> received = new LinkedBlockingQueue<>();
+
+        /**
+         * Counted down as soon as the first write begins
+         */
+        private final CountDownLatch writing = new CountDownLatch(1);
+
+        /**
+         * Writes wait for it before ending
+         */
+        private final CountDownLatch released;
+
+        /**
+         * Constructor of the gateway
+         *
+         * @param held true if writes have to wait until {@link #release()} is called
+         */
+        RecordingGateway(boolean held) {
+            this.released = new CountDownLatch(held ? 1 : 0);
+        }
+
+        /**
+         * Lets the held writes end
+         */
+        void release(){
+            released.countDown();
+        }
+
+        /**
+         * Returns the number carried by the next written frame
+         *
+         * @return the number carried by the next written frame, or null if none is written in time
+         * @throws InterruptedException if interrupted while waiting
+         */
+        Integer next() throws InterruptedException {
+            return received.poll(WAIT, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Waits for the first write to begin
+         *
+         * @throws InterruptedException if interrupted while waiting
+         */
+        void awaitWriting() throws InterruptedException {
+            assertTrue(writing.await(WAIT, TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public void receiveMessage(EncodedMessage message) throws NetworkingException {
+            writing.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NetworkingException();
+            }
+            try {
+                received.add((Integer) message.decode().getParam(PARAM_NUMBER));
+            } catch (NoSuchParamInMessageException e) {
+                throw new NetworkingException();
+            }
+        }
+    }
+
+    /**
+     * Encodes a message carrying the given number
+     *
+     * @param number the number carried by the message
+     * @return the encoded message
+     * @throws NetworkingException if the message can't be encoded
+     */
+    private static EncodedMessage frame(int number) throws NetworkingException {
+        return EncodedMessage.encode(numbered(number));
+    }
+
+    /**
+     * Creates a message carrying the given number
+     *
+     * @param number the number carried by the message
+     * @return the message
+     */
+    private static Message numbered(int number){
+        return new Message(ViewBoundMessageType.SETUP, Message.fastMap(PARAM_NUMBER, number));
+    }
+
+    /**
+     * Tests that a spectator that can't keep up loses its queued frames and receives a snapshot
+     * at the next event, then follows the events again
+     * @throws Exception if something goes wrong
+     * @see SpectatorFanOut#publish(EncodedMessage)
+     */
+    @Test
+    public void testDropOldestThenSnapshot() throws Exception {
+        SpectatorFanOut fanOut = new SpectatorFanOut(1, 2, 1, WAIT, () -> numbered(SNAPSHOT_NUMBER));
+        RecordingGateway gateway = new RecordingGateway(true);
+        assertTrue(fanOut.add(gateway));
+
+        //The first event is replaced by the snapshot, whose write is held
+        fanOut.publish(frame(1));
+        gateway.awaitWriting();
+
+        //Two events fill the queue, the third one overflows it and the fourth one is replaced by a snapshot
+        fanOut.publish(frame(2));
+        fanOut.publish(frame(3));
+        fanOut.publish(frame(4));
+        fanOut.publish(frame(5));
+        gateway.release();
+
+        assertEquals(Integer.valueOf(SNAPSHOT_NUMBER), gateway.next());
+        assertEquals(Integer.valueOf(SNAPSHOT_NUMBER), gateway.next());
+
+        fanOut.publish(frame(6));
+        assertEquals(Integer.valueOf(6), gateway.next());
+        assertTrue(fanOut.contains(gateway));
+    }
+
+    /**
+     * Tests that a spectator whose connection stalls is dropped after the write timeout,
+     * while the other spectators keep receiving the events from the same single writer
+     * @throws Exception if something goes wrong
+     * @see SpectatorFanOut#publish(EncodedMessage)
+     */
+    @Test
+    public void testStalledSpectatorIsDropped() throws Exception {
+        SpectatorFanOut fanOut = new SpectatorFanOut(2, 8, 1, 200, () -> null);
+        RecordingGateway stalled = new RecordingGateway(true);
+        RecordingGateway healthy = new RecordingGateway(false);
+        assertTrue(fanOut.add(stalled));
+        assertTrue(fanOut.add(healthy));
+
+        try {
+            for(int number = 1; number <= 3; number++){
+                fanOut.publish(frame(number));
+            }
+            for(int number = 1; number <= 3; number++){
+                assertEquals(Integer.valueOf(number), healthy.next());
+            }
+
+            stalled.awaitWriting();
+            long deadline = System.currentTimeMillis() + WAIT;
+            while(fanOut.contains(stalled) && System.currentTimeMillis() < deadline){
+                Thread.sleep(10);
+            }
+            assertFalse(fanOut.contains(stalled));
+            assertTrue(fanOut.contains(healthy));
+
+            fanOut.publish(frame(4));
+            assertEquals(Integer.valueOf(4), healthy.next());
+            assertNull(stalled.received.poll());
+        } finally {
+            stalled.release();
+        }
+    }
+}
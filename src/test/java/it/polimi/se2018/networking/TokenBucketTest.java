@@ -0,0 +1,75 @@
+package it.polimi.se2018.networking;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link TokenBucket} class
+ *
+ * @author Federico Haag
+ */
+public class TokenBucketTest {
+
+    private static final int BURST = 3;
+    private static final int TOKENS_PER_SECOND = 2;
+    private static final long SECOND = 1000000000L;
+
+    /**
+     * Tests that a full bucket allows a burst of messages at once, and no more
+     * @see TokenBucket#tryConsume(long)
+     */
+    @Test
+    public void testBurst(){
+        TokenBucket bucket = new TokenBucket(BURST, TOKENS_PER_SECOND, 0);
+
+        for(int i = 0; i < BURST; i++){
+            assertTrue(bucket.tryConsume(0));
+        }
+        assertFalse(bucket.tryConsume(0));
+    }
+
+    /**
+     * Tests that an empty bucket is refilled at its rate
+     * @see TokenBucket#tryConsume(long)
+     */
+    @Test
+    public void testRefill(){
+        TokenBucket bucket = new TokenBucket(BURST, TOKENS_PER_SECOND, 0);
+        for(int i = 0; i < BURST; i++){
+            bucket.tryConsume(0);
+        }
+
+        assertFalse(bucket.tryConsume(SECOND / TOKENS_PER_SECOND - 1));
+        assertTrue(bucket.tryConsume(SECOND / TOKENS_PER_SECOND));
+        assertFalse(bucket.tryConsume(SECOND / TOKENS_PER_SECOND));
+        assertTrue(bucket.tryConsume(2 * SECOND / TOKENS_PER_SECOND));
+    }
+
+    /**
+     * Tests that a bucket quiet for long is refilled up to its burst, and no more
+     * @see TokenBucket#tryConsume(long)
+     */
+    @Test
+    public void testRefillUpToBurst(){
+        TokenBucket bucket = new TokenBucket(BURST, TOKENS_PER_SECOND, 0);
+        bucket.tryConsume(0);
+
+        for(int i = 0; i < BURST; i++){
+            assertTrue(bucket.tryConsume(100 * SECOND));
+        }
+        assertFalse(bucket.tryConsume(100 * SECOND));
+    }
+
+    /**
+     * Tests that a time before the last refill doesn't take tokens away
+     * @see TokenBucket#tryConsume(long)
+     */
+    @Test
+    public void testTimeGoingBack(){
+        TokenBucket bucket = new TokenBucket(BURST, TOKENS_PER_SECOND, SECOND);
+
+        assertTrue(bucket.tryConsume(0));
+        assertTrue(bucket.tryConsume(SECOND));
+    }
+}
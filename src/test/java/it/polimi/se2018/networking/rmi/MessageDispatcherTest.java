@@ -0,0 +1,168 @@
+package it.polimi.se2018.networking.rmi;
+
+import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.NoSuchParamInMessageException;
+import it.polimi.se2018.utils.ViewBoundMessageType;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link MessageDispatcher} class
+ *
+ * @author Federico Haag
+ */
+public class MessageDispatcherTest {
+
+    private MessageDispatcher dispatcher;
+
+    @After
+    public void tearDown(){
+        if(dispatcher != null){
+            dispatcher.stop();
+        }
+    }
+
+    /**
+     * Creates a message carrying the given number
+     *
+     * @param number the number carried by the message
+     * @return the message
+     */
+    private static Message numbered(int number){
+        return new Message(ViewBoundMessageType.SETUP, Message.fastMap("number", number));
+    }
+
+    /**
+     * Creates a consumer that records the numbers of the messages it receives
+     *
+     * @param numbers the list where the numbers are recorded
+     * @param handled counted down for each handled message
+     * @return the consumer
+     */
+    private static Consumer<Message> numbersRecorder(List<Integer> numbers, CountDownLatch handled){
+        return message -> {
+            try {
+                numbers.add((Integer) message.getParam("number"));
+            } catch (NoSuchParamInMessageException e) {
+                fail();
+            }
+            handled.countDown();
+        };
+    }
+
+    /**
+     * Tests that messages queued by different threads one after the other are handled in the order they were queued
+     * @see MessageDispatcher#offer(Message, long)
+     */
+    @Test
+    public void testMessagesAreHandledInOrder() throws InterruptedException {
+        int numberOfMessages = 1000;
+        List<Integer> numbers = new CopyOnWriteArrayList<>();
+        CountDownLatch handled = new CountDownLatch(numberOfMessages);
+        dispatcher = new MessageDispatcher(16, numbersRecorder(numbers, handled));
+
+        for(int i = 0; i < numberOfMessages; i++){
+            assertTrue(dispatcher.offer(numbered(i), 1000));
+        }
+
+        assertTrue(handled.await(10, TimeUnit.SECONDS));
+        for(int i = 0; i < numberOfMessages; i++){
+            assertEquals(Integer.valueOf(i), numbers.get(i));
+        }
+        assertTrue(dispatcher.getPeakQueueDepth() <= 16);
+    }
+
+    /**
+     * Tests that a consumer failing on a message doesn't stop the handling of the following ones
+     * @see MessageDispatcher#offer(Message, long)
+     */
+    @Test
+    public void testFailingConsumerIsIsolated() throws InterruptedException {
+        List<Integer> numbers = new CopyOnWriteArrayList<>();
+        CountDownLatch handled = new CountDownLatch(1);
+        Consumer<Message> recorder = numbersRecorder(numbers, handled);
+        dispatcher = new MessageDispatcher(4, message -> {
+            if(message.getParams().get("number").equals(0)){
+                throw new IllegalStateException();
+            }
+            recorder.accept(message);
+        });
+
+        dispatcher.offer(numbered(0), 1000);
+        dispatcher.offer(numbered(1), 1000);
+
+        assertTrue(handled.await(10, TimeUnit.SECONDS));
+        assertEquals(1, numbers.size());
+        assertEquals(Integer.valueOf(1), numbers.get(0));
+    }
+
+    /**
+     * Tests that the queue is bounded: once full, the caller waits and gives up at the timeout,
+     * and messages are queued again as soon as the consumer makes room
+     * @see MessageDispatcher#offer(Message, long)
+     */
+    @Test
+    public void testOfferWaitsWhenFull() throws InterruptedException {
+        CountDownLatch consuming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> numbers = new CopyOnWriteArrayList<>();
+        CountDownLatch handled = new CountDownLatch(4);
+        Consumer<Message> recorder = numbersRecorder(numbers, handled);
+        dispatcher = new MessageDispatcher(2, message -> {
+            consuming.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            recorder.accept(message);
+        });
+
+        assertTrue(dispatcher.offer(numbered(0), 1000));
+        assertTrue(consuming.await(10, TimeUnit.SECONDS));
+        assertTrue(dispatcher.offer(numbered(1), 1000));
+        assertTrue(dispatcher.offer(numbered(2), 1000));
+
+        long start = System.nanoTime();
+        assertFalse(dispatcher.offer(numbered(3), 50));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(2, dispatcher.getQueueDepth());
+        assertEquals(2, dispatcher.getPeakQueueDepth());
+
+        release.countDown();
+        assertTrue(dispatcher.offer(numbered(3), 1000));
+        assertTrue(handled.await(10, TimeUnit.SECONDS));
+        assertEquals(4, numbers.size());
+        assertEquals(Integer.valueOf(3), numbers.get(3));
+    }
+
+    /**
+     * Tests that once stopped the dispatcher doesn't hand any other message to the consumer
+     * @see MessageDispatcher#stop()
+     */
+    @Test
+    public void testStop() throws InterruptedException {
+        List<Integer> numbers = new CopyOnWriteArrayList<>();
+        CountDownLatch handled = new CountDownLatch(1);
+        dispatcher = new MessageDispatcher(4, numbersRecorder(numbers, handled));
+        dispatcher.offer(numbered(0), 1000);
+        assertTrue(handled.await(10, TimeUnit.SECONDS));
+
+        dispatcher.stop();
+        Thread.sleep(50);
+        dispatcher.offer(numbered(1), 1000);
+        Thread.sleep(100);
+
+        assertEquals(1, numbers.size());
+        assertEquals(1, dispatcher.getDispatchedMessages());
+        assertEquals(1, dispatcher.getQueueDepth());
+    }
+}
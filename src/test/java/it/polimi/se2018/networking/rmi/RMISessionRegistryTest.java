@@ -0,0 +1,134 @@
+package it.polimi.se2018.networking.rmi;
+
+import it.polimi.se2018.networking.AdmissionControl;
+import it.polimi.se2018.networking.ClientProxyInterface;
+import it.polimi.se2018.networking.ServerInterface;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link RMISessionRegistry} class
+ *
+ * @author Federico Haag
+ */
+public class RMISessionRegistryTest {
+
+    private static final long IDLE_TIMEOUT = 1000;
+    private static final long RESUME_TIMEOUT = 5000;
+    private static final String ADDRESS = "127.0.0.1";
+
+    private final List<ClientProxyInterface> lost = new ArrayList<>();
+    private final List<ClientProxyInterface> restored = new ArrayList<>();
+    private AdmissionControl admission;
+    private RMISessionRegistry registry;
+    private RMIReceiverInterface client;
+
+    @Before
+    public void setUp(){
+        ServerInterface server = new ServerInterface() {
+            @Override
+            public void lostSocketConnection(ClientProxyInterface sender) {
+                lost.add(sender);
+            }
+
+            @Override
+            public void restoredSocketConnection(ClientProxyInterface previous, ClientProxyInterface next) {
+                assertSame(previous, next);
+                restored.add(next);
+            }
+        };
+        admission = new AdmissionControl(10, 10, 10, 10, 10, 10);
+        registry = new RMISessionRegistry(IDLE_TIMEOUT, RESUME_TIMEOUT, admission, server);
+        client = message -> {};
+    }
+
+    /**
+     * Tests that a client asking twice gets the same session
+     * @see RMISessionRegistry#open(RMIReceiverInterface, String, java.util.function.Function, long)
+     */
+    @Test
+    public void testOpenTwice(){
+        String token = registry.open(client, ADDRESS, RMIClientProxy::new, 0);
+
+        assertEquals(token, registry.open(client, ADDRESS, RMIClientProxy::new, 10));
+        assertEquals(1, registry.size());
+        assertEquals(1, admission.getConnections());
+    }
+
+    /**
+     * Tests that an evicted session is told to the server as a lost connection and releases its admission
+     * @see RMISessionRegistry#evictIdleSessions(long)
+     */
+    @Test
+    public void testEvictionTellsTheServer(){
+        String token = registry.open(client, ADDRESS, RMIClientProxy::new, 0);
+        RMIClientProxy proxy = registry.touch(token, 0);
+
+        assertEquals(0, registry.evictIdleSessions(IDLE_TIMEOUT));
+        assertEquals(1, registry.evictIdleSessions(IDLE_TIMEOUT + 1));
+
+        assertNull(registry.touch(token, IDLE_TIMEOUT + 1));
+        assertEquals(1, lost.size());
+        assertSame(proxy, lost.get(0));
+        assertEquals(0, admission.getConnections());
+    }
+
+    /**
+     * Tests that a client whose session was evicted gets its previous proxy back, and that the server is told so
+     * @see RMISessionRegistry#open(RMIReceiverInterface, String, java.util.function.Function, long)
+     */
+    @Test
+    public void testResumeAfterEviction(){
+        String token = registry.open(client, ADDRESS, RMIClientProxy::new, 0);
+        RMIClientProxy proxy = registry.touch(token, 0);
+        registry.evictIdleSessions(IDLE_TIMEOUT + 1);
+
+        String newToken = registry.open(client, ADDRESS, RMIClientProxy::new, IDLE_TIMEOUT + 2);
+
+        assertNotEquals(token, newToken);
+        assertSame(proxy, registry.touch(newToken, IDLE_TIMEOUT + 2));
+        assertEquals(1, restored.size());
+        assertSame(proxy, restored.get(0));
+    }
+
+    /**
+     * Tests that an evicted session can't be resumed after the resume timeout
+     * @see RMISessionRegistry#evictIdleSessions(long)
+     */
+    @Test
+    public void testResumeTimeout(){
+        String token = registry.open(client, ADDRESS, RMIClientProxy::new, 0);
+        RMIClientProxy proxy = registry.touch(token, 0);
+        registry.evictIdleSessions(IDLE_TIMEOUT + 1);
+        registry.evictIdleSessions(IDLE_TIMEOUT + RESUME_TIMEOUT + 2);
+
+        String newToken = registry.open(client, ADDRESS, RMIClientProxy::new, IDLE_TIMEOUT + RESUME_TIMEOUT + 3);
+
+        assertNotSame(proxy, registry.touch(newToken, IDLE_TIMEOUT + RESUME_TIMEOUT + 3));
+        assertTrue(restored.isEmpty());
+    }
+
+    /**
+     * Tests that a session closed by its client is told to the server and is not resumed
+     * @see RMISessionRegistry#close(String)
+     */
+    @Test
+    public void testClose(){
+        String token = registry.open(client, ADDRESS, RMIClientProxy::new, 0);
+        RMIClientProxy proxy = registry.touch(token, 0);
+
+        assertTrue(registry.close(token));
+        assertFalse(registry.close(token));
+        assertEquals(1, lost.size());
+        assertSame(proxy, lost.get(0));
+
+        String newToken = registry.open(client, ADDRESS, RMIClientProxy::new, 10);
+        assertNotSame(proxy, registry.touch(newToken, 10));
+        assertTrue(restored.isEmpty());
+    }
+}
@@ -0,0 +1,72 @@
+package it.polimi.se2018.networking.socket;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link BufferPool} class
+ *
+ * @author Federico Haag
+ */
+public class BufferPoolTest {
+
+    /**
+     * Tests that a released buffer is given again, with the limit of the new request
+     * @see BufferPool#acquire(int)
+     */
+    @Test
+    public void testReuse(){
+        BufferPool pool = new BufferPool(16, 2);
+        ByteBuffer buffer = pool.acquire(10);
+        assertEquals(16, buffer.capacity());
+        assertEquals(0, buffer.position());
+        assertEquals(10, buffer.limit());
+        assertTrue(buffer.hasArray());
+
+        pool.release(buffer);
+        ByteBuffer reused = pool.acquire(4);
+
+        assertSame(buffer, reused);
+        assertEquals(4, reused.limit());
+    }
+
+    /**
+     * Tests that a request bigger than the buffers of the pool gets a new buffer, that is not kept once released
+     * @see BufferPool#release(ByteBuffer)
+     */
+    @Test
+    public void testOversizeRequest(){
+        BufferPool pool = new BufferPool(16, 2);
+        ByteBuffer buffer = pool.acquire(100);
+        assertEquals(100, buffer.capacity());
+        assertEquals(100, buffer.limit());
+
+        pool.release(buffer);
+
+        assertNotSame(buffer, pool.acquire(100));
+        assertNotSame(buffer, pool.acquire(16));
+    }
+
+    /**
+     * Tests that the pool doesn't keep more idle buffers than its maximum
+     * @see BufferPool#release(ByteBuffer)
+     */
+    @Test
+    public void testMaxIdleBuffers(){
+        BufferPool pool = new BufferPool(16, 1);
+        ByteBuffer first = pool.acquire(16);
+        ByteBuffer second = pool.acquire(16);
+        assertNotSame(first, second);
+
+        pool.release(first);
+        pool.release(second);
+
+        assertSame(first, pool.acquire(16));
+        ByteBuffer next = pool.acquire(16);
+        assertNotSame(first, next);
+        assertNotSame(second, next);
+    }
+}
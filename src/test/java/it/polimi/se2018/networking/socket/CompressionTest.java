@@ -0,0 +1,281 @@
+package it.polimi.se2018.networking.socket;
+
+import it.polimi.se2018.networking.EncodedMessage;
+import it.polimi.se2018.networking.NetworkingException;
+import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.NoSuchParamInMessageException;
+import it.polimi.se2018.utils.ViewBoundMessageType;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static it.polimi.se2018.networking.socket.FrameReaderTest.*;
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link Compression} class and for the compressed frames written by {@link FrameWriter}
+ * and read by {@link FrameReader}
+ *
+ * @author Federico Haag
+ */
+public class CompressionTest {
+
+    private static final String PARAM_PAYLOAD = "payload";
+
+    /**
+     * Creates a message carrying the given number and payload
+     *
+     * @param number the number carried by the message
+     * @param payload the payload carried by the message
+     * @return the message
+     */
+    private static Message withPayload(int number, Object payload){
+        Message message = numbered(number);
+        message.getParams().put(PARAM_PAYLOAD, payload);
+        return message;
+    }
+
+    /**
+     * Returns the bytes of the given message
+     *
+     * @param message the message
+     * @return the bytes of the encoded message
+     */
+    private static byte[] bytesOf(Message message) throws IOException, NetworkingException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EncodedMessage.encode(message).writeTo(bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Compresses the given bytes with the preset dictionary
+     *
+     * @param bytes the bytes to compress
+     * @return the compressed bytes
+     */
+    private static byte[] deflate(byte[] bytes){
+        return deflate(bytes, Compression.getDictionary());
+    }
+
+    /**
+     * Compresses the given bytes with the given dictionary
+     *
+     * @param bytes the bytes to compress
+     * @param dictionary the dictionary
+     * @return the compressed bytes
+     */
+    private static byte[] deflate(byte[] bytes, byte[] dictionary){
+        Deflater deflater = new Deflater();
+        deflater.setDictionary(dictionary);
+        deflater.setInput(bytes);
+        deflater.finish();
+        byte[] buffer = new byte[bytes.length * 2 + 64];
+        int length = 0;
+        while(!deflater.finished()){
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        deflater.end();
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Returns the bytes of a compressed message frame declaring the given length of the message
+     *
+     * @param originalLength the declared length of the message
+     * @param compressed the compressed message
+     * @return the bytes of the frame
+     */
+    private static byte[] compressedFrame(int originalLength, byte[] compressed) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        new DataOutputStream(body).writeInt(originalLength);
+        body.write(compressed);
+        return frame(body.size(), FrameWriter.COMPRESSED_MESSAGE, body.toByteArray());
+    }
+
+    /**
+     * Writes the given message with a writer whose compression is enabled
+     *
+     * @param message the message to write
+     * @return the bytes of the frame
+     */
+    private static byte[] writeCompressing(Message message) throws IOException, NetworkingException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FrameWriter writer = new FrameWriter(bytes);
+        writer.enableCompression();
+        writer.write(EncodedMessage.encode(message));
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Tests that a big message is sent compressed, in fewer bytes, and read back as it was
+     * @see FrameWriter#write(EncodedMessage)
+     */
+    @Test
+    public void testCompressedRoundTrip() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        char[] text = new char[4 * Compression.THRESHOLD];
+        Arrays.fill(text, 'a');
+        Message message = withPayload(1, new String(text));
+
+        byte[] frame = writeCompressing(message);
+
+        assertEquals(FrameWriter.COMPRESSED_MESSAGE, frame[4]);
+        assertTrue(frame.length < bytesOf(message).length);
+        Message read = reader(accepted -> fail(), frame, messageFrame(2)).read();
+        assertEquals(1, numberOf(read));
+        assertEquals(new String(text), read.getParam(PARAM_PAYLOAD));
+    }
+
+    /**
+     * Tests that a message that doesn't get smaller is sent as it is
+     * @see FrameWriter#write(EncodedMessage)
+     */
+    @Test
+    public void testIncompressibleMessageIsSentAsItIs() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        byte[] noise = new byte[4 * Compression.THRESHOLD];
+        new Random(42).nextBytes(noise);
+        Message message = withPayload(1, noise);
+
+        byte[] frame = writeCompressing(message);
+
+        assertEquals(FrameWriter.MESSAGE, frame[4]);
+        Message read = reader(accepted -> fail(), frame).read();
+        assertArrayEquals(noise, (byte[]) read.getParam(PARAM_PAYLOAD));
+    }
+
+    /**
+     * Tests that messages under the threshold are never compressed
+     * @see FrameWriter#write(EncodedMessage)
+     */
+    @Test
+    public void testSmallMessageIsSentAsItIs() throws IOException, NetworkingException {
+        assertEquals(FrameWriter.MESSAGE, writeCompressing(numbered(1))[4]);
+    }
+
+    /**
+     * Tests that compression is accepted only if offered with the same dictionary
+     * @see Compression#accept(byte, int)
+     */
+    @Test
+    public void testAccept(){
+        int checksum = Compression.getDictionaryChecksum();
+        assertEquals(Compression.DEFLATE, Compression.accept(Compression.DEFLATE, checksum));
+        assertEquals(Compression.NONE, Compression.accept(Compression.DEFLATE, checksum + 1));
+        assertEquals(Compression.NONE, Compression.accept(Compression.NONE, checksum));
+    }
+
+    /**
+     * Tests that a hello frame offering compression with a different dictionary is answered with no compression
+     * @see FrameReader#read()
+     */
+    @Test
+    public void testHelloWithMismatchedDictionary() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeByte(Compression.DEFLATE);
+        out.writeInt(Compression.getDictionaryChecksum() + 1);
+        List<Integer> accepted = new ArrayList<>();
+
+        FrameReader in = reader(accepted::add, frame(FrameWriter.HELLO_SIZE, FrameWriter.HELLO, body.toByteArray()),
+                messageFrame(1));
+
+        assertEquals(1, numberOf(in.read()));
+        assertEquals(1, accepted.size());
+        assertEquals(Compression.NONE, accepted.get(0).intValue());
+    }
+
+    /**
+     * Tests that a compressed message shorter than declared is skipped, and the following one is read
+     * @see FrameReader#read()
+     */
+    @Test
+    public void testInflatedPayloadShorterThanDeclared() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        byte[] message = bytesOf(numbered(1));
+        FrameReader in = reader(accepted -> fail(), compressedFrame(message.length + 1, deflate(message)), messageFrame(2));
+
+        assertEquals(2, numberOf(in.read()));
+        assertEquals(1, in.getSkippedFrames());
+    }
+
+    /**
+     * Tests that a compressed message longer than declared is skipped, and the following one is read
+     * @see FrameReader#read()
+     */
+    @Test
+    public void testInflatedPayloadLongerThanDeclared() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        byte[] message = bytesOf(numbered(1));
+        FrameReader in = reader(accepted -> fail(), compressedFrame(message.length - 1, deflate(message)), messageFrame(2));
+
+        assertEquals(2, numberOf(in.read()));
+        assertEquals(1, in.getSkippedFrames());
+    }
+
+    /**
+     * Tests that a truncated compressed message is skipped, and the following one is read
+     * @see FrameReader#read()
+     */
+    @Test
+    public void testTruncatedCompressedPayload() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        byte[] message = bytesOf(numbered(1));
+        byte[] compressed = deflate(message);
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+        FrameReader in = reader(accepted -> fail(), compressedFrame(message.length, truncated), messageFrame(2));
+
+        assertEquals(2, numberOf(in.read()));
+        assertEquals(1, in.getSkippedFrames());
+    }
+
+    /**
+     * Tests that a message compressed with another dictionary is skipped, and the following one is read
+     * @see FrameReader#read()
+     */
+    @Test
+    public void testCompressedWithAnotherDictionary() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        byte[] message = bytesOf(numbered(1));
+        byte[] otherDictionary = "another dictionary".getBytes("UTF-8");
+        FrameReader in = reader(accepted -> fail(),
+                compressedFrame(message.length, deflate(message, otherDictionary)), messageFrame(2));
+
+        assertEquals(2, numberOf(in.read()));
+        assertEquals(1, in.getSkippedFrames());
+    }
+
+    /**
+     * Tests that a compressed message declaring a length over the maximum size is skipped without inflating it
+     * @see FrameReader#read()
+     */
+    @Test
+    public void testDeclaredLengthOverMaximum() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        byte[] message = bytesOf(numbered(1));
+        FrameReader in = reader(accepted -> fail(),
+                compressedFrame(FrameWriter.MAX_FRAME_SIZE + 1, deflate(message)), messageFrame(2));
+
+        assertEquals(2, numberOf(in.read()));
+        assertEquals(1, in.getSkippedFrames());
+    }
+
+    /**
+     * Tests that the shipped dictionary is loaded and contains the serialized sample messages,
+     * with the class descriptors of Java serialization, and that it fits the window of Deflate
+     * @see Compression#getDictionary()
+     */
+    @Test
+    public void testDictionaryContainsSerializedMessages() throws IOException {
+        byte[] dictionary = Compression.getDictionary();
+        assertTrue(dictionary.length > 0);
+        assertTrue(dictionary.length <= Compression.MAX_DICTIONARY_SIZE);
+
+        String text = new String(dictionary, "ISO-8859-1");
+        //field type signature of the window pattern snapshots and class of the batched messages
+        assertTrue(text.contains("[[Lit/polimi/se2018/model/Cell;"));
+        assertTrue(text.contains("it.polimi.se2018.model.WindowPattern"));
+        //magic number of the serialization streams
+        assertTrue(text.contains(new String(new byte[]{(byte) 0xAC, (byte) 0xED}, "ISO-8859-1")));
+    }
+}
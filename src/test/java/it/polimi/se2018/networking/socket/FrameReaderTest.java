@@ -0,0 +1,200 @@
+package it.polimi.se2018.networking.socket;
+
+import it.polimi.se2018.networking.EncodedMessage;
+import it.polimi.se2018.networking.NetworkingException;
+import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.NoSuchParamInMessageException;
+import it.polimi.se2018.utils.ViewBoundMessageType;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link FrameReader} class
+ *
+ * @author Federico Haag
+ */
+public class FrameReaderTest {
+
+    private static final String PARAM_NUMBER = "number";
+
+    /**
+     * Returns the bytes of a message frame carrying the given number
+     *
+     * @param number the number carried by the message
+     * @return the bytes of the frame
+     * @throws IOException if the frame can't be written
+     * @throws NetworkingException if the message can't be encoded
+     */
+    static byte[] messageFrame(int number) throws IOException, NetworkingException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new FrameWriter(bytes).write(EncodedMessage.encode(numbered(number)));
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the bytes of a frame with the given header and body
+     *
+     * @param length the length written in the header
+     * @param type the type of the frame
+     * @param body the body of the frame
+     * @return the bytes of the frame
+     * @throws IOException if the frame can't be written
+     */
+    static byte[] frame(int length, byte type, byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(length);
+        out.writeByte(type);
+        out.write(body);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Creates a message carrying the given number
+     *
+     * @param number the number carried by the message
+     * @return the message
+     */
+    static Message numbered(int number){
+        return new Message(ViewBoundMessageType.SETUP, Message.fastMap(PARAM_NUMBER, number));
+    }
+
+    /**
+     * Returns the number carried by the given message
+     *
+     * @param message the message
+     * @return the number carried by the message
+     * @throws NoSuchParamInMessageException if the message doesn't carry a number
+     */
+    static int numberOf(Message message) throws NoSuchParamInMessageException {
+        return (Integer) message.getParam(PARAM_NUMBER);
+    }
+
+    /**
+     * Creates a reader of the given frames, one after the other
+     *
+     * @param helloListener listener of the accepted compression
+     * @param frames the frames to read
+     * @return the reader
+     * @throws IOException if the frames can't be joined
+     */
+    static FrameReader reader(IntConsumer helloListener, byte[]... frames) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for(byte[] frame : frames){
+            bytes.write(frame);
+        }
+        return new FrameReader(new ByteArrayInputStream(bytes.toByteArray()), helloListener);
+    }
+
+    /**
+     * Tests that written messages are read back in order
+     * @see FrameReader#read()
+     */
+    @Test
+    public void testRead() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        FrameReader in = reader(accepted -> fail(), messageFrame(1), messageFrame(2));
+
+        assertEquals(1, numberOf(in.read()));
+        assertEquals(2, numberOf(in.read()));
+        assertEquals(0, in.getSkippedFrames());
+    }
+
+    /**
+     * Tests that a frame bigger than the maximum size is skipped, and the following one is read
+     * @see FrameReader#read()
+     */
+    @Test
+    public void testOversizeFrameIsSkipped() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        int length = FrameWriter.MAX_FRAME_SIZE + 1;
+        FrameReader in = reader(accepted -> fail(),
+                frame(length, FrameWriter.MESSAGE, new byte[length]), messageFrame(1));
+
+        assertEquals(1, numberOf(in.read()));
+        assertEquals(1, in.getSkippedFrames());
+    }
+
+    /**
+     * Tests that a frame of unknown type is skipped, and the following one is read
+     * @see FrameReader#read()
+     */
+    @Test
+    public void testUnknownFrameTypeIsSkipped() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        FrameReader in = reader(accepted -> fail(),
+                frame(3, (byte) 42, new byte[]{1, 2, 3}), messageFrame(1));
+
+        assertEquals(1, numberOf(in.read()));
+        assertEquals(1, in.getSkippedFrames());
+    }
+
+    /**
+     * Tests that a message frame whose body is not a message is skipped, and the following one is read
+     * @see FrameReader#read()
+     */
+    @Test
+    public void testUndecodableBodyIsSkipped() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        byte[] body = "not a serialized message".getBytes("UTF-8");
+        FrameReader in = reader(accepted -> fail(),
+                frame(body.length, FrameWriter.MESSAGE, body), messageFrame(1));
+
+        assertEquals(1, numberOf(in.read()));
+        assertEquals(1, in.getSkippedFrames());
+    }
+
+    /**
+     * Tests that a header whose length can't belong to a frame closes the connection
+     * @see FrameReader#read()
+     */
+    @Test
+    public void testGarbageHeaderClosesTheConnection() throws IOException, NetworkingException {
+        FrameReader in = reader(accepted -> fail(), frame(-1, FrameWriter.MESSAGE, new byte[0]), messageFrame(1));
+
+        try {
+            in.read();
+            fail();
+        } catch (StreamCorruptedException e) {
+            assertEquals(0, in.getSkippedFrames());
+        }
+
+        FrameReader hugeLength = reader(accepted -> fail(), frame(Integer.MAX_VALUE, FrameWriter.MESSAGE, new byte[0]));
+        try {
+            hugeLength.read();
+            fail();
+        } catch (StreamCorruptedException e) {
+            assertEquals(0, hugeLength.getSkippedFrames());
+        }
+    }
+
+    /**
+     * Tests that the end of the stream is told to the caller
+     * @see FrameReader#read()
+     */
+    @Test(expected = EOFException.class)
+    public void testEndOfStream() throws IOException, NetworkingException {
+        FrameReader in = reader(accepted -> fail(), messageFrame(1));
+        in.read();
+        in.read();
+    }
+
+    /**
+     * Tests that hello frames are given to the hello listener and not returned as messages
+     * @see FrameReader#read()
+     */
+    @Test
+    public void testHello() throws IOException, NetworkingException, NoSuchParamInMessageException {
+        ByteArrayOutputStream hello = new ByteArrayOutputStream();
+        new FrameWriter(hello).writeHello(Compression.DEFLATE);
+        List<Integer> accepted = new ArrayList<>();
+
+        FrameReader in = reader(accepted::add, hello.toByteArray(), messageFrame(1));
+
+        assertEquals(1, numberOf(in.read()));
+        assertEquals(1, accepted.size());
+        assertEquals(Compression.DEFLATE, accepted.get(0).intValue());
+    }
+}
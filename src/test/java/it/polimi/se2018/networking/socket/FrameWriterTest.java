@@ -0,0 +1,67 @@
+package it.polimi.se2018.networking.socket;
+
+import it.polimi.se2018.networking.EncodedMessage;
+import it.polimi.se2018.networking.NetworkingException;
+import it.polimi.se2018.utils.Message;
+import it.polimi.se2018.utils.ViewBoundMessageType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link FrameWriter} class
+ *
+ * @author Federico Haag
+ */
+public class FrameWriterTest {
+
+    /**
+     * Tests that a message frame is made of the length, the type and the bytes of the encoded message
+     * @see FrameWriter#write(EncodedMessage)
+     */
+    @Test
+    public void testWrite() throws IOException, NetworkingException {
+        EncodedMessage message = EncodedMessage.encode(FrameReaderTest.numbered(1));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        new FrameWriter(bytes).write(message);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(message.size(), in.readInt());
+        assertEquals(FrameWriter.MESSAGE, in.readByte());
+        byte[] body = new byte[message.size()];
+        in.readFully(body);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        message.writeTo(expected);
+        assertArrayEquals(expected.toByteArray(), body);
+        assertEquals(0, in.available());
+    }
+
+    /**
+     * Tests that a message bigger than the maximum size of a frame is refused, and nothing is written
+     * @see FrameWriter#write(EncodedMessage)
+     */
+    @Test
+    public void testOversizeMessageIsRefused() throws IOException, NetworkingException {
+        EncodedMessage message = EncodedMessage.encode(new Message(ViewBoundMessageType.SETUP,
+                Message.fastMap("payload", new byte[FrameWriter.MAX_FRAME_SIZE])));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FrameWriter writer = new FrameWriter(bytes);
+
+        try {
+            writer.write(message);
+            fail();
+        } catch (NetworkingException e) {
+            assertEquals(0, bytes.size());
+        }
+
+        //the writer can still be used
+        writer.write(EncodedMessage.encode(FrameReaderTest.numbered(1)));
+        assertTrue(bytes.size() > 0);
+    }
+}
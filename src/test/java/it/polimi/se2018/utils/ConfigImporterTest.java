@@ -57,4 +57,25 @@ public class ConfigImporterTest {
         assertEquals("2", p.getProperty("minNumberOfPlayers"));
         assertEquals("2", p.getProperty("amountOfCouplesOfPatternsPerPlayer"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the config is parsed once and that the default config is valid
+     * @see ConfigImporter#getConfig()
+     */
+    @Test
+    public void testGetConfig() throws NoConfigParamFoundException {
+        Config config = configImporter.getConfig();
+
+        assertEquals(10, config.getNumberOfRounds());
+        assertSame(config, configImporter.getConfig());
+    }
+
+    /**
+     * Tests that a missing config file can't be imported
+     * @see ConfigImporter#getConfig()
+     */
+    @Test(expected = NoConfigParamFoundException.class)
+    public void testGetConfigOfMissingFile() throws NoConfigParamFoundException {
+        new ConfigImporter("missing").getConfig();
+    }
+}
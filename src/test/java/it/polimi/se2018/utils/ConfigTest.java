@@ -0,0 +1,163 @@
+package it.polimi.se2018.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link Config} class
+ *
+ * @author Federico Haag
+ */
+public class ConfigTest {
+
+    private Properties properties;
+
+    @Before
+    public void setUp(){
+        properties = new Properties();
+        properties.setProperty("numberOfRounds","10");
+        properties.setProperty("numberOfDicesPerColor","18");
+        properties.setProperty("numberOfToolCards","3");
+        properties.setProperty("numberOfPublicObjectiveCards","2");
+        properties.setProperty("maxNumberOfPlayers","4");
+        properties.setProperty("minNumberOfPlayers","2");
+        properties.setProperty("timeoutLaunchingGame","40");
+        properties.setProperty("timeoutChoosingPatterns","40");
+        properties.setProperty("amountOfCouplesOfPatternsPerPlayer","2");
+        properties.setProperty("timeoutPlayerMove","120");
+        properties.setProperty("persistencyPath","globalrankings.xml");
+    }
+
+    /**
+     * Tests that properties are parsed when the config is created and that later changes
+     * of the given properties don't change the config
+     * @see Config#getInt(String)
+     * @see Config#getInt(String, int)
+     */
+    @Test
+    public void testGetInt(){
+        Config config = new Config(properties);
+        properties.setProperty("numberOfRounds","5");
+
+        assertEquals(10, config.getNumberOfRounds());
+        assertEquals(120, config.getTimeoutPlayerMove());
+        assertEquals(7, config.getInt("botThinkingTime", 7));
+        assertEquals(7, config.getInt("persistencyPath", 7));
+        assertEquals("globalrankings.xml", config.getProperties().getProperty("persistencyPath"));
+        try {
+            config.getInt("persistencyPath");
+            fail();
+        } catch (NumberFormatException e) {}
+    }
+
+    /**
+     * Tests that optional properties missing from the config are read with their default values,
+     * and that the given ones are read as they are
+     * @see Config#getBotThinkingTime()
+     * @see Config#getWaitingRoomCapacity()
+     */
+    @Test
+    public void testOptionalProperties(){
+        Config defaults = new Config(properties);
+        assertEquals(0, defaults.getBotThinkingTime());
+        assertEquals(4, defaults.getWaitingRoomCapacity());
+        assertEquals(500, defaults.getMaxNumberOfSpectators());
+        assertEquals(256, defaults.getMaxConnections());
+
+        properties.setProperty(Config.BOT_THINKING_TIME,"1000");
+        properties.setProperty(Config.WAITING_ROOM_CAPACITY,"12");
+        properties.setProperty(Config.MAX_CONNECTIONS,"64");
+        properties.setProperty(Config.SESSION_MESSAGES_PER_SECOND,"not a number");
+        Config config = new Config(properties);
+        assertEquals(1000, config.getBotThinkingTime());
+        assertEquals(12, config.getWaitingRoomCapacity());
+        assertEquals(64, config.getMaxConnections());
+        assertEquals(defaults.getSessionMessagesPerSecond(), config.getSessionMessagesPerSecond());
+
+        //the waiting room holds at least the players of a game
+        properties.setProperty(Config.WAITING_ROOM_CAPACITY,"2");
+        assertEquals(4, new Config(properties).getWaitingRoomCapacity());
+    }
+
+    /**
+     * Tests that a valid config is accepted
+     * @see Config#validated(Properties)
+     */
+    @Test
+    public void testValidated() throws NoConfigParamFoundException {
+        assertEquals(2, Config.validated(properties).getMinNumberOfPlayers());
+    }
+
+    /**
+     * Tests that a config missing a parameter of the game is not valid
+     * @see Config#validated(Properties)
+     */
+    @Test
+    public void testValidatedMissingProperty(){
+        properties.remove("timeoutPlayerMove");
+        try {
+            Config.validated(properties);
+            fail();
+        } catch (NoConfigParamFoundException e) {
+            assertTrue(e.getMessage().contains("timeoutPlayerMove"));
+        }
+    }
+
+    /**
+     * Tests that a config with a not positive or not integer parameter of the game is not valid
+     * @see Config#validated(Properties)
+     */
+    @Test
+    public void testValidatedNotValidProperty(){
+        properties.setProperty("numberOfRounds","0");
+        try {
+            Config.validated(properties);
+            fail();
+        } catch (NoConfigParamFoundException e) {}
+
+        properties.setProperty("numberOfRounds","ten");
+        try {
+            Config.validated(properties);
+            fail();
+        } catch (NoConfigParamFoundException e) {}
+    }
+
+    /**
+     * Tests that a config with more minimum players than maximum players is not valid
+     * @see Config#validated(Properties)
+     */
+    @Test
+    public void testValidatedNumberOfPlayers(){
+        properties.setProperty("minNumberOfPlayers","5");
+        try {
+            Config.validated(properties);
+            fail();
+        } catch (NoConfigParamFoundException e) {}
+    }
+
+    /**
+     * Tests that only the timeouts are taken from the other config
+     * @see Config#withTimeoutsOf(Config)
+     */
+    @Test
+    public void testWithTimeoutsOf(){
+        Config config = new Config(properties);
+
+        Properties tuned = new Properties();
+        tuned.putAll(properties);
+        tuned.setProperty("timeoutPlayerMove","30");
+        tuned.setProperty("timeoutChoosingPatterns","20");
+        tuned.setProperty("numberOfRounds","3");
+
+        Config merged = config.withTimeoutsOf(new Config(tuned));
+
+        assertEquals(30, merged.getTimeoutPlayerMove());
+        assertEquals(20, merged.getTimeoutChoosingPatterns());
+        assertEquals(10, merged.getNumberOfRounds());
+        assertEquals(120, config.getTimeoutPlayerMove());
+    }
+}
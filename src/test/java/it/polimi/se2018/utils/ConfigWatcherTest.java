@@ -0,0 +1,95 @@
+package it.polimi.se2018.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link ConfigWatcher} class
+ *
+ * @author Federico Haag
+ */
+public class ConfigWatcherTest {
+
+    private Path configFile;
+
+    private Properties properties;
+
+    private List<Config> reloadedConfigs;
+
+    private ConfigWatcher configWatcher;
+
+    @Before
+    public void setUp() throws IOException, NoConfigParamFoundException {
+        Logger.getLogger(ConfigWatcher.class.getName()).setLevel(Level.OFF);
+
+        properties = new ConfigImporter().getProperties();
+        configFile = Files.createTempFile("config", null);
+        write(properties);
+
+        reloadedConfigs = new ArrayList<>();
+        configWatcher = new ConfigWatcher(configFile, Config.validated(properties), reloadedConfigs::add);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(configFile);
+        Logger.getLogger(ConfigWatcher.class.getName()).setLevel(null);
+    }
+
+    /**
+     * Writes the given properties in the config file
+     *
+     * @param properties the properties to write
+     * @throws IOException if writing fails
+     */
+    private void write(Properties properties) throws IOException {
+        try (OutputStream output = Files.newOutputStream(configFile)) {
+            properties.store(output, null);
+        }
+    }
+
+    /**
+     * Tests that a valid changed config file replaces the current config
+     * @see ConfigWatcher#reload()
+     */
+    @Test
+    public void testReload() throws IOException {
+        properties.setProperty("timeoutPlayerMove","30");
+        write(properties);
+
+        assertTrue(configWatcher.reload());
+
+        assertEquals(30, configWatcher.getConfig().getTimeoutPlayerMove());
+        assertEquals(1, reloadedConfigs.size());
+        assertSame(configWatcher.getConfig(), reloadedConfigs.get(0));
+    }
+
+    /**
+     * Tests that a not valid changed config file is ignored
+     * @see ConfigWatcher#reload()
+     */
+    @Test
+    public void testReloadNotValidConfig() throws IOException {
+        Config initialConfig = configWatcher.getConfig();
+        properties.setProperty("timeoutPlayerMove","-1");
+        write(properties);
+
+        assertFalse(configWatcher.reload());
+
+        assertSame(initialConfig, configWatcher.getConfig());
+        assertTrue(reloadedConfigs.isEmpty());
+    }
+}
@@ -3,6 +3,8 @@ package it.polimi.se2018.utils;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
@@ -134,6 +136,20 @@ public class MessageTest {
         }
     }
 
-
-
-}
\ No newline at end of file
+    /**
+     * Tests that a batch contains the given messages in order and that other messages contain only themselves
+     * @see Message#batch(List, String)
+     * @see Message#unbatch()
+     */
+    @Test
+    public void testBatch(){
+        Message first = new Message(ViewBoundMessageType.NEW_TURN);
+        Message second = new Message(ViewBoundMessageType.HISTORY);
+        Message batch = Message.batch(Arrays.asList(first, second), playerID);
+
+        assertEquals(ViewBoundMessageType.BATCH, batch.getType());
+        assertEquals(playerID, batch.getPlayerID());
+        assertEquals(Arrays.asList(first, second), batch.unbatch());
+        assertEquals(Collections.singletonList(message), message.unbatch());
+    }
+}
@@ -0,0 +1,220 @@
+package it.polimi.se2018.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link Observable} class
+ *
+ * @author Federico Haag
+ */
+public class ObservableTest {
+
+    private Observable observable;
+
+    private List<String> received;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp(){
+        Logger.getLogger(Observable.class.getName()).setLevel(Level.OFF);
+        observable = new Observable();
+        received = new CopyOnWriteArrayList<>();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown(){
+        executor.shutdownNow();
+        Logger.getLogger(Observable.class.getName()).setLevel(null);
+    }
+
+    /**
+     * Creates an observer that records the messages it receives, prefixed by the given name
+     *
+     * @param name the name of the observer
+     * @return the observer
+     */
+    private Observer recorder(String name){
+        return message -> received.add(name + message.getType());
+    }
+
+    /**
+     * Tests that observers are notified in registration order and only once, even if registered twice
+     * @see Observable#register(Observer)
+     * @see Observable#notify(Message)
+     */
+    @Test
+    public void testNotify(){
+        Observer first = recorder("first ");
+        observable.register(first);
+        observable.register(recorder("second "));
+        observable.register(first);
+
+        observable.notify(new Message(ViewBoundMessageType.SETUP));
+
+        assertEquals(2, received.size());
+        assertEquals("first SETUP", received.get(0));
+        assertEquals("second SETUP", received.get(1));
+    }
+
+    /**
+     * Tests that a deregistered observer is not notified anymore
+     * @see Observable#deregister(Observer)
+     */
+    @Test
+    public void testDeregister(){
+        Observer observer = recorder("");
+        observable.register(observer);
+        observable.deregister(observer);
+        observable.deregister(null);
+
+        observable.notify(new Message(ViewBoundMessageType.SETUP));
+
+        assertTrue(received.isEmpty());
+    }
+
+    /**
+     * Tests that an observer can deregister itself while being notified, without affecting the current notification
+     * @see Observable#notify(Message)
+     */
+    @Test
+    public void testDeregisterWhileNotifying(){
+        observable.register(new Observer() {
+            @Override
+            public boolean update(Message message) {
+                observable.deregister(this);
+                return received.add("once");
+            }
+        });
+        observable.register(recorder(""));
+
+        observable.notify(new Message(ViewBoundMessageType.SETUP));
+        observable.notify(new Message(ViewBoundMessageType.SETUP));
+
+        assertEquals(3, received.size());
+        assertEquals(1, received.stream().filter("once"::equals).count());
+    }
+
+    /**
+     * Tests that an observer throwing an exception doesn't prevent the others from being notified
+     * @see Observable#notify(Message)
+     */
+    @Test
+    public void testFailingObserverIsIsolated(){
+        observable.register(message -> { throw new IllegalStateException(); });
+        observable.register(recorder(""));
+
+        observable.notify(new Message(ViewBoundMessageType.SETUP));
+
+        assertEquals(1, received.size());
+    }
+
+    /**
+     * Tests that an observer blocked while being updated doesn't stall the notifications of other threads
+     * @see Observable#notify(Message)
+     */
+    @Test
+    public void testSlowObserverDoesNotStallOtherNotifications() throws InterruptedException, ExecutionException, TimeoutException {
+        CountDownLatch updating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        observable.register(message -> {
+            if(message.getType() == ViewBoundMessageType.SETUP){
+                updating.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return true;
+        });
+        observable.register(recorder(""));
+
+        Future<?> slow = executor.submit(() -> observable.notify(new Message(ViewBoundMessageType.SETUP)));
+        assertTrue(updating.await(5, TimeUnit.SECONDS));
+
+        executor.submit(() -> observable.notify(new Message(ViewBoundMessageType.PING))).get(5, TimeUnit.SECONDS);
+        assertEquals(1, received.size());
+        assertEquals("PING", received.get(0));
+
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        assertEquals(2, received.size());
+    }
+
+    /**
+     * Tests that all the messages notified by concurrent threads are delivered to all the observers,
+     * and that the messages of each thread are received in order
+     * @see Observable#notify(Message)
+     */
+    @Test
+    public void testConcurrentNotifications() throws InterruptedException {
+        int numberOfThreads = 4;
+        int messagesPerThread = 250;
+        List<Integer> firstNumbers = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> secondNumbers = Collections.synchronizedList(new ArrayList<>());
+        observable.register(numbersRecorder(firstNumbers));
+        observable.register(numbersRecorder(secondNumbers));
+
+        CountDownLatch start = new CountDownLatch(1);
+        for(int t = 0; t < numberOfThreads; t++){
+            int offset = t * messagesPerThread;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for(int i = 0; i < messagesPerThread; i++){
+                    observable.notify(new Message(ViewBoundMessageType.SETUP, Message.fastMap("number", offset + i)));
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        for(List<Integer> numbers : Arrays.asList(firstNumbers, secondNumbers)){
+            assertEquals(numberOfThreads * messagesPerThread, numbers.size());
+            for(int t = 0; t < numberOfThreads; t++){
+                int offset = t * messagesPerThread;
+                List<Integer> ofThread = new ArrayList<>();
+                numbers.stream().filter(n -> n >= offset && n < offset + messagesPerThread).forEach(ofThread::add);
+                for(int i = 0; i < messagesPerThread; i++){
+                    assertEquals(offset + i, ofThread.get(i).intValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates an observer that records the numbers of the messages it receives
+     *
+     * @param numbers the list where the numbers are recorded
+     * @return the observer
+     */
+    private Observer numbersRecorder(List<Integer> numbers){
+        return message -> {
+            try {
+                numbers.add((Integer) message.getParam("number"));
+            } catch (NoSuchParamInMessageException e) {
+                fail();
+            }
+            return true;
+        };
+    }
+}